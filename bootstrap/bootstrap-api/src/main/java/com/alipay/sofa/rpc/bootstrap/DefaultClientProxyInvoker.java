@@ -20,6 +20,7 @@ import com.alipay.sofa.rpc.client.ClientProxyInvoker;
 import com.alipay.sofa.rpc.client.Cluster;
 import com.alipay.sofa.rpc.codec.SerializerFactory;
 import com.alipay.sofa.rpc.common.RemotingConstants;
+import com.alipay.sofa.rpc.common.RpcConstants;
 import com.alipay.sofa.rpc.config.ConfigUniqueNameGenerator;
 import com.alipay.sofa.rpc.context.BaggageResolver;
 import com.alipay.sofa.rpc.context.RpcInternalContext;
@@ -30,8 +31,13 @@ import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
 import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
 import com.alipay.sofa.rpc.log.LogCodes;
+import com.alipay.sofa.rpc.message.CompletableResponseCallback;
 import com.alipay.sofa.rpc.message.ResponseFuture;
 
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
+
 import static com.alipay.sofa.rpc.common.RpcConstants.HIDDEN_KEY_INVOKE_CONTEXT;
 import static com.alipay.sofa.rpc.common.RpcConstants.HIDDEN_KEY_PINPOINT;
 import static com.alipay.sofa.rpc.common.RpcConstants.INTERNAL_KEY_APP_NAME;
@@ -48,12 +54,17 @@ public class DefaultClientProxyInvoker extends ClientProxyInvoker {
     /**
      * 缓存接口名
      */
-    protected String serviceName;
+    protected String      serviceName;
 
     /**
      * 缓存序列化类型
      */
-    protected Byte   serializeType;
+    protected Byte        serializeType;
+
+    /**
+     * 返回值为CompletableFuture的方法，refer时解析。按方法而不是方法名区分，重载方法的返回值可能不同
+     */
+    protected Set<Method> completableMethods;
 
     /**
      * 构造执行链
@@ -69,6 +80,20 @@ public class DefaultClientProxyInvoker extends ClientProxyInvoker {
         // 缓存数据
         this.serviceName = ConfigUniqueNameGenerator.getServiceName(consumerConfig);
         this.serializeType = parseSerializeType(consumerConfig.getSerialization());
+        this.completableMethods = parseCompletableMethods();
+    }
+
+    protected Set<Method> parseCompletableMethods() {
+        Set<Method> methods = new HashSet<Method>();
+        if (consumerConfig.isGeneric()) {
+            return methods;
+        }
+        for (Method method : consumerConfig.getProxyClass().getMethods()) {
+            if (CompletableResponseCallback.isCompletableMethod(method)) {
+                methods.add(method);
+            }
+        }
+        return methods;
     }
 
     protected Byte parseSerializeType(String serialization) {
@@ -116,6 +141,12 @@ public class DefaultClientProxyInvoker extends ClientProxyInvoker {
                 internalContext.setAttachment(HIDDEN_KEY_PINPOINT, targetURL);
                 invokeCtx.setTargetURL(null);// 一次性用完
             }
+            // 如果用户指定了请求优先级
+            String priority = invokeCtx.getPriority();
+            if (priority != null) {
+                request.addRequestProp(RemotingConstants.HEAD_PRIORITY, priority);
+                invokeCtx.setPriority(null);// 一次性用完
+            }
             // 如果用户指定了透传数据
             if (RpcInvokeContext.isBaggageEnable()) {
                 // 需要透传
@@ -128,6 +159,12 @@ public class DefaultClientProxyInvoker extends ClientProxyInvoker {
             internalContext.setAttachment(INTERNAL_KEY_PROTOCOL_NAME, consumerConfig.getProtocol());
         }
 
+        if (isCompletableRequest(request)) {
+            // 返回值为CompletableFuture，以callback方式调用，不通过线程上下文传递Future
+            request.setInvokeType(RpcConstants.INVOKER_TYPE_CALLBACK);
+            request.setSofaResponseCallback(new CompletableResponseCallback());
+        }
+
         // 额外属性通过HEAD传递给服务端
         request.addRequestProp(RemotingConstants.HEAD_APP_NAME, consumerConfig.getAppName());
         request.addRequestProp(RemotingConstants.HEAD_PROTOCOL, consumerConfig.getProtocol());
@@ -160,6 +197,12 @@ public class DefaultClientProxyInvoker extends ClientProxyInvoker {
         }
     }
 
+    @Override
+    protected boolean isCompletableRequest(SofaRequest request) {
+        Method method = request.getMethod();
+        return method != null && completableMethods.contains(method);
+    }
+
     /**
      * 是否是异步Callback，如果跨classloader下不能直接使用instanceof
      *
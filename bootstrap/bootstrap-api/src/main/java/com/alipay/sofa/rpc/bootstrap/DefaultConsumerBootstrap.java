@@ -145,6 +145,13 @@ public class DefaultConsumerBootstrap<T> extends ConsumerBootstrap<T> {
             }
 
             try {
+                // 动态配置，先于集群初始化，集群会读取动态配置
+                final String dynamicAlias = consumerConfig.getParameter(DynamicConfigKeys.DYNAMIC_ALIAS);
+                if (StringUtils.isNotBlank(dynamicAlias)) {
+                    final DynamicConfigManager dynamicManager = DynamicConfigManagerFactory.getDynamicManager(
+                        consumerConfig.getAppName(), dynamicAlias);
+                    dynamicManager.initServiceConfiguration(consumerConfig.getInterfaceId());
+                }
                 // build cluster
                 cluster = ClusterFactory.getCluster(this);
                 // build listeners
@@ -157,14 +164,6 @@ public class DefaultConsumerBootstrap<T> extends ConsumerBootstrap<T> {
                 // 创建代理类
                 proxyIns = (T) ProxyFactory.buildProxy(consumerConfig.getProxy(), consumerConfig.getProxyClass(),
                     proxyInvoker);
-
-                //动态配置
-                final String dynamicAlias = consumerConfig.getParameter(DynamicConfigKeys.DYNAMIC_ALIAS);
-                if (StringUtils.isNotBlank(dynamicAlias)) {
-                    final DynamicConfigManager dynamicManager = DynamicConfigManagerFactory.getDynamicManager(
-                        consumerConfig.getAppName(), dynamicAlias);
-                    dynamicManager.initServiceConfiguration(consumerConfig.getInterfaceId());
-                }
             } catch (Exception e) {
                 if (cluster != null) {
                     cluster.destroy();
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.bootstrap;
+
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.context.RpcInternalContext;
+import com.alipay.sofa.rpc.core.exception.RpcErrorType;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.message.CompletableResponseCallback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 测试返回值为CompletableFuture的方法的调用
+ */
+public class DefaultClientProxyInvokerTest {
+
+    private DefaultClientProxyInvoker buildInvoker(final SofaRpcException sendException) {
+        ConsumerConfig<AsyncService> consumerConfig = new ConsumerConfig<AsyncService>()
+            .setInterfaceId(AsyncService.class.getName())
+            .setBootstrap("sofa");
+        return new DefaultClientProxyInvoker(Bootstraps.from(consumerConfig)) {
+            @Override
+            protected Byte parseSerializeType(String serialization) {
+                return 1;
+            }
+
+            @Override
+            protected void decorateRequest(SofaRequest request) {
+                super.decorateRequest(request);
+                if (sendException != null) {
+                    throw sendException;
+                }
+            }
+        };
+    }
+
+    private SofaRequest buildRequest(Class<?>... parameterTypes) throws NoSuchMethodException {
+        SofaRequest request = new SofaRequest();
+        request.setInterfaceName(AsyncService.class.getName());
+        request.setMethodName("echo");
+        request.setMethod(AsyncService.class.getMethod("echo", parameterTypes));
+        request.setMethodArgs(new Object[parameterTypes.length]);
+        return request;
+    }
+
+    @Test
+    public void testCompletableMethod() throws Exception {
+        DefaultClientProxyInvoker invoker = buildInvoker(null);
+        try {
+            // 重载方法中只有返回CompletableFuture的方法以callback方式调用
+            SofaRequest request = buildRequest(String.class);
+            invoker.decorateRequest(request);
+            Assert.assertEquals(RpcConstants.INVOKER_TYPE_CALLBACK, request.getInvokeType());
+            Assert.assertTrue(request.getSofaResponseCallback() instanceof CompletableResponseCallback);
+
+            request = buildRequest(String.class, String.class);
+            invoker.decorateRequest(request);
+            Assert.assertEquals(RpcConstants.INVOKER_TYPE_SYNC, request.getInvokeType());
+            Assert.assertNull(request.getSofaResponseCallback());
+        } finally {
+            RpcInternalContext.removeAllContext();
+        }
+    }
+
+    @Test
+    public void testFailureBeforeSend() throws Exception {
+        SofaRpcException exception = new SofaRpcException(RpcErrorType.CLIENT_ROUTER, "no provider");
+        DefaultClientProxyInvoker invoker = buildInvoker(exception);
+
+        // 返回CompletableFuture的方法，发送前的异常通过Future返回
+        SofaResponse response = invoker.invoke(buildRequest(String.class));
+        Assert.assertTrue(response.getAppResponse() instanceof CompletableFuture);
+        CompletableFuture<?> future = (CompletableFuture<?>) response.getAppResponse();
+        Assert.assertTrue(future.isCompletedExceptionally());
+        try {
+            future.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertSame(exception, e.getCause());
+        }
+
+        // 同步方法直接抛出异常
+        try {
+            invoker.invoke(buildRequest(String.class, String.class));
+            Assert.fail();
+        } catch (SofaRpcException e) {
+            Assert.assertSame(exception, e);
+        }
+    }
+
+    public interface AsyncService {
+
+        CompletableFuture<String> echo(String message);
+
+        String echo(String message, String suffix);
+    }
+}
@@ -19,6 +19,7 @@ package com.alipay.sofa.rpc.codec.jackson;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.alipay.sofa.rpc.common.utils.ClassUtils;
 import com.alipay.sofa.rpc.config.ConfigUniqueNameGenerator;
@@ -26,23 +27,37 @@ import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
 import com.alipay.sofa.rpc.log.LogCodes;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 /**
  * @author <a href="mailto:zhiyuan.lzy@antfin.com">zhiyuan.lzy</a>
  */
 public class JacksonHelper {
 
-    private ObjectMapper                          mapper             = new ObjectMapper();
+    private final ObjectMapper                                                mapper;
 
     /**
-     * Request service and method cache {service+method:class}
+     * Method cache {service:{method:JacksonMethod}}
      */
-    private ConcurrentHashMap<String, JavaType[]> requestClassCache  = new ConcurrentHashMap<String, JavaType[]>();
+    private final ConcurrentMap<String, ConcurrentMap<String, JacksonMethod>> methodCache = new ConcurrentHashMap<String, ConcurrentMap<String, JacksonMethod>>();
 
     /**
-     * Response service and method cache {service+method:class}
+     * Reader cache of classes decoded without method info {class:reader}
      */
-    private ConcurrentHashMap<String, JavaType>   responseClassCache = new ConcurrentHashMap<String, JavaType>();
+    private final ConcurrentMap<Class, ObjectReader>                          readerCache = new ConcurrentHashMap<Class, ObjectReader>();
+
+    public JacksonHelper() {
+        this(new ObjectMapper());
+    }
+
+    /**
+     * Readers are created from the given mapper, so they share its features and modules
+     *
+     * @param mapper object mapper
+     */
+    public JacksonHelper(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
 
     /**
      * Fetch request class for cache according  service and method
@@ -52,16 +67,7 @@ public class JacksonHelper {
      * @return request class
      */
     public JavaType[] getReqClass(String service, String methodName) {
-
-        String key = buildMethodKey(service, methodName);
-        Type[] reqClassList = requestClassCache.get(key);
-        if (reqClassList == null) {
-            //read interface and method from cache
-            String interfaceClass = ConfigUniqueNameGenerator.getInterfaceName(service);
-            Class clazz = ClassUtils.forName(interfaceClass, true);
-            loadClassToCache(key, clazz, methodName);
-        }
-        return requestClassCache.get(key);
+        return getMethod(service, methodName).reqTypes;
     }
 
     /**
@@ -72,36 +78,84 @@ public class JacksonHelper {
      * @return response class
      */
     public JavaType getResClass(String service, String methodName) {
-        String key = service + "#" + methodName;
-        JavaType reqType = responseClassCache.get(key);
-        if (reqType == null) {
-            // 读取接口里的方法参数和返回值
-            String interfaceClass = ConfigUniqueNameGenerator.getInterfaceName(service);
-            Class clazz = ClassUtils.forName(interfaceClass, true);
-            loadClassToCache(key, clazz, methodName);
+        return getMethod(service, methodName).resType;
+    }
+
+    /**
+     * Fetch pre-resolved request readers according service and method, one reader per parameter
+     *
+     * @param service    interface name
+     * @param methodName method name
+     * @return request readers
+     */
+    public ObjectReader[] getReqReaders(String service, String methodName) {
+        return getMethod(service, methodName).reqReaders();
+    }
+
+    /**
+     * Fetch pre-resolved response reader according service and method
+     *
+     * @param service    interface name
+     * @param methodName method name
+     * @return response reader
+     */
+    public ObjectReader getResReader(String service, String methodName) {
+        return getMethod(service, methodName).resReader();
+    }
+
+    /**
+     * Fetch reader of class
+     *
+     * @param clazz class
+     * @return reader
+     */
+    public ObjectReader getReader(Class clazz) {
+        ObjectReader reader = readerCache.get(clazz);
+        if (reader == null) {
+            reader = mapper.readerFor(clazz);
+            ObjectReader old = readerCache.putIfAbsent(clazz, reader);
+            if (old != null) {
+                reader = old;
+            }
         }
-        return responseClassCache.get(key);
+        return reader;
     }
 
     /**
-     * build cache key
+     * Fetch method info from cache, load it from interface at the first time
      *
-     * @param serviceName interface name
-     * @param methodName  method name
-     * @return Key
+     * @param service    interface name
+     * @param methodName method name
+     * @return method info
      */
-    private String buildMethodKey(String serviceName, String methodName) {
-        return serviceName + "#" + methodName;
+    private JacksonMethod getMethod(String service, String methodName) {
+        ConcurrentMap<String, JacksonMethod> methods = methodCache.get(service);
+        if (methods == null) {
+            methods = new ConcurrentHashMap<String, JacksonMethod>();
+            ConcurrentMap<String, JacksonMethod> old = methodCache.putIfAbsent(service, methods);
+            if (old != null) {
+                methods = old;
+            }
+        }
+        JacksonMethod method = methods.get(methodName);
+        if (method == null) {
+            //read interface and method from cache
+            String interfaceClass = ConfigUniqueNameGenerator.getInterfaceName(service);
+            Class clazz = ClassUtils.forName(interfaceClass, true);
+            method = loadMethod(clazz, methodName);
+            methods.put(methodName, method);
+        }
+        return method;
     }
 
     /**
-     * load method paramters and return types to cache, will not pass through to next
+     * load method paramters and return types
      *
-     * @param key        key
      * @param clazz      interface name
      * @param methodName method name
+     * @return method info
      */
-    private void loadClassToCache(String key, Class clazz, String methodName) {
+    private JacksonMethod loadMethod(Class clazz, String methodName) {
         Method jsonMethod = null;
         Method[] methods = clazz.getMethods();
         for (Method method : methods) {
@@ -122,7 +176,6 @@ public class JacksonHelper {
             JavaType javaType = mapper.getTypeFactory().constructType(parameterTypes[i]);
             javaTypes[i] = javaType;
         }
-        requestClassCache.put(key, javaTypes);
 
         // parse response types
         Type resType = jsonMethod.getGenericReturnType();
@@ -130,6 +183,43 @@ public class JacksonHelper {
             throw new SofaRpcRuntimeException(LogCodes.getLog(LogCodes.ERROR_VOID_RETURN, "jackson", clazz.getName()));
         }
         JavaType resJavaType = mapper.getTypeFactory().constructType(resType);
-        responseClassCache.put(key, resJavaType);
+        return new JacksonMethod(javaTypes, resJavaType);
+    }
+
+    /**
+     * Resolved parameter and return types of a method, readers are created on first use
+     */
+    private class JacksonMethod {
+
+        private final JavaType[]        reqTypes;
+        private final JavaType          resType;
+        private volatile ObjectReader[] reqReaders;
+        private volatile ObjectReader   resReader;
+
+        JacksonMethod(JavaType[] reqTypes, JavaType resType) {
+            this.reqTypes = reqTypes;
+            this.resType = resType;
+        }
+
+        ObjectReader[] reqReaders() {
+            ObjectReader[] readers = reqReaders;
+            if (readers == null) {
+                readers = new ObjectReader[reqTypes.length];
+                for (int i = 0; i < reqTypes.length; i++) {
+                    readers[i] = mapper.readerFor(reqTypes[i]);
+                }
+                reqReaders = readers;
+            }
+            return readers;
+        }
+
+        ObjectReader resReader() {
+            ObjectReader reader = resReader;
+            if (reader == null) {
+                reader = mapper.readerFor(resType);
+                resReader = reader;
+            }
+            return reader;
+        }
     }
 }
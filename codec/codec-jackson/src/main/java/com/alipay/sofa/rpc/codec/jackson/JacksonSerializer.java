@@ -25,6 +25,7 @@ import java.util.Properties;
 
 import com.alipay.sofa.rpc.codec.AbstractSerializer;
 import com.alipay.sofa.rpc.common.RemotingConstants;
+import com.alipay.sofa.rpc.common.utils.ClassUtils;
 import com.alipay.sofa.rpc.common.utils.CodecUtils;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.config.ConfigUniqueNameGenerator;
@@ -33,13 +34,17 @@ import com.alipay.sofa.rpc.core.exception.SofaRpcException;
 import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
 import com.alipay.sofa.rpc.ext.Extension;
+import com.alipay.sofa.rpc.log.Logger;
+import com.alipay.sofa.rpc.log.LoggerFactory;
 import com.alipay.sofa.rpc.transport.AbstractByteBuf;
 import com.alipay.sofa.rpc.transport.ByteArrayWrapperByteBuf;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
 /**
@@ -64,14 +69,21 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 @Extension(value = "json", code = 12)
 public class JacksonSerializer extends AbstractSerializer {
 
+    private static final Logger LOGGER                        = LoggerFactory.getLogger(JacksonSerializer.class);
+
     private ObjectMapper        mapper                        = new ObjectMapper();
 
-    private JacksonHelper       jacksonHelper                 = new JacksonHelper();
+    private JacksonHelper       jacksonHelper                 = new JacksonHelper(mapper);
 
     private static final String DESERIALIZATIONFEATURE_PREFIX = "sofa.rpc.codec.jackson.DeserializationFeature.";
 
     private static final String SERIALIZATIONFEATURE_PREFIX   = "sofa.rpc.codec.jackson.SerializationFeature.";
 
+    /**
+     * Comma separated jackson module classes to register, such as afterburner or blackbird
+     */
+    private static final String MODULES_KEY                   = "sofa.rpc.codec.jackson.modules";
+
     public JacksonSerializer() {
 
         Properties properties = System.getProperties();
@@ -97,6 +109,21 @@ public class JacksonSerializer extends AbstractSerializer {
                 }
             }
         }
+        registerModules(properties.getProperty(MODULES_KEY));
+    }
+
+    private void registerModules(String modules) {
+        if (StringUtils.isBlank(modules)) {
+            return;
+        }
+        for (String moduleClass : StringUtils.splitWithCommaOrSemicolon(modules)) {
+            try {
+                Object module = ClassUtils.forName(moduleClass.trim()).newInstance();
+                mapper.registerModule((Module) module);
+            } catch (Throwable e) {
+                LOGGER.warn("Failed to register jackson module " + moduleClass + ", ignore it.", e);
+            }
+        }
     }
 
     @Override
@@ -154,7 +181,7 @@ public class JacksonSerializer extends AbstractSerializer {
             throw buildDeserializeError("class is null!");
         } else {
             try {
-                result = mapper.readValue(data.array(), clazz);
+                result = jacksonHelper.getReader(clazz).readValue(data.array());
             } catch (IOException e) {
                 throw buildDeserializeError(e.getMessage());
             }
@@ -211,12 +238,14 @@ public class JacksonSerializer extends AbstractSerializer {
 
         // according interface and method name to find parameter types
         JavaType[] requestClassList = jacksonHelper.getReqClass(targetService, sofaRequest.getMethodName());
-        Object[] reqList = decode(data, requestClassList);
+        ObjectReader[] readers = jacksonHelper.getReqReaders(targetService, sofaRequest.getMethodName());
+        Object[] reqList = decode(data, requestClassList, readers);
         sofaRequest.setMethodArgs(reqList);
         sofaRequest.setMethodArgSigs(parseArgSigs(requestClassList));
     }
 
-    private Object[] decode(AbstractByteBuf data, JavaType[] clazzList) throws SofaRpcException {
+    private Object[] decode(AbstractByteBuf data, JavaType[] clazzList, ObjectReader[] readers)
+        throws SofaRpcException {
 
         if (clazzList == null || clazzList.length == 0) {
             return new Object[0];
@@ -225,8 +254,17 @@ public class JacksonSerializer extends AbstractSerializer {
         Object[] args = new Object[clazzList.length];
 
         try {
+            byte[] bytes = data.array();
+            // single plain parameter, read it directly without building a json tree
+            if (clazzList.length == 1 && !clazzList[0].isCollectionLikeType() && !clazzList[0].isArrayType()) {
+                if (isJsonArray(bytes)) {
+                    throw buildDeserializeError("JSON data can't be json array");
+                }
+                args[0] = readers[0].readValue(bytes);
+                return args;
+            }
 
-            JsonNode node = mapper.readTree(data.array());
+            JsonNode node = mapper.readTree(bytes);
 
             // json data is json arry
             if (node.isArray()) {
@@ -235,7 +273,7 @@ public class JacksonSerializer extends AbstractSerializer {
                     if (!clazzList[0].isCollectionLikeType() && !clazzList[0].isArrayType()) {
                         throw buildDeserializeError("JSON data can't be json array");
                     }
-                    args[0] = mapper.readValue(node.traverse(), clazzList[0]);
+                    args[0] = readers[0].readValue(node);
                     return args;
                 } else {
                     // if there is more than one parameter, but request json array size is not equal class type size.
@@ -244,7 +282,7 @@ public class JacksonSerializer extends AbstractSerializer {
                     }
 
                     for (int i = 0; i < clazzList.length; i++) {
-                        args[i] = mapper.readValue(node.get(i).traverse(), clazzList[i]);
+                        args[i] = readers[i].readValue(node.get(i));
                     }
                 }
 
@@ -255,7 +293,7 @@ public class JacksonSerializer extends AbstractSerializer {
                 }
 
                 // json is other type(eg. map object string int...)
-                args[0] = mapper.readValue(node.traverse(), clazzList[0]);
+                args[0] = readers[0].readValue(node);
             }
 
             return args;
@@ -267,6 +305,15 @@ public class JacksonSerializer extends AbstractSerializer {
 
     }
 
+    private boolean isJsonArray(byte[] bytes) {
+        for (byte b : bytes) {
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                return b == '[';
+            }
+        }
+        return false;
+    }
+
     private String[] parseArgSigs(JavaType[] reqList) {
         List<String> argSigs = new ArrayList<String>();
         for (JavaType type : reqList) {
@@ -310,10 +357,10 @@ public class JacksonSerializer extends AbstractSerializer {
             sofaResponse.setErrorMsg(errorMessage);
         } else {
             // according interface and method name to find paramter types
-            JavaType respType = jacksonHelper.getResClass(targetService, methodName);
+            ObjectReader respReader = jacksonHelper.getResReader(targetService, methodName);
             Object result;
             try {
-                result = mapper.readValue(data.array(), respType);
+                result = respReader.readValue(data.array());
             } catch (IOException e) {
                 throw buildDeserializeError(e.getMessage());
             }
@@ -23,6 +23,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.alipay.sofa.rpc.codec.jackson.model.DemoRequest;
 import com.alipay.sofa.rpc.codec.jackson.model.DemoRequest2;
@@ -38,6 +39,7 @@ import com.alipay.sofa.rpc.core.response.SofaResponse;
 import com.alipay.sofa.rpc.transport.AbstractByteBuf;
 import com.alipay.sofa.rpc.transport.ByteArrayWrapperByteBuf;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -497,4 +499,30 @@ public class JacksonSerializerTest {
         serializer.encode(new DemoRequest2(), null);
     }
 
+    @Test
+    public void testJacksonModules() {
+        System.setProperty("sofa.rpc.codec.jackson.modules",
+            "not.exist.Module," + CountModule.class.getName());
+        try {
+            int before = CountModule.COUNT.get();
+            JacksonSerializer serializer = new JacksonSerializer();
+            Assert.assertEquals(before + 1, CountModule.COUNT.get());
+
+            AbstractByteBuf data = serializer.encode("xxx", null);
+            Assert.assertEquals("xxx", serializer.decode(data, String.class, null));
+        } finally {
+            System.clearProperty("sofa.rpc.codec.jackson.modules");
+        }
+    }
+
+    public static class CountModule extends SimpleModule {
+
+        static final AtomicInteger COUNT = new AtomicInteger();
+
+        @Override
+        public void setupModule(SetupContext context) {
+            super.setupModule(context);
+            COUNT.incrementAndGet();
+        }
+    }
 }
\ No newline at end of file
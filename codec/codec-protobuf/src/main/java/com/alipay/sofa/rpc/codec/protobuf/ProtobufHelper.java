@@ -23,8 +23,10 @@ import com.alipay.sofa.rpc.config.ConfigUniqueNameGenerator;
 import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
 import com.alipay.sofa.rpc.log.LogCodes;
 import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -36,28 +38,33 @@ public class ProtobufHelper {
     /**
      * Support multiple classloader?
      */
-    private static final boolean         MULTIPLE_CLASSLOADER = RpcConfigs
-                                                                  .getBooleanValue(RpcOptions.MULTIPLE_CLASSLOADER_ENABLE);
+    private static final boolean                                               MULTIPLE_CLASSLOADER        = RpcConfigs
+                                                                                                               .getBooleanValue(RpcOptions.MULTIPLE_CLASSLOADER_ENABLE);
+
+    /**
+     * Default instance method name
+     */
+    private static final String                                                METHOD_GET_DEFAULT_INSTANCE = "getDefaultInstance";
 
     /**
      * Cache of parseFrom method
      */
-    ConcurrentMap<Class, Method>         parseFromMethodMap   = new ConcurrentHashMap<Class, Method>();
+    ConcurrentMap<Class, Method>                                               parseFromMethodMap          = new ConcurrentHashMap<Class, Method>();
 
     /**
      * Cache of toByteArray method
      */
-    ConcurrentMap<Class, Method>         toByteArrayMethodMap = new ConcurrentHashMap<Class, Method>();
+    ConcurrentMap<Class, Method>                                               toByteArrayMethodMap        = new ConcurrentHashMap<Class, Method>();
 
     /**
-     * 请求参数类型缓存 {service+method:class}
+     * Cache of default instance and parser {class:ProtobufMessage}
      */
-    private ConcurrentMap<String, Class> requestClassCache    = new ConcurrentHashMap<String, Class>();
+    private final ConcurrentMap<Class, ProtobufMessage>                        messageCache                = new ConcurrentHashMap<Class, ProtobufMessage>();
 
     /**
-     * 返回结果类型缓存 {service+method:class}
+     * 方法参数及返回值类型缓存 {service:{method:ProtobufMethod}}
      */
-    private ConcurrentMap<String, Class> responseClassCache   = new ConcurrentHashMap<String, Class>();
+    private final ConcurrentMap<String, ConcurrentMap<String, ProtobufMethod>> methodCache                 = new ConcurrentHashMap<String, ConcurrentMap<String, ProtobufMethod>>();
 
     /**
      * 从缓存中获取请求值类
@@ -67,16 +74,7 @@ public class ProtobufHelper {
      * @return 请求参数类
      */
     public Class getReqClass(String service, String methodName) {
-
-        String key = buildMethodKey(service, methodName);
-        Class reqClass = requestClassCache.get(key);
-        if (reqClass == null) {
-            // 读取接口里的方法参数和返回值
-            String interfaceClass = ConfigUniqueNameGenerator.getInterfaceName(service);
-            Class clazz = ClassUtils.forName(interfaceClass, true);
-            loadProtoClassToCache(key, clazz, methodName);
-        }
-        return requestClassCache.get(key);
+        return getMethod(service, methodName).reqClass;
     }
 
     /**
@@ -87,36 +85,44 @@ public class ProtobufHelper {
      * @return 请求参数类
      */
     public Class getResClass(String service, String methodName) {
-        String key = service + "#" + methodName;
-        Class reqClass = responseClassCache.get(key);
-        if (reqClass == null) {
-            // 读取接口里的方法参数和返回值
-            String interfaceClass = ConfigUniqueNameGenerator.getInterfaceName(service);
-            Class clazz = ClassUtils.forName(interfaceClass, true);
-            loadProtoClassToCache(key, clazz, methodName);
-        }
-        return responseClassCache.get(key);
+        return getMethod(service, methodName).resClass;
     }
 
     /**
-     * 拼装缓存的key
+     * 从缓存中获取方法信息，接口第一次访问时按方法名建立索引，之后不再拼接 key 或遍历接口方法
      *
-     * @param serviceName 接口名
-     * @param methodName  方法名
-     * @return Key
+     * @param service    接口名
+     * @param methodName 方法名
+     * @return 方法信息
      */
-    private String buildMethodKey(String serviceName, String methodName) {
-        return serviceName + "#" + methodName;
+    private ProtobufMethod getMethod(String service, String methodName) {
+        ConcurrentMap<String, ProtobufMethod> methods = methodCache.get(service);
+        if (methods == null) {
+            methods = new ConcurrentHashMap<String, ProtobufMethod>();
+            ConcurrentMap<String, ProtobufMethod> old = methodCache.putIfAbsent(service, methods);
+            if (old != null) {
+                methods = old;
+            }
+        }
+        ProtobufMethod method = methods.get(methodName);
+        if (method == null) {
+            // 读取接口里的方法参数和返回值
+            String interfaceClass = ConfigUniqueNameGenerator.getInterfaceName(service);
+            Class clazz = ClassUtils.forName(interfaceClass, true);
+            method = loadProtoMethod(clazz, methodName);
+            methods.put(methodName, method);
+        }
+        return method;
     }
 
     /**
-     * 加载protobuf接口里方法的参数和返回值类型到缓存，不需要传递
+     * 加载protobuf接口里方法的参数和返回值类型
      *
-     * @param key        缓存的key
      * @param clazz      接口名
      * @param methodName 方法名
+     * @return 方法信息
      */
-    private void loadProtoClassToCache(String key, Class clazz, String methodName) {
+    private ProtobufMethod loadProtoMethod(Class clazz, String methodName) {
         Method pbMethod = null;
         Method[] methods = clazz.getMethods();
         for (Method method : methods) {
@@ -137,12 +143,41 @@ public class ProtobufHelper {
                 clazz.getName()));
         }
         Class reqClass = parameterTypes[0];
-        requestClassCache.put(key, reqClass);
         Class resClass = pbMethod.getReturnType();
         if (resClass == void.class || !isProtoBufMessageClass(resClass)) {
             throw new SofaRpcRuntimeException(LogCodes.getLog(LogCodes.ERROR_PROTOBUF_RETURN, clazz.getName()));
         }
-        responseClassCache.put(key, resClass);
+        return new ProtobufMethod(reqClass, resClass);
+    }
+
+    /**
+     * 获取 protobuf 消息类的默认实例和 Parser，无法直接使用时（例如多 ClassLoader 下）返回的字段为空
+     *
+     * @param clazz protobuf 消息类
+     * @return 消息信息
+     */
+    ProtobufMessage getMessage(Class clazz) {
+        ProtobufMessage message = messageCache.get(clazz);
+        if (message == null) {
+            MessageLite defaultInstance = null;
+            try {
+                Method method = clazz.getMethod(METHOD_GET_DEFAULT_INSTANCE);
+                if (Modifier.isStatic(method.getModifiers())) {
+                    Object instance = method.invoke(null);
+                    if (instance instanceof MessageLite) {
+                        defaultInstance = (MessageLite) instance;
+                    }
+                }
+            } catch (Exception ignore) { // NOPMD
+                // 非标准生成代码，退化为反射调用 parseFrom
+            }
+            message = new ProtobufMessage(defaultInstance);
+            ProtobufMessage old = messageCache.putIfAbsent(clazz, message);
+            if (old != null) {
+                message = old;
+            }
+        }
+        return message;
     }
 
     /**
@@ -171,4 +206,40 @@ public class ProtobufHelper {
     boolean isProtoBufMessageClass(Class clazz) {
         return clazz != null && ClassUtils.isAssignableFrom(MessageLite.class, clazz);
     }
-}
+
+    /**
+     * 方法的参数和返回值类型
+     */
+    private static class ProtobufMethod {
+
+        private final Class reqClass;
+        private final Class resClass;
+
+        ProtobufMethod(Class reqClass, Class resClass) {
+            this.reqClass = reqClass;
+            this.resClass = resClass;
+        }
+    }
+
+    /**
+     * 消息类的默认实例和 Parser
+     */
+    static class ProtobufMessage {
+
+        private final MessageLite defaultInstance;
+        private final Parser      parser;
+
+        ProtobufMessage(MessageLite defaultInstance) {
+            this.defaultInstance = defaultInstance;
+            this.parser = defaultInstance == null ? null : defaultInstance.getParserForType();
+        }
+
+        MessageLite getDefaultInstance() {
+            return defaultInstance;
+        }
+
+        Parser getParser() {
+            return parser;
+        }
+    }
+}
\ No newline at end of file
@@ -29,6 +29,7 @@ import com.alipay.sofa.rpc.core.response.SofaResponse;
 import com.alipay.sofa.rpc.ext.Extension;
 import com.alipay.sofa.rpc.transport.AbstractByteBuf;
 import com.alipay.sofa.rpc.transport.ByteArrayWrapperByteBuf;
+import com.google.protobuf.MessageLite;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
@@ -77,6 +78,9 @@ public class ProtobufSerializer extends AbstractSerializer {
             return encodeSofaRequest((SofaRequest) object, context);
         } else if (object instanceof SofaResponse) {
             return encodeSofaResponse((SofaResponse) object, context);
+        } else if (object instanceof MessageLite) {
+            // 同一 ClassLoader 下直接调用，无需反射
+            return new ByteArrayWrapperByteBuf(((MessageLite) object).toByteArray());
         } else if (protobufHelper.isProtoBufMessageObject(object)) {
             Class clazz = object.getClass();
             Method method = protobufHelper.toByteArrayMethodMap.get(clazz);
@@ -136,7 +140,11 @@ public class ProtobufSerializer extends AbstractSerializer {
         if (clazz == null) {
             throw buildDeserializeError("class is null!");
         } else if (protobufHelper.isProtoBufMessageClass(clazz)) {
+            ProtobufHelper.ProtobufMessage message = protobufHelper.getMessage(clazz);
             if (data == null || data.readableBytes() == 0) {
+                if (message.getDefaultInstance() != null) {
+                    return message.getDefaultInstance();
+                }
                 try {
                     Constructor constructor = clazz.getDeclaredConstructor();
                     constructor.setAccessible(true);
@@ -144,6 +152,12 @@ public class ProtobufSerializer extends AbstractSerializer {
                 } catch (Exception e) {
                     throw buildDeserializeError("Error when invoke " + clazz.getName() + ".newInstance().", e);
                 }
+            } else if (message.getParser() != null) {
+                try {
+                    return message.getParser().parseFrom(data.array());
+                } catch (Exception e) {
+                    throw buildDeserializeError("Error when invoke " + clazz.getName() + ".parseFrom(byte[]).", e);
+                }
             } else {
                 Method method = protobufHelper.parseFromMethodMap.get(clazz);
                 if (method == null) {
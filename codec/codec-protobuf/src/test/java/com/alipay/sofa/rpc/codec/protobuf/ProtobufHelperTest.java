@@ -63,4 +63,20 @@ public class ProtobufHelperTest {
         find = protobufHelper.isProtoBufMessageClass(EchoStrRes.Builder.class);
         Assert.assertFalse(find);
     }
+
+    @Test
+    public void testGetMessage() throws Exception {
+        ProtobufHelper.ProtobufMessage message = protobufHelper.getMessage(EchoStrReq.class);
+        Assert.assertSame(EchoStrReq.getDefaultInstance(), message.getDefaultInstance());
+        Assert.assertNotNull(message.getParser());
+        Assert.assertSame(message, protobufHelper.getMessage(EchoStrReq.class));
+
+        EchoStrReq req = EchoStrReq.newBuilder().setS("xxxx").build();
+        Assert.assertEquals(req, message.getParser().parseFrom(req.toByteArray()));
+
+        // 不是标准生成的消息类，退化为反射
+        message = protobufHelper.getMessage(Object.class);
+        Assert.assertNull(message.getDefaultInstance());
+        Assert.assertNull(message.getParser());
+    }
 }
\ No newline at end of file
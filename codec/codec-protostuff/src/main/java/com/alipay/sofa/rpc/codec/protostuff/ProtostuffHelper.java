@@ -24,20 +24,22 @@ import com.alipay.sofa.rpc.common.utils.ClassUtils;
 import com.alipay.sofa.rpc.config.ConfigUniqueNameGenerator;
 import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
 import com.alipay.sofa.rpc.log.LogCodes;
+import io.protostuff.Schema;
+import io.protostuff.runtime.RuntimeSchema;
 
 /**
  * @author leizhiyuan
  */
 public class ProtostuffHelper {
     /**
-     * 请求参数类型缓存 {service+method:class}
+     * 方法参数及返回值类型和 Schema 缓存 {service:{method:ProtostuffMethod}}
      */
-    private ConcurrentMap<String, Class> requestClassCache  = new ConcurrentHashMap<String, Class>();
+    private final ConcurrentMap<String, ConcurrentMap<String, ProtostuffMethod>> methodCache = new ConcurrentHashMap<String, ConcurrentMap<String, ProtostuffMethod>>();
 
     /**
-     * 返回结果类型缓存 {service+method:class}
+     * 类型和 Schema 缓存，编码和解码共用
      */
-    private ConcurrentMap<String, Class> responseClassCache = new ConcurrentHashMap<String, Class>();
+    private final ConcurrentMap<Class, Schema>                                   schemaCache = new ConcurrentHashMap<Class, Schema>();
 
     /**
      * 从缓存中获取请求值类
@@ -47,16 +49,7 @@ public class ProtostuffHelper {
      * @return 请求参数类
      */
     public Class getReqClass(String service, String methodName) {
-
-        String key = buildMethodKey(service, methodName);
-        Class reqClass = requestClassCache.get(key);
-        if (reqClass == null) {
-            // 读取接口里的方法参数和返回值
-            String interfaceClass = ConfigUniqueNameGenerator.getInterfaceName(service);
-            Class clazz = ClassUtils.forName(interfaceClass, true);
-            loadProtoClassToCache(key, clazz, methodName);
-        }
-        return requestClassCache.get(key);
+        return getMethod(service, methodName).reqClass;
     }
 
     /**
@@ -67,36 +60,84 @@ public class ProtostuffHelper {
      * @return 请求参数类
      */
     public Class getResClass(String service, String methodName) {
-        String key = service + "#" + methodName;
-        Class reqClass = responseClassCache.get(key);
-        if (reqClass == null) {
-            // 读取接口里的方法参数和返回值
-            String interfaceClass = ConfigUniqueNameGenerator.getInterfaceName(service);
-            Class clazz = ClassUtils.forName(interfaceClass, true);
-            loadProtoClassToCache(key, clazz, methodName);
+        return getMethod(service, methodName).resClass;
+    }
+
+    /**
+     * 从缓存中获取请求值的 Schema
+     *
+     * @param service    接口名
+     * @param methodName 方法名
+     * @return 请求参数 Schema
+     */
+    public Schema getReqSchema(String service, String methodName) {
+        return getMethod(service, methodName).reqSchema();
+    }
+
+    /**
+     * 从缓存中获取返回值的 Schema
+     *
+     * @param service    接口名
+     * @param methodName 方法名
+     * @return 返回值 Schema
+     */
+    public Schema getResSchema(String service, String methodName) {
+        return getMethod(service, methodName).resSchema();
+    }
+
+    /**
+     * 从缓存中获取类型的 Schema，不存在时解析并放入缓存
+     *
+     * @param clazz 类型
+     * @return Schema
+     */
+    public Schema getSchema(Class clazz) {
+        Schema schema = schemaCache.get(clazz);
+        if (schema == null) {
+            schema = RuntimeSchema.getSchema(clazz);
+            Schema old = schemaCache.putIfAbsent(clazz, schema);
+            if (old != null) {
+                schema = old;
+            }
         }
-        return responseClassCache.get(key);
+        return schema;
     }
 
     /**
-     * 拼装缓存的key
+     * 从缓存中获取方法信息，不存在时加载接口的方法到缓存
      *
-     * @param serviceName 接口名
-     * @param methodName  方法名
-     * @return Key
+     * @param service    接口名
+     * @param methodName 方法名
+     * @return 方法信息
      */
-    private String buildMethodKey(String serviceName, String methodName) {
-        return serviceName + "#" + methodName;
+    private ProtostuffMethod getMethod(String service, String methodName) {
+        ConcurrentMap<String, ProtostuffMethod> methods = methodCache.get(service);
+        if (methods == null) {
+            methods = new ConcurrentHashMap<String, ProtostuffMethod>();
+            ConcurrentMap<String, ProtostuffMethod> old = methodCache.putIfAbsent(service, methods);
+            if (old != null) {
+                methods = old;
+            }
+        }
+        ProtostuffMethod method = methods.get(methodName);
+        if (method == null) {
+            // 读取接口里的方法参数和返回值
+            String interfaceClass = ConfigUniqueNameGenerator.getInterfaceName(service);
+            Class clazz = ClassUtils.forName(interfaceClass, true);
+            method = loadProtoMethod(clazz, methodName);
+            methods.put(methodName, method);
+        }
+        return method;
     }
 
     /**
-     * 加载protobuf接口里方法的参数和返回值类型到缓存，不需要传递
+     * 加载protobuf接口里方法的参数和返回值类型及 Schema
      *
-     * @param key        缓存的key
      * @param clazz      接口名
      * @param methodName 方法名
+     * @return 方法信息
      */
-    private void loadProtoClassToCache(String key, Class clazz, String methodName) {
+    private ProtostuffMethod loadProtoMethod(Class clazz, String methodName) {
         Method pbMethod = null;
         Method[] methods = clazz.getMethods();
         for (Method method : methods) {
@@ -116,11 +157,45 @@ public class ProtostuffHelper {
                 clazz.getName()));
         }
         Class reqClass = parameterTypes[0];
-        requestClassCache.put(key, reqClass);
         Class resClass = pbMethod.getReturnType();
         if (resClass == void.class) {
             throw new SofaRpcRuntimeException(LogCodes.getLog(LogCodes.ERROR_PROTOBUF_RETURN, clazz.getName()));
         }
-        responseClassCache.put(key, resClass);
+        return new ProtostuffMethod(reqClass, resClass);
+    }
+
+    /**
+     * 方法的参数和返回值类型及对应的 Schema，Schema 在第一次使用时从类型缓存中获取，
+     * 避免服务端为只会被编码的返回值类型（可能是接口）创建 Schema
+     */
+    private class ProtostuffMethod {
+
+        private final Class     reqClass;
+        private final Class     resClass;
+        private volatile Schema reqSchema;
+        private volatile Schema resSchema;
+
+        ProtostuffMethod(Class reqClass, Class resClass) {
+            this.reqClass = reqClass;
+            this.resClass = resClass;
+        }
+
+        Schema reqSchema() {
+            Schema schema = reqSchema;
+            if (schema == null) {
+                schema = getSchema(reqClass);
+                reqSchema = schema;
+            }
+            return schema;
+        }
+
+        Schema resSchema() {
+            Schema schema = resSchema;
+            if (schema == null) {
+                schema = getSchema(resClass);
+                resSchema = schema;
+            }
+            return schema;
+        }
     }
 }
@@ -31,7 +31,6 @@ import com.alipay.sofa.rpc.transport.ByteArrayWrapperByteBuf;
 import io.protostuff.LinkedBuffer;
 import io.protostuff.ProtostuffIOUtil;
 import io.protostuff.Schema;
-import io.protostuff.runtime.RuntimeSchema;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -43,16 +42,41 @@ import java.util.Map;
 @Extension(value = "protostuff", code = 14)
 public class ProtostuffSerializer extends AbstractSerializer {
 
-    private final ProtostuffHelper protostuffHelper   = new ProtostuffHelper();
+    private final ProtostuffHelper                 protostuffHelper   = new ProtostuffHelper();
 
     /**
      * Encode method name
      */
-    private static final String    METHOD_TOBYTEARRAY = "toByteArray";
+    private static final String                    METHOD_TOBYTEARRAY = "toByteArray";
     /**
      * Decode method name
      */
-    private static final String    METHOD_PARSEFROM   = "parseFrom";
+    private static final String                    METHOD_PARSEFROM   = "parseFrom";
+
+    /**
+     * 每个线程复用的初始缓冲区大小
+     */
+    private static final int                       BUFFER_SIZE        = 512;
+
+    /**
+     * 线程绑定的 LinkedBuffer。使用后 clear 会丢弃扩容时追加的节点，每个线程只保留 BUFFER_SIZE 大小的首个节点
+     */
+    private static final ThreadLocal<LinkedBuffer> BUFFERS            = new ThreadLocal<LinkedBuffer>() {
+                                                                          @Override
+                                                                          protected LinkedBuffer initialValue() {
+                                                                              return LinkedBuffer.allocate(BUFFER_SIZE);
+                                                                          }
+                                                                      };
+
+    /**
+     * 请求头中 tracer 信息的前缀
+     */
+    private static final String                    TRACE_PREFIX       = RemotingConstants.RPC_TRACE_NAME + ".";
+
+    /**
+     * 请求头中透传数据的前缀
+     */
+    private static final String                    BAGGAGE_PREFIX     = RemotingConstants.RPC_REQUEST_BAGGAGE + ".";
 
     @Override
     public AbstractByteBuf encode(Object object, Map<String, String> context) throws SofaRpcException {
@@ -63,16 +87,18 @@ public class ProtostuffSerializer extends AbstractSerializer {
         } else if (object instanceof SofaResponse) {
             return encodeSofaResponse((SofaResponse) object, context);
         } else {
-            Class clazz = object.getClass();
-            Schema schema = RuntimeSchema.getSchema(clazz);
-            // Re-use (manage) this buffer to avoid allocating on every serialization
-            LinkedBuffer buffer = LinkedBuffer.allocate(512);
-            // ser
-            try {
-                return new ByteArrayWrapperByteBuf(ProtostuffIOUtil.toByteArray(object, schema, buffer));
-            } finally {
-                buffer.clear();
-            }
+            return encode(object, protostuffHelper.getSchema(object.getClass()));
+        }
+    }
+
+    private AbstractByteBuf encode(Object object, Schema schema) {
+        // Re-use (manage) this buffer to avoid allocating on every serialization
+        LinkedBuffer buffer = BUFFERS.get();
+        // ser
+        try {
+            return new ByteArrayWrapperByteBuf(ProtostuffIOUtil.toByteArray(object, schema, buffer));
+        } finally {
+            buffer.clear();
         }
     }
 
@@ -82,7 +108,16 @@ public class ProtostuffSerializer extends AbstractSerializer {
         if (args.length > 1) {
             throw buildSerializeError("Protobuf only support one parameter!");
         }
-        return encode(args[0], context);
+        Object arg = args[0];
+        if (arg != null) {
+            // 和解码一样使用方法缓存中的 Schema，实际类型不是声明的参数类型时按类型获取
+            Schema schema = protostuffHelper.getReqSchema(sofaRequest.getTargetServiceUniqueName(),
+                sofaRequest.getMethodName());
+            if (schema.typeClass() == arg.getClass()) {
+                return encode(arg, schema);
+            }
+        }
+        return encode(arg, context);
     }
 
     protected AbstractByteBuf encodeSofaResponse(SofaResponse sofaResponse, Map<String, String> context)
@@ -109,13 +144,16 @@ public class ProtostuffSerializer extends AbstractSerializer {
         if (clazz == null) {
             throw buildDeserializeError("class is null!");
         } else {
-            Schema schema = RuntimeSchema.getSchema(clazz);
-            Object fooParsed = schema.newMessage();
-            ProtostuffIOUtil.mergeFrom(data.array(), fooParsed, schema);
-            return fooParsed;
+            return decode(data, protostuffHelper.getSchema(clazz));
         }
     }
 
+    private Object decode(AbstractByteBuf data, Schema schema) {
+        Object fooParsed = schema.newMessage();
+        ProtostuffIOUtil.mergeFrom(data.array(), fooParsed, schema);
+        return fooParsed;
+    }
+
     @Override
     public void decode(AbstractByteBuf data, Object template, Map<String, String> context) throws SofaRpcException {
         if (template == null) {
@@ -154,9 +192,9 @@ public class ProtostuffSerializer extends AbstractSerializer {
         }
 
         // 解析tracer等信息
-        parseRequestHeader(RemotingConstants.RPC_TRACE_NAME, head, sofaRequest);
+        parseRequestHeader(RemotingConstants.RPC_TRACE_NAME, TRACE_PREFIX, head, sofaRequest);
         if (RpcInvokeContext.isBaggageEnable()) {
-            parseRequestHeader(RemotingConstants.RPC_REQUEST_BAGGAGE, head, sofaRequest);
+            parseRequestHeader(RemotingConstants.RPC_REQUEST_BAGGAGE, BAGGAGE_PREFIX, head, sofaRequest);
         }
         for (Map.Entry<String, String> entry : head.entrySet()) {
             sofaRequest.addRequestProp(entry.getKey(), entry.getValue());
@@ -165,18 +203,29 @@ public class ProtostuffSerializer extends AbstractSerializer {
         // 根据接口+方法名找到参数类型 此处要处理byte[]为空的吗
         Class requestClass = protostuffHelper.getReqClass(targetService,
             sofaRequest.getMethodName());
-        Object pbReq = decode(data, requestClass, head);
+        Object pbReq = decode(data, protostuffHelper.getReqSchema(targetService, sofaRequest.getMethodName()));
         sofaRequest.setMethodArgs(new Object[] { pbReq });
         sofaRequest.setMethodArgSigs(new String[] { requestClass.getName() });
     }
 
-    private void parseRequestHeader(String key, Map<String, String> headerMap,
+    private void parseRequestHeader(String key, String prefix, Map<String, String> headerMap,
                                     SofaRequest sofaRequest) {
+        // 没有对应前缀的头时不再创建空的 Map
+        if (!containsPrefix(prefix, headerMap)) {
+            return;
+        }
         Map<String, String> traceMap = new HashMap<String, String>(8);
-        CodecUtils.treeCopyTo(key + ".", headerMap, traceMap, true);
-        if (!traceMap.isEmpty()) {
-            sofaRequest.addRequestProp(key, traceMap);
+        CodecUtils.treeCopyTo(prefix, headerMap, traceMap, true);
+        sofaRequest.addRequestProp(key, traceMap);
+    }
+
+    private boolean containsPrefix(String prefix, Map<String, String> headerMap) {
+        for (String headerKey : headerMap.keySet()) {
+            if (headerKey.startsWith(prefix)) {
+                return true;
+            }
         }
+        return false;
     }
 
     private void decodeSofaResponse(AbstractByteBuf data, SofaResponse sofaResponse, Map<String, String> head) {
@@ -204,8 +253,7 @@ public class ProtostuffSerializer extends AbstractSerializer {
             sofaResponse.setErrorMsg(errorMessage);
         } else {
             // 根据接口+方法名找到参数类型
-            Class responseClass = protostuffHelper.getResClass(targetService, methodName);
-            Object pbRes = decode(data, responseClass, head);
+            Object pbRes = decode(data, protostuffHelper.getResSchema(targetService, methodName));
             sofaResponse.setAppResponse(pbRes);
         }
     }
@@ -16,6 +16,7 @@
  */
 package com.alipay.sofa.rpc.codec.protostuff;
 
+import io.protostuff.Schema;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -39,4 +40,20 @@ public class ProtostuffHelperTest {
             ProtostuffService.class.getCanonicalName(), "echoStr");
         Assert.assertTrue(res == ExampleObj.class);
     }
+
+    @Test
+    public void getSchema() {
+        Schema req = protostuffHelper.getReqSchema(
+            ProtostuffService.class.getCanonicalName(), "echoStr");
+        Assert.assertTrue(req.typeClass() == ExampleObj.class);
+        Assert.assertSame(req, protostuffHelper.getReqSchema(
+            ProtostuffService.class.getCanonicalName(), "echoStr"));
+
+        Schema res = protostuffHelper.getResSchema(
+            ProtostuffService.class.getCanonicalName(), "echoStr");
+        Assert.assertTrue(res.typeClass() == ExampleObj.class);
+        // 方法缓存和类型缓存共用同一个 Schema
+        Assert.assertSame(req, protostuffHelper.getSchema(ExampleObj.class));
+        Assert.assertSame(res, req);
+    }
 }
\ No newline at end of file
@@ -84,6 +84,26 @@ public class ProtostuffSerializerTest {
         Assert.assertTrue(error);
     }
 
+    @Test
+    public void testReuseBuffer() {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 2048; i++) {
+            name.append((char) ('a' + i % 26));
+        }
+        ExampleObj large = new ExampleObj();
+        large.setName(name.toString());
+        ExampleObj small = new ExampleObj();
+        small.setName("xxx");
+
+        for (int i = 0; i < 3; i++) {
+            // 超过缓冲区大小的对象编码后，线程复用的缓冲区仍能正确编码小对象
+            AbstractByteBuf largeBuf = serializer.encode(large, null);
+            AbstractByteBuf smallBuf = serializer.encode(small, null);
+            Assert.assertEquals(large, serializer.decode(largeBuf, ExampleObj.class, null));
+            Assert.assertEquals(small, serializer.decode(smallBuf, ExampleObj.class, null));
+        }
+    }
+
     @Test
     public void testSofaRequest() throws Exception {
         SofaRequest request = buildRequest();
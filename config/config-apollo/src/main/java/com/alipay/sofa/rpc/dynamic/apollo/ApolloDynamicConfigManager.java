@@ -18,11 +18,23 @@ package com.alipay.sofa.rpc.dynamic.apollo;
 
 import com.alipay.sofa.rpc.auth.AuthRuleGroup;
 import com.alipay.sofa.rpc.dynamic.DynamicConfigKeyHelper;
+import com.alipay.sofa.rpc.dynamic.DynamicConfigListener;
 import com.alipay.sofa.rpc.dynamic.DynamicConfigManager;
 import com.alipay.sofa.rpc.dynamic.DynamicHelper;
 import com.alipay.sofa.rpc.ext.Extension;
+import com.alipay.sofa.rpc.log.Logger;
+import com.alipay.sofa.rpc.log.LoggerFactory;
 import com.ctrip.framework.apollo.Config;
+import com.ctrip.framework.apollo.ConfigChangeListener;
 import com.ctrip.framework.apollo.ConfigService;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * @author bystander
@@ -34,16 +46,30 @@ import com.ctrip.framework.apollo.ConfigService;
 @Extension(value = "apollo", override = true)
 public class ApolloDynamicConfigManager extends DynamicConfigManager {
 
-    private Config config;
+    private final static Logger                                      LOGGER    = LoggerFactory
+                                                                                   .getLogger(ApolloDynamicConfigManager.class);
+
+    private Config                                                   config;
+
+    /**
+     * 服务名和监听器的映射
+     */
+    private final ConcurrentMap<String, List<DynamicConfigListener>> listeners = new ConcurrentHashMap<String, List<DynamicConfigListener>>();
 
     protected ApolloDynamicConfigManager(String appName) {
         super(appName);
         config = ConfigService.getAppConfig();
+        config.addChangeListener(new ConfigChangeListener() {
+            @Override
+            public void onChange(ConfigChangeEvent changeEvent) {
+                notifyListeners(changeEvent.changedKeys());
+            }
+        });
     }
 
     @Override
     public void initServiceConfiguration(String service) {
-        //TODO not now
+        // 应用配置在构造时已经整体加载，变更通过 addListener 推送，不需要按服务初始化
     }
 
     @Override
@@ -77,4 +103,55 @@ public class ApolloDynamicConfigManager extends DynamicConfigManager {
         //TODO 暂不支持
         return null;
     }
+
+    @Override
+    public boolean addListener(String service, DynamicConfigListener listener) {
+        List<DynamicConfigListener> list = listeners.get(service);
+        if (list == null) {
+            List<DynamicConfigListener> newList = new CopyOnWriteArrayList<DynamicConfigListener>();
+            list = listeners.putIfAbsent(service, newList);
+            if (list == null) {
+                list = newList;
+            }
+        }
+        list.add(listener);
+        return true;
+    }
+
+    @Override
+    public void removeListener(String service, DynamicConfigListener listener) {
+        List<DynamicConfigListener> list = listeners.get(service);
+        if (list != null) {
+            list.remove(listener);
+        }
+    }
+
+    /**
+     * 按服务通知配置变化，一次变更中同一个服务只通知一次
+     *
+     * @param changedKeys 变化的配置项
+     */
+    void notifyListeners(Set<String> changedKeys) {
+        Set<String> services = new HashSet<String>();
+        for (String key : changedKeys) {
+            if (DynamicConfigKeyHelper.isServiceProKey(key)) {
+                services.add(DynamicConfigKeyHelper.extractServiceNameFromServiceProKey(key));
+            } else if (DynamicConfigKeyHelper.isMethodProKey(key)) {
+                services.add(DynamicConfigKeyHelper.extractServiceNameFromMethodProKey(key));
+            }
+        }
+        for (String service : services) {
+            List<DynamicConfigListener> list = listeners.get(service);
+            if (list == null) {
+                continue;
+            }
+            for (DynamicConfigListener listener : list) {
+                try {
+                    listener.configChanged(service);
+                } catch (Exception e) {
+                    LOGGER.error("Failed to notify dynamic config change of " + service, e);
+                }
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -16,12 +16,19 @@
  */
 package com.alipay.sofa.rpc.dynamic.apollo;
 
+import com.alipay.sofa.rpc.dynamic.DynamicConfigKeyHelper;
+import com.alipay.sofa.rpc.dynamic.DynamicConfigListener;
 import com.alipay.sofa.rpc.dynamic.DynamicHelper;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
 public class ApolloDynamicConfigManagerTest {
 
     private final static Logger        logger                     = LoggerFactory
@@ -50,4 +57,29 @@ public class ApolloDynamicConfigManagerTest {
     @Test
     public void getServiceAuthRule() {
     }
+
+    @Test
+    public void testNotifyListeners() {
+        final List<String> changed = new ArrayList<String>();
+        DynamicConfigListener listener = new DynamicConfigListener() {
+            @Override
+            public void configChanged(String service) {
+                changed.add(service);
+            }
+        };
+        Assert.assertTrue(apolloDynamicConfigManager.addListener("com.alipay.test.HelloService", listener));
+
+        apolloDynamicConfigManager.notifyListeners(new HashSet<String>(Arrays.asList(
+            DynamicConfigKeyHelper.buildConsumerMethodProKey("com.alipay.test.HelloService", "sayHello", "timeout"),
+            DynamicConfigKeyHelper.buildConsumerServiceProKey("com.alipay.test.HelloService", "loadBalancer"),
+            DynamicConfigKeyHelper.buildConsumerServiceProKey("com.alipay.test.OtherService", "loadBalancer"),
+            "other.key")));
+        Assert.assertEquals(1, changed.size());
+        Assert.assertEquals("com.alipay.test.HelloService", changed.get(0));
+
+        apolloDynamicConfigManager.removeListener("com.alipay.test.HelloService", listener);
+        apolloDynamicConfigManager.notifyListeners(new HashSet<String>(Arrays.asList(
+            DynamicConfigKeyHelper.buildConsumerServiceProKey("com.alipay.test.HelloService", "loadBalancer"))));
+        Assert.assertEquals(1, changed.size());
+    }
 }
\ No newline at end of file
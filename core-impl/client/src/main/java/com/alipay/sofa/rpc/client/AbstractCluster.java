@@ -35,10 +35,7 @@ import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
 import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
 import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
-import com.alipay.sofa.rpc.dynamic.DynamicConfigKeys;
-import com.alipay.sofa.rpc.dynamic.DynamicConfigManager;
-import com.alipay.sofa.rpc.dynamic.DynamicConfigManagerFactory;
-import com.alipay.sofa.rpc.dynamic.DynamicHelper;
+import com.alipay.sofa.rpc.dynamic.ConsumerDynamicConfig;
 import com.alipay.sofa.rpc.event.EventBus;
 import com.alipay.sofa.rpc.event.ProviderInfoAddEvent;
 import com.alipay.sofa.rpc.event.ProviderInfoRemoveEvent;
@@ -50,6 +47,7 @@ import com.alipay.sofa.rpc.listener.ConsumerStateListener;
 import com.alipay.sofa.rpc.log.LogCodes;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
+import com.alipay.sofa.rpc.message.CompletableResponseCallback;
 import com.alipay.sofa.rpc.message.ResponseFuture;
 import com.alipay.sofa.rpc.transport.ClientTransport;
 
@@ -90,38 +88,42 @@ public abstract class AbstractCluster extends Cluster {
     /**
      * 是否已启动(已建立连接)
      */
-    protected volatile boolean initialized   = false;
+    protected volatile boolean      initialized   = false;
 
     /**
      * 是否已经销毁（已经销毁不能再继续使用）
      */
-    protected volatile boolean destroyed     = false;
+    protected volatile boolean      destroyed     = false;
 
     /**
      * 当前Client正在发送的调用数量
      */
-    protected AtomicInteger    countOfInvoke = new AtomicInteger(0);
+    protected AtomicInteger         countOfInvoke = new AtomicInteger(0);
 
     /**
      * 路由列表
      */
-    protected RouterChain      routerChain;
+    protected RouterChain           routerChain;
     /**
      * 负载均衡接口
      */
-    protected LoadBalancer     loadBalancer;
+    protected LoadBalancer          loadBalancer;
     /**
      * 地址保持器
      */
-    protected AddressHolder    addressHolder;
+    protected AddressHolder         addressHolder;
     /**
      * 连接管理器
      */
-    protected ConnectionHolder connectionHolder;
+    protected ConnectionHolder      connectionHolder;
     /**
      * 过滤器链
      */
-    protected FilterChain      filterChain;
+    protected FilterChain           filterChain;
+    /**
+     * 预先解析好的动态配置，未开启动态配置时为null
+     */
+    protected ConsumerDynamicConfig dynamicConfig;
 
     @Override
     public synchronized void init() {
@@ -139,6 +141,8 @@ public abstract class AbstractCluster extends Cluster {
         // 构造Filter链,最底层是调用过滤器
         this.filterChain = FilterChain.buildConsumerChain(this.consumerConfig,
             new ConsumerInvoker(consumerBootstrap));
+        // 动态配置，订阅一次，调用时直接读取解析好的结果
+        dynamicConfig = ConsumerDynamicConfig.build(consumerConfig);
 
         if (consumerConfig.isLazy()) { // 延迟连接
             if (LOGGER.isInfoEnabled(consumerConfig.getAppName())) {
@@ -418,9 +422,11 @@ public abstract class AbstractCluster extends Cluster {
 
             throw noAvailableProviderException(message.getTargetServiceUniqueName());
         } else {
-            originalProviderInfos = new ArrayList<>(providerInfos);
+            // 路由结果可能是只读的缓存列表，不修改原列表，需要删除时再复制
+            originalProviderInfos = providerInfos;
         }
         if (CommonUtils.isNotEmpty(invokedProviderInfos) && providerInfos.size() > invokedProviderInfos.size()) { // 总数大于已调用数
+            providerInfos = new ArrayList<ProviderInfo>(providerInfos);
             providerInfos.removeAll(invokedProviderInfos);// 已经调用异常的本次不再重试
         }
 
@@ -447,6 +453,9 @@ public abstract class AbstractCluster extends Cluster {
                 if (transport != null) {
                     return providerInfo;
                 }
+                if (providerInfos == originalProviderInfos) {
+                    providerInfos = new ArrayList<ProviderInfo>(providerInfos);
+                }
                 providerInfos.remove(providerInfo);
             } while (!providerInfos.isEmpty());
         }
@@ -542,6 +551,12 @@ public abstract class AbstractCluster extends Cluster {
     protected SofaResponse filterChain(ProviderInfo providerInfo, SofaRequest request) throws SofaRpcException {
         RpcInternalContext context = RpcInternalContext.getContext();
         context.setProviderInfo(providerInfo);
+        if (request.getSofaResponseCallback() instanceof CompletableResponseCallback) {
+            // 返回值为CompletableFuture的方法，过滤器链以非阻塞方式执行
+            SofaResponse response = new SofaResponse();
+            response.setAppResponse(filterChain.invokeAsync(request));
+            return response;
+        }
         return filterChain.invoke(request);
     }
 
@@ -653,23 +668,12 @@ public abstract class AbstractCluster extends Cluster {
      * @param providerInfo   服务提供者信息
      * @return 调用超时
      */
-    private int resolveTimeout(SofaRequest request, ConsumerConfig consumerConfig, ProviderInfo providerInfo) {
+    protected int resolveTimeout(SofaRequest request, ConsumerConfig consumerConfig, ProviderInfo providerInfo) {
         // 动态配置优先
-        final String dynamicAlias = consumerConfig.getParameter(DynamicConfigKeys.DYNAMIC_ALIAS);
-        if (StringUtils.isNotBlank(dynamicAlias)) {
-            String dynamicTimeout = null;
-            DynamicConfigManager dynamicConfigManager = DynamicConfigManagerFactory.getDynamicManager(
-                consumerConfig.getAppName(),
-                dynamicAlias);
-
-            if (dynamicConfigManager != null) {
-                dynamicTimeout = dynamicConfigManager.getConsumerMethodProperty(request.getInterfaceName(),
-                    request.getMethodName(),
-                    "timeout");
-            }
-
-            if (DynamicHelper.isNotDefault(dynamicTimeout) && StringUtils.isNotBlank(dynamicTimeout)) {
-                return Integer.parseInt(dynamicTimeout);
+        if (dynamicConfig != null) {
+            Integer dynamicTimeout = dynamicConfig.getMethodConfig(request.getMethodName()).getTimeout();
+            if (dynamicTimeout != null) {
+                return dynamicTimeout;
             }
         }
         // 先去调用级别配置
@@ -705,6 +709,12 @@ public abstract class AbstractCluster extends Cluster {
         if (connectionHolder != null) {
             connectionHolder.destroy(new GracefulDestroyHook());
         }
+        if (dynamicConfig != null) {
+            dynamicConfig.destroy();
+        }
+        if (filterChain != null) {
+            filterChain.destroy();
+        }
         destroyed = true;
         initialized = false;
         if (hook != null) {
@@ -895,6 +905,15 @@ public abstract class AbstractCluster extends Cluster {
         return routerChain;
     }
 
+    /**
+     * 预先解析好的动态配置
+     *
+     * @return 动态配置，未开启动态配置时为null
+     */
+    public ConsumerDynamicConfig getDynamicConfig() {
+        return dynamicConfig;
+    }
+
     /**
      * 判断分组是否包含指定服务
      *
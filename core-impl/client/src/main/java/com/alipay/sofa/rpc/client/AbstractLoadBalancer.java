@@ -21,6 +21,7 @@ import com.alipay.sofa.rpc.core.exception.SofaRouteException;
 import com.alipay.sofa.rpc.core.exception.SofaRpcException;
 import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.log.LogCodes;
+import com.alipay.sofa.rpc.transport.ClientTransport;
 
 import java.util.List;
 
@@ -81,4 +82,26 @@ public abstract class AbstractLoadBalancer extends LoadBalancer {
         // 从provider中或得到相关权重,默认值100
         return providerInfo.getWeight() < 0 ? 0 : providerInfo.getWeight();
     }
+
+    /**
+     * 得到服务端对应的长连接，可用于读取连接上的负载
+     *
+     * @param providerInfo 服务端
+     * @return 长连接，可能为空
+     */
+    protected ClientTransport getClientTransport(ProviderInfo providerInfo) {
+        Cluster cluster = consumerBootstrap == null ? null : consumerBootstrap.getCluster();
+        ConnectionHolder connectionHolder = cluster == null ? null : cluster.getConnectionHolder();
+        return connectionHolder == null ? null : connectionHolder.getAvailableClientTransport(providerInfo);
+    }
+
+    /**
+     * 得到当前的地址管理器
+     *
+     * @return 地址管理器，可能为空
+     */
+    protected AddressHolder getAddressHolder() {
+        Cluster cluster = consumerBootstrap == null ? null : consumerBootstrap.getCluster();
+        return cluster == null ? null : cluster.getAddressHolder();
+    }
 }
@@ -55,6 +55,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -128,6 +129,16 @@ public class AllConnectConnectionHolder extends ConnectionHolder {
      */
     protected Lock                                         providerLock             = new ReentrantLock();
 
+    /**
+     * 首次调用时初始化连接的锁，不使用监视器锁，避免建连期间虚拟线程钉住载体线程
+     */
+    protected Lock                                         initLock                 = new ReentrantLock();
+
+    /**
+     * 可用连接的版本号，存活和亚健康列表变化时加一
+     */
+    protected final AtomicLong                             version                  = new AtomicLong();
+
     /**
      * Gets retry connections.
      *
@@ -146,6 +157,7 @@ public class AllConnectConnectionHolder extends ConnectionHolder {
     protected void addAlive(ProviderInfo providerInfo, ClientTransport transport) {
         if (checkState(providerInfo, transport)) {
             aliveConnections.put(providerInfo, transport);
+            version.incrementAndGet();
         }
     }
 
@@ -170,6 +182,7 @@ public class AllConnectConnectionHolder extends ConnectionHolder {
         try {
             if (aliveConnections.remove(providerInfo) != null) {
                 retryConnections.put(providerInfo, transport);
+                version.incrementAndGet();
             }
         } finally {
             providerLock.unlock();
@@ -189,6 +202,7 @@ public class AllConnectConnectionHolder extends ConnectionHolder {
                 if (checkState(providerInfo, transport)) {
                     aliveConnections.put(providerInfo, transport);
                 }
+                version.incrementAndGet();
             }
         } finally {
             providerLock.unlock();
@@ -223,6 +237,7 @@ public class AllConnectConnectionHolder extends ConnectionHolder {
         try {
             if (aliveConnections.remove(providerInfo) != null) {
                 subHealthConnections.put(providerInfo, transport);
+                version.incrementAndGet();
             }
         } finally {
             providerLock.unlock();
@@ -242,6 +257,7 @@ public class AllConnectConnectionHolder extends ConnectionHolder {
                 if (checkState(providerInfo, transport)) {
                     aliveConnections.put(providerInfo, transport);
                 }
+                version.incrementAndGet();
             }
         } finally {
             providerLock.unlock();
@@ -259,6 +275,7 @@ public class AllConnectConnectionHolder extends ConnectionHolder {
         try {
             if (subHealthConnections.remove(providerInfo) != null) {
                 retryConnections.put(providerInfo, transport);
+                version.incrementAndGet();
             }
         } finally {
             providerLock.unlock();
@@ -284,6 +301,7 @@ public class AllConnectConnectionHolder extends ConnectionHolder {
                     }
                 }
             }
+            version.incrementAndGet();
             return transport;
         } finally {
             providerLock.unlock();
@@ -555,13 +573,16 @@ public class AllConnectConnectionHolder extends ConnectionHolder {
         transport = uninitializedConnections.get(providerInfo);
         if (transport != null) {
             // 未初始化则初始化
-            synchronized (this) {
+            initLock.lock();
+            try {
                 transport = uninitializedConnections.get(providerInfo);
                 if (transport != null) {
                     initClientTransport(consumerConfig.getInterfaceId(), providerInfo, transport);
                     uninitializedConnections.remove(providerInfo);
                 }
                 return getAvailableClientTransport(providerInfo);
+            } finally {
+                initLock.unlock();
             }
         }
 
@@ -582,6 +603,11 @@ public class AllConnectConnectionHolder extends ConnectionHolder {
         return transport;
     }
 
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
     @Override
     public boolean isAvailableEmpty() {
         return aliveConnections.isEmpty() && subHealthConnections.isEmpty();
@@ -629,6 +655,7 @@ public class AllConnectConnectionHolder extends ConnectionHolder {
             boolean first = isAvailableEmpty();
             if (aliveConnections.remove(providerInfo) != null) {
                 retryConnections.put(providerInfo, transport);
+                version.incrementAndGet();
                 if (!first && isAvailableEmpty()) { // 原来不空，变成空
                     notifyStateChangeToUnavailable();
                 }
@@ -669,6 +696,7 @@ public class AllConnectConnectionHolder extends ConnectionHolder {
             retryConnections.clear();
             uninitializedConnections.clear();
             lastAddresses.clear();
+            version.incrementAndGet();
             return all;
         } finally {
             providerLock.unlock();
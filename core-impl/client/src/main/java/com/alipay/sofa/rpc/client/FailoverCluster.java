@@ -17,22 +17,33 @@
 package com.alipay.sofa.rpc.client;
 
 import com.alipay.sofa.rpc.bootstrap.ConsumerBootstrap;
+import com.alipay.sofa.rpc.common.RpcConfigs;
 import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.RpcOptions;
 import com.alipay.sofa.rpc.context.RpcInternalContext;
+import com.alipay.sofa.rpc.context.RpcInvokeContext;
+import com.alipay.sofa.rpc.context.RpcRuntimeContext;
 import com.alipay.sofa.rpc.core.exception.RpcErrorType;
 import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.exception.SofaTimeOutException;
+import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
+import com.alipay.sofa.rpc.core.request.RequestBase;
 import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
 import com.alipay.sofa.rpc.ext.Extension;
 import com.alipay.sofa.rpc.log.LogCodes;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
+import com.alipay.sofa.rpc.transport.ClientTransport;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
- * 故障转移，支持重试和指定地址调用
+ * 故障转移，支持重试和指定地址调用<br>
+ * 可选开启重试预算（限制重试量占调用量的比例），接口或方法配置 hedge=true 时开启对冲请求
+ * （同步调用耗时超过分位数后向另一个服务端再发一次，取先返回的结果）
  *
  * @author <a href=mailto:zhanggeng.zg@antfin.com>GengZhang</a>
  */
@@ -42,7 +53,27 @@ public class FailoverCluster extends AbstractCluster {
     /**
      * slf4j logger for this class
      */
-    private final static Logger LOGGER = LoggerFactory.getLogger(FailoverCluster.class);
+    private final static Logger        LOGGER  = LoggerFactory.getLogger(FailoverCluster.class);
+
+    /**
+     * 当前线程正在进行的对冲调用，由 doInvoke 或 sendHedge 设置，在 doSendMsg 中取出
+     */
+    private final ThreadLocal<Hedging> hedging = new ThreadLocal<Hedging>();
+
+    /**
+     * 重试预算，为空表示不限制重试
+     */
+    RetryBudget                        retryBudget;
+
+    /**
+     * 开启了对冲请求的同步调用的耗时统计，为空表示不开启对冲请求
+     */
+    LatencyRecorder                    latencyRecorder;
+
+    /**
+     * 对冲请求的最小延迟（毫秒）
+     */
+    long                               hedgeMinDelay;
 
     /**
      * 构造函数
@@ -51,20 +82,40 @@ public class FailoverCluster extends AbstractCluster {
      */
     public FailoverCluster(ConsumerBootstrap consumerBootstrap) {
         super(consumerBootstrap);
+        double budgetRatio = RpcConfigs.getOrDefaultValue(RpcOptions.CONSUMER_RETRY_BUDGET_RATIO, 0d);
+        retryBudget = budgetRatio > 0 ? new RetryBudget(budgetRatio,
+            RpcConfigs.getOrDefaultValue(RpcOptions.CONSUMER_RETRY_BUDGET_MAX, 10)) : null;
+        double hedgePercentile = RpcConfigs.getOrDefaultValue(RpcOptions.CONSUMER_HEDGE_PERCENTILE, 0d);
+        latencyRecorder = hedgePercentile > 0 ? new LatencyRecorder(hedgePercentile) : null;
+        hedgeMinDelay = RpcConfigs.getOrDefaultValue(RpcOptions.CONSUMER_HEDGE_MIN_DELAY, 5L);
     }
 
     @Override
     public SofaResponse doInvoke(SofaRequest request) throws SofaRpcException {
         String methodName = request.getMethodName();
         int retries = consumerConfig.getMethodRetries(methodName);
+        if (dynamicConfig != null) {
+            // 动态配置优先
+            Integer dynamicRetries = dynamicConfig.getMethodConfig(methodName).getRetries();
+            if (dynamicRetries != null) {
+                retries = dynamicRetries;
+            }
+        }
+        if (retryBudget != null) {
+            retryBudget.deposit();
+        }
+        boolean hedge = isHedge(request);
+        long hedgeDelay = hedge ? getHedgeDelay() : -1;
         int time = 0;
         SofaRpcException throwable = null;// 异常日志
-        List<ProviderInfo> invokedProviderInfos = new ArrayList<ProviderInfo>(retries + 1);
+        List<ProviderInfo> invokedProviderInfos = new ArrayList<ProviderInfo>(retries + 2);
         do {
 
             ProviderInfo providerInfo = select(request, invokedProviderInfos);
             try {
-                SofaResponse response = filterChain(providerInfo, request);
+                SofaResponse response = time == 0 && hedgeDelay > 0 ?
+                    hedgeFilterChain(providerInfo, request, invokedProviderInfos, hedgeDelay) :
+                    recordFilterChain(providerInfo, request, hedge);
                 if (response != null) {
                     if (throwable != null) {
                         if (LOGGER.isWarnEnabled(consumerConfig.getAppName())) {
@@ -101,9 +152,508 @@ public class FailoverCluster extends AbstractCluster {
                 }
             }
             invokedProviderInfos.add(providerInfo);
+            if (time <= retries && retryBudget != null && !retryBudget.tryWithdraw()) {
+                // 重试预算已耗尽，不再重试
+                if (LOGGER.isDebugEnabled(consumerConfig.getAppName())) {
+                    LOGGER.debugWithApp(consumerConfig.getAppName(), "Retry budget of " +
+                        request.getTargetServiceUniqueName() + " is exhausted, skip retry.");
+                }
+                break;
+            }
         } while (time <= retries);
 
         throw throwable;
     }
 
+    /**
+     * 本次调用是否开启对冲请求：接口或方法需要配置 hedge=true，并且只对同步调用生效，
+     * 粘滞连接和指定地址的调用不开启
+     *
+     * @param request 请求
+     * @return 是否开启对冲请求
+     */
+    boolean isHedge(SofaRequest request) {
+        if (latencyRecorder == null || consumerConfig.isSticky()
+            || !RpcConstants.INVOKER_TYPE_SYNC.equals(request.getInvokeType())) {
+            return false;
+        }
+        RpcInternalContext context = RpcInternalContext.peekContext();
+        if (context != null && context.getAttachment(RpcConstants.HIDDEN_KEY_PINPOINT) != null) {
+            // 指定了调用地址
+            return false;
+        }
+        Object value = consumerConfig.getMethodConfigValue(request.getMethodName(), RpcConstants.CONFIG_KEY_HEDGE);
+        if (value == null) {
+            value = consumerConfig.getParameter(RpcConstants.CONFIG_KEY_HEDGE);
+        }
+        return value != null && Boolean.parseBoolean(value.toString());
+    }
+
+    /**
+     * 计算对冲请求的延迟
+     *
+     * @return 延迟（毫秒），小于等于0表示样本不足，不发起对冲请求
+     */
+    private long getHedgeDelay() {
+        long percentile = latencyRecorder.getPercentile();
+        return percentile < 0 ? -1 : Math.max(hedgeMinDelay, percentile);
+    }
+
+    /**
+     * 调用并记录开启了对冲请求的同步调用的耗时
+     *
+     * @param providerInfo 服务端信息
+     * @param request      请求对象
+     * @param record       是否记录耗时
+     * @return 执行后返回的响应
+     * @throws SofaRpcException 请求RPC异常
+     */
+    private SofaResponse recordFilterChain(ProviderInfo providerInfo, SofaRequest request, boolean record)
+        throws SofaRpcException {
+        if (!record) {
+            return filterChain(providerInfo, request);
+        }
+        long start = System.currentTimeMillis();
+        SofaResponse response = filterChain(providerInfo, request);
+        latencyRecorder.record(System.currentTimeMillis() - start);
+        return response;
+    }
+
+    /**
+     * 对冲调用：首次调用在过滤器链的末端改为异步发送，超过 delay 未返回时，
+     * 对冲请求再完整地经过一次过滤器链发往另一个服务端，两者返回先收到的结果
+     *
+     * @param providerInfo         首选的服务端
+     * @param request              请求对象
+     * @param invokedProviderInfos 已调用列表，对冲的服务端会被加入
+     * @param delay                对冲延迟（毫秒）
+     * @return 执行后返回的响应
+     * @throws SofaRpcException 请求RPC异常
+     */
+    private SofaResponse hedgeFilterChain(ProviderInfo providerInfo, SofaRequest request,
+                                          List<ProviderInfo> invokedProviderInfos, long delay)
+        throws SofaRpcException {
+        hedging.set(new Hedging(delay, invokedProviderInfos, null));
+        try {
+            return recordFilterChain(providerInfo, request, true);
+        } finally {
+            hedging.remove();
+        }
+    }
+
+    @Override
+    protected SofaResponse doSendMsg(ProviderInfo providerInfo, ClientTransport transport,
+                                     SofaRequest request) throws SofaRpcException {
+        Hedging current = hedging.get();
+        if (current == null || !RpcConstants.INVOKER_TYPE_SYNC.equals(request.getInvokeType())) {
+            return super.doSendMsg(providerInfo, transport, request);
+        }
+        // 只对本次发送生效，过滤器中发起的其它调用不受影响
+        hedging.remove();
+        RpcInternalContext.getContext().setRemoteAddress(providerInfo.getHost(), providerInfo.getPort());
+        checkProviderVersion(providerInfo, request);
+        int timeout = resolveTimeout(request, consumerConfig, providerInfo);
+        long deadline = RpcRuntimeContext.now() + timeout;
+        // 对冲请求加入首次调用的结果，一起等待
+        boolean primary = current.result == null;
+        HedgeResult result = primary ? new HedgeResult() : current.result;
+        try {
+            sendAttempt(providerInfo, transport, request, timeout, result);
+        } catch (UnsupportedOperationException e) {
+            if (!primary) {
+                throw e;
+            }
+            // 不支持异步调用的传输层（例如短连接），不发起对冲请求
+            return super.doSendMsg(providerInfo, transport, request);
+        }
+        try {
+            if (primary && !result.await(Math.min(current.delay, timeout))) {
+                sendHedge(current, providerInfo, request, deadline, result);
+            }
+            result.await(deadline - RpcRuntimeContext.now());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SofaRpcException(RpcErrorType.CLIENT_UNDECLARED_ERROR, e);
+        }
+        return result.get(request, timeout);
+    }
+
+    /**
+     * 向另一个服务端发送对冲请求，没有可用服务端或重试预算耗尽时不发送。<br>
+     * 对冲请求使用独立的请求对象和上下文，经过完整的过滤器链后在 doSendMsg 中加入首次调用的结果，
+     * 在调用线程中一直等到有结果或者超时
+     *
+     * @param current      本次对冲调用的参数
+     * @param providerInfo 首选的服务端
+     * @param request      请求对象
+     * @param deadline     整个调用的截止时间
+     * @param result       对冲调用的结果
+     */
+    private void sendHedge(Hedging current, ProviderInfo providerInfo, SofaRequest request, long deadline,
+                           HedgeResult result) {
+        int timeout = (int) (deadline - RpcRuntimeContext.now());
+        if (timeout <= 0) {
+            return;
+        }
+        List<ProviderInfo> excludes = new ArrayList<ProviderInfo>(current.invokedProviderInfos);
+        excludes.add(providerInfo);
+        ProviderInfo hedgeProvider = selectHedgeProvider(request, excludes);
+        if (hedgeProvider == null || hedgeProvider.equals(providerInfo)) {
+            return;
+        }
+        if (retryBudget != null && !retryBudget.tryWithdraw()) {
+            // 对冲请求和重试共用重试预算
+            if (LOGGER.isDebugEnabled(consumerConfig.getAppName())) {
+                LOGGER.debugWithApp(consumerConfig.getAppName(), "Retry budget of " +
+                    request.getTargetServiceUniqueName() + " is exhausted, skip hedge.");
+            }
+            return;
+        }
+        current.invokedProviderInfos.add(hedgeProvider);
+        RpcInternalContext parent = RpcInternalContext.getContext();
+        RpcInvokeContext parentInvokeContext = RpcInvokeContext.peekContext();
+        RpcInternalContext.pushContext();
+        try {
+            isolateContext(parent, parentInvokeContext, hedgeProvider);
+            SofaRequest hedgeRequest = copyRequest(request);
+            hedgeRequest.setTimeout(timeout);
+            hedging.set(new Hedging(current.delay, current.invokedProviderInfos, result));
+            filterChain(hedgeProvider, hedgeRequest);
+        } catch (Exception e) {
+            // 对冲请求失败不影响首次调用，结果由首次调用统一返回
+            if (LOGGER.isDebugEnabled(consumerConfig.getAppName())) {
+                LOGGER.debugWithApp(consumerConfig.getAppName(), "Hedged request to " +
+                    hedgeProvider + " failed, cause by " + e.getMessage());
+            }
+        } finally {
+            hedging.remove();
+            restoreContext(parentInvokeContext);
+        }
+    }
+
+    /**
+     * 在调用线程中异步发送一次请求。每次发送使用独立的请求对象和上下文，发送后恢复调用方的上下文，
+     * 避免先后返回的两次调用并发修改调用方的上下文
+     *
+     * @param providerInfo 服务端
+     * @param transport    客户端连接
+     * @param request      调用方的请求对象
+     * @param timeout      超时时间
+     * @param result       对冲调用的结果
+     */
+    private void sendAttempt(ProviderInfo providerInfo, ClientTransport transport, SofaRequest request,
+                             int timeout, HedgeResult result) {
+        RpcInternalContext parent = RpcInternalContext.getContext();
+        RpcInvokeContext parentInvokeContext = RpcInvokeContext.peekContext();
+        RpcInternalContext.pushContext();
+        try {
+            RpcInvokeContext invokeContext = isolateContext(parent, parentInvokeContext, providerInfo);
+            RpcInternalContext context = RpcInternalContext.getContext();
+            context.setAttachment(RpcConstants.INTERNAL_KEY_CLIENT_SEND_TIME, RpcRuntimeContext.now());
+
+            HedgeAttempt attempt = new HedgeAttempt(result, context, invokeContext);
+            if (!result.sending(attempt)) {
+                // 已经有结果，不再发送
+                return;
+            }
+            SofaRequest attemptRequest = copyRequest(request);
+            attemptRequest.setSofaResponseCallback(attempt);
+            try {
+                transport.asyncSend(attemptRequest, timeout);
+            } catch (RuntimeException e) {
+                result.unsent(attempt);
+                throw e;
+            }
+        } finally {
+            restoreContext(parentInvokeContext);
+        }
+    }
+
+    /**
+     * 初始化刚压栈的上下文：复制调用方的附件和请求透传数据，并设置独立的 RpcInvokeContext
+     *
+     * @param parent              调用方的上下文
+     * @param parentInvokeContext 调用方的 RpcInvokeContext，可能为空
+     * @param providerInfo        服务端
+     * @return 独立的 RpcInvokeContext
+     */
+    private static RpcInvokeContext isolateContext(RpcInternalContext parent, RpcInvokeContext parentInvokeContext,
+                                                   ProviderInfo providerInfo) {
+        RpcInternalContext context = RpcInternalContext.getContext();
+        context.setProviderSide(false);
+        context.setAttachments(parent.getAttachments());
+        context.setLocalAddress(parent.getLocalAddress());
+        context.setRemoteAddress(providerInfo.getHost(), providerInfo.getPort());
+        context.setProviderInfo(providerInfo);
+        RpcInvokeContext invokeContext = new RpcInvokeContext();
+        if (parentInvokeContext != null && RpcInvokeContext.isBaggageEnable()) {
+            invokeContext.putAllRequestBaggage(parentInvokeContext.getAllRequestBaggage());
+        }
+        RpcInvokeContext.setContext(invokeContext);
+        if (context.getAttachment(RpcConstants.HIDDEN_KEY_INVOKE_CONTEXT) != null) {
+            // 响应透传数据先写入独立的上下文，胜出的调用再复制给调用方
+            context.setAttachment(RpcConstants.HIDDEN_KEY_INVOKE_CONTEXT, invokeContext);
+        }
+        return invokeContext;
+    }
+
+    /**
+     * 弹出 isolateContext 使用的上下文，恢复调用方的 RpcInvokeContext
+     *
+     * @param parentInvokeContext 调用方的 RpcInvokeContext，可能为空
+     */
+    private static void restoreContext(RpcInvokeContext parentInvokeContext) {
+        RpcInternalContext.popContext();
+        if (parentInvokeContext == null) {
+            RpcInvokeContext.removeContext();
+        } else {
+            RpcInvokeContext.setContext(parentInvokeContext);
+        }
+    }
+
+    private ProviderInfo selectHedgeProvider(SofaRequest request, List<ProviderInfo> excludes) {
+        try {
+            return select(request, excludes);
+        } catch (SofaRpcException e) {
+            // 没有其它可用的服务端，只等待首次调用
+            return null;
+        }
+    }
+
+    private SofaRequest copyRequest(SofaRequest request) {
+        SofaRequest copy = new SofaRequest();
+        copy.setTargetAppName(request.getTargetAppName());
+        copy.addRequestProps(request.getRequestProps());
+        copy.setMethodName(request.getMethodName());
+        copy.setMethodArgs(request.getMethodArgs());
+        copy.setMethodArgSigs(request.getMethodArgSigs());
+        copy.setTargetServiceUniqueName(request.getTargetServiceUniqueName());
+        copy.setMethod(request.getMethod());
+        copy.setInterfaceName(request.getInterfaceName());
+        copy.setSerializeType(request.getSerializeType());
+        copy.setInvokeType(request.getInvokeType());
+        copy.setTimeout(request.getTimeout());
+        return copy;
+    }
+
+    /**
+     * 一次调用的对冲参数
+     */
+    private static class Hedging {
+
+        private final long               delay;
+
+        private final List<ProviderInfo> invokedProviderInfos;
+
+        /**
+         * 首次调用的结果，不为空表示本次发送是对冲请求
+         */
+        private final HedgeResult        result;
+
+        Hedging(long delay, List<ProviderInfo> invokedProviderInfos, HedgeResult result) {
+            this.delay = delay;
+            this.invokedProviderInfos = invokedProviderInfos;
+            this.result = result;
+        }
+    }
+
+    /**
+     * 对冲调用的结果，取最先收到的响应（包括业务异常）；所有发送的请求都失败时取最先返回的RPC异常。<br>
+     * 传输层的回调接口不支持取消，落后的请求无法从服务端撤回：出结果或者调用方不再等待时，
+     * 落后的请求立即释放其上下文和结果，之后到达的响应直接丢弃
+     */
+    private static class HedgeResult {
+
+        /**
+         * 从胜出调用的上下文复制回调用方上下文的附件
+         */
+        private static final String[]    RESTORE_KEYS = { RpcConstants.INTERNAL_KEY_CLIENT_ELAPSE,
+                                                              RpcConstants.INTERNAL_KEY_CONN_CREATE_TIME,
+                                                              RpcConstants.INTERNAL_KEY_REQ_SIZE,
+                                                              RpcConstants.INTERNAL_KEY_RESP_SIZE,
+                                                              RpcConstants.INTERNAL_KEY_REQ_SERIALIZE_TIME,
+                                                              RpcConstants.INTERNAL_KEY_RESP_DESERIALIZE_TIME };
+
+        /**
+         * 已发送的请求
+         */
+        private final List<HedgeAttempt> attempts     = new ArrayList<HedgeAttempt>(2);
+
+        private int                      failed;
+
+        private HedgeAttempt             winner;
+
+        private SofaRpcException         failure;
+
+        /**
+         * 调用方已经取走结果，不再等待
+         */
+        private boolean                  closed;
+
+        /**
+         * 登记一次即将发送的请求
+         *
+         * @param attempt 请求
+         * @return 是否还需要发送，已经有结果时返回false
+         */
+        synchronized boolean sending(HedgeAttempt attempt) {
+            if (closed || winner != null) {
+                return false;
+            }
+            attempts.add(attempt);
+            return true;
+        }
+
+        synchronized void unsent(HedgeAttempt attempt) {
+            attempts.remove(attempt);
+            notifyAll();
+        }
+
+        synchronized void complete(HedgeAttempt attempt) {
+            if (winner != null || closed) {
+                attempt.release();
+                return;
+            }
+            winner = attempt;
+            for (HedgeAttempt other : attempts) {
+                if (other != attempt) {
+                    other.release();
+                }
+            }
+            notifyAll();
+        }
+
+        synchronized void fail(HedgeAttempt attempt, SofaRpcException e) {
+            failed++;
+            if (failure == null) {
+                failure = e;
+            }
+            attempt.release();
+            notifyAll();
+        }
+
+        private boolean isDone() {
+            return winner != null || failed >= attempts.size();
+        }
+
+        /**
+         * 等待直到收到响应或者所有请求都失败
+         *
+         * @param timeout 最长等待时间（毫秒）
+         * @return 是否已经有结果
+         * @throws InterruptedException 等待被中断
+         */
+        synchronized boolean await(long timeout) throws InterruptedException {
+            long deadline = RpcRuntimeContext.now() + timeout;
+            while (!isDone()) {
+                long remain = deadline - RpcRuntimeContext.now();
+                if (remain <= 0) {
+                    return false;
+                }
+                wait(remain);
+            }
+            return true;
+        }
+
+        /**
+         * 取出结果，释放落后的请求，并把胜出调用的地址、统计附件和响应透传数据复制到调用方的上下文
+         *
+         * @param request 调用方的请求对象
+         * @param timeout 超时时间
+         * @return 响应
+         * @throws SofaRpcException 所有请求都失败或者超时
+         */
+        synchronized SofaResponse get(SofaRequest request, int timeout) throws SofaRpcException {
+            closed = true;
+            for (HedgeAttempt attempt : attempts) {
+                if (attempt != winner) {
+                    attempt.release();
+                }
+            }
+            if (winner == null) {
+                if (failure != null && failed >= attempts.size()) {
+                    throw failure;
+                }
+                throw new SofaTimeOutException("Waited " + timeout + "ms for the hedged call of "
+                    + request.getInterfaceName() + "." + request.getMethodName() + ", but no response.");
+            }
+            RpcInternalContext context = RpcInternalContext.getContext();
+            RpcInternalContext winnerContext = winner.context;
+            context.setRemoteAddress(winnerContext.getRemoteAddress());
+            context.setProviderInfo(winnerContext.getProviderInfo());
+            if (RpcInternalContext.isAttachmentEnable()) {
+                for (String key : RESTORE_KEYS) {
+                    context.setAttachment(key, winnerContext.getAttachment(key));
+                }
+            }
+            if (RpcInvokeContext.isBaggageEnable()) {
+                Map<String, String> responseBaggage = winner.invokeContext.getAllResponseBaggage();
+                if (responseBaggage != null && !responseBaggage.isEmpty()) {
+                    RpcInvokeContext.getContext().putAllResponseBaggage(responseBaggage);
+                }
+            }
+            return winner.response;
+        }
+    }
+
+    /**
+     * 对冲调用中的一次请求，响应在传输层的回调线程中通知
+     */
+    private static class HedgeAttempt implements SofaResponseCallback {
+
+        private volatile HedgeResult        result;
+
+        private volatile RpcInternalContext context;
+
+        private volatile RpcInvokeContext   invokeContext;
+
+        private volatile SofaResponse       response;
+
+        HedgeAttempt(HedgeResult result, RpcInternalContext context, RpcInvokeContext invokeContext) {
+            this.result = result;
+            this.context = context;
+            this.invokeContext = invokeContext;
+        }
+
+        /**
+         * 落后的请求释放上下文和结果。传输层的回调仍引用本对象，直到响应到达或者超时
+         */
+        void release() {
+            RpcInternalContext released = context;
+            result = null;
+            context = null;
+            invokeContext = null;
+            response = null;
+            if (released != null) {
+                released.clear();
+            }
+        }
+
+        @Override
+        public void onAppResponse(Object appResponse, String methodName, RequestBase request) {
+            HedgeResult current = result;
+            if (current == null) {
+                return;
+            }
+            SofaResponse sofaResponse = new SofaResponse();
+            sofaResponse.setAppResponse(appResponse);
+            response = sofaResponse;
+            current.complete(this);
+        }
+
+        @Override
+        public void onAppException(Throwable throwable, String methodName, RequestBase request) {
+            // 业务异常也是服务端的正常响应
+            onAppResponse(throwable, methodName, request);
+        }
+
+        @Override
+        public void onSofaException(SofaRpcException sofaException, String methodName, RequestBase request) {
+            HedgeResult current = result;
+            if (current != null) {
+                current.fail(this, sofaException);
+            }
+        }
+    }
+
 }
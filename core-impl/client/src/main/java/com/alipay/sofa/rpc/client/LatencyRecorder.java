@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按时间窗口统计调用耗时的分位数，用于计算对冲请求的延迟。<br>
+ * 耗时按指数分桶计数，每个窗口结束时计算一次分位数，窗口内样本不足时沿用上一次的结果。
+ */
+public class LatencyRecorder {
+
+    /**
+     * 默认窗口（毫秒）
+     */
+    private static final long    DEFAULT_WINDOW      = 10000L;
+
+    /**
+     * 默认窗口内最少样本数
+     */
+    private static final int     DEFAULT_MIN_SAMPLES = 100;
+
+    /**
+     * 分桶上界（毫秒），从1毫秒开始每桶扩大20%，最后一个桶不设上界
+     */
+    private static final long[]  BOUNDS;
+
+    static {
+        List<Long> bounds = new ArrayList<Long>();
+        for (double bound = 1; bound < 60000; bound *= 1.2) {
+            long value = (long) Math.ceil(bound);
+            if (bounds.isEmpty() || value > bounds.get(bounds.size() - 1)) {
+                bounds.add(value);
+            }
+        }
+        bounds.add(Long.MAX_VALUE);
+        BOUNDS = new long[bounds.size()];
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUNDS[i] = bounds.get(i);
+        }
+    }
+
+    /**
+     * 分位数，例如95
+     */
+    private final double         percentile;
+
+    /**
+     * 窗口大小（毫秒）
+     */
+    private final long           window;
+
+    /**
+     * 窗口内最少样本数
+     */
+    private final int            minSamples;
+
+    /**
+     * 当前窗口的计数
+     */
+    private volatile LongAdder[] counts              = newCounts();
+
+    /**
+     * 当前窗口的开始时间
+     */
+    private volatile long        windowStart         = System.currentTimeMillis();
+
+    /**
+     * 最近一次计算的分位数，-1表示还没有足够的样本
+     */
+    private volatile long        value               = -1;
+
+    /**
+     * 构造函数
+     *
+     * @param percentile 分位数，例如95
+     */
+    public LatencyRecorder(double percentile) {
+        this(percentile, DEFAULT_WINDOW, DEFAULT_MIN_SAMPLES);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param percentile 分位数，例如95
+     * @param window     窗口大小（毫秒）
+     * @param minSamples 窗口内最少样本数
+     */
+    public LatencyRecorder(double percentile, long window, int minSamples) {
+        this.percentile = percentile;
+        this.window = window;
+        this.minSamples = Math.max(1, minSamples);
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param elapsed 耗时（毫秒）
+     */
+    public void record(long elapsed) {
+        roll(System.currentTimeMillis());
+        int index = Arrays.binarySearch(BOUNDS, elapsed);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        counts[index].increment();
+    }
+
+    /**
+     * 得到上一个窗口的耗时分位数
+     *
+     * @return 分位数（毫秒），-1表示还没有足够的样本
+     */
+    public long getPercentile() {
+        roll(System.currentTimeMillis());
+        return value;
+    }
+
+    private void roll(long now) {
+        if (now - windowStart < window) {
+            return;
+        }
+        synchronized (this) {
+            if (now - windowStart < window) {
+                return;
+            }
+            LongAdder[] old = counts;
+            counts = newCounts();
+            windowStart = now;
+            long result = calculate(old);
+            if (result >= 0) {
+                value = result;
+            }
+        }
+    }
+
+    private long calculate(LongAdder[] old) {
+        long[] snapshot = new long[old.length];
+        long total = 0;
+        for (int i = 0; i < old.length; i++) {
+            snapshot[i] = old[i].sum();
+            total += snapshot[i];
+        }
+        if (total < minSamples) {
+            return -1;
+        }
+        long target = (long) Math.ceil(total * percentile / 100);
+        long count = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            count += snapshot[i];
+            if (count >= target) {
+                return BOUNDS[i];
+            }
+        }
+        return BOUNDS[BOUNDS.length - 1];
+    }
+
+    private static LongAdder[] newCounts() {
+        LongAdder[] counts = new LongAdder[BOUNDS.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 重试预算（令牌桶）：每次调用存入 ratio 个令牌，每次重试消耗 1 个令牌，
+ * 令牌数不超过 maxRetries，从而把重试量限制在正常调用量的一定比例内，避免故障期间重试放大流量
+ */
+public class RetryBudget {
+
+    /**
+     * 令牌的精度，内部以千分之一个令牌计数
+     */
+    private static final long SCALE = 1000L;
+
+    /**
+     * 每次调用存入的令牌数（已放大）
+     */
+    private final long        deposit;
+
+    /**
+     * 令牌桶容量（已放大）
+     */
+    private final long        capacity;
+
+    /**
+     * 当前令牌数（已放大），初始为满
+     */
+    private final AtomicLong  tokens;
+
+    /**
+     * 构造函数
+     *
+     * @param ratio      重试量占调用量的比例
+     * @param maxRetries 允许的突发重试次数
+     */
+    public RetryBudget(double ratio, int maxRetries) {
+        this.deposit = Math.max(1L, (long) (ratio * SCALE));
+        this.capacity = Math.max(1, maxRetries) * SCALE;
+        this.tokens = new AtomicLong(capacity);
+    }
+
+    /**
+     * 记录一次调用，存入令牌
+     */
+    public void deposit() {
+        for (;;) {
+            long current = tokens.get();
+            if (current >= capacity) {
+                return;
+            }
+            long next = Math.min(capacity, current + deposit);
+            if (tokens.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 尝试取出一次重试的令牌
+     *
+     * @return 是否允许重试
+     */
+    public boolean tryWithdraw() {
+        for (;;) {
+            long current = tokens.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 当前可用的重试次数
+     *
+     * @return 可用的重试次数
+     */
+    public long getAvailableRetries() {
+        return tokens.get() / SCALE;
+    }
+}
@@ -54,6 +54,11 @@ public class SingleGroupAddressHolder extends AddressHolder {
     // 写锁，写的时候不允许读
     private Lock                   wLock = lock.writeLock();
 
+    /**
+     * 地址版本号，在写锁内修改
+     */
+    private volatile long          version;
+
     /**
      * 构造函数
      *
@@ -110,6 +115,11 @@ public class SingleGroupAddressHolder extends AddressHolder {
         }
     }
 
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
     @Override
     public void addProvider(ProviderGroup providerGroup) {
         if (ProviderHelper.isEmpty(providerGroup)) {
@@ -118,6 +128,7 @@ public class SingleGroupAddressHolder extends AddressHolder {
         wLock.lock();
         try {
             getProviderGroup(providerGroup.getName()).addAll(providerGroup.getProviderInfos());
+            version++;
         } finally {
             wLock.unlock();
         }
@@ -131,6 +142,7 @@ public class SingleGroupAddressHolder extends AddressHolder {
         wLock.lock();
         try {
             getProviderGroup(providerGroup.getName()).removeAll(providerGroup.getProviderInfos());
+            version++;
         } finally {
             wLock.unlock();
         }
@@ -142,6 +154,7 @@ public class SingleGroupAddressHolder extends AddressHolder {
         try {
             getProviderGroup(providerGroup.getName())
                 .setProviderInfos(new ArrayList<ProviderInfo>(providerGroup.getProviderInfos()));
+            version++;
         } finally {
             wLock.unlock();
         }
@@ -164,6 +177,7 @@ public class SingleGroupAddressHolder extends AddressHolder {
         try {
             this.directUrlGroup.setProviderInfos(new ArrayList<ProviderInfo>(tmpDirectUrl));
             this.registryGroup.setProviderInfos(new ArrayList<ProviderInfo>(tmpRegistry));
+            version++;
         } finally {
             wLock.unlock();
         }
@@ -16,6 +16,8 @@
  */
 package com.alipay.sofa.rpc.client.http;
 
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
 import com.alipay.sofa.rpc.common.json.JSON;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
@@ -31,16 +33,22 @@ import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 /**
  *  @author <a href=mailto:zhiyuan.lzy@antfin.com>zhiyuan.lzy</a>
  */
 public class RpcHttpClient {
-    private static final Logger          LOGGER   = LoggerFactory.getLogger(RpcHttpClient.class);
+    private static final Logger          LOGGER        = LoggerFactory.getLogger(RpcHttpClient.class);
 
     private volatile CloseableHttpClient closeableHttpClient;
 
-    private static RpcHttpClient         INSTANCE = new RpcHttpClient();
+    /**
+     * 请求配置只解析一次
+     */
+    private final RequestConfig          requestConfig = parseRequestConfig();
+
+    private static RpcHttpClient         INSTANCE      = new RpcHttpClient();
 
     private RpcHttpClient() {
         shutdownHttpClientHook();
@@ -50,13 +58,12 @@ public class RpcHttpClient {
         return INSTANCE;
     }
 
-    public <T> T doGet(String url, Class<T> tClass) throws Throwable {
+    public <T> T doGet(String url, Class<T> tClass) throws IOException {
         long start = System.currentTimeMillis();
         CloseableHttpClient httpClient = getCloseableHttpClient();
         CloseableHttpResponse response = null;
         try {
             HttpGet httpGet = new HttpGet(url);
-            RequestConfig requestConfig = parseRequestConfig();
             httpGet.setConfig(requestConfig);
             response = httpClient.execute(httpGet);
             HttpEntity entity = response.getEntity();
@@ -64,7 +71,7 @@ public class RpcHttpClient {
                 LOGGER.debug("http client get success. url: {}. latency: {}ms.", url, System.currentTimeMillis() -
                     start);
             }
-            return JSON.parseObject(EntityUtils.toString(entity), tClass);
+            return JSON.parseObject(EntityUtils.toString(entity, StandardCharsets.UTF_8), tClass);
         } catch (Throwable throwable) {
             LOGGER.error("http client get error. url: " + url + ". latency: " + (System.currentTimeMillis() - start) +
                 "ms.", throwable);
@@ -80,13 +87,12 @@ public class RpcHttpClient {
         }
     }
 
-    public <T> T doPost(String url, String jsonBody, Class<T> tClass) throws Throwable {
+    public <T> T doPost(String url, String jsonBody, Class<T> tClass) throws IOException {
         long start = System.currentTimeMillis();
         CloseableHttpClient httpClient = getCloseableHttpClient();
         CloseableHttpResponse response = null;
         try {
             HttpPost httpPost = new HttpPost(url);
-            RequestConfig requestConfig = parseRequestConfig();
             httpPost.setConfig(requestConfig);
 
             StringEntity requestEntity = new StringEntity(jsonBody, "utf-8");
@@ -100,7 +106,7 @@ public class RpcHttpClient {
                 LOGGER.debug("http client post success. url: {}. latency: {}ms.", url, System.currentTimeMillis() -
                     start);
             }
-            return JSON.parseObject(EntityUtils.toString(entity), tClass);
+            return JSON.parseObject(EntityUtils.toString(entity, StandardCharsets.UTF_8), tClass);
         } catch (Throwable throwable) {
             LOGGER.error(
                 "http client post error. url: " + url + ", body: " + jsonBody + ". latency: " +
@@ -123,6 +129,9 @@ public class RpcHttpClient {
             synchronized (this) {
                 if (closeableHttpClient == null) {
                     PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+                    connectionManager.setMaxTotal(RpcConfigs.getIntValue(RpcOptions.HTTP_CLIENT_POOL_MAX));
+                    connectionManager.setDefaultMaxPerRoute(
+                        RpcConfigs.getIntValue(RpcOptions.HTTP_CLIENT_POOL_ROUTE_MAX));
                     closeableHttpClient = HttpClients.custom().setConnectionManager(connectionManager).build();
                 }
             }
@@ -131,7 +140,11 @@ public class RpcHttpClient {
     }
 
     private RequestConfig parseRequestConfig() {
-        return RequestConfig.custom().build();
+        return RequestConfig.custom()
+            .setConnectTimeout(RpcConfigs.getIntValue(RpcOptions.HTTP_CLIENT_CONNECT_TIMEOUT))
+            .setConnectionRequestTimeout(RpcConfigs.getIntValue(RpcOptions.HTTP_CLIENT_CONNECT_TIMEOUT))
+            .setSocketTimeout(RpcConfigs.getIntValue(RpcOptions.HTTP_CLIENT_SOCKET_TIMEOUT))
+            .build();
     }
 
     private void shutdownHttpClientHook() {
@@ -17,16 +17,14 @@
 package com.alipay.sofa.rpc.client.lb;
 
 import com.alipay.sofa.rpc.bootstrap.ConsumerBootstrap;
+import com.alipay.sofa.rpc.client.AbstractCluster;
 import com.alipay.sofa.rpc.client.AbstractLoadBalancer;
+import com.alipay.sofa.rpc.client.Cluster;
 import com.alipay.sofa.rpc.client.LoadBalancer;
 import com.alipay.sofa.rpc.client.LoadBalancerFactory;
 import com.alipay.sofa.rpc.client.ProviderInfo;
-import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.core.request.SofaRequest;
-import com.alipay.sofa.rpc.dynamic.DynamicConfigKeys;
-import com.alipay.sofa.rpc.dynamic.DynamicConfigManager;
-import com.alipay.sofa.rpc.dynamic.DynamicConfigManagerFactory;
-import com.alipay.sofa.rpc.dynamic.DynamicHelper;
+import com.alipay.sofa.rpc.dynamic.ConsumerDynamicConfig;
 import com.alipay.sofa.rpc.ext.Extension;
 
 import java.util.List;
@@ -54,19 +52,14 @@ public class AutoLoadBalancer extends AbstractLoadBalancer {
     protected ProviderInfo doSelect(SofaRequest request, List<ProviderInfo> providerInfos) {
 
         // 动态配置优先
-        final String dynamicAlias = consumerConfig.getParameter(DynamicConfigKeys.DYNAMIC_ALIAS);
-        if (StringUtils.isNotBlank(dynamicAlias)) {
-            String dynamicLoadBalancer = null;
-            DynamicConfigManager dynamicConfigManager = DynamicConfigManagerFactory.getDynamicManager(
-                consumerConfig.getAppName(), dynamicAlias);
-            if (dynamicConfigManager != null) {
-                dynamicLoadBalancer = dynamicConfigManager.getConsumerServiceProperty(
-                    request.getTargetServiceUniqueName(), LOAD_BALANCER_KEY);
-                if (DynamicHelper.isNotDefault(dynamicLoadBalancer) && StringUtils.isNotBlank(dynamicLoadBalancer)) {
-                    LoadBalancer loadBalancer = LoadBalancerFactory.getLoadBalancer(consumerBootstrap,
-                        dynamicLoadBalancer);
-                    return loadBalancer.select(request, providerInfos);
-                }
+        Cluster cluster = consumerBootstrap.getCluster();
+        if (cluster instanceof AbstractCluster) {
+            ConsumerDynamicConfig dynamicConfig = ((AbstractCluster) cluster).getDynamicConfig();
+            String dynamicLoadBalancer = dynamicConfig == null ? null : dynamicConfig.getLoadBalancer();
+            if (dynamicLoadBalancer != null) {
+                LoadBalancer loadBalancer = LoadBalancerFactory.getLoadBalancer(consumerBootstrap,
+                    dynamicLoadBalancer);
+                return loadBalancer.select(request, providerInfos);
             }
         }
         LoadBalancer loadBalancer = LoadBalancerFactory.getLoadBalancer(consumerBootstrap, DEFAULT_LOAD_BALANCER);
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client.lb;
+
+import com.alipay.sofa.rpc.bootstrap.ConsumerBootstrap;
+import com.alipay.sofa.rpc.client.AbstractLoadBalancer;
+import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.ext.Extension;
+import com.alipay.sofa.rpc.transport.ClientTransport;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 基于负载的均衡算法（Peak EWMA + 两次随机选择）：<br>
+ * 随机取两个服务端，比较 衰减后的响应时间 * (正在处理的请求数 + 1) / 权重，选择代价较小的一个。<br>
+ * 慢节点或积压请求多的节点会自动分到更少的流量；没有响应时间统计的连接退化为最少并发请求。
+ */
+@Extension("peakEwma")
+public class PeakEwmaLoadBalancer extends AbstractLoadBalancer {
+
+    /**
+     * 构造函数
+     *
+     * @param consumerBootstrap 服务消费者配置
+     */
+    public PeakEwmaLoadBalancer(ConsumerBootstrap consumerBootstrap) {
+        super(consumerBootstrap);
+    }
+
+    @Override
+    public ProviderInfo doSelect(SofaRequest invocation, List<ProviderInfo> providerInfos) {
+        int size = providerInfos.size();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++; // 保证两次选择不同
+        }
+        ProviderInfo a = providerInfos.get(first);
+        ProviderInfo b = providerInfos.get(second);
+        return cost(b) < cost(a) ? b : a;
+    }
+
+    /**
+     * 计算服务端的负载代价，越小越优先
+     *
+     * @param providerInfo 服务端
+     * @return 代价
+     */
+    protected double cost(ProviderInfo providerInfo) {
+        int weight = getWeight(providerInfo);
+        if (weight == 0) {
+            return Double.MAX_VALUE;
+        }
+        ClientTransport transport = getClientTransport(providerInfo);
+        if (transport == null) {
+            return 1d / weight;
+        }
+        double responseTime = transport.decayedResponseTime();
+        if (responseTime <= 0) {
+            // 不支持统计或者还没有采样
+            responseTime = 1;
+        }
+        return responseTime * (transport.currentRequests() + 1) / weight;
+    }
+}
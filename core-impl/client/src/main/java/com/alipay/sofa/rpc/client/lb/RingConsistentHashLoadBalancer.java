@@ -0,0 +1,417 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client.lb;
+
+import com.alipay.sofa.rpc.bootstrap.ConsumerBootstrap;
+import com.alipay.sofa.rpc.client.AbstractLoadBalancer;
+import com.alipay.sofa.rpc.client.AddressHolder;
+import com.alipay.sofa.rpc.client.ProviderGroup;
+import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.common.utils.CommonUtils;
+import com.alipay.sofa.rpc.common.utils.HashUtils;
+import com.alipay.sofa.rpc.common.utils.StringUtils;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.ext.Extension;
+import com.alipay.sofa.rpc.transport.ClientTransport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一致性hash算法，同样的请求（第一参数）会打到同样的节点。<br>
+ * 和 {@link ConsistentHashLoadBalancer} 相比：
+ * <ul>
+ * <li>hash环是排好序的int数组，二分查找，不再使用TreeMap</li>
+ * <li>使用MurmurHash3代替MD5</li>
+ * <li>通过地址管理器的版本号判断地址是否变化，不再每次计算服务列表的hashCode；hash环和方法无关，整个服务共用一个</li>
+ * <li>可选的有界负载模式（consumer.loadBalancer.hash.loadFactor大于等于1时开启）：
+ * 节点的并发请求数超过 平均值 * loadFactor 时顺延到环上的下一个节点，避免热点key压垮单个节点</li>
+ * </ul>
+ * 注意：hash算法不同，同一个key选中的节点和consistentHash不一样，不要混用。
+ */
+@Extension("ringConsistentHash")
+public class RingConsistentHashLoadBalancer extends AbstractLoadBalancer {
+
+    /**
+     * 每个服务端的虚拟节点数
+     */
+    private static final int    VIRTUAL_NODE_NUM          = 128;
+
+    /**
+     * 有界负载模式下节点容量的缓存时间（毫秒），不用每次选择都汇总所有节点的负载
+     */
+    private static final long   CAPACITY_REFRESH_INTERVAL = 10;
+
+    /**
+     * 有界负载的系数，小于1表示不开启
+     */
+    private final double        loadFactor;
+
+    /**
+     * 当前的hash环
+     */
+    private volatile Ring       ring;
+
+    /**
+     * 可选列表不在环上时临时使用的hash环
+     */
+    private volatile Ring       fallback;
+
+    /**
+     * 上一次的可选节点
+     */
+    private volatile Candidates candidates;
+
+    /**
+     * 构造函数
+     *
+     * @param consumerBootstrap 服务消费者配置
+     */
+    public RingConsistentHashLoadBalancer(ConsumerBootstrap consumerBootstrap) {
+        this(consumerBootstrap, RpcConfigs.getOrDefaultValue(RpcOptions.CONSUMER_LOAD_BALANCER_HASH_LOAD_FACTOR,
+            0d));
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param consumerBootstrap 服务消费者配置
+     * @param loadFactor        有界负载的系数，小于1表示不开启
+     */
+    public RingConsistentHashLoadBalancer(ConsumerBootstrap consumerBootstrap, double loadFactor) {
+        super(consumerBootstrap);
+        this.loadFactor = loadFactor;
+    }
+
+    @Override
+    public ProviderInfo doSelect(SofaRequest request, List<ProviderInfo> providerInfos) {
+        int hash = HashUtils.murmurHash3(buildKeyOfHash(request.getMethodArgs()));
+        return currentCandidates(providerInfos).select(hash);
+    }
+
+    /**
+     * 获取第一参数作为hash的key
+     *
+     * @param args the args
+     * @return the string
+     */
+    private String buildKeyOfHash(Object[] args) {
+        if (CommonUtils.isEmpty(args)) {
+            return StringUtils.EMPTY;
+        } else {
+            return StringUtils.toString(args[0]);
+        }
+    }
+
+    /**
+     * 得到当前的hash环，地址变化时重建
+     *
+     * @param providerInfos 可选的服务列表
+     * @return hash环
+     */
+    private Ring currentRing(List<ProviderInfo> providerInfos) {
+        Ring current = ring;
+        AddressHolder addressHolder = getAddressHolder();
+        long version = addressHolder == null ? -1 : addressHolder.getVersion();
+        if (version >= 0) {
+            // 先取版本号再取地址，并发变化时最多多建一次环
+            if (current == null || current.version != version) {
+                current = new Ring(allProviders(addressHolder), version, 0);
+                ring = current;
+            }
+        } else {
+            // 地址管理器不支持版本号，退化为比较服务列表
+            int hashcode = providerInfos.hashCode();
+            if (current == null || current.version >= 0 || current.hashcode != hashcode) {
+                current = new Ring(providerInfos, -1, hashcode);
+                ring = current;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 得到本次可选列表在环上的标记，同一个列表对象（地址没变时路由一般返回同一个）直接复用
+     *
+     * @param providerInfos 可选的服务列表
+     * @return 可选节点
+     */
+    private Candidates currentCandidates(List<ProviderInfo> providerInfos) {
+        Ring current = currentRing(providerInfos);
+        Candidates cached = candidates;
+        if (cached != null && cached.providerInfos == providerInfos && cached.base == current) {
+            return cached;
+        }
+        cached = new Candidates(current, providerInfos);
+        candidates = cached;
+        return cached;
+    }
+
+    /**
+     * 可选列表不在环上（例如路由生成的地址）时使用的环，列表不变时复用
+     *
+     * @param providerInfos 可选的服务列表
+     * @return hash环
+     */
+    private Ring fallbackRing(List<ProviderInfo> providerInfos) {
+        Ring current = fallback;
+        int hashcode = providerInfos.hashCode();
+        if (current == null || current.hashcode != hashcode) {
+            current = new Ring(providerInfos, -1, hashcode);
+            fallback = current;
+        }
+        return current;
+    }
+
+    private List<ProviderInfo> allProviders(AddressHolder addressHolder) {
+        List<ProviderInfo> providerInfos = new ArrayList<ProviderInfo>();
+        for (ProviderGroup providerGroup : addressHolder.getProviderGroups()) {
+            providerInfos.addAll(providerGroup.getProviderInfos());
+        }
+        return providerInfos;
+    }
+
+    /**
+     * 服务端当前的负载
+     *
+     * @param providerInfo 服务端
+     * @return 正在处理的请求数
+     */
+    protected int load(ProviderInfo providerInfo) {
+        ClientTransport transport = getClientTransport(providerInfo);
+        return transport == null ? 0 : transport.currentRequests();
+    }
+
+    /**
+     * 扁平的hash环：排序后的hash值数组 + 对应的节点下标
+     */
+    private class Ring {
+
+        /**
+         * 地址版本号，-1表示按hashcode判断
+         */
+        private final long                       version;
+
+        /**
+         * 服务列表的hashcode，version为-1时有效
+         */
+        private final int                        hashcode;
+
+        /**
+         * 去重后的节点
+         */
+        private final ProviderInfo[]             nodes;
+
+        /**
+         * 排序后的虚拟节点hash值
+         */
+        private final int[]                      hashes;
+
+        /**
+         * 虚拟节点对应的节点下标
+         */
+        private final int[]                      indexes;
+
+        /**
+         * 节点在nodes中的下标
+         */
+        private final Map<ProviderInfo, Integer> positions;
+
+        Ring(List<ProviderInfo> providerInfos, long version, int hashcode) {
+            this.version = version;
+            this.hashcode = hashcode;
+            this.positions = new IdentityHashMap<ProviderInfo, Integer>();
+            List<ProviderInfo> list = new ArrayList<ProviderInfo>(providerInfos.size());
+            for (ProviderInfo providerInfo : providerInfos) {
+                if (!positions.containsKey(providerInfo)) {
+                    positions.put(providerInfo, list.size());
+                    list.add(providerInfo);
+                }
+            }
+            this.nodes = list.toArray(new ProviderInfo[list.size()]);
+            // 高32位hash，低32位节点下标，一次排序
+            long[] packed = new long[nodes.length * VIRTUAL_NODE_NUM];
+            int p = 0;
+            for (int i = 0; i < nodes.length; i++) {
+                String prefix = nodes[i].getHost() + ":" + nodes[i].getPort() + "#";
+                for (int v = 0; v < VIRTUAL_NODE_NUM; v++) {
+                    packed[p++] = ((long) HashUtils.murmurHash3(prefix + v) << 32) | i;
+                }
+            }
+            Arrays.sort(packed);
+            this.hashes = new int[packed.length];
+            this.indexes = new int[packed.length];
+            for (int i = 0; i < packed.length; i++) {
+                hashes[i] = (int) (packed[i] >> 32);
+                indexes[i] = (int) packed[i];
+            }
+        }
+
+        /**
+         * 请求hash在环上的起始位置
+         *
+         * @param hash 请求的hash
+         * @return 虚拟节点下标
+         */
+        int start(int hash) {
+            int start = Arrays.binarySearch(hashes, hash);
+            if (start < 0) {
+                start = -start - 1;
+            }
+            return start == hashes.length ? 0 : start;
+        }
+    }
+
+    /**
+     * 本次可选的服务列表在环上的标记：按节点下标标记是否可选，列表不变时复用
+     */
+    private class Candidates {
+
+        /**
+         * 可选的服务列表
+         */
+        private final List<ProviderInfo> providerInfos;
+
+        /**
+         * 构造时的当前环，用于判断是否失效
+         */
+        private final Ring               base;
+
+        /**
+         * 实际使用的环，可选列表不在当前环上时为临时环
+         */
+        private final Ring               ring;
+
+        /**
+         * 按节点下标标记是否可选，null表示环上的节点都可选
+         */
+        private final boolean[]          mask;
+
+        /**
+         * 可选的节点数
+         */
+        private final int                size;
+
+        /**
+         * 缓存的节点容量
+         */
+        private volatile int             capacity;
+
+        /**
+         * 节点容量的过期时间
+         */
+        private volatile long            capacityExpireTime;
+
+        Candidates(Ring base, List<ProviderInfo> providerInfos) {
+            this.providerInfos = providerInfos;
+            this.base = base;
+            boolean[] mask = new boolean[base.nodes.length];
+            int size = 0;
+            boolean onRing = true;
+            for (ProviderInfo providerInfo : providerInfos) {
+                Integer index = base.positions.get(providerInfo);
+                if (index == null) {
+                    onRing = false;
+                    break;
+                }
+                if (!mask[index]) {
+                    mask[index] = true;
+                    size++;
+                }
+            }
+            if (onRing) {
+                this.ring = base;
+                this.size = size;
+                // 可选列表就是全部节点，不用逐个判断
+                this.mask = size == base.nodes.length ? null : mask;
+            } else {
+                this.ring = fallbackRing(providerInfos);
+                this.size = ring.nodes.length;
+                this.mask = null;
+            }
+        }
+
+        /**
+         * 顺时针找到第一个可用的节点
+         *
+         * @param hash 请求的hash
+         * @return 节点，找不到返回null
+         */
+        ProviderInfo select(int hash) {
+            if (ring.hashes.length == 0 || size == 0) {
+                return null;
+            }
+            int start = ring.start(hash);
+            if (loadFactor < 1) {
+                return mask == null ? ring.nodes[ring.indexes[start]] : scan(start, Integer.MAX_VALUE);
+            }
+            ProviderInfo providerInfo = scan(start, capacity(false));
+            if (providerInfo == null) {
+                // 缓存的容量可能已经偏小，重新计算后再找一次；负载并发变化时仍找不到就不限制容量
+                providerInfo = scan(start, capacity(true));
+                if (providerInfo == null) {
+                    providerInfo = scan(start, Integer.MAX_VALUE);
+                }
+            }
+            return providerInfo;
+        }
+
+        private ProviderInfo scan(int start, int capacity) {
+            int length = ring.hashes.length;
+            for (int i = 0; i < length; i++) {
+                int index = ring.indexes[(start + i) % length];
+                if (mask != null && !mask[index]) {
+                    continue;
+                }
+                ProviderInfo node = ring.nodes[index];
+                if (capacity != Integer.MAX_VALUE && load(node) >= capacity) {
+                    continue;
+                }
+                return node;
+            }
+            return null;
+        }
+
+        /**
+         * 每个节点允许的最大并发请求数：ceil(loadFactor * (总请求数 + 1) / 节点数)，缓存一小段时间
+         *
+         * @param refresh 是否强制重新计算
+         * @return 节点容量
+         */
+        private int capacity(boolean refresh) {
+            long now = System.currentTimeMillis();
+            if (!refresh && now < capacityExpireTime) {
+                return capacity;
+            }
+            long total = 0;
+            for (int i = 0; i < ring.nodes.length; i++) {
+                if (mask == null || mask[i]) {
+                    total += load(ring.nodes[i]);
+                }
+            }
+            int current = (int) Math.ceil(loadFactor * (total + 1) / size);
+            capacity = current;
+            capacityExpireTime = now + CAPACITY_REFRESH_INTERVAL;
+            return current;
+        }
+    }
+}
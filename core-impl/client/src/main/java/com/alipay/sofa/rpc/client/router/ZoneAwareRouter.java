@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client.router;
+
+import com.alipay.sofa.rpc.bootstrap.ConsumerBootstrap;
+import com.alipay.sofa.rpc.client.AddressHolder;
+import com.alipay.sofa.rpc.client.Cluster;
+import com.alipay.sofa.rpc.client.ConnectionHolder;
+import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.client.ProviderInfoAttrs;
+import com.alipay.sofa.rpc.client.ProviderStatus;
+import com.alipay.sofa.rpc.client.Router;
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.common.utils.CommonUtils;
+import com.alipay.sofa.rpc.common.utils.StringUtils;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.event.ClientZoneRouteEvent;
+import com.alipay.sofa.rpc.event.EventBus;
+import com.alipay.sofa.rpc.ext.Extension;
+import com.alipay.sofa.rpc.filter.AutoActive;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按可用区路由：优先选择和本机同可用区的服务端，同可用区健康容量不足时溢出到所有可用区
+ * <p>
+ * 服务端的可用区来自注册中心元数据中的 {@link ProviderInfoAttrs#ATTR_ZONE}，
+ * 本机可用区取自服务引用的zone参数或者 {@link RpcOptions#SYSTEM_ZONE}。
+ * 同可用区的服务端只有状态可用且已建立连接时才计入健康容量。
+ * <p>
+ * 划分结果和是否溢出只在地址列表或者连接变化时重新计算，同可用区的列表是只读的缓存，
+ * 后续路由需要修改时自行复制；{@link ClientZoneRouteEvent} 也只在路由结果变化时发出。
+ * 服务端状态和权重的变化在下一次地址或者连接变化时生效，预热结束时也会重新计算一次。
+ */
+@Extension(value = "zone", order = -17000)
+@AutoActive(consumerSide = true)
+public class ZoneAwareRouter extends Router {
+
+    /**
+     * 路由路径：可用区
+     */
+    public static final String                     RPC_ZONE_ROUTER = "ZONE";
+
+    /**
+     * 流量统计key：溢出到所有可用区
+     */
+    public static final String                     CROSS_ZONE      = "*";
+
+    /**
+     * 服务消费者配置
+     */
+    protected ConsumerBootstrap                    consumerBootstrap;
+
+    /**
+     * 本机所在可用区
+     */
+    String                                         localZone;
+
+    /**
+     * 同可用区健康容量占比低于该值时溢出
+     */
+    double                                         spilloverRatio  = RpcConfigs.getOrDefaultValue(
+                                                                       RpcOptions.CONSUMER_ZONE_SPILLOVER_RATIO, 0.5d);
+
+    /**
+     * 同可用区健康服务端数量少于该值时溢出
+     */
+    int                                            minProviders    = RpcConfigs.getOrDefaultValue(
+                                                                       RpcOptions.CONSUMER_ZONE_MIN_PROVIDERS, 1);
+
+    /**
+     * 当前的路由结果
+     */
+    private volatile ZoneState                     state;
+
+    /**
+     * 按可用区统计的路由次数
+     */
+    private final ConcurrentMap<String, LongAdder> traffic         = new ConcurrentHashMap<String, LongAdder>();
+
+    @Override
+    public void init(ConsumerBootstrap consumerBootstrap) {
+        this.consumerBootstrap = consumerBootstrap;
+        this.localZone = getLocalZone(consumerBootstrap.getConsumerConfig());
+    }
+
+    @Override
+    public boolean needToLoad(ConsumerBootstrap consumerBootstrap) {
+        ConsumerConfig consumerConfig = consumerBootstrap.getConsumerConfig();
+        // 不是直连，且配置了本机可用区
+        return StringUtils.isEmpty(consumerConfig.getDirectUrl())
+            && StringUtils.isNotBlank(getLocalZone(consumerConfig));
+    }
+
+    @Override
+    public List<ProviderInfo> route(SofaRequest request, List<ProviderInfo> providerInfos) {
+        if (CommonUtils.isEmpty(providerInfos) || StringUtils.isBlank(localZone)) {
+            return providerInfos;
+        }
+        ZoneState current = getState(providerInfos);
+        if (current.spillover) {
+            increment(CROSS_ZONE);
+            return providerInfos;
+        }
+        increment(localZone);
+        recordRouterWay(RPC_ZONE_ROUTER);
+        // 地址和连接不变时返回同一个只读列表，负载均衡可以按列表复用缓存
+        return current.localProviders;
+    }
+
+    /**
+     * 得到按可用区统计的路由次数，溢出到所有可用区的记在 {@link #CROSS_ZONE} 下
+     *
+     * @return 可用区-路由次数
+     */
+    public Map<String, Long> getZoneTraffic() {
+        Map<String, Long> result = new HashMap<String, Long>();
+        for (Map.Entry<String, LongAdder> entry : traffic.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().sum());
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private ZoneState getState(List<ProviderInfo> providerInfos) {
+        // 先取版本号再取地址和连接，并发变化时最多多算一次
+        long addressVersion = getAddressVersion();
+        long connectionVersion = getConnectionVersion();
+        ZoneState current = state;
+        if (current != null && current.isValid(addressVersion, connectionVersion, providerInfos.size(), localZone)) {
+            return current;
+        }
+        ZoneState newState = new ZoneState(addressVersion, connectionVersion, providerInfos, localZone);
+        newState.spillover = newState.localProviders.isEmpty() || needSpillover(newState.localProviders);
+        state = newState;
+        if (current == null || current.spillover != newState.spillover || !current.localZone.equals(localZone)) {
+            postEvent(newState.spillover ? CROSS_ZONE : localZone);
+        }
+        return newState;
+    }
+
+    /**
+     * 同可用区健康的服务端是否不足
+     *
+     * @param localProviders 同可用区服务端
+     * @return 是否需要溢出到所有可用区
+     */
+    boolean needSpillover(List<ProviderInfo> localProviders) {
+        Map<ProviderInfo, ?> connections = getAvailableConnections();
+        int healthy = 0;
+        long healthyWeight = 0;
+        long totalWeight = 0;
+        for (ProviderInfo providerInfo : localProviders) {
+            int weight = providerInfo.getWeight();
+            totalWeight += weight;
+            ProviderStatus status = providerInfo.getStatus();
+            if ((status == ProviderStatus.AVAILABLE || status == ProviderStatus.WARMING_UP)
+                && (connections == null || connections.containsKey(providerInfo))) {
+                healthy++;
+                healthyWeight += weight;
+            }
+        }
+        if (healthy == 0 || healthy < minProviders) {
+            return true;
+        }
+        if (totalWeight <= 0) {
+            // 权重都为0时按数量计算
+            return healthy < localProviders.size() * spilloverRatio;
+        }
+        return healthyWeight < totalWeight * spilloverRatio;
+    }
+
+    /**
+     * 得到已建立的可用连接，还没有任何连接（例如延迟建连）时返回null，只看服务端状态
+     *
+     * @return 服务端-连接
+     */
+    Map<ProviderInfo, ?> getAvailableConnections() {
+        Cluster cluster = consumerBootstrap == null ? null : consumerBootstrap.getCluster();
+        ConnectionHolder connectionHolder = cluster == null ? null : cluster.getConnectionHolder();
+        Map<ProviderInfo, ?> connections = connectionHolder == null ? null :
+            connectionHolder.getAvailableConnections();
+        return CommonUtils.isEmpty(connections) ? null : connections;
+    }
+
+    /**
+     * 得到地址列表的版本，取不到时返回-1，每次都重新划分
+     *
+     * @return 地址列表的版本
+     */
+    long getAddressVersion() {
+        Cluster cluster = consumerBootstrap == null ? null : consumerBootstrap.getCluster();
+        AddressHolder addressHolder = cluster == null ? null : cluster.getAddressHolder();
+        return addressHolder == null ? -1 : addressHolder.getVersion();
+    }
+
+    /**
+     * 得到连接的版本，取不到时返回-1，每次都重新判断是否溢出
+     *
+     * @return 连接的版本
+     */
+    long getConnectionVersion() {
+        Cluster cluster = consumerBootstrap == null ? null : consumerBootstrap.getCluster();
+        ConnectionHolder connectionHolder = cluster == null ? null : cluster.getConnectionHolder();
+        return connectionHolder == null ? -1 : connectionHolder.getVersion();
+    }
+
+    private void increment(String zone) {
+        LongAdder adder = traffic.get(zone);
+        if (adder == null) {
+            LongAdder newAdder = new LongAdder();
+            adder = traffic.putIfAbsent(zone, newAdder);
+            if (adder == null) {
+                adder = newAdder;
+            }
+        }
+        adder.increment();
+    }
+
+    private void postEvent(String zone) {
+        if (EventBus.isEnable(ClientZoneRouteEvent.class)) {
+            ConsumerConfig consumerConfig = consumerBootstrap == null ? null : consumerBootstrap.getConsumerConfig();
+            EventBus.post(new ClientZoneRouteEvent(consumerConfig, localZone, zone));
+        }
+    }
+
+    private static String getLocalZone(ConsumerConfig consumerConfig) {
+        String zone = consumerConfig.getParameter(ProviderInfoAttrs.ATTR_ZONE);
+        if (StringUtils.isBlank(zone)) {
+            zone = RpcConfigs.getOrDefaultValue(RpcOptions.SYSTEM_ZONE, StringUtils.EMPTY);
+        }
+        return zone;
+    }
+
+    /**
+     * 某个版本的地址列表和连接对应的路由结果
+     */
+    private static class ZoneState {
+
+        private final long               addressVersion;
+
+        private final long               connectionVersion;
+
+        /**
+         * 划分时地址列表的大小
+         */
+        private final int                size;
+
+        private final String             localZone;
+
+        /**
+         * 同可用区的服务端，只读
+         */
+        private final List<ProviderInfo> localProviders;
+
+        /**
+         * 同可用区预热最早结束的时间，预热结束后权重变化，需要重新判断是否溢出
+         */
+        private final long               warmupEndTime;
+
+        /**
+         * 是否溢出到所有可用区
+         */
+        private boolean                  spillover;
+
+        ZoneState(long addressVersion, long connectionVersion, List<ProviderInfo> providerInfos, String localZone) {
+            this.addressVersion = addressVersion;
+            this.connectionVersion = connectionVersion;
+            this.size = providerInfos.size();
+            this.localZone = localZone;
+            List<ProviderInfo> local = new ArrayList<ProviderInfo>();
+            long endTime = Long.MAX_VALUE;
+            for (ProviderInfo providerInfo : providerInfos) {
+                if (localZone.equals(providerInfo.getAttr(ProviderInfoAttrs.ATTR_ZONE))) {
+                    local.add(providerInfo);
+                    Object warmupEnd = providerInfo.getDynamicAttr(ProviderInfoAttrs.ATTR_WARM_UP_END_TIME);
+                    if (warmupEnd instanceof Long) {
+                        endTime = Math.min(endTime, (Long) warmupEnd);
+                    }
+                }
+            }
+            this.localProviders = Collections.unmodifiableList(local);
+            this.warmupEndTime = endTime;
+        }
+
+        /**
+         * 路由结果是否还可以复用，取不到版本号时不复用
+         *
+         * @param addressVersion    地址列表的版本
+         * @param connectionVersion 连接的版本
+         * @param size              地址列表的大小
+         * @param localZone         本机所在可用区
+         * @return 是否可以复用
+         */
+        boolean isValid(long addressVersion, long connectionVersion, int size, String localZone) {
+            return addressVersion >= 0 && connectionVersion >= 0
+                && this.addressVersion == addressVersion && this.connectionVersion == connectionVersion
+                && this.size == size && this.localZone.equals(localZone)
+                && (warmupEndTime == Long.MAX_VALUE || System.currentTimeMillis() <= warmupEndTime);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client;
+
+import com.alipay.sofa.rpc.bootstrap.ConsumerBootstrap;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.context.RpcInternalContext;
+import com.alipay.sofa.rpc.context.RpcInvokeContext;
+import com.alipay.sofa.rpc.core.exception.SofaRouteException;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.exception.SofaTimeOutException;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.filter.ConsumerInvoker;
+import com.alipay.sofa.rpc.filter.FilterChain;
+import com.alipay.sofa.rpc.message.ResponseFuture;
+import com.alipay.sofa.rpc.transport.AbstractChannel;
+import com.alipay.sofa.rpc.transport.ClientTransport;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ */
+public class FailoverClusterTest {
+
+    private final ProviderInfo primary = ProviderHelper.toProviderInfo("bolt://127.0.0.1:12200");
+
+    private final ProviderInfo backup  = ProviderHelper.toProviderInfo("bolt://127.0.0.2:12200");
+
+    @After
+    public void tearDown() {
+        RpcInternalContext.removeAllContext();
+        RpcInvokeContext.removeContext();
+    }
+
+    @Test
+    public void testRetryBudgetExhausted() {
+        ConsumerConfig<Object> consumerConfig = newConsumerConfig();
+        consumerConfig.setRetries(2);
+        TestTransport transport1 = new TestTransport(-1, null);
+        TestTransport transport2 = new TestTransport(-1, null);
+        TestCluster cluster = newCluster(consumerConfig, transport1, transport2);
+
+        // 不限制重试
+        cluster.retryBudget = null;
+        invokeTimeout(cluster);
+        Assert.assertEquals(3, transport1.syncCount.get() + transport2.syncCount.get());
+
+        // 预算只够重试一次
+        transport1.syncCount.set(0);
+        transport2.syncCount.set(0);
+        cluster.retryBudget = new RetryBudget(0.1, 1);
+        invokeTimeout(cluster);
+        Assert.assertEquals(2, transport1.syncCount.get() + transport2.syncCount.get());
+
+        // 预算耗尽后不再重试
+        transport1.syncCount.set(0);
+        transport2.syncCount.set(0);
+        invokeTimeout(cluster);
+        Assert.assertEquals(1, transport1.syncCount.get() + transport2.syncCount.get());
+    }
+
+    @Test
+    public void testHedgeAfterDelay() {
+        ConsumerConfig<Object> consumerConfig = newConsumerConfig();
+        consumerConfig.setParameter(RpcConstants.CONFIG_KEY_HEDGE, "true");
+        // 首选的服务端一直不返回，对冲请求立即返回
+        TestTransport transport1 = new TestTransport(-1, "primary");
+        TestTransport transport2 = new TestTransport(0, "backup");
+        TestCluster cluster = newCluster(consumerConfig, transport1, transport2);
+        cluster.latencyRecorder = newRecorder();
+        cluster.hedgeMinDelay = 100;
+
+        long start = System.currentTimeMillis();
+        SofaResponse response = cluster.invoke(newRequest(RpcConstants.INVOKER_TYPE_SYNC));
+        long elapsed = System.currentTimeMillis() - start;
+
+        Assert.assertEquals("backup", response.getAppResponse());
+        Assert.assertTrue(elapsed >= 100);
+        Assert.assertEquals(1, transport1.requests.size());
+        Assert.assertEquals(1, transport2.requests.size());
+        Assert.assertEquals(backup, RpcInternalContext.getContext().getProviderInfo());
+        // 对冲请求和首次调用使用独立的请求对象
+        Assert.assertTrue(transport1.requests.get(0) != transport2.requests.get(0));
+
+        // 落后的请求已被释放，之后到达的响应直接丢弃
+        transport1.requests.get(0).getSofaResponseCallback().onAppResponse("late", "test", null);
+    }
+
+    @Test
+    public void testFirstResponseWins() throws Exception {
+        ConsumerConfig<Object> consumerConfig = newConsumerConfig();
+        consumerConfig.setParameter(RpcConstants.CONFIG_KEY_HEDGE, "true");
+        TestTransport transport1 = new TestTransport(150, "primary");
+        TestTransport transport2 = new TestTransport(2000, "backup");
+        TestCluster cluster = newCluster(consumerConfig, transport1, transport2);
+        cluster.latencyRecorder = newRecorder();
+        cluster.hedgeMinDelay = 20;
+
+        long start = System.currentTimeMillis();
+        SofaResponse response = cluster.invoke(newRequest(RpcConstants.INVOKER_TYPE_SYNC));
+        long elapsed = System.currentTimeMillis() - start;
+
+        Assert.assertEquals("primary", response.getAppResponse());
+        Assert.assertTrue(elapsed < 2000);
+        Assert.assertEquals(1, transport2.requests.size());
+        Assert.assertEquals(primary, RpcInternalContext.getContext().getProviderInfo());
+    }
+
+    @Test
+    public void testNoHedge() {
+        ConsumerConfig<Object> consumerConfig = newConsumerConfig();
+        TestCluster cluster = newCluster(consumerConfig, new TestTransport(-1, null), new TestTransport(-1, null));
+        cluster.latencyRecorder = newRecorder();
+
+        // 默认不开启
+        Assert.assertFalse(cluster.isHedge(newRequest(RpcConstants.INVOKER_TYPE_SYNC)));
+
+        consumerConfig.setParameter(RpcConstants.CONFIG_KEY_HEDGE, "true");
+        Assert.assertTrue(cluster.isHedge(newRequest(RpcConstants.INVOKER_TYPE_SYNC)));
+        // 异步调用不开启
+        Assert.assertFalse(cluster.isHedge(newRequest(RpcConstants.INVOKER_TYPE_CALLBACK)));
+        Assert.assertFalse(cluster.isHedge(newRequest(RpcConstants.INVOKER_TYPE_FUTURE)));
+        Assert.assertFalse(cluster.isHedge(newRequest(RpcConstants.INVOKER_TYPE_ONEWAY)));
+
+        // 粘滞连接不开启
+        consumerConfig.setSticky(true);
+        Assert.assertFalse(cluster.isHedge(newRequest(RpcConstants.INVOKER_TYPE_SYNC)));
+        consumerConfig.setSticky(false);
+
+        // 指定地址不开启
+        RpcInternalContext.getContext().setAttachment(RpcConstants.HIDDEN_KEY_PINPOINT, "127.0.0.1:12200");
+        Assert.assertFalse(cluster.isHedge(newRequest(RpcConstants.INVOKER_TYPE_SYNC)));
+    }
+
+    private void invokeTimeout(TestCluster cluster) {
+        try {
+            cluster.invoke(newRequest(RpcConstants.INVOKER_TYPE_SYNC));
+            Assert.fail();
+        } catch (SofaTimeOutException e) {
+            // 所有调用都超时
+        }
+    }
+
+    private static LatencyRecorder newRecorder() {
+        // 每次读取都滚动窗口，一个样本即可得到分位数
+        LatencyRecorder recorder = new LatencyRecorder(50, 0, 1);
+        recorder.record(1);
+        return recorder;
+    }
+
+    private static ConsumerConfig<Object> newConsumerConfig() {
+        return new ConsumerConfig<Object>().setInterfaceId(TestService.class.getName());
+    }
+
+    private static SofaRequest newRequest(String invokeType) {
+        SofaRequest request = new SofaRequest();
+        request.setInterfaceName(TestService.class.getName());
+        request.setTargetServiceUniqueName(TestService.class.getName() + ":1.0");
+        request.setMethodName("test");
+        request.setInvokeType(invokeType);
+        request.setTimeout(3000);
+        return request;
+    }
+
+    private TestCluster newCluster(ConsumerConfig<Object> consumerConfig, TestTransport transport1,
+                                   TestTransport transport2) {
+        TestBootstrap bootstrap = new TestBootstrap(consumerConfig);
+        TestCluster cluster = new TestCluster(bootstrap);
+        bootstrap.cluster = cluster;
+        cluster.providers.add(primary);
+        cluster.providers.add(backup);
+        AllConnectConnectionHolder connectionHolder = new AllConnectConnectionHolder(bootstrap);
+        connectionHolder.addAlive(primary, transport1);
+        connectionHolder.addAlive(backup, transport2);
+        cluster.connectionHolder = connectionHolder;
+        cluster.filterChain = FilterChain.buildConsumerChain(consumerConfig, new ConsumerInvoker(bootstrap));
+        cluster.initialized = true;
+        return cluster;
+    }
+
+    private interface TestService {
+
+        String test();
+    }
+
+    /**
+     * 按顺序选择还没有调用过的服务端，都调用过时选择第一个
+     */
+    private static class TestCluster extends FailoverCluster {
+
+        private final List<ProviderInfo> providers = new ArrayList<ProviderInfo>();
+
+        TestCluster(ConsumerBootstrap consumerBootstrap) {
+            super(consumerBootstrap);
+        }
+
+        @Override
+        protected ProviderInfo select(SofaRequest message, List<ProviderInfo> invokedProviderInfos) {
+            for (ProviderInfo providerInfo : providers) {
+                if (invokedProviderInfos == null || !invokedProviderInfos.contains(providerInfo)) {
+                    return providerInfo;
+                }
+            }
+            if (providers.isEmpty()) {
+                throw new SofaRouteException("No available provider");
+            }
+            return providers.get(0);
+        }
+    }
+
+    private static class TestBootstrap extends ConsumerBootstrap<Object> {
+
+        private Cluster cluster;
+
+        TestBootstrap(ConsumerConfig<Object> consumerConfig) {
+            super(consumerConfig);
+        }
+
+        @Override
+        public Object refer() {
+            return null;
+        }
+
+        @Override
+        public void unRefer() {
+        }
+
+        @Override
+        public Object getProxyIns() {
+            return null;
+        }
+
+        @Override
+        public Cluster getCluster() {
+            return cluster;
+        }
+
+        @Override
+        public List<ProviderGroup> subscribe() {
+            return null;
+        }
+
+        @Override
+        public boolean isSubscribed() {
+            return true;
+        }
+    }
+
+    /**
+     * 同步调用总是超时；异步调用在 delay 毫秒后回调，小于0表示一直不返回
+     */
+    private static class TestTransport extends ClientTransport {
+
+        private final long              delay;
+
+        private final Object            appResponse;
+
+        private final AtomicInteger     syncCount = new AtomicInteger();
+
+        private final List<SofaRequest> requests  = new CopyOnWriteArrayList<SofaRequest>();
+
+        TestTransport(long delay, Object appResponse) {
+            super(null);
+            this.delay = delay;
+            this.appResponse = appResponse;
+        }
+
+        @Override
+        public ResponseFuture asyncSend(final SofaRequest message, int timeout) throws SofaRpcException {
+            requests.add(message);
+            if (delay == 0) {
+                message.getSofaResponseCallback().onAppResponse(appResponse, message.getMethodName(), message);
+            } else if (delay > 0) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            Thread.sleep(delay);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        message.getSofaResponseCallback().onAppResponse(appResponse, message.getMethodName(),
+                            message);
+                    }
+                });
+                thread.setDaemon(true);
+                thread.start();
+            }
+            return null;
+        }
+
+        @Override
+        public SofaResponse syncSend(SofaRequest message, int timeout) throws SofaRpcException {
+            syncCount.incrementAndGet();
+            throw new SofaTimeOutException("timeout");
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public void destroy() {
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public int currentRequests() {
+            return 0;
+        }
+
+        @Override
+        public void setChannel(AbstractChannel channel) {
+        }
+
+        @Override
+        public AbstractChannel getChannel() {
+            return null;
+        }
+
+        @Override
+        public void oneWaySend(SofaRequest message, int timeout) throws SofaRpcException {
+        }
+
+        @Override
+        public void receiveRpcResponse(SofaResponse response) {
+        }
+
+        @Override
+        public void handleRpcRequest(SofaRequest request) {
+        }
+
+        @Override
+        public InetSocketAddress remoteAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress localAddress() {
+            return null;
+        }
+    }
+}
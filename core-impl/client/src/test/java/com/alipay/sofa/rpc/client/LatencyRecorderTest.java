@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class LatencyRecorderTest {
+
+    @Test
+    public void testPercentile() throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder(90, 100, 10);
+        Assert.assertEquals(-1, recorder.getPercentile());
+        for (int i = 0; i < 90; i++) {
+            recorder.record(2);
+        }
+        for (int i = 0; i < 10; i++) {
+            recorder.record(1000);
+        }
+        // 窗口未结束
+        Assert.assertEquals(-1, recorder.getPercentile());
+        Thread.sleep(150);
+        Assert.assertEquals(2, recorder.getPercentile());
+
+        // 样本不足时沿用上一个窗口的结果
+        recorder.record(1000);
+        Thread.sleep(150);
+        Assert.assertEquals(2, recorder.getPercentile());
+
+        for (int i = 0; i < 100; i++) {
+            recorder.record(1000);
+        }
+        Thread.sleep(150);
+        long percentile = recorder.getPercentile();
+        Assert.assertTrue(percentile >= 1000 && percentile < 1200);
+    }
+}
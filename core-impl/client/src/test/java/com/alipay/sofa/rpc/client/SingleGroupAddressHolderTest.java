@@ -189,7 +189,9 @@ public class SingleGroupAddressHolderTest {
             ProviderHelper.toProviderInfo("127.0.0.1:12201"))));
         ps1.add(new ProviderGroup("yy", Arrays.asList(ProviderHelper.toProviderInfo("127.0.0.1:12202"),
             ProviderHelper.toProviderInfo("127.0.0.1:12203"))));
+        long version = addressHolder.getVersion();
         addressHolder.updateAllProviders(ps1);
+        Assert.assertTrue(addressHolder.getVersion() > version);
 
         current = addressHolder.getProviderGroups();
         Assert.assertTrue(current.size() == 2);
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client.lb;
+
+import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.message.ResponseFuture;
+import com.alipay.sofa.rpc.transport.AbstractChannel;
+import com.alipay.sofa.rpc.transport.ClientTransport;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ */
+public class PeakEwmaLoadBalancerTest extends BaseLoadBalancerTest {
+
+    @Test
+    public void testSelectWithoutTransport() {
+        PeakEwmaLoadBalancer loadBalancer = new PeakEwmaLoadBalancer(null);
+        Map<Integer, Integer> cnt = new HashMap<Integer, Integer>();
+        int size = 10;
+        int total = 100000;
+        for (int i = 0; i < size; i++) {
+            cnt.put(9000 + i, 0);
+        }
+        List<ProviderInfo> providers = buildSameWeightProviderList(size);
+        SofaRequest request = new SofaRequest();
+        for (int i = 0; i < total; i++) {
+            int port = loadBalancer.doSelect(request, providers).getPort();
+            cnt.put(port, cnt.get(port) + 1);
+        }
+        int avg = total / size;
+        for (int i = 0; i < size; i++) {
+            Assert.assertTrue(avg * 0.9 < cnt.get(9000 + i) && avg * 1.1 > cnt.get(9000 + i));
+        }
+    }
+
+    @Test
+    public void testSelectByLoad() {
+        final Map<ProviderInfo, LoadClientTransport> transports = new HashMap<ProviderInfo, LoadClientTransport>();
+        PeakEwmaLoadBalancer loadBalancer = new PeakEwmaLoadBalancer(null) {
+            @Override
+            protected ClientTransport getClientTransport(ProviderInfo providerInfo) {
+                return transports.get(providerInfo);
+            }
+        };
+        List<ProviderInfo> providers = buildSameWeightProviderList(2);
+        ProviderInfo fast = providers.get(0);
+        ProviderInfo slow = providers.get(1);
+        transports.put(fast, new LoadClientTransport(2, 10));
+        transports.put(slow, new LoadClientTransport(2, 100));
+
+        SofaRequest request = new SofaRequest();
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(fast, loadBalancer.doSelect(request, providers));
+        }
+
+        // 快的节点积压了很多请求
+        transports.get(fast).inflight = 50;
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(slow, loadBalancer.doSelect(request, providers));
+        }
+
+        // 权重为0的节点不参与
+        transports.get(fast).inflight = 0;
+        fast.setWeight(0);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(slow, loadBalancer.doSelect(request, providers));
+        }
+    }
+
+    private static class LoadClientTransport extends ClientTransport {
+
+        private int          inflight;
+
+        private final double responseTime;
+
+        LoadClientTransport(int inflight, double responseTime) {
+            super(null);
+            this.inflight = inflight;
+            this.responseTime = responseTime;
+        }
+
+        @Override
+        public int currentRequests() {
+            return inflight;
+        }
+
+        @Override
+        public double decayedResponseTime() {
+            return responseTime;
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public void destroy() {
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public void setChannel(AbstractChannel channel) {
+        }
+
+        @Override
+        public AbstractChannel getChannel() {
+            return null;
+        }
+
+        @Override
+        public ResponseFuture asyncSend(SofaRequest message, int timeout) throws SofaRpcException {
+            return null;
+        }
+
+        @Override
+        public SofaResponse syncSend(SofaRequest message, int timeout) throws SofaRpcException {
+            return null;
+        }
+
+        @Override
+        public void oneWaySend(SofaRequest message, int timeout) throws SofaRpcException {
+        }
+
+        @Override
+        public void receiveRpcResponse(SofaResponse response) {
+        }
+
+        @Override
+        public void handleRpcRequest(SofaRequest request) {
+        }
+
+        @Override
+        public InetSocketAddress remoteAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress localAddress() {
+            return null;
+        }
+    }
+}
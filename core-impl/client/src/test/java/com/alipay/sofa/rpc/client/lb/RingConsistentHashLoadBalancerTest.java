@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client.lb;
+
+import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ */
+public class RingConsistentHashLoadBalancerTest extends BaseLoadBalancerTest {
+
+    @Test
+    public void testSameKeySameProvider() {
+        RingConsistentHashLoadBalancer loadBalancer = new RingConsistentHashLoadBalancer(null);
+        List<ProviderInfo> providers = buildSameWeightProviderList(20);
+        SofaRequest request = buildRequest("key");
+        ProviderInfo first = loadBalancer.doSelect(request, providers);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertSame(first, loadBalancer.doSelect(request, providers));
+        }
+    }
+
+    @Test
+    public void testDistribution() {
+        RingConsistentHashLoadBalancer loadBalancer = new RingConsistentHashLoadBalancer(null);
+        int size = 10;
+        int total = 100000;
+        List<ProviderInfo> providers = buildSameWeightProviderList(size);
+        Map<Integer, Integer> cnt = new HashMap<Integer, Integer>();
+        for (int i = 0; i < total; i++) {
+            int port = loadBalancer.doSelect(buildRequest("key" + i), providers).getPort();
+            Integer old = cnt.get(port);
+            cnt.put(port, old == null ? 1 : old + 1);
+        }
+        Assert.assertEquals(size, cnt.size());
+        int avg = total / size;
+        for (Integer count : cnt.values()) {
+            Assert.assertTrue(avg * 0.7 < count && avg * 1.3 > count);
+        }
+    }
+
+    @Test
+    public void testRemoveProvider() {
+        RingConsistentHashLoadBalancer loadBalancer = new RingConsistentHashLoadBalancer(null);
+        List<ProviderInfo> providers = buildSameWeightProviderList(10);
+        Map<String, ProviderInfo> before = new HashMap<String, ProviderInfo>();
+        for (int i = 0; i < 1000; i++) {
+            before.put("key" + i, loadBalancer.doSelect(buildRequest("key" + i), providers));
+        }
+        ProviderInfo removed = providers.get(3);
+        List<ProviderInfo> subset = new ArrayList<ProviderInfo>(providers);
+        subset.remove(removed);
+        for (Map.Entry<String, ProviderInfo> entry : before.entrySet()) {
+            ProviderInfo now = loadBalancer.doSelect(buildRequest(entry.getKey()), subset);
+            Assert.assertNotSame(removed, now);
+            if (entry.getValue() != removed) {
+                // 其它节点上的key不会迁移
+                Assert.assertSame(entry.getValue(), now);
+            }
+        }
+    }
+
+    @Test
+    public void testBoundedLoad() {
+        final Map<ProviderInfo, Integer> loads = new HashMap<ProviderInfo, Integer>();
+        RingConsistentHashLoadBalancer loadBalancer = new RingConsistentHashLoadBalancer(null, 1.25) {
+            @Override
+            protected int load(ProviderInfo providerInfo) {
+                Integer load = loads.get(providerInfo);
+                return load == null ? 0 : load;
+            }
+        };
+        List<ProviderInfo> providers = buildSameWeightProviderList(4);
+        SofaRequest request = buildRequest("hot");
+        ProviderInfo hot = loadBalancer.doSelect(request, providers);
+        Assert.assertSame(hot, loadBalancer.doSelect(request, providers));
+
+        // 热点节点超过容量后顺延到其它节点
+        loads.put(hot, 100);
+        Set<ProviderInfo> selected = new HashSet<ProviderInfo>();
+        for (int i = 0; i < 100; i++) {
+            selected.add(loadBalancer.doSelect(request, providers));
+        }
+        Assert.assertEquals(1, selected.size());
+        Assert.assertFalse(selected.contains(hot));
+    }
+
+    @Test
+    public void testCapacityNotSummedPerSelect() {
+        final AtomicInteger loadCalls = new AtomicInteger();
+        RingConsistentHashLoadBalancer loadBalancer = new RingConsistentHashLoadBalancer(null, 1.25) {
+            @Override
+            protected int load(ProviderInfo providerInfo) {
+                loadCalls.incrementAndGet();
+                return 0;
+            }
+        };
+        List<ProviderInfo> providers = buildSameWeightProviderList(20);
+        for (int i = 0; i < 100; i++) {
+            loadBalancer.doSelect(buildRequest("key" + i), providers);
+        }
+        // 每次选择只看选中节点的负载，容量缓存后不再汇总全部节点
+        Assert.assertTrue(loadCalls.get() < 100 * 2 + 20 * 10);
+    }
+
+    @Test
+    public void testProvidersNotOnRing() {
+        RingConsistentHashLoadBalancer loadBalancer = new RingConsistentHashLoadBalancer(null);
+        List<ProviderInfo> providers = buildSameWeightProviderList(10);
+        loadBalancer.doSelect(buildRequest("key"), providers);
+
+        // 可选列表和环上的节点是不同的对象，使用临时环并且结果稳定
+        List<ProviderInfo> others = buildSameWeightProviderList(3);
+        ProviderInfo first = loadBalancer.doSelect(buildRequest("key"), others);
+        Assert.assertTrue(others.contains(first));
+        for (int i = 0; i < 100; i++) {
+            Assert.assertSame(first, loadBalancer.doSelect(buildRequest("key"),
+                new ArrayList<ProviderInfo>(others)));
+        }
+    }
+
+    private SofaRequest buildRequest(String key) {
+        SofaRequest request = new SofaRequest();
+        request.setInterfaceName(RingConsistentHashLoadBalancerTest.class.getName());
+        request.setMethodName("doSelect");
+        request.setMethodArgs(new Object[] { key });
+        return request;
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client.router;
+
+import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.client.ProviderInfoAttrs;
+import com.alipay.sofa.rpc.client.ProviderStatus;
+import com.alipay.sofa.rpc.event.ClientZoneRouteEvent;
+import com.alipay.sofa.rpc.event.Event;
+import com.alipay.sofa.rpc.event.EventBus;
+import com.alipay.sofa.rpc.event.Subscriber;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ */
+public class ZoneAwareRouterTest {
+
+    @Test
+    public void testRouteLocalZone() {
+        ZoneAwareRouter router = newRouter();
+        List<ProviderInfo> providers = new ArrayList<ProviderInfo>();
+        providers.add(newProvider("127.0.0.1", "zone-a"));
+        providers.add(newProvider("127.0.0.2", "zone-b"));
+        providers.add(newProvider("127.0.0.3", "zone-a"));
+        providers.add(newProvider("127.0.0.4", null));
+
+        List<ProviderInfo> result = router.route(null, providers);
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals("127.0.0.1", result.get(0).getHost());
+        Assert.assertEquals("127.0.0.3", result.get(1).getHost());
+        Assert.assertEquals(4, providers.size());
+        Assert.assertEquals(1L, router.getZoneTraffic().get("zone-a").longValue());
+    }
+
+    @Test
+    public void testSpillover() {
+        ZoneAwareRouter router = newRouter();
+        List<ProviderInfo> providers = new ArrayList<ProviderInfo>();
+        ProviderInfo local1 = newProvider("127.0.0.1", "zone-a");
+        ProviderInfo local2 = newProvider("127.0.0.2", "zone-a");
+        providers.add(local1);
+        providers.add(local2);
+        providers.add(newProvider("127.0.0.3", "zone-b"));
+
+        // 没有同可用区的服务端
+        router.localZone = "zone-c";
+        Assert.assertSame(providers, router.route(null, providers));
+        router.localZone = "zone-a";
+
+        // 健康容量一半，不低于阈值
+        local1.setStatus(ProviderStatus.DISABLED);
+        Assert.assertEquals(2, router.route(null, providers).size());
+
+        // 健康容量低于阈值
+        local1.setWeight(300);
+        Assert.assertSame(providers, router.route(null, providers));
+
+        // 健康服务端数量低于阈值
+        local1.setWeight(100);
+        router.minProviders = 2;
+        Assert.assertSame(providers, router.route(null, providers));
+
+        Assert.assertEquals(3L, router.getZoneTraffic().get(ZoneAwareRouter.CROSS_ZONE).longValue());
+        Assert.assertEquals(1L, router.getZoneTraffic().get("zone-a").longValue());
+    }
+
+    @Test
+    public void testSpilloverWithoutConnection() {
+        final Map<ProviderInfo, Object> connections = new HashMap<ProviderInfo, Object>();
+        ZoneAwareRouter router = new ZoneAwareRouter() {
+            @Override
+            Map<ProviderInfo, ?> getAvailableConnections() {
+                return connections.isEmpty() ? null : connections;
+            }
+        };
+        router.localZone = "zone-a";
+        router.spilloverRatio = 0.5d;
+        router.minProviders = 1;
+        List<ProviderInfo> providers = new ArrayList<ProviderInfo>();
+        ProviderInfo local1 = newProvider("127.0.0.1", "zone-a");
+        ProviderInfo local2 = newProvider("127.0.0.2", "zone-a");
+        ProviderInfo remote = newProvider("127.0.0.3", "zone-b");
+        providers.add(local1);
+        providers.add(local2);
+        providers.add(remote);
+
+        // 还没有任何连接时只看服务端状态
+        Assert.assertEquals(2, router.route(null, providers).size());
+
+        // 同可用区只有一个连上，一半容量不低于阈值
+        connections.put(local1, new Object());
+        connections.put(remote, new Object());
+        Assert.assertEquals(2, router.route(null, providers).size());
+
+        // 连上的那个状态不可用，剩下的没有连接
+        local1.setStatus(ProviderStatus.DISABLED);
+        Assert.assertSame(providers, router.route(null, providers));
+    }
+
+    @Test
+    public void testPartitionInvalidation() {
+        final long[] versions = new long[] { 1, 1 };
+        ZoneAwareRouter router = new ZoneAwareRouter() {
+            @Override
+            long getAddressVersion() {
+                return versions[0];
+            }
+
+            @Override
+            long getConnectionVersion() {
+                return versions[1];
+            }
+        };
+        router.localZone = "zone-a";
+        router.spilloverRatio = 0.5d;
+        router.minProviders = 1;
+        List<ProviderInfo> providers = new ArrayList<ProviderInfo>();
+        providers.add(newProvider("127.0.0.1", "zone-a"));
+        providers.add(newProvider("127.0.0.2", "zone-b"));
+        List<ProviderInfo> result = router.route(null, providers);
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals("127.0.0.1", result.get(0).getHost());
+
+        // 地址变化
+        versions[0]++;
+        List<ProviderInfo> replaced = new ArrayList<ProviderInfo>();
+        replaced.add(newProvider("127.0.0.3", "zone-b"));
+        replaced.add(newProvider("127.0.0.4", "zone-a"));
+        result = router.route(null, replaced);
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals("127.0.0.4", result.get(0).getHost());
+
+        // 本机可用区变化
+        router.localZone = "zone-b";
+        result = router.route(null, replaced);
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals("127.0.0.3", result.get(0).getHost());
+    }
+
+    @Test
+    public void testStateCached() {
+        final long[] versions = new long[] { 1, 1 };
+        final List<ClientZoneRouteEvent> events = new ArrayList<ClientZoneRouteEvent>();
+        Subscriber subscriber = new Subscriber() {
+            @Override
+            public void onEvent(Event event) {
+                events.add((ClientZoneRouteEvent) event);
+            }
+        };
+        ZoneAwareRouter router = new ZoneAwareRouter() {
+            @Override
+            long getAddressVersion() {
+                return versions[0];
+            }
+
+            @Override
+            long getConnectionVersion() {
+                return versions[1];
+            }
+        };
+        router.localZone = "zone-a";
+        router.spilloverRatio = 0.5d;
+        router.minProviders = 1;
+        List<ProviderInfo> providers = new ArrayList<ProviderInfo>();
+        ProviderInfo local = newProvider("127.0.0.1", "zone-a");
+        providers.add(local);
+        providers.add(newProvider("127.0.0.2", "zone-b"));
+
+        EventBus.register(ClientZoneRouteEvent.class, subscriber);
+        try {
+            // 地址和连接不变时返回同一个只读列表，事件只发一次
+            List<ProviderInfo> result = router.route(null, providers);
+            Assert.assertSame(result, router.route(null, new ArrayList<ProviderInfo>(providers)));
+            Assert.assertEquals(1, result.size());
+            try {
+                result.remove(0);
+                Assert.fail();
+            } catch (UnsupportedOperationException e) {
+                // 只读
+            }
+            Assert.assertEquals(1, events.size());
+
+            // 状态变化在连接变化后生效
+            local.setStatus(ProviderStatus.DISABLED);
+            Assert.assertSame(result, router.route(null, providers));
+            versions[1]++;
+            Assert.assertSame(providers, router.route(null, providers));
+            Assert.assertSame(providers, router.route(null, providers));
+            Assert.assertEquals(2, events.size());
+            Assert.assertEquals(ZoneAwareRouter.CROSS_ZONE, events.get(1).getZone());
+
+            // 连接恢复
+            local.setStatus(ProviderStatus.AVAILABLE);
+            versions[1]++;
+            Assert.assertEquals(1, router.route(null, providers).size());
+            Assert.assertEquals(3, events.size());
+            Assert.assertEquals("zone-a", events.get(2).getZone());
+        } finally {
+            EventBus.unRegister(ClientZoneRouteEvent.class, subscriber);
+        }
+        Assert.assertEquals(4L, router.getZoneTraffic().get("zone-a").longValue());
+        Assert.assertEquals(2L, router.getZoneTraffic().get(ZoneAwareRouter.CROSS_ZONE).longValue());
+    }
+
+    @Test
+    public void testRouteEvent() {
+        final List<ClientZoneRouteEvent> events = new ArrayList<ClientZoneRouteEvent>();
+        Subscriber subscriber = new Subscriber() {
+            @Override
+            public void onEvent(Event event) {
+                events.add((ClientZoneRouteEvent) event);
+            }
+        };
+        EventBus.register(ClientZoneRouteEvent.class, subscriber);
+        try {
+            ZoneAwareRouter router = newRouter();
+            List<ProviderInfo> providers = new ArrayList<ProviderInfo>();
+            ProviderInfo local = newProvider("127.0.0.1", "zone-a");
+            providers.add(local);
+            providers.add(newProvider("127.0.0.2", "zone-b"));
+            router.route(null, providers);
+            router.route(null, providers);
+            local.setStatus(ProviderStatus.DISABLED);
+            router.route(null, providers);
+        } finally {
+            EventBus.unRegister(ClientZoneRouteEvent.class, subscriber);
+        }
+        Assert.assertEquals(2, events.size());
+        Assert.assertEquals("zone-a", events.get(0).getLocalZone());
+        Assert.assertEquals("zone-a", events.get(0).getZone());
+        Assert.assertEquals(ZoneAwareRouter.CROSS_ZONE, events.get(1).getZone());
+    }
+
+    private ZoneAwareRouter newRouter() {
+        ZoneAwareRouter router = new ZoneAwareRouter();
+        router.localZone = "zone-a";
+        router.spilloverRatio = 0.5d;
+        router.minProviders = 1;
+        return router;
+    }
+
+    private ProviderInfo newProvider(String host, String zone) {
+        ProviderInfo providerInfo = new ProviderInfo().setHost(host).setPort(12200).setWeight(100);
+        if (zone != null) {
+            providerInfo.setStaticAttr(ProviderInfoAttrs.ATTR_ZONE, zone);
+        }
+        return providerInfo;
+    }
+}
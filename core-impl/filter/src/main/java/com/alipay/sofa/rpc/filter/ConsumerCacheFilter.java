@@ -0,0 +1,383 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.filter;
+
+import com.alipay.sofa.rpc.base.Destroyable;
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.common.struct.Cache;
+import com.alipay.sofa.rpc.common.struct.TinyLfuCache;
+import com.alipay.sofa.rpc.common.utils.StringUtils;
+import com.alipay.sofa.rpc.config.AbstractInterfaceConfig;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.context.RpcRuntimeContext;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.dynamic.DynamicConfigKeys;
+import com.alipay.sofa.rpc.dynamic.DynamicConfigListener;
+import com.alipay.sofa.rpc.dynamic.DynamicConfigManager;
+import com.alipay.sofa.rpc.dynamic.DynamicConfigManagerFactory;
+import com.alipay.sofa.rpc.dynamic.DynamicHelper;
+import com.alipay.sofa.rpc.ext.Extension;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 调用端结果缓存。<br>
+ * 通过接口或者方法的 cache=true 开启，只缓存同步调用的正常返回值，业务异常和RPC异常不缓存。
+ * <ul>
+ * <li>配置了 cacheRef 时使用用户自定义的 {@link Cache}</li>
+ * <li>否则每个方法一个按访问频率准入的有界缓存 {@link TinyLfuCache}，
+ * 方法或接口的自定义参数 cacheSize、cacheTtl、cacheRefreshAhead 可以覆盖默认的数量、有效期和提前刷新比例</li>
+ * <li>开启提前刷新时，有效期快到时由一次调用去刷新，其它调用继续拿缓存结果；刷新失败则继续使用旧结果直到过期</li>
+ * <li>配置了动态配置时，方法的 cacheVersion 变化后清空该方法的缓存。配置中心支持推送时由变更通知触发，
+ * 每个服务引用只注册一个监听，服务引用销毁时移除；否则在调用时每 {@link #VERSION_CHECK_INTERVAL} 毫秒由一个线程检查一次</li>
+ * </ul>
+ * 注意：命中缓存时返回的是同一个结果对象，业务不应修改返回值。
+ */
+@Extension(value = "consumerCache", order = -19500)
+@AutoActive(consumerSide = true)
+public class ConsumerCacheFilter extends Filter implements DynamicConfigListener, Destroyable {
+
+    /**
+     * 配置中心不支持推送时，动态配置的检查间隔
+     */
+    static final long                                VERSION_CHECK_INTERVAL = 1000;
+
+    /**
+     * 方法名和缓存的映射
+     */
+    private final ConcurrentMap<String, MethodCache> caches                 = new ConcurrentHashMap<String, MethodCache>();
+
+    /**
+     * 动态配置，没有配置时为null
+     */
+    private DynamicConfigManager                     dynamicConfigManager;
+
+    private String                                   interfaceName;
+
+    /**
+     * 配置中心是否会推送变更，推送时不用在调用时检查
+     */
+    private boolean                                  pushed                 = true;
+
+    @Override
+    public boolean needToLoad(FilterInvoker invoker) {
+        AbstractInterfaceConfig config = invoker.getConfig();
+        if (config instanceof ConsumerConfig && config.hasCache()) {
+            // 过滤器每个调用链一个实例，加载时注册动态配置的监听
+            init(config, getDynamicConfigManager(config));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 注册动态配置的监听，用于测试
+     *
+     * @param config               接口配置
+     * @param dynamicConfigManager 动态配置，可以为null
+     */
+    void init(AbstractInterfaceConfig config, DynamicConfigManager dynamicConfigManager) {
+        if (dynamicConfigManager != null) {
+            this.interfaceName = config.getInterfaceId();
+            this.pushed = dynamicConfigManager.addListener(interfaceName, this);
+            this.dynamicConfigManager = dynamicConfigManager;
+        }
+    }
+
+    @Override
+    public SofaResponse invoke(FilterInvoker invoker, SofaRequest request) throws SofaRpcException {
+        AbstractInterfaceConfig config = invoker.getConfig();
+        String methodName = request.getMethodName();
+        // 只缓存同步调用，其它调用方式的结果不在当前线程返回
+        if (!RpcConstants.INVOKER_TYPE_SYNC.equals(request.getInvokeType()) || !isCache(config, methodName)) {
+            return invoker.invoke(request);
+        }
+        Cache cacheRef = config.getCacheRef();
+        if (cacheRef != null) {
+            return invokeWithCacheRef(cacheRef, invoker, request);
+        }
+        MethodCache cache = caches.get(methodName);
+        if (cache == null) {
+            MethodCache newCache = new MethodCache(config, methodName, dynamicConfigManager, pushed);
+            cache = caches.putIfAbsent(methodName, newCache);
+            if (cache == null) {
+                cache = newCache;
+            }
+        }
+        return cache.invoke(invoker, request);
+    }
+
+    /**
+     * 使用用户自定义的缓存
+     *
+     * @param cacheRef 缓存
+     * @param invoker  调用器
+     * @param request  请求
+     * @return 响应
+     * @throws SofaRpcException rpc异常
+     */
+    private SofaResponse invokeWithCacheRef(Cache cacheRef, FilterInvoker invoker, SofaRequest request)
+        throws SofaRpcException {
+        Object key = cacheRef.buildKey(request.getInterfaceName(), request.getMethodName(),
+            request.getMethodArgs());
+        if (key == null) {
+            return invoker.invoke(request);
+        }
+        Object result = cacheRef.get(key);
+        if (result != null) {
+            return buildResponse(result);
+        }
+        SofaResponse response = invoker.invoke(request);
+        if (isCacheable(response)) {
+            cacheRef.put(key, response.getAppResponse());
+        }
+        return response;
+    }
+
+    @Override
+    public void configChanged(String service) {
+        for (MethodCache cache : caches.values()) {
+            cache.checkVersion();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (dynamicConfigManager != null) {
+            dynamicConfigManager.removeListener(interfaceName, this);
+        }
+    }
+
+    @Override
+    public void destroy(DestroyHook hook) {
+        if (hook != null) {
+            hook.preDestroy();
+        }
+        destroy();
+        if (hook != null) {
+            hook.postDestroy();
+        }
+    }
+
+    /**
+     * 方法是否开启了缓存，方法级配置优先
+     *
+     * @param config     接口配置
+     * @param methodName 方法名
+     * @return 是否开启
+     */
+    private boolean isCache(AbstractInterfaceConfig config, String methodName) {
+        Object value = config.getMethodConfigValue(methodName, RpcConstants.CONFIG_KEY_CACHE);
+        return value != null ? Boolean.parseBoolean(value.toString()) : config.isCache();
+    }
+
+    /**
+     * 方法缓存，用于测试
+     *
+     * @param methodName 方法名
+     * @return 方法缓存
+     */
+    MethodCache getMethodCache(String methodName) {
+        return caches.get(methodName);
+    }
+
+    private static boolean isCacheable(SofaResponse response) {
+        return response != null && !response.isError() && response.getAppResponse() != null
+            && !(response.getAppResponse() instanceof Throwable);
+    }
+
+    private static SofaResponse buildResponse(Object appResponse) {
+        SofaResponse response = new SofaResponse();
+        response.setAppResponse(appResponse);
+        return response;
+    }
+
+    private static DynamicConfigManager getDynamicConfigManager(AbstractInterfaceConfig config) {
+        String dynamicAlias = config.getParameter(DynamicConfigKeys.DYNAMIC_ALIAS);
+        return StringUtils.isNotBlank(dynamicAlias) ?
+            DynamicConfigManagerFactory.getDynamicManager(config.getAppName(), dynamicAlias) : null;
+    }
+
+    /**
+     * 读取方法级的自定义参数，没有再取接口级，都没有取默认值
+     */
+    private static String getParameter(AbstractInterfaceConfig config, String methodName, String key,
+                                       String defaultValue) {
+        Object value = config.getMethodConfigValue(methodName, key);
+        if (value == null) {
+            value = config.getParameter(key);
+        }
+        return value == null ? defaultValue : value.toString();
+    }
+
+    /**
+     * 单个方法的结果缓存
+     */
+    static final class MethodCache {
+
+        private final TinyLfuCache<RequestKey, CachedResult> store;
+
+        private final long                                   ttl;
+
+        /**
+         * 写入后多久开始提前刷新，大于等于ttl表示不提前刷新
+         */
+        private final long                                   refreshAfter;
+
+        private final DynamicConfigManager                   dynamicConfigManager;
+
+        private final String                                 interfaceName;
+
+        private final String                                 methodName;
+
+        /**
+         * 配置中心是否会推送变更，推送时不用在调用时检查
+         */
+        private final boolean                                pushed;
+
+        private volatile String                              version;
+
+        /**
+         * 下次检查动态配置的时间，抢到的线程去检查，其它线程不等待
+         */
+        private final AtomicLong                             nextVersionCheck;
+
+        MethodCache(AbstractInterfaceConfig config, String methodName, DynamicConfigManager dynamicConfigManager,
+                    boolean pushed) {
+            int size = Integer.parseInt(getParameter(config, methodName, RpcConstants.CONFIG_KEY_CACHE_SIZE,
+                String.valueOf(RpcConfigs.getIntValue(RpcOptions.CONSUMER_CACHE_SIZE))));
+            this.ttl = Long.parseLong(getParameter(config, methodName, RpcConstants.CONFIG_KEY_CACHE_TTL,
+                String.valueOf(RpcConfigs.getIntValue(RpcOptions.CONSUMER_CACHE_TTL))));
+            double refreshAhead = Double.parseDouble(getParameter(config, methodName,
+                RpcConstants.CONFIG_KEY_CACHE_REFRESH_AHEAD,
+                String.valueOf(RpcConfigs.getOrDefaultValue(RpcOptions.CONSUMER_CACHE_REFRESH_AHEAD, 0d))));
+            this.refreshAfter = refreshAhead > 0 && refreshAhead < 1 ? (long) (ttl * refreshAhead) : ttl;
+            this.store = new TinyLfuCache<RequestKey, CachedResult>(size);
+            this.interfaceName = config.getInterfaceId();
+            this.methodName = methodName;
+            this.dynamicConfigManager = dynamicConfigManager;
+            this.pushed = dynamicConfigManager == null || pushed;
+            if (dynamicConfigManager != null) {
+                this.version = readVersion();
+            }
+            this.nextVersionCheck = new AtomicLong(RpcRuntimeContext.now() + VERSION_CHECK_INTERVAL);
+        }
+
+        SofaResponse invoke(FilterInvoker invoker, SofaRequest request) throws SofaRpcException {
+            long now = RpcRuntimeContext.now();
+            if (!pushed) {
+                long next = nextVersionCheck.get();
+                if (now >= next && nextVersionCheck.compareAndSet(next, now + VERSION_CHECK_INTERVAL)) {
+                    checkVersion();
+                }
+            }
+            RequestKey key = new RequestKey(request);
+            CachedResult cached = store.get(key);
+            if (cached != null) {
+                if (now < cached.expireTime) {
+                    if (now < cached.refreshTime || !cached.refreshing.compareAndSet(false, true)) {
+                        return buildResponse(cached.appResponse);
+                    }
+                    // 提前刷新，失败了继续使用旧结果
+                    try {
+                        SofaResponse response = load(invoker, request, key, now);
+                        if (isCacheable(response)) {
+                            return response;
+                        }
+                    } catch (SofaRpcException e) {
+                        // ignore
+                    }
+                    cached.refreshing.set(false);
+                    return buildResponse(cached.appResponse);
+                }
+                store.remove(key);
+            }
+            return load(invoker, request, key, now);
+        }
+
+        private SofaResponse load(FilterInvoker invoker, SofaRequest request, RequestKey key, long now)
+            throws SofaRpcException {
+            SofaResponse response = invoker.invoke(request);
+            if (isCacheable(response)) {
+                store.put(key, new CachedResult(response.getAppResponse(), now + refreshAfter, now + ttl));
+            }
+            return response;
+        }
+
+        /**
+         * 检查动态配置中的缓存版本，变化后清空缓存
+         */
+        void checkVersion() {
+            if (dynamicConfigManager == null) {
+                return;
+            }
+            String newVersion = readVersion();
+            if (newVersion == null) {
+                return;
+            }
+            String oldVersion = version;
+            version = newVersion;
+            if (oldVersion != null && !oldVersion.equals(newVersion)) {
+                invalidateAll();
+            }
+        }
+
+        private String readVersion() {
+            String value = dynamicConfigManager.getConsumerMethodProperty(interfaceName, methodName,
+                RpcConstants.CONFIG_KEY_CACHE_VERSION);
+            return DynamicHelper.isNotDefault(value) && StringUtils.isNotBlank(value) ? value : null;
+        }
+
+        /**
+         * 清空缓存
+         */
+        void invalidateAll() {
+            store.clear();
+        }
+
+        int size() {
+            return store.size();
+        }
+    }
+
+    /**
+     * 缓存的结果
+     */
+    private static final class CachedResult {
+
+        private final Object        appResponse;
+
+        private final long          refreshTime;
+
+        private final long          expireTime;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        CachedResult(Object appResponse, long refreshTime, long expireTime) {
+            this.appResponse = appResponse;
+            this.refreshTime = refreshTime;
+            this.expireTime = expireTime;
+        }
+    }
+}
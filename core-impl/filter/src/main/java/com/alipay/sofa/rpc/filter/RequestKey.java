@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.filter;
+
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按调用内容区分请求的标识：服务、方法、参数签名和参数值。<br>
+ * 参数按 equals 和 hashCode 比较，没有正确实现的参数永远不会相等，可以先用 {@link #isValueComparable(Object[])} 判断。
+ */
+final class RequestKey {
+
+    /**
+     * 参数类是否重写了 equals 的缓存
+     */
+    private static final ConcurrentMap<Class<?>, Boolean> VALUE_EQUALS = new ConcurrentHashMap<Class<?>, Boolean>();
+
+    private final String   service;
+    private final String   methodName;
+    private final String[] methodArgSigs;
+    private final Object[] methodArgs;
+    private final int      hash;
+
+    RequestKey(SofaRequest request) {
+        String service = request.getTargetServiceUniqueName();
+        this.service = service != null ? service : request.getInterfaceName();
+        this.methodName = request.getMethodName();
+        this.methodArgSigs = request.getMethodArgSigs();
+        this.methodArgs = request.getMethodArgs();
+        int h = this.service == null ? 0 : this.service.hashCode();
+        h = 31 * h + (methodName == null ? 0 : methodName.hashCode());
+        h = 31 * h + Arrays.hashCode(methodArgSigs);
+        h = 31 * h + Arrays.deepHashCode(methodArgs);
+        this.hash = h;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RequestKey)) {
+            return false;
+        }
+        RequestKey that = (RequestKey) o;
+        return hash == that.hash
+            && (service == null ? that.service == null : service.equals(that.service))
+            && (methodName == null ? that.methodName == null : methodName.equals(that.methodName))
+            && Arrays.equals(methodArgSigs, that.methodArgSigs)
+            && Arrays.deepEquals(methodArgs, that.methodArgs);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * 参数能否按值比较：每个参数为null、是基本类型数组、或者类（对象数组看元素）重写了 equals
+     *
+     * @param args 参数
+     * @return 是否能按值比较，不能时内容相同的两次调用也不会相等
+     */
+    static boolean isValueComparable(Object[] args) {
+        if (args == null) {
+            return true;
+        }
+        for (Object arg : args) {
+            if (arg == null) {
+                continue;
+            }
+            if (arg instanceof Object[]) {
+                if (!isValueComparable((Object[]) arg)) {
+                    return false;
+                }
+            } else if (!arg.getClass().isArray() && !hasValueEquals(arg.getClass())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasValueEquals(Class<?> clazz) {
+        Boolean result = VALUE_EQUALS.get(clazz);
+        if (result == null) {
+            try {
+                result = clazz.getMethod("equals", Object.class).getDeclaringClass() != Object.class;
+            } catch (NoSuchMethodException e) {
+                result = false;
+            }
+            VALUE_EQUALS.putIfAbsent(clazz, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.filter;
+
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.config.AbstractInterfaceConfig;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.config.MethodConfig;
+import com.alipay.sofa.rpc.core.exception.RpcErrorType;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.exception.SofaTimeOutException;
+import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.ext.Extension;
+import com.alipay.sofa.rpc.log.Logger;
+import com.alipay.sofa.rpc.log.LoggerFactory;
+import com.alipay.sofa.rpc.message.AbstractResponseFuture;
+import com.alipay.sofa.rpc.message.ResponseFuture;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合并相同的并发调用（single-flight）。<br>
+ * 开启后，同一服务、同一方法、参数相等的同步调用在途时，后来的调用不再发起远程请求，而是等待在途请求的结果。
+ * 通过接口或者方法的自定义参数 singleFlight=true 开启，例如 &lt;sofa:method name="get"&gt;&lt;sofa:param key="singleFlight" value="true"/&gt;。
+ * <p>
+ * 注意：
+ * <ul>
+ * <li>是否相同按参数的 equals 和 hashCode 判断（见 {@link RequestKey}），不是按序列化后的内容。
+ * 参数没有重写 equals 时（例如普通的 DTO）不合并，直接发起调用，并对每个方法打印一次告警；
+ * equals 只比较部分字段的参数，字段不同的调用也会被合并，这类方法不要开启</li>
+ * <li>每个等待者拿到独立的 {@link SofaResponse}（响应属性各自一份），但返回值对象本身是共享的，不会深拷贝。
+ * 返回值可变时业务不应修改，或者不要开启</li>
+ * </ul>
+ */
+@Extension(value = "singleFlight", order = -19000)
+@AutoActive(consumerSide = true)
+public class SingleFlightFilter extends Filter {
+
+    private static final Logger                     LOGGER  = LoggerFactory.getLogger(SingleFlightFilter.class);
+
+    /**
+     * 在途的调用
+     */
+    private final ConcurrentMap<RequestKey, Flight> flights = new ConcurrentHashMap<RequestKey, Flight>();
+
+    /**
+     * 已经告警过参数无法合并的方法
+     */
+    private final ConcurrentMap<String, Boolean>    warned  = new ConcurrentHashMap<String, Boolean>();
+
+    @Override
+    public boolean needToLoad(FilterInvoker invoker) {
+        AbstractInterfaceConfig config = invoker.getConfig();
+        if (!(config instanceof ConsumerConfig)) {
+            return false;
+        }
+        if (Boolean.parseBoolean(config.getParameter(RpcConstants.CONFIG_KEY_SINGLE_FLIGHT))) {
+            return true;
+        }
+        Map<String, MethodConfig> methods = config.getMethods();
+        if (methods != null) {
+            for (MethodConfig methodConfig : methods.values()) {
+                if (Boolean.parseBoolean(methodConfig.getParameter(RpcConstants.CONFIG_KEY_SINGLE_FLIGHT))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public SofaResponse invoke(FilterInvoker invoker, SofaRequest request) throws SofaRpcException {
+        // 只合并同步调用，其它调用方式的结果不在当前线程返回
+        if (!RpcConstants.INVOKER_TYPE_SYNC.equals(request.getInvokeType())
+            || !isSingleFlight(invoker.getConfig(), request.getMethodName())) {
+            return invoker.invoke(request);
+        }
+        // 参数不能按值比较时永远不会合并，不占用在途表
+        if (!RequestKey.isValueComparable(request.getMethodArgs())) {
+            warnNotCoalesced(request);
+            return invoker.invoke(request);
+        }
+        RequestKey key = new RequestKey(request);
+        Flight flight = new Flight();
+        Flight inFlight = flights.putIfAbsent(key, flight);
+        if (inFlight == null) {
+            return lead(invoker, request, key, flight);
+        }
+        SofaResponse response = inFlight.await(resolveTimeout((ConsumerConfig) invoker.getConfig(), request));
+        // 领头的调用被取消了，自己重新发起
+        return response != null ? response : invoker.invoke(request);
+    }
+
+    /**
+     * 发起真正的调用，并把结果通知给等待者
+     *
+     * @param invoker 调用器
+     * @param request 请求
+     * @param key     请求标识
+     * @param flight  在途的调用
+     * @return 响应
+     * @throws SofaRpcException rpc异常
+     */
+    private SofaResponse lead(FilterInvoker invoker, SofaRequest request, RequestKey key, Flight flight)
+        throws SofaRpcException {
+        try {
+            SofaResponse response = invoker.invoke(request);
+            if (response != null) {
+                flight.setSuccess(response);
+            } else {
+                flight.cancel(false);
+            }
+            return response;
+        } catch (SofaRpcException e) {
+            flight.setFailure(e);
+            throw e;
+        } catch (RuntimeException e) {
+            flight.cancel(false);
+            throw e;
+        } catch (Error e) {
+            flight.cancel(false);
+            throw e;
+        } finally {
+            // 结束后立即移除，之后的调用重新发起，不会拿到旧的结果
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * 每个方法只告警一次：开启了合并但参数没有重写 equals
+     *
+     * @param request 请求
+     */
+    private void warnNotCoalesced(SofaRequest request) {
+        String method = request.getInterfaceName() + "." + request.getMethodName();
+        if (warned.putIfAbsent(method, Boolean.TRUE) == null && LOGGER.isWarnEnabled()) {
+            LOGGER.warn("Single flight of {} is not coalescing: argument does not override equals, "
+                + "calls are sent directly", method);
+        }
+    }
+
+    /**
+     * 方法是否开启了合并，方法级配置优先
+     *
+     * @param config     接口配置
+     * @param methodName 方法名
+     * @return 是否开启
+     */
+    private boolean isSingleFlight(AbstractInterfaceConfig config, String methodName) {
+        Object value = config.getMethodConfigValue(methodName, RpcConstants.CONFIG_KEY_SINGLE_FLIGHT);
+        if (value == null) {
+            value = config.getParameter(RpcConstants.CONFIG_KEY_SINGLE_FLIGHT);
+        }
+        return value != null && Boolean.parseBoolean(value.toString());
+    }
+
+    /**
+     * 等待者自己的超时时间，不受领头调用的超时影响
+     *
+     * @param consumerConfig 客户端配置
+     * @param request        请求
+     * @return 超时时间
+     */
+    private int resolveTimeout(ConsumerConfig consumerConfig, SofaRequest request) {
+        Integer timeout = request.getTimeout();
+        if (timeout == null || timeout <= 0) {
+            timeout = consumerConfig.getMethodTimeout(request.getMethodName());
+        }
+        return timeout;
+    }
+
+    /**
+     * 在途调用的数量
+     *
+     * @return 数量
+     */
+    int getFlightSize() {
+        return flights.size();
+    }
+
+    /**
+     * 在途的调用，所有等待者共用
+     */
+    static final class Flight extends AbstractResponseFuture<SofaResponse> {
+
+        Flight() {
+            super(0);
+        }
+
+        /**
+         * 等待领头调用的结果
+         *
+         * @param timeout 等待者自己的超时时间
+         * @return 响应，领头调用被取消时返回null
+         * @throws SofaRpcException 领头调用的异常，或者等待超时
+         */
+        SofaResponse await(int timeout) throws SofaRpcException {
+            try {
+                if (!await(timeout, TimeUnit.MILLISECONDS)) {
+                    throw new SofaTimeOutException("Waiting for in-flight request timeout, the timeout is "
+                        + timeout + "ms");
+                }
+                return copy(getNow());
+            } catch (CancellationException e) {
+                return null;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SofaRpcException) {
+                    throw (SofaRpcException) cause;
+                }
+                throw new SofaRpcException(RpcErrorType.CLIENT_UNDECLARED_ERROR, cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SofaRpcException(RpcErrorType.CLIENT_UNDECLARED_ERROR, e);
+            }
+        }
+
+        /**
+         * 复制响应，后续的过滤器会修改响应属性，等待者之间不能共用；返回值对象不复制
+         *
+         * @param response 领头调用的响应
+         * @return 新的响应
+         */
+        private SofaResponse copy(SofaResponse response) {
+            SofaResponse copy = new SofaResponse();
+            copy.setAppResponse(response.getAppResponse());
+            copy.setErrorMsg(response.getErrorMsg());
+            copy.setSerializeType(response.getSerializeType());
+            Map<String, String> responseProps = response.getResponseProps();
+            if (responseProps != null) {
+                copy.setResponseProps(new HashMap<String, String>(responseProps));
+            }
+            return copy;
+        }
+
+        @Override
+        protected SofaResponse getNow() throws ExecutionException {
+            if (cause != null) {
+                if (cause == CANCELLATION_CAUSE) {
+                    throw (CancellationException) cause;
+                }
+                throw new ExecutionException(cause);
+            }
+            return (SofaResponse) result;
+        }
+
+        @Override
+        protected void releaseIfNeed(Object result) {
+        }
+
+        @Override
+        public void notifyListeners() {
+        }
+
+        @Override
+        public ResponseFuture addListeners(List<SofaResponseCallback> sofaResponseCallbacks) {
+            throw new UnsupportedOperationException("Not supported, please wait in-flight response directly");
+        }
+
+        @Override
+        public ResponseFuture addListener(SofaResponseCallback sofaResponseCallback) {
+            throw new UnsupportedOperationException("Not supported, please wait in-flight response directly");
+        }
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.filter;
+
+import com.alipay.sofa.rpc.auth.AuthRuleGroup;
+import com.alipay.sofa.rpc.codec.Serializer;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.struct.Cache;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.config.MethodConfig;
+import com.alipay.sofa.rpc.config.ProviderConfig;
+import com.alipay.sofa.rpc.core.exception.RpcErrorType;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.dynamic.DynamicConfigListener;
+import com.alipay.sofa.rpc.dynamic.DynamicConfigManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ */
+public class ConsumerCacheFilterTest {
+
+    @Test
+    public void testNeedToLoad() {
+        ConsumerCacheFilter filter = new ConsumerCacheFilter();
+        ProviderConfig providerConfig = new ProviderConfig();
+        providerConfig.setInterfaceId(Serializer.class.getName());
+        providerConfig.setCache(true);
+        Assert.assertFalse(filter.needToLoad(new FilterInvoker(null, null, providerConfig)));
+
+        ConsumerConfig config = new ConsumerConfig();
+        config.setInterfaceId(Serializer.class.getName());
+        Assert.assertFalse(filter.needToLoad(new FilterInvoker(null, null, config)));
+        Assert.assertTrue(filter.needToLoad(new FilterInvoker(null, null, newConfig(null))));
+    }
+
+    @Test
+    public void testCache() {
+        ConsumerCacheFilter filter = new ConsumerCacheFilter();
+        CountInvoker last = new CountInvoker(newConfig(null));
+        FilterInvoker chain = new FilterInvoker(null, last, last.getConfig());
+
+        SofaResponse response = filter.invoke(chain, newRequest("get", "a"));
+        Assert.assertEquals("a1", response.getAppResponse());
+        Assert.assertEquals("a1", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+        Assert.assertEquals(1, last.count.get());
+
+        Assert.assertEquals("b2", filter.invoke(chain, newRequest("get", "b")).getAppResponse());
+        Assert.assertEquals(2, filter.getMethodCache("get").size());
+
+        // 未开启的方法
+        Assert.assertEquals("a3", filter.invoke(chain, newRequest("list", "a")).getAppResponse());
+        Assert.assertEquals("a4", filter.invoke(chain, newRequest("list", "a")).getAppResponse());
+        Assert.assertNull(filter.getMethodCache("list"));
+
+        // 非同步调用
+        SofaRequest request = newRequest("get", "a");
+        request.setInvokeType(RpcConstants.INVOKER_TYPE_FUTURE);
+        Assert.assertEquals("a5", filter.invoke(chain, request).getAppResponse());
+
+        filter.getMethodCache("get").invalidateAll();
+        Assert.assertEquals("a6", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+    }
+
+    @Test
+    public void testNotCacheError() {
+        ConsumerCacheFilter filter = new ConsumerCacheFilter();
+        CountInvoker last = new CountInvoker(newConfig(null));
+        FilterInvoker chain = new FilterInvoker(null, last, last.getConfig());
+
+        last.error = true;
+        for (int i = 0; i < 2; i++) {
+            try {
+                filter.invoke(chain, newRequest("get", "a"));
+                Assert.fail();
+            } catch (SofaRpcException e) {
+                Assert.assertEquals(RpcErrorType.SERVER_BUSY, e.getErrorType());
+            }
+        }
+        last.error = false;
+        last.bizError = true;
+        Assert.assertTrue(filter.invoke(chain, newRequest("get", "a")).getAppResponse() instanceof Exception);
+        Assert.assertTrue(filter.invoke(chain, newRequest("get", "a")).getAppResponse() instanceof Exception);
+        Assert.assertEquals(4, last.count.get());
+        Assert.assertEquals(0, filter.getMethodCache("get").size());
+    }
+
+    @Test
+    public void testTtl() throws Exception {
+        ConsumerCacheFilter filter = new ConsumerCacheFilter();
+        MethodConfig methodConfig = new MethodConfig().setName("get").setCache(true)
+            .setParameter(RpcConstants.CONFIG_KEY_CACHE_TTL, "100");
+        CountInvoker last = new CountInvoker(newConfig(methodConfig));
+        FilterInvoker chain = new FilterInvoker(null, last, last.getConfig());
+
+        Assert.assertEquals("a1", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+        Assert.assertEquals("a1", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+        Thread.sleep(150);
+        Assert.assertEquals("a2", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+        Assert.assertEquals("a2", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+    }
+
+    @Test
+    public void testRefreshAhead() throws Exception {
+        ConsumerCacheFilter filter = new ConsumerCacheFilter();
+        MethodConfig methodConfig = new MethodConfig().setName("get").setCache(true)
+            .setParameter(RpcConstants.CONFIG_KEY_CACHE_TTL, "1000")
+            .setParameter(RpcConstants.CONFIG_KEY_CACHE_REFRESH_AHEAD, "0.1");
+        CountInvoker last = new CountInvoker(newConfig(methodConfig));
+        FilterInvoker chain = new FilterInvoker(null, last, last.getConfig());
+
+        Assert.assertEquals("a1", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+        Thread.sleep(150);
+        // 刷新失败继续使用旧结果
+        last.error = true;
+        Assert.assertEquals("a1", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+        Assert.assertEquals(2, last.count.get());
+        last.error = false;
+        Assert.assertEquals("a3", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+        Assert.assertEquals("a3", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+        Assert.assertEquals(3, last.count.get());
+    }
+
+    @Test
+    public void testCacheRef() {
+        ConsumerCacheFilter filter = new ConsumerCacheFilter();
+        ConsumerConfig config = newConfig(null);
+        final Map<Object, Object> map = new ConcurrentHashMap<Object, Object>();
+        config.setCacheRef(new Cache() {
+            @Override
+            public Object buildKey(String interfaceId, String methodName, Object[] args) {
+                return "b".equals(args[0]) ? null : interfaceId + "#" + methodName + "#" + args[0];
+            }
+
+            @Override
+            public void put(Object key, Object result) {
+                map.put(key, result);
+            }
+
+            @Override
+            public Object get(Object key) {
+                return map.get(key);
+            }
+        });
+        CountInvoker last = new CountInvoker(config);
+        FilterInvoker chain = new FilterInvoker(null, last, last.getConfig());
+
+        Assert.assertEquals("a1", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+        Assert.assertEquals("a1", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+        Assert.assertEquals("a1", map.get(Serializer.class.getName() + "#get#a"));
+        Assert.assertEquals("b2", filter.invoke(chain, newRequest("get", "b")).getAppResponse());
+        Assert.assertEquals("b3", filter.invoke(chain, newRequest("get", "b")).getAppResponse());
+        Assert.assertNull(filter.getMethodCache("get"));
+    }
+
+    @Test
+    public void testCacheVersionPushed() {
+        TestDynamicConfigManager manager = new TestDynamicConfigManager(true);
+        manager.version = "1";
+        ConsumerConfig config = newConfig(null);
+        config.setCache(true);
+        ConsumerCacheFilter filter = new ConsumerCacheFilter();
+        filter.init(config, manager);
+        CountInvoker last = new CountInvoker(config);
+        FilterInvoker chain = new FilterInvoker(null, last, last.getConfig());
+
+        Assert.assertEquals("a1", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+        Assert.assertEquals("a1", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+        Assert.assertEquals("b2", filter.invoke(chain, newRequest("list", "b")).getAppResponse());
+        Assert.assertEquals("b2", filter.invoke(chain, newRequest("list", "b")).getAppResponse());
+        // 推送模式下调用时不读取配置，只在创建方法缓存时读一次；多个方法也只注册一个监听
+        Assert.assertEquals(2, manager.reads.get());
+        Assert.assertEquals(1, manager.listeners.size());
+        Assert.assertSame(filter, manager.listeners.get(0));
+
+        manager.version = "2";
+        Assert.assertEquals("a1", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+        manager.listeners.get(0).configChanged(Serializer.class.getName());
+        Assert.assertEquals(0, filter.getMethodCache("get").size());
+        Assert.assertEquals(0, filter.getMethodCache("list").size());
+        Assert.assertEquals("a3", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+
+        // 服务引用销毁时移除监听
+        filter.destroy();
+        Assert.assertTrue(manager.listeners.isEmpty());
+    }
+
+    @Test
+    public void testCacheVersionPolled() {
+        TestDynamicConfigManager manager = new TestDynamicConfigManager(false);
+        manager.version = "1";
+        ConsumerConfig config = newConfig(null);
+        ConsumerCacheFilter filter = new ConsumerCacheFilter();
+        filter.init(config, manager);
+        CountInvoker last = new CountInvoker(config);
+        FilterInvoker chain = new FilterInvoker(null, last, last.getConfig());
+
+        Assert.assertEquals("a1", filter.invoke(chain, newRequest("get", "a")).getAppResponse());
+        manager.version = "2";
+        // 不支持推送时按间隔检查
+        for (int i = 0; i < 10; i++) {
+            filter.invoke(chain, newRequest("get", "a"));
+        }
+        Assert.assertTrue(manager.reads.get() <= 2);
+    }
+
+    private ConsumerConfig newConfig(MethodConfig methodConfig) {
+        if (methodConfig == null) {
+            methodConfig = new MethodConfig().setName("get").setCache(true);
+        }
+        List<MethodConfig> methods = new ArrayList<MethodConfig>();
+        methods.add(methodConfig);
+        ConsumerConfig config = new ConsumerConfig();
+        config.setInterfaceId(Serializer.class.getName());
+        config.setMethods(methods);
+        return config;
+    }
+
+    private static SofaRequest newRequest(String methodName, String arg) {
+        SofaRequest request = new SofaRequest();
+        request.setInterfaceName(Serializer.class.getName());
+        request.setTargetServiceUniqueName(Serializer.class.getName() + ":1.0");
+        request.setMethodName(methodName);
+        request.setMethodArgSigs(new String[] { String.class.getName() });
+        request.setMethodArgs(new Object[] { arg });
+        request.setInvokeType(RpcConstants.INVOKER_TYPE_SYNC);
+        return request;
+    }
+
+    private static class CountInvoker extends FilterInvoker {
+
+        private final AtomicInteger count = new AtomicInteger();
+        private volatile boolean    error;
+        private volatile boolean    bizError;
+
+        CountInvoker(ConsumerConfig config) {
+            super(config);
+        }
+
+        @Override
+        public SofaResponse invoke(SofaRequest request) throws SofaRpcException {
+            int c = count.incrementAndGet();
+            if (error) {
+                throw new SofaRpcException(RpcErrorType.SERVER_BUSY, "busy");
+            }
+            SofaResponse response = new SofaResponse();
+            if (bizError) {
+                response.setAppResponse(new IllegalStateException("biz"));
+            } else {
+                response.setAppResponse(request.getMethodArgs()[0] + String.valueOf(c));
+            }
+            return response;
+        }
+    }
+
+    private static class TestDynamicConfigManager extends DynamicConfigManager {
+
+        private final boolean                     push;
+        private final AtomicInteger               reads     = new AtomicInteger();
+        private volatile String                   version;
+        private final List<DynamicConfigListener> listeners = new ArrayList<DynamicConfigListener>();
+
+        TestDynamicConfigManager(boolean push) {
+            super("test");
+            this.push = push;
+        }
+
+        @Override
+        public void initServiceConfiguration(String service) {
+        }
+
+        @Override
+        public String getProviderServiceProperty(String service, String key) {
+            return null;
+        }
+
+        @Override
+        public String getConsumerServiceProperty(String service, String key) {
+            return null;
+        }
+
+        @Override
+        public String getProviderMethodProperty(String service, String method, String key) {
+            return null;
+        }
+
+        @Override
+        public String getConsumerMethodProperty(String service, String method, String key) {
+            reads.incrementAndGet();
+            return RpcConstants.CONFIG_KEY_CACHE_VERSION.equals(key) ? version : null;
+        }
+
+        @Override
+        public AuthRuleGroup getServiceAuthRule(String service) {
+            return null;
+        }
+
+        @Override
+        public boolean addListener(String service, DynamicConfigListener listener) {
+            listeners.add(listener);
+            return push;
+        }
+
+        @Override
+        public void removeListener(String service, DynamicConfigListener listener) {
+            listeners.remove(listener);
+        }
+    }
+}
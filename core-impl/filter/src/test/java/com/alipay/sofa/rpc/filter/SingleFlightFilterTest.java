@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.filter;
+
+import com.alipay.sofa.rpc.codec.Serializer;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.config.MethodConfig;
+import com.alipay.sofa.rpc.config.ProviderConfig;
+import com.alipay.sofa.rpc.core.exception.RpcErrorType;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.exception.SofaTimeOutException;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ */
+public class SingleFlightFilterTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    public void testNeedToLoad() {
+        SingleFlightFilter filter = new SingleFlightFilter();
+        ProviderConfig providerConfig = new ProviderConfig();
+        providerConfig.setInterfaceId(Serializer.class.getName());
+        providerConfig.setParameter(RpcConstants.CONFIG_KEY_SINGLE_FLIGHT, "true");
+        Assert.assertFalse(filter.needToLoad(new FilterInvoker(null, null, providerConfig)));
+        ConsumerConfig config = new ConsumerConfig();
+        config.setInterfaceId(Serializer.class.getName());
+        Assert.assertFalse(filter.needToLoad(new FilterInvoker(null, null, config)));
+        Assert.assertTrue(filter.needToLoad(new FilterInvoker(null, null, newConfig())));
+
+        config = new ConsumerConfig();
+        config.setInterfaceId(Serializer.class.getName());
+        config.setParameter(RpcConstants.CONFIG_KEY_SINGLE_FLIGHT, "true");
+        Assert.assertTrue(filter.needToLoad(new FilterInvoker(null, null, config)));
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        final SingleFlightFilter filter = new SingleFlightFilter();
+        final CountDownLatch release = new CountDownLatch(1);
+        final BlockingInvoker last = new BlockingInvoker(newConfig(), release, null);
+        final FilterInvoker chain = new FilterInvoker(null, last, last.getConfig());
+
+        final List<Object> results = new CopyOnWriteArrayList<Object>();
+        Thread[] threads = startCalls(filter, chain, "get", results);
+        Assert.assertTrue(last.entered.await(3, TimeUnit.SECONDS));
+        waitFlight(filter, 1);
+        Thread.sleep(100);
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(3000);
+        }
+        Assert.assertEquals(1, last.count.get());
+        Assert.assertEquals(THREADS, results.size());
+        Set<Object> responses = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        for (Object result : results) {
+            // 返回值共享，响应对象各自一份
+            Assert.assertSame(((SofaResponse) results.get(0)).getAppResponse(),
+                ((SofaResponse) result).getAppResponse());
+            responses.add(result);
+        }
+        Assert.assertEquals(THREADS, responses.size());
+        Assert.assertEquals(0, filter.getFlightSize());
+
+        // 结束后重新发起
+        filter.invoke(chain, newRequest("get", "key"));
+        Assert.assertEquals(2, last.count.get());
+        // 参数不同不合并
+        filter.invoke(chain, newRequest("get", "other"));
+        Assert.assertEquals(3, last.count.get());
+    }
+
+    @Test
+    public void testNotEnabled() throws Exception {
+        SingleFlightFilter filter = new SingleFlightFilter();
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingInvoker last = new BlockingInvoker(newConfig(), release, null);
+        FilterInvoker chain = new FilterInvoker(null, last, last.getConfig());
+
+        List<Object> results = new CopyOnWriteArrayList<Object>();
+        Thread[] threads = startCalls(filter, chain, "list", results);
+        long deadline = System.currentTimeMillis() + 3000;
+        while (last.count.get() < THREADS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(3000);
+        }
+        Assert.assertEquals(THREADS, last.count.get());
+        Assert.assertEquals(0, filter.getFlightSize());
+    }
+
+    @Test
+    public void testArgumentWithoutEquals() throws Exception {
+        final SingleFlightFilter filter = new SingleFlightFilter();
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingInvoker last = new BlockingInvoker(newConfig(), release, null);
+        final FilterInvoker chain = new FilterInvoker(null, last, last.getConfig());
+
+        // 参数没有重写 equals，内容相同也不合并，直接发起调用
+        final List<Object> results = new CopyOnWriteArrayList<Object>();
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    SofaRequest request = newRequest("get", "key");
+                    request.setMethodArgSigs(new String[] { Dto.class.getName() });
+                    request.setMethodArgs(new Object[] { new Dto("key") });
+                    results.add(filter.invoke(chain, request));
+                }
+            });
+            threads[i].start();
+        }
+        long deadline = System.currentTimeMillis() + 3000;
+        while (last.count.get() < THREADS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(THREADS, last.count.get());
+        Assert.assertEquals(0, filter.getFlightSize());
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(3000);
+        }
+        Assert.assertEquals(THREADS, results.size());
+
+        Assert.assertTrue(RequestKey.isValueComparable(null));
+        Assert.assertTrue(RequestKey.isValueComparable(new Object[] { null, "key", 1, new int[] { 1 } }));
+        Assert.assertTrue(RequestKey.isValueComparable(new Object[] { new String[] { "key" } }));
+        Assert.assertFalse(RequestKey.isValueComparable(new Object[] { "key", new Dto("key") }));
+        Assert.assertFalse(RequestKey.isValueComparable(new Object[] { new Object[] { new Dto("key") } }));
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        SingleFlightFilter filter = new SingleFlightFilter();
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingInvoker last = new BlockingInvoker(newConfig(), release,
+            new SofaRpcException(RpcErrorType.SERVER_BUSY, "busy"));
+        FilterInvoker chain = new FilterInvoker(null, last, last.getConfig());
+
+        List<Object> results = new CopyOnWriteArrayList<Object>();
+        Thread[] threads = startCalls(filter, chain, "get", results);
+        Assert.assertTrue(last.entered.await(3, TimeUnit.SECONDS));
+        waitFlight(filter, 1);
+        Thread.sleep(100);
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(3000);
+        }
+        Assert.assertEquals(1, last.count.get());
+        Assert.assertEquals(THREADS, results.size());
+        for (Object result : results) {
+            Assert.assertTrue(result instanceof SofaRpcException);
+            Assert.assertEquals(RpcErrorType.SERVER_BUSY, ((SofaRpcException) result).getErrorType());
+        }
+    }
+
+    @Test
+    public void testFollowerTimeout() throws Exception {
+        final SingleFlightFilter filter = new SingleFlightFilter();
+        CountDownLatch release = new CountDownLatch(1);
+        final BlockingInvoker last = new BlockingInvoker(newConfig(), release, null);
+        final FilterInvoker chain = new FilterInvoker(null, last, last.getConfig());
+
+        List<Object> results = new CopyOnWriteArrayList<Object>();
+        Thread[] leader = startCalls(filter, chain, "get", results, 1);
+        Assert.assertTrue(last.entered.await(3, TimeUnit.SECONDS));
+        waitFlight(filter, 1);
+
+        SofaRequest request = newRequest("get", "key");
+        request.setTimeout(50);
+        try {
+            filter.invoke(chain, request);
+            Assert.fail();
+        } catch (SofaTimeOutException e) {
+            // 等待者自己的超时
+        }
+        Assert.assertEquals(1, last.count.get());
+
+        release.countDown();
+        leader[0].join(3000);
+        Assert.assertEquals(1, results.size());
+        Assert.assertTrue(results.get(0) instanceof SofaResponse);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        SingleFlightFilter.Flight flight = new SingleFlightFilter.Flight();
+        Assert.assertTrue(flight.cancel(false));
+        Assert.assertNull(flight.await(10));
+
+        flight = new SingleFlightFilter.Flight();
+        SofaResponse response = new SofaResponse();
+        response.setAppResponse("value");
+        response.addResponseProp("key", "value");
+        flight.setSuccess(response);
+        SofaResponse copy = flight.await(10);
+        Assert.assertNotSame(response, copy);
+        Assert.assertSame(response.getAppResponse(), copy.getAppResponse());
+        copy.removeResponseProp("key");
+        Assert.assertEquals("value", response.getResponseProp("key"));
+    }
+
+    private ConsumerConfig newConfig() {
+        MethodConfig methodConfig = new MethodConfig().setName("get")
+            .setParameter(RpcConstants.CONFIG_KEY_SINGLE_FLIGHT, "true");
+        ConsumerConfig config = new ConsumerConfig();
+        config.setInterfaceId(Serializer.class.getName());
+        config.setTimeout(3000);
+        config.setMethods(Collections.singletonList(methodConfig));
+        return config;
+    }
+
+    private static SofaRequest newRequest(String methodName, String arg) {
+        SofaRequest request = new SofaRequest();
+        request.setInterfaceName(Serializer.class.getName());
+        request.setTargetServiceUniqueName(Serializer.class.getName() + ":1.0");
+        request.setMethodName(methodName);
+        request.setMethodArgSigs(new String[] { String.class.getName() });
+        request.setMethodArgs(new Object[] { arg });
+        request.setInvokeType(RpcConstants.INVOKER_TYPE_SYNC);
+        return request;
+    }
+
+    private static Thread[] startCalls(SingleFlightFilter filter, FilterInvoker chain, String methodName,
+                                       List<Object> results) {
+        return startCalls(filter, chain, methodName, results, THREADS);
+    }
+
+    private static Thread[] startCalls(final SingleFlightFilter filter, final FilterInvoker chain,
+                                       final String methodName, final List<Object> results, int size) {
+        Thread[] threads = new Thread[size];
+        for (int i = 0; i < size; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        results.add(filter.invoke(chain, newRequest(methodName, "key")));
+                    } catch (SofaRpcException e) {
+                        results.add(e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        return threads;
+    }
+
+    private static void waitFlight(SingleFlightFilter filter, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3000;
+        while (filter.getFlightSize() != size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(size, filter.getFlightSize());
+    }
+
+    private static class Dto {
+
+        private final String key;
+
+        Dto(String key) {
+            this.key = key;
+        }
+    }
+
+    private static class BlockingInvoker extends FilterInvoker {
+
+        private final CountDownLatch   release;
+        private final SofaRpcException exception;
+        private final AtomicInteger    count   = new AtomicInteger();
+        private final CountDownLatch   entered = new CountDownLatch(1);
+
+        BlockingInvoker(ConsumerConfig config, CountDownLatch release, SofaRpcException exception) {
+            super(config);
+            this.release = release;
+            this.exception = exception;
+        }
+
+        @Override
+        public SofaResponse invoke(SofaRequest request) throws SofaRpcException {
+            count.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await(3, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (exception != null) {
+                throw exception;
+            }
+            SofaResponse response = new SofaResponse();
+            response.setAppResponse(request.getMethodArgs()[0]);
+            return response;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.proxy.javassist;
+
+import com.alipay.sofa.rpc.common.utils.ClassTypeUtils;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.ext.Extension;
+import com.alipay.sofa.rpc.proxy.ProxyMethod;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Proxy implement base on javassist, with precomputed method table.<br>
+ * 每个方法生成独立的桩代码，通过编译期确定的下标取到预先计算好的 {@link ProxyMethod}，
+ * 直接构建请求，不再每次创建参数类型数组、转换参数签名；无参方法共用空参数数组。
+ */
+@Extension("javassistDirect")
+public class JavassistDirectProxy extends JavassistProxy {
+
+    /**
+     * 方法表的字段名
+     */
+    static final String                    METHODS_FIELD   = "PROXY_METHODS";
+
+    /**
+     * 原始类和代理类的映射
+     */
+    private static final Map<Class, Class> PROXY_CLASS_MAP = new ConcurrentHashMap<Class, Class>();
+
+    @Override
+    protected Map<Class, Class> getProxyClassMap() {
+        return PROXY_CLASS_MAP;
+    }
+
+    @Override
+    protected String getProxyClassSuffix() {
+        return "_direct_proxy_";
+    }
+
+    @Override
+    protected void createMethod(Class<?> interfaceClass, List<String> fieldList, List<String> resultList) {
+        fieldList.add("public static " + ProxyMethod.class.getCanonicalName() + "[] " + METHODS_FIELD + " = null;");
+        List<Method> methods = proxyMethods(interfaceClass);
+        StringBuilder sb = new StringBuilder(512);
+        for (int index = 0; index < methods.size(); index++) {
+            Method m = methods.get(index);
+            Class<?>[] mType = m.getParameterTypes();
+            Class<?> returnType = m.getReturnType();
+
+            sb.append(Modifier.toString(m.getModifiers()).replace("abstract", ""))
+                .append(" ").append(ClassTypeUtils.getTypeStr(returnType)).append(" ").append(m.getName())
+                .append("(");
+            for (int i = 0; i < mType.length; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(mType[i].getCanonicalName()).append(" arg").append(i);
+            }
+            sb.append(")");
+            Class<?>[] exceptions = m.getExceptionTypes();
+            for (int i = 0; i < exceptions.length; i++) {
+                sb.append(i == 0 ? " throws " : ", ").append(exceptions[i].getCanonicalName());
+            }
+            sb.append("{");
+            sb.append(SofaRequest.class.getCanonicalName()).append(" request = ")
+                .append(METHODS_FIELD).append("[").append(index).append("]");
+            if (mType.length == 0) {
+                sb.append(".buildRequest();");
+            } else {
+                sb.append(".buildRequest($args);");
+            }
+            if (returnType.equals(void.class)) {
+                sb.append(ProxyMethod.class.getCanonicalName()).append(".invoke(proxyInvoker, request);");
+            } else {
+                sb.append("Object ret = ").append(ProxyMethod.class.getCanonicalName())
+                    .append(".invoke(proxyInvoker, request);");
+                sb.append("return ").append(asArgument(returnType, "ret")).append(";");
+            }
+            sb.append("}");
+
+            resultList.add(sb.toString());
+            sb.delete(0, sb.length());
+        }
+        createObjectMethod(resultList);
+    }
+
+    @Override
+    protected void initProxyClass(Class<?> interfaceClass, Class<?> proxyClass) throws Exception {
+        List<Method> methods = proxyMethods(interfaceClass);
+        proxyClass.getField(METHODS_FIELD).set(null,
+            ProxyMethod.build(interfaceClass, methods.toArray(new Method[methods.size()])));
+    }
+
+    /**
+     * 需要代理的方法，下标即方法表中的编号
+     *
+     * @param interfaceClass 接口类
+     * @return 方法列表
+     */
+    static List<Method> proxyMethods(Class<?> interfaceClass) {
+        Method[] methodAry = interfaceClass.getMethods();
+        List<Method> methods = new ArrayList<Method>(methodAry.length);
+        for (Method m : methodAry) {
+            if (Modifier.isNative(m.getModifiers()) || Modifier.isFinal(m.getModifiers())) {
+                continue;
+            }
+            methods.add(m);
+        }
+        return methods;
+    }
+}
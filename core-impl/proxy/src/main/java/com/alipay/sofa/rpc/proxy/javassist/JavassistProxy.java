@@ -75,13 +75,14 @@ public class JavassistProxy implements Proxy {
             debug = new StringBuilder();
         }
         try {
-            Class clazz = PROXY_CLASS_MAP.get(interfaceClass);
+            Map<Class, Class> proxyClassMap = getProxyClassMap();
+            Class clazz = proxyClassMap.get(interfaceClass);
             if (clazz == null) {
                 //生成代理类
                 String interfaceName = ClassTypeUtils.getTypeStr(interfaceClass);
                 ClassPool mPool = ClassPool.getDefault();
                 mPool.appendClassPath(new LoaderClassPath(ClassLoaderUtils.getClassLoader(JavassistProxy.class)));
-                CtClass mCtc = mPool.makeClass(interfaceName + "_proxy_" + counter.getAndIncrement());
+                CtClass mCtc = mPool.makeClass(interfaceName + getProxyClassSuffix() + counter.getAndIncrement());
                 if (interfaceClass.isInterface()) {
                     mCtc.addInterface(mPool.get(interfaceName));
                 } else {
@@ -118,7 +119,8 @@ public class JavassistProxy implements Proxy {
                         debug != null ? debug.toString() : "");
                 }
                 clazz = mCtc.toClass();
-                PROXY_CLASS_MAP.put(interfaceClass, clazz);
+                initProxyClass(interfaceClass, clazz);
+                proxyClassMap.put(interfaceClass, clazz);
             }
             Object instance = clazz.newInstance();
             clazz.getField("proxyInvoker").set(instance, proxyInvoker);
@@ -132,7 +134,42 @@ public class JavassistProxy implements Proxy {
         }
     }
 
-    private void createMethod(Class<?> interfaceClass, List<String> fieldList, List<String> resultList) {
+    /**
+     * 代理类的缓存
+     *
+     * @return 原始类和代理类的映射
+     */
+    protected Map<Class, Class> getProxyClassMap() {
+        return PROXY_CLASS_MAP;
+    }
+
+    /**
+     * 代理类名的后缀
+     *
+     * @return 后缀
+     */
+    protected String getProxyClassSuffix() {
+        return "_proxy_";
+    }
+
+    /**
+     * 代理类生成后的初始化，例如设置静态字段
+     *
+     * @param interfaceClass 接口类
+     * @param proxyClass     代理类
+     * @throws Exception 初始化异常
+     */
+    protected void initProxyClass(Class<?> interfaceClass, Class<?> proxyClass) throws Exception {
+    }
+
+    /**
+     * 生成代理方法
+     *
+     * @param interfaceClass 接口类
+     * @param fieldList      字段列表
+     * @param resultList     方法列表
+     */
+    protected void createMethod(Class<?> interfaceClass, List<String> fieldList, List<String> resultList) {
         Method[] methodAry = interfaceClass.getMethods();
         StringBuilder sb = new StringBuilder(512);
         int mi = 0;
@@ -209,7 +246,16 @@ public class JavassistProxy implements Proxy {
             resultList.add(sb.toString());
             sb.delete(0, sb.length());
         }
+        createObjectMethod(resultList);
+    }
 
+    /**
+     * 生成 toString()、hashCode() 和 equals() 方法
+     *
+     * @param resultList 方法列表
+     */
+    protected void createObjectMethod(List<String> resultList) {
+        StringBuilder sb = new StringBuilder(128);
         // toString()
         sb.append("public String toString() {");
         sb.append("  return proxyInvoker.toString();");
@@ -230,7 +276,7 @@ public class JavassistProxy implements Proxy {
         resultList.add(sb.toString());
     }
 
-    private String asArgument(Class<?> cl, String name) {
+    protected static String asArgument(Class<?> cl, String name) {
         if (cl.isPrimitive()) {
             if (Boolean.TYPE == cl) {
                 return name + "==null?false:((Boolean)" + name + ").booleanValue()";
@@ -73,4 +73,13 @@ public abstract class AddressHolder implements ProviderInfoListener {
      * @return 全部服务列表
      */
     public abstract int getAllProviderSize();
+
+    /**
+     * 得到地址列表的版本号，每次地址变化后版本号都会变化，可用于判断是否需要重建地址相关的缓存
+     *
+     * @return 版本号，不支持时返回-1
+     */
+    public long getVersion() {
+        return -1;
+    }
 }
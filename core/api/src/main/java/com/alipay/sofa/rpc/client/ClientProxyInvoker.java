@@ -20,14 +20,17 @@ import com.alipay.sofa.rpc.bootstrap.ConsumerBootstrap;
 import com.alipay.sofa.rpc.config.ConsumerConfig;
 import com.alipay.sofa.rpc.context.RpcInternalContext;
 import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
 import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
 import com.alipay.sofa.rpc.event.ClientEndInvokeEvent;
 import com.alipay.sofa.rpc.event.ClientStartInvokeEvent;
 import com.alipay.sofa.rpc.event.EventBus;
 import com.alipay.sofa.rpc.invoke.Invoker;
+import com.alipay.sofa.rpc.message.CompletableResponseCallback;
 
 import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.CompletionStage;
 
 /**
  * 客户端引用代理Invoker，一个引用一个。线程安全
@@ -81,6 +84,7 @@ public class ClientProxyInvoker implements Invoker {
                 }
                 // 得到结果
                 response = cluster.invoke(request);
+                decorateCompletableResponse(request, response);
             } catch (SofaRpcException e) {
                 throwable = e;
                 throw e;
@@ -95,12 +99,30 @@ public class ClientProxyInvoker implements Invoker {
             // 包装响应
             decorateResponse(response);
             return response;
+        } catch (RuntimeException e) {
+            if (isCompletableRequest(request)) {
+                // 返回值为CompletableFuture，发送前的异常也通过Future返回，不直接抛给调用方
+                SofaResponse failed = new SofaResponse();
+                failed.setAppResponse(CompletableResponseCallback.failedFuture(e));
+                return failed;
+            }
+            throw e;
         } finally {
             RpcInternalContext.removeContext();
             RpcInternalContext.popContext();
         }
     }
 
+    /**
+     * 是否是返回值为CompletableFuture的方法的请求
+     *
+     * @param request 请求
+     * @return 是否返回CompletableFuture
+     */
+    protected boolean isCompletableRequest(SofaRequest request) {
+        return request.getSofaResponseCallback() instanceof CompletableResponseCallback;
+    }
+
     /**
      * 包装请求
      *
@@ -121,6 +143,23 @@ public class ClientProxyInvoker implements Invoker {
          }*/
     }
 
+    /**
+     * 返回值为CompletableFuture的方法，将响应转为业务层的CompletableFuture作为返回值
+     *
+     * @param request  请求
+     * @param response 响应
+     */
+    protected void decorateCompletableResponse(SofaRequest request, SofaResponse response) {
+        SofaResponseCallback callback = request.getSofaResponseCallback();
+        if (!(callback instanceof CompletableResponseCallback) || response == null) {
+            return;
+        }
+        Object appResponse = response.getAppResponse();
+        CompletionStage<?> stage = appResponse instanceof CompletionStage ? (CompletionStage<?>) appResponse
+            : ((CompletableResponseCallback) callback).getFuture();
+        response.setAppResponse(CompletableResponseCallback.toAppFuture(stage));
+    }
+
     /**
      * 包装响应
      *
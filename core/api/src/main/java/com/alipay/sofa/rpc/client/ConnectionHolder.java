@@ -105,4 +105,13 @@ public abstract class ConnectionHolder implements Initializable, Destroyable, Pr
      */
     public abstract void setUnavailable(ProviderInfo providerInfo, ClientTransport transport);
 
+    /**
+     * 得到可用连接的版本号，每次可用连接变化后版本号都会变化，可用于判断是否需要重建连接相关的缓存
+     *
+     * @return 版本号，不支持时返回-1
+     */
+    public long getVersion() {
+        return -1;
+    }
+
 }
@@ -35,6 +35,20 @@ public class ProviderInfo implements Serializable {
 
     private static final long                             serialVersionUID = -6438690329875954051L;
 
+    /**
+     * 预热权重曲线的指数，1为线性增长
+     */
+    private static final double                           WARMUP_EXPONENT  = RpcConfigs.getOrDefaultValue(
+                                                                               RpcOptions.CONSUMER_WARMUP_EXPONENT,
+                                                                               1d);
+
+    /**
+     * 预热期间有效权重的刷新间隔（毫秒）
+     */
+    private static final long                             WARMUP_INTERVAL  = RpcConfigs.getOrDefaultValue(
+                                                                               RpcOptions.CONSUMER_WARMUP_INTERVAL,
+                                                                               1000L);
+
     /**
      * 原始地址
      */
@@ -84,6 +98,31 @@ public class ProviderInfo implements Serializable {
      */
     private transient volatile ProviderStatus             status           = ProviderStatus.AVAILABLE;
 
+    /**
+     * 预热开始时间
+     */
+    private transient volatile long                       warmupStartTime;
+
+    /**
+     * 预热结束时间，0表示不在预热中
+     */
+    private transient volatile long                       warmupEndTime;
+
+    /**
+     * 预热开始时的权重
+     */
+    private transient volatile int                        warmupWeight;
+
+    /**
+     * 预热期间预先计算好的有效权重
+     */
+    private transient volatile int                        effectiveWeight;
+
+    /**
+     * 下次刷新有效权重的时间
+     */
+    private transient volatile long                       nextRefreshTime;
+
     /**
      * 静态属性，不会变的
      */
@@ -322,10 +361,17 @@ public class ProviderInfo implements Serializable {
      * @return the weight
      */
     public int getWeight() {
-        ProviderStatus status = getStatus();
-        if (status == ProviderStatus.WARMING_UP) {
+        if (warmupEndTime != 0L) {
+            // 预热中，只读取基本类型字段，有效权重按间隔刷新
+            long now = System.currentTimeMillis();
+            if (now >= nextRefreshTime) {
+                refreshWarmUpWeight(now);
+            }
+            return warmupEndTime != 0L ? effectiveWeight : weight;
+        }
+        if (getStatus() == ProviderStatus.WARMING_UP) {
             try {
-                // 还处于预热时间中
+                // 兼容直接设置动态属性的方式
                 Integer warmUpWeight = (Integer) getDynamicAttr(ProviderInfoAttrs.ATTR_WARMUP_WEIGHT);
                 if (warmUpWeight != null) {
                     return warmUpWeight;
@@ -337,6 +383,70 @@ public class ProviderInfo implements Serializable {
         return weight;
     }
 
+    /**
+     * 开始预热，权重在预热时间内从预热权重逐渐增长到正常权重
+     *
+     * @param startTime    服务端启动时间
+     * @param warmupTime   预热时间
+     * @param warmupWeight 预热开始时的权重
+     * @return the provider info
+     * @see RpcOptions#CONSUMER_WARMUP_EXPONENT
+     */
+    public ProviderInfo startWarmUp(long startTime, long warmupTime, int warmupWeight) {
+        this.warmupStartTime = startTime;
+        this.warmupWeight = warmupWeight;
+        this.effectiveWeight = warmupWeight;
+        this.nextRefreshTime = Math.min(startTime + WARMUP_INTERVAL, startTime + warmupTime);
+        this.warmupEndTime = startTime + warmupTime;
+        setDynamicAttr(ProviderInfoAttrs.ATTR_WARMUP_WEIGHT, warmupWeight);
+        setDynamicAttr(ProviderInfoAttrs.ATTR_WARM_UP_END_TIME, warmupEndTime);
+        this.status = ProviderStatus.WARMING_UP;
+        return this;
+    }
+
+    private void refreshWarmUpWeight(long now) {
+        long endTime = warmupEndTime;
+        if (endTime == 0L) {
+            return;
+        }
+        if (now >= endTime) {
+            finishWarmUp();
+            return;
+        }
+        effectiveWeight = calculateWarmUpWeight(warmupWeight, weight, now - warmupStartTime,
+            endTime - warmupStartTime, WARMUP_EXPONENT);
+        nextRefreshTime = Math.min(now + WARMUP_INTERVAL, endTime);
+    }
+
+    /**
+     * 计算预热期间的权重
+     *
+     * @param warmupWeight 预热开始时的权重
+     * @param weight       正常权重
+     * @param elapsed      已预热时间
+     * @param warmupTime   预热总时间
+     * @param exponent     曲线指数
+     * @return 预热权重
+     */
+    static int calculateWarmUpWeight(int warmupWeight, int weight, long elapsed, long warmupTime,
+                                     double exponent) {
+        if (warmupTime <= 0 || elapsed >= warmupTime) {
+            return weight;
+        }
+        double progress = elapsed <= 0 ? 0d : (double) elapsed / warmupTime;
+        int result = (int) (warmupWeight + (weight - warmupWeight) * Math.pow(progress, exponent));
+        // 保证预热中的服务端也能分到少量流量
+        return weight > 0 && result < 1 ? 1 : result;
+    }
+
+    private void finishWarmUp() {
+        warmupEndTime = 0L;
+        if (status == ProviderStatus.WARMING_UP) {
+            status = ProviderStatus.AVAILABLE;
+        }
+        setDynamicAttr(ProviderInfoAttrs.ATTR_WARM_UP_END_TIME, null);
+    }
+
     /**
      * Sets weight.
      *
@@ -375,6 +485,14 @@ public class ProviderInfo implements Serializable {
      */
     public ProviderStatus getStatus() {
         if (status == ProviderStatus.WARMING_UP) {
+            long endTime = warmupEndTime;
+            if (endTime != 0L) {
+                if (System.currentTimeMillis() > endTime) {
+                    // 如果已经过了预热时间，恢复为正常
+                    finishWarmUp();
+                }
+                return status;
+            }
             Object dynamicAttr = getDynamicAttr(ProviderInfoAttrs.ATTR_WARM_UP_END_TIME);
             if (dynamicAttr != null && System.currentTimeMillis() > (Long) dynamicAttr) {
                 // 如果已经过了预热时间，恢复为正常
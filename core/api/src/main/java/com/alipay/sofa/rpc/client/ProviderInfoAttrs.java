@@ -66,6 +66,11 @@ public final class ProviderInfoAttrs {
      */
     public static final String ATTR_HOST_MACHINE          = "hostMachine";
 
+    /**
+     * 静态配置key:zone 所在可用区
+     */
+    public static final String ATTR_ZONE                  = "zone";
+
     /*=====动态配置=====*/
     /**
      * 动态配置key:interface
@@ -170,6 +170,18 @@ public class RemotingConstants {
      * @since 5.1.0
      */
     public static final String HEAD_TARGET_SERVICE        = "sofa_head_target_service";
+    /**
+     * 服务端分发表中的方法编号，服务端可以直接按编号找到方法
+     */
+    public static final String HEAD_METHOD_ID             = "sofa_head_method_id";
+    /**
+     * 请求头中的方法编号为该值时，表示客户端请求服务端返回方法编号
+     */
+    public static final String METHOD_ID_NEGOTIATE        = "0";
+    /**
+     * 服务端不认识请求头中的方法编号时，在响应头中返回该值，客户端需要带上完整的服务名和方法名重新发送
+     */
+    public static final String METHOD_ID_UNKNOWN          = "-1";
     /**
      * 对应 RequestBase#methodArgSigs
      *
@@ -205,6 +217,20 @@ public class RemotingConstants {
      * @since 5.4.0
      */
     public static final String HEAD_SERIALIZE_TYPE        = "sofa_head_serialize_type";
+    /**
+     * 请求优先级，取值为 high 或 low，其它为普通优先级，服务端过载时优先丢弃低优先级的请求
+     *
+     * @see com.alipay.sofa.rpc.context.RpcInvokeContext#setPriority(String)
+     */
+    public static final String HEAD_PRIORITY              = "sofa_head_priority";
+    /**
+     * 高优先级，不受服务端准入控制的限制
+     */
+    public static final String PRIORITY_HIGH              = "high";
+    /**
+     * 低优先级，服务端过载时只能使用一半的排队额度
+     */
+    public static final String PRIORITY_LOW               = "low";
 
     /**
      * RPC透传请求链路数据
@@ -253,4 +279,19 @@ public class RemotingConstants {
      * @since 5.1.0
      */
     public static final String INVOKE_CTX_IS_ASYNC_CHAIN  = "rpc.async.chain";
+
+    /**
+     * bolt InvokeContext的Key：当前连接的方法编号缓存，协商方法编号时使用
+     */
+    public static final String INVOKE_CTX_METHOD_ID_CACHE = "rpc.method.id.cache";
+
+    /**
+     * bolt InvokeContext的Key：请求的参数签名，协商方法编号时使用
+     */
+    public static final String INVOKE_CTX_METHOD_ARGSIGS  = "rpc.method.argsigs";
+
+    /**
+     * bolt InvokeContext的Key：服务端不认识请求中的方法编号
+     */
+    public static final String INVOKE_CTX_METHOD_UNKNOWN  = "rpc.method.id.unknown";
 }
\ No newline at end of file
@@ -58,6 +58,11 @@ public class RpcConstants {
      */
     public static final String  THREADPOOL_TYPE_CACHED             = "cached";
 
+    /**
+     * 线程池类型：虚拟线程（JDK21+），每个请求一个虚拟线程
+     */
+    public static final String  THREADPOOL_TYPE_VIRTUAL            = "virtual";
+
     /**
      * 事件分发类型：all 所有消息都派发到业务线程池，包括请求，响应，连接事件，断开事件，心跳等。
      */
@@ -418,6 +423,36 @@ public class RpcConstants {
      */
     public static final String  CONFIG_KEY_CACHE                   = "cache";
 
+    /**
+     * 配置key:cacheSize
+     */
+    public static final String  CONFIG_KEY_CACHE_SIZE              = "cacheSize";
+
+    /**
+     * 配置key:cacheTtl
+     */
+    public static final String  CONFIG_KEY_CACHE_TTL               = "cacheTtl";
+
+    /**
+     * 配置key:cacheRefreshAhead
+     */
+    public static final String  CONFIG_KEY_CACHE_REFRESH_AHEAD     = "cacheRefreshAhead";
+
+    /**
+     * 配置key:cacheVersion，动态配置中该值变化时清空方法的结果缓存
+     */
+    public static final String  CONFIG_KEY_CACHE_VERSION           = "cacheVersion";
+
+    /**
+     * 配置key:singleFlight
+     */
+    public static final String  CONFIG_KEY_SINGLE_FLIGHT           = "singleFlight";
+
+    /**
+     * 配置key:hedge，为true时同步调用超过耗时分位数未返回会向另一个服务端再发一次
+     */
+    public static final String  CONFIG_KEY_HEDGE                   = "hedge";
+
     /**
      * 配置key:compress
      */
@@ -45,6 +45,10 @@ public class RpcOptions {
      * 系统cpu核数
      */
     public static final String SYSTEM_CPU_CORES                         = "system.cpu.cores";
+    /**
+     * 本机所在的可用区（机房、单元等位置标签），为空表示不区分
+     */
+    public static final String SYSTEM_ZONE                              = "system.zone";
     /**
      * 是否允许线程上下文携带自定义参数，关闭后，可能tracer等会失效，但是可以提高性能
      */
@@ -207,6 +211,10 @@ public class RpcOptions {
      * 默认服务端业务线程池是否初始化核心线程池
      */
     public static final String SERVER_POOL_PRE_START                    = "server.pool.pre.start";
+    /**
+     * 虚拟线程业务线程池最大并发数
+     */
+    public static final String SERVER_POOL_VIRTUAL_MAX                  = "server.pool.virtual.max";
     /**
      * 最大支持长连接
      */
@@ -231,6 +239,26 @@ public class RpcOptions {
      * 服务端关闭超时时间
      */
     public static final String SERVER_STOP_TIMEOUT                      = "server.stop.timeout";
+    /**
+     * Rest服务端是否在业务线程池中处理请求，否则使用独立的 EventLoop 处理。路由和请求体聚合仍由 RESTEasy 完成
+     */
+    public static final String SERVER_REST_BIZ_POOL                     = "server.rest.bizPool";
+    /**
+     * Bolt服务端是否开启基于排队延迟的自适应准入控制
+     */
+    public static final String SERVER_ADMISSION_ENABLE                  = "server.admission.enable";
+    /**
+     * 自适应准入控制的目标排队延迟（毫秒）
+     */
+    public static final String SERVER_ADMISSION_TARGET                  = "server.admission.target";
+    /**
+     * 自适应准入控制的调整周期（毫秒）
+     */
+    public static final String SERVER_ADMISSION_INTERVAL                = "server.admission.interval";
+    /**
+     * 自适应准入控制下每个服务最多排队的请求数
+     */
+    public static final String SERVER_ADMISSION_LIMIT                   = "server.admission.limit";
 
     /**
      * 默认服务是否注册
@@ -295,10 +323,50 @@ public class RpcOptions {
      * 默认负载均衡算法
      */
     public static final String CONSUMER_LOAD_BALANCER                   = "consumer.loadBalancer";
+    /**
+     * peakEwma负载均衡的响应时间衰减窗口（毫秒）
+     */
+    public static final String CONSUMER_LOAD_BALANCER_EWMA_DECAY        = "consumer.loadBalancer.ewma.decay";
+    /**
+     * ringConsistentHash负载均衡的有界负载系数，小于1表示不开启
+     */
+    public static final String CONSUMER_LOAD_BALANCER_HASH_LOAD_FACTOR  = "consumer.loadBalancer.hash.loadFactor";
     /**
      * 默认失败重试次数
      */
     public static final String CONSUMER_RETRIES                         = "consumer.retries";
+    /**
+     * 重试预算比例，每次调用可积累的重试令牌数，小于等于0表示不限制重试
+     */
+    public static final String CONSUMER_RETRY_BUDGET_RATIO              = "consumer.retry.budget.ratio";
+    /**
+     * 重试预算的令牌桶容量，即允许的突发重试次数
+     */
+    public static final String CONSUMER_RETRY_BUDGET_MAX                = "consumer.retry.budget.max";
+    /**
+     * 对冲请求的延迟分位数（例如95），只对配置了 hedge=true 的接口或方法生效，小于等于0表示不开启对冲请求
+     */
+    public static final String CONSUMER_HEDGE_PERCENTILE                = "consumer.hedge.percentile";
+    /**
+     * 对冲请求的最小延迟（毫秒）
+     */
+    public static final String CONSUMER_HEDGE_MIN_DELAY                 = "consumer.hedge.minDelay";
+    /**
+     * 服务端预热期间权重增长曲线的指数，1为线性增长，大于1为先慢后快
+     */
+    public static final String CONSUMER_WARMUP_EXPONENT                 = "consumer.warmup.exponent";
+    /**
+     * 服务端预热期间有效权重的刷新间隔（毫秒）
+     */
+    public static final String CONSUMER_WARMUP_INTERVAL                 = "consumer.warmup.interval";
+    /**
+     * 同可用区健康容量占比低于该值时，流量溢出到其它可用区
+     */
+    public static final String CONSUMER_ZONE_SPILLOVER_RATIO            = "consumer.zone.spillover.ratio";
+    /**
+     * 同可用区健康服务端数量少于该值时，流量溢出到其它可用区
+     */
+    public static final String CONSUMER_ZONE_MIN_PROVIDERS              = "consumer.zone.min.providers";
     /**
      * 默认是否异步
      */
@@ -323,6 +391,18 @@ public class RpcOptions {
      * 接口下每方法的最大可并行执行请求数
      */
     public static final String CONSUMER_CONCURRENTS                     = "consumer.concurrents";
+    /**
+     * 开启结果缓存时每个方法默认缓存的最大结果数
+     */
+    public static final String CONSUMER_CACHE_SIZE                      = "consumer.cache.size";
+    /**
+     * 开启结果缓存时默认的缓存有效期（毫秒）
+     */
+    public static final String CONSUMER_CACHE_TTL                       = "consumer.cache.ttl";
+    /**
+     * 开启结果缓存时提前刷新的比例，例如0.8表示有效期过了80%后由一次调用提前刷新，0表示不提前刷新
+     */
+    public static final String CONSUMER_CACHE_REFRESH_AHEAD             = "consumer.cache.refreshAhead";
     /**
      * 默认一个ip端口建立的长连接数量
      */
@@ -456,6 +536,11 @@ public class RpcOptions {
      * 是否跨接口的长连接复用
      */
     public static final String TRANSPORT_CONNECTION_REUSE               = "transport.connection.reuse";
+    /**
+     * 是否在bolt连接上协商方法编号，协商后请求头中只带方法编号，不带服务名和方法名。
+     * 只在直连服务端（非mesh）、单连接的同步调用时生效
+     */
+    public static final String TRANSPORT_METHOD_ID_ENABLE               = "transport.method.id.enable";
     /**
      * Whether the Http2 Cleartext protocol client uses Prior Knowledge to start Http2
      */
@@ -530,12 +615,62 @@ public class RpcOptions {
      * Automatic fault tolerance measure strategy
      */
     public static final String AFT_MEASURE_STRATEGY                     = "aft.measure.strategy";
+    /**
+     * Automatic fault tolerance measure and regulation threads
+     */
+    public static final String AFT_REGULATION_THREADS                   = "aft.regulation.threads";
+    /**
+     * Automatic fault tolerance measure and regulation queue size
+     */
+    public static final String AFT_REGULATION_QUEUE_SIZE                = "aft.regulation.queue.size";
 
     /**
      * 是否允许通过RpcInvokeContext.getTargetUrl创建tcp连接，默认允许
      */
     public static final String RPC_CREATE_CONN_WHEN_ABSENT              = "consumer.connect.create.when.absent";
 
+    /**
+     * 内置 http 客户端连接池最大连接数
+     */
+    public static final String HTTP_CLIENT_POOL_MAX                     = "http.client.pool.max";
+    /**
+     * 内置 http 客户端连接池每个地址的最大连接数
+     */
+    public static final String HTTP_CLIENT_POOL_ROUTE_MAX               = "http.client.pool.route.max";
+    /**
+     * 内置 http 客户端建立连接超时时间，小于0表示使用 HttpClient 的默认值
+     */
+    public static final String HTTP_CLIENT_CONNECT_TIMEOUT              = "http.client.connect.timeout";
+    /**
+     * 内置 http 客户端读取超时时间，小于0表示使用 HttpClient 的默认值
+     */
+    public static final String HTTP_CLIENT_SOCKET_TIMEOUT               = "http.client.socket.timeout";
+
+    /**
+     * triple 客户端共享 IO 线程数，0 表示 CPU 核数 * 2
+     */
+    public static final String TRIPLE_CLIENT_IO_THREADS                 = "triple.client.io.threads";
+    /**
+     * triple 客户端 HTTP/2 初始流控窗口大小
+     */
+    public static final String TRIPLE_CLIENT_FLOW_CONTROL_WINDOW        = "triple.client.flow.control.window";
+    /**
+     * triple 客户端 keepalive ping 间隔，0 表示关闭
+     */
+    public static final String TRIPLE_CLIENT_KEEPALIVE_TIME             = "triple.client.keepalive.time";
+    /**
+     * triple 客户端 keepalive ping 超时时间
+     */
+    public static final String TRIPLE_CLIENT_KEEPALIVE_TIMEOUT          = "triple.client.keepalive.timeout";
+    /**
+     * triple 服务端 HTTP/2 初始流控窗口大小
+     */
+    public static final String TRIPLE_SERVER_FLOW_CONTROL_WINDOW        = "triple.server.flow.control.window";
+    /**
+     * triple 服务端每个连接允许的最大并发 stream 数，0 表示不限制
+     */
+    public static final String TRIPLE_SERVER_MAX_CONCURRENT_STREAMS     = "triple.server.max.concurrent.streams";
+
     /**
      * use conn validate by server or not, usually we use it as sec or backlist ip
      */
@@ -108,6 +108,11 @@ public class RpcInvokeContext {
      */
     protected String                        targetGroup;
 
+    /**
+     * 用户自定义请求优先级，单次调用生效
+     */
+    protected String                        priority;
+
     /**
      * 用户自定义Callback，单次调用生效
      */
@@ -351,6 +356,28 @@ public class RpcInvokeContext {
         return this;
     }
 
+    /**
+     * 获取单次请求的优先级
+     *
+     * @return 单次请求的优先级
+     */
+    public String getPriority() {
+        return priority;
+    }
+
+    /**
+     * 设置单次请求的优先级，通过请求头 {@link com.alipay.sofa.rpc.common.RemotingConstants#HEAD_PRIORITY} 传给服务端。<br>
+     * 取值为 {@link com.alipay.sofa.rpc.common.RemotingConstants#PRIORITY_HIGH} 时不受服务端准入控制的限制，
+     * 取值为 {@link com.alipay.sofa.rpc.common.RemotingConstants#PRIORITY_LOW} 时服务端过载后优先被拒绝，不设置为普通优先级
+     *
+     * @param priority 单次请求的优先级
+     * @return RpcInvokeContext
+     */
+    public RpcInvokeContext setPriority(String priority) {
+        this.priority = priority;
+        return this;
+    }
+
     /**
      * 获取单次请求的指定回调方法
      *
@@ -400,6 +427,7 @@ public class RpcInvokeContext {
         sb.append("{timeout=").append(timeout);
         sb.append(", targetURL='").append(targetURL).append('\'');
         sb.append(", targetGroup='").append(targetGroup).append('\'');
+        sb.append(", priority='").append(priority).append('\'');
         sb.append(", responseCallback=").append(responseCallback);
         sb.append(", future=").append(future);
         sb.append(", map=").append(map);
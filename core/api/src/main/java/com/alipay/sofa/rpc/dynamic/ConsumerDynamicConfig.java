@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.dynamic;
+
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.struct.ScheduledService;
+import com.alipay.sofa.rpc.common.utils.StringUtils;
+import com.alipay.sofa.rpc.config.ConfigUniqueNameGenerator;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.log.Logger;
+import com.alipay.sofa.rpc.log.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 服务调用方预先解析好的动态配置
+ * <p>
+ * 从配置中心读取一次后编译为不可变的快照，配置中心推送变更时整体替换，调用时只读快照，不访问配置中心。
+ * 方法的配置在第一次使用时编译。配置中心不支持推送时，由定时任务每隔 {@link #REFRESH_INTERVAL} 毫秒重建快照，
+ * 调用线程不会去读配置中心。
+ */
+public class ConsumerDynamicConfig implements DynamicConfigListener {
+
+    private static final Logger        LOGGER           = LoggerFactory.getLogger(ConsumerDynamicConfig.class);
+
+    /**
+     * 不支持推送时的刷新间隔（毫秒）
+     */
+    static final long                  REFRESH_INTERVAL = 1000;
+
+    private final DynamicConfigManager dynamicConfigManager;
+
+    /**
+     * 方法级配置使用的服务名
+     */
+    private final String               interfaceId;
+
+    /**
+     * 服务级配置使用的服务名
+     */
+    private final String               serviceName;
+
+    private volatile Snapshot          snapshot;
+
+    /**
+     * 不支持推送时的定时刷新任务
+     */
+    private final ScheduledService     refreshService;
+
+    /**
+     * 重建快照的锁，读配置中心可能阻塞，不用 synchronized 以免占住虚拟线程的载体线程
+     */
+    private final Lock                 lock             = new ReentrantLock();
+
+    /**
+     * 构建服务调用方的动态配置
+     *
+     * @param consumerConfig 服务调用方配置
+     * @return 没有配置动态配置别名时返回null
+     */
+    public static ConsumerDynamicConfig build(ConsumerConfig consumerConfig) {
+        String dynamicAlias = consumerConfig.getParameter(DynamicConfigKeys.DYNAMIC_ALIAS);
+        if (StringUtils.isBlank(dynamicAlias)) {
+            return null;
+        }
+        DynamicConfigManager dynamicConfigManager = DynamicConfigManagerFactory.getDynamicManager(
+            consumerConfig.getAppName(), dynamicAlias);
+        return new ConsumerDynamicConfig(dynamicConfigManager, consumerConfig.getInterfaceId(),
+            ConfigUniqueNameGenerator.getServiceName(consumerConfig));
+    }
+
+    public ConsumerDynamicConfig(DynamicConfigManager dynamicConfigManager, String interfaceId,
+                                 String serviceName) {
+        this.dynamicConfigManager = dynamicConfigManager;
+        this.interfaceId = interfaceId;
+        this.serviceName = serviceName;
+        this.snapshot = compile(Collections.<String> emptySet());
+        boolean pushed = dynamicConfigManager.addListener(interfaceId, this);
+        if (!interfaceId.equals(serviceName)) {
+            pushed = dynamicConfigManager.addListener(serviceName, this) && pushed;
+        }
+        this.refreshService = pushed ? null : new ScheduledService("DYNAMIC-CFG-" + interfaceId,
+            ScheduledService.MODE_FIXEDDELAY, new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        refresh();
+                    } catch (Throwable e) {
+                        LOGGER.warn("Failed to refresh dynamic config of " + interfaceId, e);
+                    }
+                }
+            }, REFRESH_INTERVAL, REFRESH_INTERVAL, TimeUnit.MILLISECONDS).start();
+    }
+
+    /**
+     * 得到方法的动态配置
+     *
+     * @param methodName 方法名
+     * @return 方法的动态配置，不为null
+     */
+    public DynamicMethodConfig getMethodConfig(String methodName) {
+        DynamicMethodConfig methodConfig = snapshot.methods.get(methodName);
+        return methodConfig != null ? methodConfig : compileMethod(methodName);
+    }
+
+    /**
+     * 得到服务的动态负载均衡
+     *
+     * @return 负载均衡，没有配置时返回null
+     */
+    public String getLoadBalancer() {
+        return snapshot.loadBalancer;
+    }
+
+    @Override
+    public void configChanged(String service) {
+        refresh();
+    }
+
+    /**
+     * 从配置中心重建快照
+     */
+    public void refresh() {
+        lock.lock();
+        try {
+            snapshot = compile(snapshot.methods.keySet());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取消订阅，停止定时刷新
+     */
+    public void destroy() {
+        if (refreshService != null) {
+            refreshService.stop();
+        }
+        dynamicConfigManager.removeListener(interfaceId, this);
+        if (!interfaceId.equals(serviceName)) {
+            dynamicConfigManager.removeListener(serviceName, this);
+        }
+    }
+
+    private DynamicMethodConfig compileMethod(String methodName) {
+        lock.lock();
+        try {
+            DynamicMethodConfig methodConfig = snapshot.methods.get(methodName);
+            if (methodConfig == null) {
+                methodConfig = compileMethodConfig(methodName);
+                Map<String, DynamicMethodConfig> methods = new HashMap<String, DynamicMethodConfig>(
+                    snapshot.methods);
+                methods.put(methodName, methodConfig);
+                snapshot = new Snapshot(methods, snapshot.loadBalancer);
+            }
+            return methodConfig;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Snapshot compile(Iterable<String> methodNames) {
+        Map<String, DynamicMethodConfig> methods = new HashMap<String, DynamicMethodConfig>();
+        for (String methodName : methodNames) {
+            methods.put(methodName, compileMethodConfig(methodName));
+        }
+        String loadBalancer = dynamicConfigManager.getConsumerServiceProperty(serviceName,
+            RpcConstants.CONFIG_KEY_LOADBALANCER);
+        return new Snapshot(methods, isConfigured(loadBalancer) ? loadBalancer : null);
+    }
+
+    private DynamicMethodConfig compileMethodConfig(String methodName) {
+        Integer timeout = parseInt(methodName, RpcConstants.CONFIG_KEY_TIMEOUT);
+        Integer retries = parseInt(methodName, RpcConstants.CONFIG_KEY_RETRIES);
+        return timeout == null && retries == null ? DynamicMethodConfig.EMPTY :
+            new DynamicMethodConfig(timeout, retries);
+    }
+
+    private Integer parseInt(String methodName, String key) {
+        String value = dynamicConfigManager.getConsumerMethodProperty(interfaceId, methodName, key);
+        if (!isConfigured(value)) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            if (LOGGER.isWarnEnabled()) {
+                LOGGER.warn("Ignore illegal dynamic config {} of {}.{}: {}", key, interfaceId, methodName, value);
+            }
+            return null;
+        }
+    }
+
+    private static boolean isConfigured(String value) {
+        return DynamicHelper.isNotDefault(value) && StringUtils.isNotBlank(value);
+    }
+
+    /**
+     * 不可变的快照
+     */
+    private static final class Snapshot {
+
+        private final Map<String, DynamicMethodConfig> methods;
+
+        private final String                           loadBalancer;
+
+        Snapshot(Map<String, DynamicMethodConfig> methods, String loadBalancer) {
+            this.methods = methods;
+            this.loadBalancer = loadBalancer;
+        }
+    }
+}
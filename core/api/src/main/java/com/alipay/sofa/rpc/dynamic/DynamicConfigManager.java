@@ -86,4 +86,26 @@ public abstract class DynamicConfigManager {
      * @return auth rules
      */
     public abstract AuthRuleGroup getServiceAuthRule(String service);
+
+    /**
+     * Subscribe changes of service and method properties of target service.
+     * Config centers which can push changes should override it. Managers which do not override it (all but the
+     * apollo one for now) are polled by the callers instead, so changes take effect with a delay.
+     *
+     * @param service target service
+     * @param listener listener notified after properties of the service changed
+     * @return false if changes can not be pushed, caller should refresh by itself
+     */
+    public boolean addListener(String service, DynamicConfigListener listener) {
+        return false;
+    }
+
+    /**
+     * Unsubscribe changes of target service.
+     *
+     * @param service target service
+     * @param listener listener to remove
+     */
+    public void removeListener(String service, DynamicConfigListener listener) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.dynamic;
+
+/**
+ * Immutable dynamic properties of one consumer method, null means not configured.
+ */
+public final class DynamicMethodConfig {
+
+    /**
+     * Nothing configured
+     */
+    public static final DynamicMethodConfig EMPTY = new DynamicMethodConfig(null, null);
+
+    private final Integer                   timeout;
+
+    private final Integer                   retries;
+
+    public DynamicMethodConfig(Integer timeout, Integer retries) {
+        this.timeout = timeout;
+        this.retries = retries;
+    }
+
+    /**
+     * Gets timeout.
+     *
+     * @return the timeout, null if not configured
+     */
+    public Integer getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Gets retries.
+     *
+     * @return the retries, null if not configured
+     */
+    public Integer getRetries() {
+        return retries;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.event;
+
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+
+/**
+ * 客户端按可用区路由的结果发生变化（同可用区和溢出到所有可用区之间切换）
+ */
+public class ClientZoneRouteEvent implements Event {
+
+    private final ConsumerConfig consumerConfig;
+
+    private final String         localZone;
+
+    private final String         zone;
+
+    /**
+     * 构造函数
+     *
+     * @param consumerConfig 服务消费者配置
+     * @param localZone      本机所在可用区
+     * @param zone           路由到的可用区，溢出到所有可用区时为 *
+     */
+    public ClientZoneRouteEvent(ConsumerConfig consumerConfig, String localZone, String zone) {
+        this.consumerConfig = consumerConfig;
+        this.localZone = localZone;
+        this.zone = zone;
+    }
+
+    public ConsumerConfig getConsumerConfig() {
+        return consumerConfig;
+    }
+
+    public String getLocalZone() {
+        return localZone;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.event;
+
+import com.alipay.sofa.rpc.config.ServerConfig;
+
+/**
+ * 服务端自适应准入控制完成一个周期的调整
+ */
+public class ServerAdmissionEvent implements Event {
+
+    private final ServerConfig serverConfig;
+
+    private final String       service;
+
+    private final int          limit;
+
+    private final long         shedCount;
+
+    private final boolean      overloaded;
+
+    /**
+     * 构造函数
+     *
+     * @param serverConfig 服务端配置
+     * @param service      服务名
+     * @param limit        调整后的排队额度
+     * @param shedCount    本周期内被拒绝的请求数
+     * @param overloaded   是否处于过载状态
+     */
+    public ServerAdmissionEvent(ServerConfig serverConfig, String service, int limit, long shedCount,
+                                boolean overloaded) {
+        this.serverConfig = serverConfig;
+        this.service = service;
+        this.limit = limit;
+        this.shedCount = shedCount;
+        this.overloaded = overloaded;
+    }
+
+    public ServerConfig getServerConfig() {
+        return serverConfig;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public long getShedCount() {
+        return shedCount;
+    }
+
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+}
@@ -22,8 +22,13 @@ import com.alipay.sofa.rpc.client.ProviderInfoAttrs;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.context.RpcInternalContext;
 import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
 import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.message.CompletableResponseCallback;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * <p>执行真正的调用过程，使用client发送数据给server</p>
@@ -60,4 +65,15 @@ public class ConsumerInvoker extends FilterInvoker {
         return consumerBootstrap.getCluster().sendMsg(providerInfo, sofaRequest);
     }
 
+    @Override
+    public CompletionStage<SofaResponse> invokeAsync(SofaRequest sofaRequest) throws SofaRpcException {
+        SofaResponseCallback callback = sofaRequest.getSofaResponseCallback();
+        if (!(callback instanceof CompletableResponseCallback)) {
+            return CompletableFuture.completedFuture(invoke(sofaRequest));
+        }
+        // 以callback方式发送，响应到达时完成Future，不阻塞当前线程
+        invoke(sofaRequest);
+        return ((CompletableResponseCallback) callback).getFuture();
+    }
+
 }
@@ -22,6 +22,9 @@ import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
 import com.alipay.sofa.rpc.ext.Extensible;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 /**
  * Filter SPI
  *
@@ -56,6 +59,31 @@ public abstract class Filter {
      */
     public abstract SofaResponse invoke(FilterInvoker invoker, SofaRequest request) throws SofaRpcException;
 
+    /**
+     * Do filtering without blocking, only used in CONSUMER SIDE when the method returns
+     * {@link java.util.concurrent.CompletableFuture}.
+     * <p>
+     * <pre><code>
+     *  doBeforeInvoke();
+     *  return invoker.invokeAsync(request).thenApply(response -&gt; doAfterInvoke(response));
+     * </code></pre>
+     * Default implementation calls {@link #invoke(FilterInvoker, SofaRequest)}, and the code after invoke
+     * gets an empty response just like future invoke, true response will arrive at {@link #onAsyncResponse}.
+     *
+     * @param invoker Invoker
+     * @param request Request
+     * @return Stage of response
+     * @throws SofaRpcException Occur rpc exception before send
+     */
+    public CompletionStage<SofaResponse> invokeAsync(FilterInvoker invoker, SofaRequest request)
+        throws SofaRpcException {
+        AsyncAdapterInvoker adapter = new AsyncAdapterInvoker(invoker);
+        SofaResponse response = invoke(adapter, request);
+        CompletionStage<SofaResponse> stage = adapter.stage;
+        // 没有调用下一层，例如直接返回了结果
+        return stage != null ? stage : CompletableFuture.completedFuture(response);
+    }
+
     /**
      * Do filtering after asynchronous respond, only supported in CONSUMER SIDE. <p>
      * 
@@ -75,4 +103,22 @@ public abstract class Filter {
     public void onAsyncResponse(ConsumerConfig config, SofaRequest request, SofaResponse response, Throwable exception)
         throws SofaRpcException {
     }
+
+    /**
+     * 让只实现了同步接口的过滤器也能参与非阻塞调用：下一层以异步方式执行，同步返回空响应
+     */
+    private static class AsyncAdapterInvoker extends FilterInvoker {
+
+        private CompletionStage<SofaResponse> stage;
+
+        AsyncAdapterInvoker(FilterInvoker invoker) {
+            super(null, invoker, invoker.getConfig());
+        }
+
+        @Override
+        public SofaResponse invoke(SofaRequest request) throws SofaRpcException {
+            stage = invoker.invokeAsync(request);
+            return new SofaResponse();
+        }
+    }
 }
@@ -16,6 +16,7 @@
  */
 package com.alipay.sofa.rpc.filter;
 
+import com.alipay.sofa.rpc.base.Destroyable;
 import com.alipay.sofa.rpc.common.struct.OrderedComparator;
 import com.alipay.sofa.rpc.common.utils.CommonUtils;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
@@ -41,6 +42,7 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -163,6 +165,17 @@ public class FilterChain implements Invoker {
         return new FilterChain(selectActualFilters(consumerConfig, CONSUMER_AUTO_ACTIVES), lastFilter, consumerConfig);
     }
 
+    /**
+     * 传输层收到响应时，是否由响应线程执行异步过滤器并结束调用。<br>
+     * 同步请求即使被异步发送（例如对冲调用），也由调用线程执行过滤器并结束调用
+     *
+     * @param request 请求
+     * @return 是否由响应线程结束调用
+     */
+    public static boolean isAsyncCompletion(SofaRequest request) {
+        return request.isAsync();
+    }
+
     /**
      * 获取真正的过滤器列表
      *
@@ -268,6 +281,17 @@ public class FilterChain implements Invoker {
         return invokerChain.invoke(sofaRequest);
     }
 
+    /**
+     * 非阻塞执行调用链，用于返回值为CompletableFuture的方法
+     *
+     * @param sofaRequest 请求
+     * @return 响应的Stage
+     * @throws SofaRpcException 发送前出现的异常
+     */
+    public CompletionStage<SofaResponse> invokeAsync(SofaRequest sofaRequest) throws SofaRpcException {
+        return invokerChain.invokeAsync(sofaRequest);
+    }
+
     /**
      * Do filtering when async respond from server
      *
@@ -289,6 +313,24 @@ public class FilterChain implements Invoker {
         }
     }
 
+    /**
+     * 销毁调用链，通知实现了 {@link Destroyable} 的过滤器释放资源，例如动态配置的监听
+     */
+    public void destroy() {
+        if (loadedFilters == null) {
+            return;
+        }
+        for (Filter loadedFilter : loadedFilters) {
+            if (loadedFilter instanceof Destroyable) {
+                try {
+                    ((Destroyable) loadedFilter).destroy();
+                } catch (Exception e) {
+                    LOGGER.warn("Catch exception when destroy filter " + loadedFilter.getClass().getName(), e);
+                }
+            }
+        }
+    }
+
     /**
      * 得到执行链
      *
@@ -29,6 +29,8 @@ import com.alipay.sofa.rpc.log.LogCodes;
 
 import javax.annotation.concurrent.ThreadSafe;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * <p>过滤器包装的Invoker对象，主要是隔离了filter和service的关系，这样的话filter也可以是单例</p>
@@ -100,6 +102,22 @@ public class FilterInvoker implements Invoker {
             nextFilter.invoke(invoker, request);
     }
 
+    /**
+     * 非阻塞调用，返回响应的Stage。最后一层调用器默认同步执行 {@link #invoke(SofaRequest)}
+     *
+     * @param request 请求
+     * @return 响应的Stage
+     * @throws SofaRpcException 发送前出现的异常
+     */
+    public CompletionStage<SofaResponse> invokeAsync(SofaRequest request) throws SofaRpcException {
+        if (nextFilter == null && invoker == null) {
+            return CompletableFuture.completedFuture(invoke(request));
+        }
+        return nextFilter == null ?
+            invoker.invokeAsync(request) :
+            nextFilter.invokeAsync(invoker, request);
+    }
+
     /**
      * <B>unmodifiable</B><br>
      * 一些和请求无关的固定的上下文，这些内容从config里加载，和invocation无关<br>
@@ -27,10 +27,13 @@ import com.alipay.sofa.rpc.core.response.SofaResponse;
 import com.alipay.sofa.rpc.log.LogCodes;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
+import com.alipay.sofa.rpc.message.CompletableResponseCallback;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 /**
  * 服务端调用业务实现类
@@ -98,6 +101,9 @@ public class ProviderInvoker<T> extends FilterInvoker {
                     LogCodes.getLog(LogCodes.ERROR_NEED_DECODE_METHOD));
             }
             Object result = method.invoke(providerConfig.getRef(), request.getMethodArgs());
+            if (result instanceof CompletionStage && CompletableResponseCallback.isCompletableMethod(method)) {
+                result = getCompletableResult((CompletionStage<?>) result);
+            }
 
             sofaResponse.setAppResponse(result);
         } catch (IllegalArgumentException e) { // 非法参数，可能是实现类和接口类不对应)
@@ -122,6 +128,23 @@ public class ProviderInvoker<T> extends FilterInvoker {
         return sofaResponse;
     }
 
+    /**
+     * 实现类返回CompletableFuture时，等待其完成后返回真正的结果
+     *
+     * @param stage 实现类返回的结果
+     * @return 真正的结果
+     * @throws InvocationTargetException 业务异常
+     */
+    private Object getCompletableResult(CompletionStage<?> stage) throws InvocationTargetException {
+        try {
+            return stage.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            throw new InvocationTargetException(e.getCause() != null ? e.getCause() : e);
+        } catch (RuntimeException e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
     /**
      * 把业务层抛出的业务异常或者RuntimeException/Error，
      * 截断Cause，以免客户端因为无法找到cause类而出现反序列化失败.
@@ -22,6 +22,9 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * @author <a href="mailto:zhanggeng.zg@antfin.com">GengZhang</a>
@@ -125,62 +128,153 @@ public abstract class AbstractResponseFuture<V> implements ResponseFuture<V> {
         if (interruptable && Thread.interrupted()) {
             throw new InterruptedException(toString());
         }
-        long startTime = System.nanoTime();
-        long waitTime = timeoutNanos;
+        final long deadline = System.nanoTime() + timeoutNanos;
+        WaitNode node = null;
+        boolean queued = false;
         boolean interrupted = false;
         try {
-            synchronized (this) {
+            for (;;) {
                 if (isDone()) {
                     return true;
                 }
-                incWaiters();
-                try {
-                    for (;;) {
-                        try {
-                            wait(waitTime / 1000000, (int) (waitTime % 1000000));
-                        } catch (InterruptedException e) {
-                            if (interruptable) {
-                                throw e;
-                            } else {
-                                interrupted = true;
-                            }
-                        }
-
-                        if (isDone()) {
-                            return true;
+                if (node == null) {
+                    node = new WaitNode();
+                } else if (!queued) {
+                    node.next = waiters;
+                    queued = WAITERS_UPDATER.compareAndSet(this, node.next, node);
+                } else {
+                    long waitTime = deadline - System.nanoTime();
+                    if (waitTime <= 0) {
+                        return isDone();
+                    }
+                    // 不占用监视器锁，虚拟线程等待时可以让出载体线程
+                    LockSupport.parkNanos(this, waitTime);
+                    if (Thread.interrupted()) {
+                        if (interruptable) {
+                            throw new InterruptedException(toString());
                         } else {
-                            waitTime = timeoutNanos - (System.nanoTime() - startTime);
-                            if (waitTime <= 0) {
-                                return isDone();
-                            }
+                            interrupted = true;
                         }
                     }
-                } finally {
-                    decWaiters();
                 }
             }
         } finally {
+            if (queued) {
+                removeWaiter(node);
+            }
             if (interrupted) {
                 Thread.currentThread().interrupt();
             }
         }
     }
 
-    private short waiters;
+    private static final AtomicIntegerFieldUpdater<AbstractResponseFuture>             STATE_UPDATER;
 
-    private boolean hasWaiters() {
-        return waiters > 0;
+    private static final AtomicReferenceFieldUpdater<AbstractResponseFuture, WaitNode> WAITERS_UPDATER;
+
+    static {
+        STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(AbstractResponseFuture.class, "state");
+        WAITERS_UPDATER = AtomicReferenceFieldUpdater.newUpdater(AbstractResponseFuture.class, WaitNode.class,
+            "waiters");
     }
 
-    private void incWaiters() {
-        if (waiters == Short.MAX_VALUE) {
-            throw new IllegalStateException("too many waiters: " + this);
+    /**
+     * 未完成
+     */
+    private static final int  NEW        = 0;
+
+    /**
+     * 已占用完成权，正在写入结果
+     */
+    private static final int  COMPLETING = 1;
+
+    /**
+     * 已完成，终态
+     */
+    private static final int  COMPLETED  = 2;
+
+    /**
+     * 完成状态：NEW -> COMPLETING -> COMPLETED，只会前进不会回退
+     */
+    private volatile int      state;
+
+    /**
+     * 等待线程栈（Treiber stack）
+     */
+    private volatile WaitNode waiters;
+
+    /**
+     * 等待节点
+     */
+    private static final class WaitNode {
+        volatile Thread   thread = Thread.currentThread();
+        volatile WaitNode next;
+    }
+
+    /**
+     * 尝试占用完成权，只允许一次
+     *
+     * @return 是否成功占用
+     */
+    private boolean tryComplete() {
+        return state == NEW && STATE_UPDATER.compareAndSet(this, NEW, COMPLETING);
+    }
+
+    /**
+     * 结果写入后进入终态并唤醒全部等待线程
+     */
+    private void finishCompletion() {
+        state = COMPLETED;
+        releaseWaiters();
+    }
+
+    /**
+     * 唤醒全部等待线程
+     */
+    private void releaseWaiters() {
+        for (WaitNode q; (q = waiters) != null;) {
+            if (WAITERS_UPDATER.compareAndSet(this, q, null)) {
+                for (;;) {
+                    Thread t = q.thread;
+                    if (t != null) {
+                        q.thread = null;
+                        LockSupport.unpark(t);
+                    }
+                    WaitNode next = q.next;
+                    if (next == null) {
+                        break;
+                    }
+                    q.next = null;
+                    q = next;
+                }
+                break;
+            }
         }
-        waiters++;
     }
 
-    private void decWaiters() {
-        waiters--;
+    /**
+     * 超时或者中断后移除等待节点，避免反复超时等待导致节点堆积
+     *
+     * @param node 等待节点
+     */
+    private void removeWaiter(WaitNode node) {
+        node.thread = null;
+        retry: for (;;) {
+            for (WaitNode pred = null, q = waiters, s; q != null; q = s) {
+                s = q.next;
+                if (q.thread != null) {
+                    pred = q;
+                } else if (pred != null) {
+                    pred.next = s;
+                    if (pred.thread == null) {
+                        continue retry;
+                    }
+                } else if (!WAITERS_UPDATER.compareAndSet(this, q, s)) {
+                    continue retry;
+                }
+            }
+            break;
+        }
     }
 
     @Override
@@ -191,19 +285,12 @@ public abstract class AbstractResponseFuture<V> implements ResponseFuture<V> {
     }
 
     private boolean cancle0(boolean mayInterruptIfRunning) {
-        if (isDone()) {
+        if (!tryComplete()) {
             return false;
         }
-        synchronized (this) {
-            if (isDone()) {
-                return false;
-            }
-            this.cause = CANCELLATION_CAUSE;
-            this.setDoneTime();
-            if (hasWaiters()) {
-                notifyAll();
-            }
-        }
+        this.cause = CANCELLATION_CAUSE;
+        this.setDoneTime();
+        finishCompletion();
         return true;
     }
 
@@ -224,22 +311,15 @@ public abstract class AbstractResponseFuture<V> implements ResponseFuture<V> {
     }
 
     protected boolean setSuccess0(V result) {
-        if (isDone()) {
+        // Allow only once.
+        if (!tryComplete()) {
             return false;
         }
-        synchronized (this) {
-            // Allow only once.
-            if (isDone()) {
-                return false;
-            }
-            if (this.result == null) {
-                this.result = result;
-            }
-            this.setDoneTime();
-            if (hasWaiters()) {
-                notifyAll();
-            }
+        if (this.result == null) {
+            this.result = result;
         }
+        this.setDoneTime();
+        finishCompletion();
         return true;
     }
 
@@ -261,19 +341,12 @@ public abstract class AbstractResponseFuture<V> implements ResponseFuture<V> {
     }
 
     private boolean setFailure0(Throwable cause) {
-        if (isDone()) {
+        if (!tryComplete()) {
             return false;
         }
-        synchronized (this) {
-            if (isDone()) {
-                return false;
-            }
-            this.cause = cause;
-            this.setDoneTime();
-            if (hasWaiters()) {
-                notifyAll();
-            }
-        }
+        this.cause = cause;
+        this.setDoneTime();
+        finishCompletion();
         return true;
     }
 
@@ -284,7 +357,7 @@ public abstract class AbstractResponseFuture<V> implements ResponseFuture<V> {
 
     @Override
     public boolean isDone() {
-        return result != null || cause != null;
+        return state == COMPLETED;
     }
 
     /**
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.message;
+
+import com.alipay.sofa.rpc.core.exception.RpcErrorType;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
+import com.alipay.sofa.rpc.core.request.RequestBase;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiConsumer;
+
+/**
+ * 返回值为 {@link CompletableFuture} 的方法使用的回调，将异步结果转为 {@link CompletableFuture}，
+ * 调用方无需通过线程上下文获取Future。
+ */
+public class CompletableResponseCallback implements SofaResponseCallback<Object> {
+
+    /**
+     * 框架层的响应Future，过滤器在此之上组合
+     */
+    private final CompletableFuture<SofaResponse> future = new CompletableFuture<SofaResponse>();
+
+    /**
+     * 得到框架层的响应Future
+     *
+     * @return 响应Future
+     */
+    public CompletableFuture<SofaResponse> getFuture() {
+        return future;
+    }
+
+    @Override
+    public void onAppResponse(Object appResponse, String methodName, RequestBase request) {
+        SofaResponse response = new SofaResponse();
+        response.setAppResponse(appResponse);
+        future.complete(response);
+    }
+
+    @Override
+    public void onAppException(Throwable throwable, String methodName, RequestBase request) {
+        // 与同步调用一致，业务异常放在appResponse中
+        SofaResponse response = new SofaResponse();
+        response.setAppResponse(throwable);
+        future.complete(response);
+    }
+
+    @Override
+    public void onSofaException(SofaRpcException sofaException, String methodName, RequestBase request) {
+        future.completeExceptionally(sofaException);
+    }
+
+    /**
+     * 方法返回值是否为 CompletableFuture 或 CompletionStage
+     *
+     * @param method 接口方法
+     * @return 是否异步返回值
+     */
+    public static boolean isCompletableMethod(Method method) {
+        if (method == null) {
+            return false;
+        }
+        Class<?> returnType = method.getReturnType();
+        return returnType == CompletableFuture.class || returnType == CompletionStage.class;
+    }
+
+    /**
+     * 得到异常完成的业务层 CompletableFuture
+     *
+     * @param throwable 异常
+     * @return 业务返回值的Future
+     */
+    public static CompletableFuture<Object> failedFuture(Throwable throwable) {
+        CompletableFuture<Object> appFuture = new CompletableFuture<Object>();
+        appFuture.completeExceptionally(throwable);
+        return appFuture;
+    }
+
+    /**
+     * 将过滤器链返回的响应转为业务层的 CompletableFuture
+     *
+     * @param stage 过滤器链返回的响应
+     * @return 业务返回值的Future
+     */
+    public static CompletableFuture<Object> toAppFuture(CompletionStage<?> stage) {
+        final CompletableFuture<Object> appFuture = new CompletableFuture<Object>();
+        stage.whenComplete(new BiConsumer<Object, Throwable>() {
+            @Override
+            public void accept(Object result, Throwable throwable) {
+                if (throwable != null) {
+                    appFuture.completeExceptionally(throwable instanceof CompletionException &&
+                        throwable.getCause() != null ? throwable.getCause() : throwable);
+                } else if (result instanceof SofaResponse) {
+                    SofaResponse response = (SofaResponse) result;
+                    Object appResponse = response.getAppResponse();
+                    if (response.isError()) {
+                        appFuture.completeExceptionally(new SofaRpcException(
+                            RpcErrorType.SERVER_UNDECLARED_ERROR, response.getErrorMsg()));
+                    } else if (appResponse instanceof Throwable) {
+                        appFuture.completeExceptionally((Throwable) appResponse);
+                    } else {
+                        appFuture.complete(appResponse);
+                    }
+                } else {
+                    // 例如mock返回的业务Future
+                    appFuture.complete(result);
+                }
+            }
+        });
+        return appFuture;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.proxy;
+
+import com.alipay.sofa.rpc.common.utils.ClassTypeUtils;
+import com.alipay.sofa.rpc.common.utils.CodecUtils;
+import com.alipay.sofa.rpc.core.exception.RpcErrorType;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.invoke.Invoker;
+
+import java.lang.reflect.Method;
+
+/**
+ * 代理方法的描述，在生成代理类时按方法预先计算好，调用时直接构建请求，
+ * 不再每次获取参数类型、转换参数签名
+ */
+public final class ProxyMethod {
+
+    /**
+     * 接口名
+     */
+    private final String   interfaceName;
+
+    /**
+     * 方法
+     */
+    private final Method   method;
+
+    /**
+     * 方法名
+     */
+    private final String   methodName;
+
+    /**
+     * 参数签名，所有请求共用，不能修改
+     */
+    private final String[] methodArgSigs;
+
+    /**
+     * 构造函数
+     *
+     * @param interfaceClass 接口类
+     * @param method         方法
+     */
+    public ProxyMethod(Class<?> interfaceClass, Method method) {
+        this.interfaceName = interfaceClass.getName();
+        this.method = method;
+        this.methodName = method.getName();
+        this.methodArgSigs = ClassTypeUtils.getTypeStrs(method.getParameterTypes(), true);
+    }
+
+    /**
+     * 按方法顺序构建描述，下标即方法编号
+     *
+     * @param interfaceClass 接口类
+     * @param methods        方法列表
+     * @return 方法描述
+     */
+    public static ProxyMethod[] build(Class<?> interfaceClass, Method[] methods) {
+        ProxyMethod[] proxyMethods = new ProxyMethod[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            proxyMethods[i] = new ProxyMethod(interfaceClass, methods[i]);
+        }
+        return proxyMethods;
+    }
+
+    /**
+     * 构建无参方法的请求
+     *
+     * @return 远程调用请求
+     */
+    public SofaRequest buildRequest() {
+        return buildRequest(CodecUtils.EMPTY_OBJECT_ARRAY);
+    }
+
+    /**
+     * 构建请求
+     *
+     * @param args 方法参数值
+     * @return 远程调用请求
+     */
+    public SofaRequest buildRequest(Object[] args) {
+        SofaRequest request = new SofaRequest();
+        request.setInterfaceName(interfaceName);
+        request.setMethodName(methodName);
+        request.setMethod(method);
+        request.setMethodArgs(args == null ? CodecUtils.EMPTY_OBJECT_ARRAY : args);
+        request.setMethodArgSigs(methodArgSigs);
+        return request;
+    }
+
+    /**
+     * 发起调用并解析结果
+     *
+     * @param proxyInvoker 代理调用器
+     * @param request      请求
+     * @return 业务返回值
+     * @throws Throwable 业务异常或者RPC异常
+     */
+    public static Object invoke(Invoker proxyInvoker, SofaRequest request) throws Throwable {
+        SofaResponse response = proxyInvoker.invoke(request);
+        if (response.isError()) {
+            throw new SofaRpcException(RpcErrorType.SERVER_UNDECLARED_ERROR, response.getErrorMsg());
+        }
+        Object ret = response.getAppResponse();
+        if (ret instanceof Throwable) {
+            throw (Throwable) ret;
+        }
+        return ret;
+    }
+
+    /**
+     * Gets method.
+     *
+     * @return the method
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Gets method arg sigs.
+     *
+     * @return the method arg sigs
+     */
+    public String[] getMethodArgSigs() {
+        return methodArgSigs;
+    }
+}
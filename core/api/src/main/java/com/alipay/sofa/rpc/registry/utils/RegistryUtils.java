@@ -18,8 +18,9 @@ package com.alipay.sofa.rpc.registry.utils;
 
 import com.alipay.sofa.rpc.client.ProviderInfo;
 import com.alipay.sofa.rpc.client.ProviderInfoAttrs;
-import com.alipay.sofa.rpc.client.ProviderStatus;
+import com.alipay.sofa.rpc.common.RpcConfigs;
 import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.RpcOptions;
 import com.alipay.sofa.rpc.common.SystemInfo;
 import com.alipay.sofa.rpc.common.Version;
 import com.alipay.sofa.rpc.common.utils.CommonUtils;
@@ -110,6 +111,10 @@ public class RegistryUtils {
         metaData.put(RpcConstants.CONFIG_KEY_APP_NAME, providerConfig.getAppName());
         metaData.put(RpcConstants.CONFIG_KEY_SERIALIZATION, providerConfig.getSerialization());
         metaData.put(RpcConstants.CONFIG_KEY_PROTOCOL, server.getProtocol());
+        String zone = RpcConfigs.getOrDefaultValue(RpcOptions.SYSTEM_ZONE, StringUtils.EMPTY);
+        if (StringUtils.isNotBlank(zone)) {
+            metaData.put(ProviderInfoAttrs.ATTR_ZONE, zone);
+        }
         if (null != providerConfig.getParameters()) {
             //noinspection unchecked
             metaData.putAll(providerConfig.getParameters());
@@ -225,12 +230,9 @@ public class RegistryUtils {
             int warmupWeight = CommonUtils.parseInt(warmupWeightStr,
                 Integer.parseInt(providerInfo.getStaticAttr(ProviderInfoAttrs.ATTR_WEIGHT)));
             long startTime = CommonUtils.parseLong(startTimeStr, 0);
-            long warmupEndTime = startTime + warmupTime;
 
             // set for dynamic
-            providerInfo.setDynamicAttr(ProviderInfoAttrs.ATTR_WARMUP_WEIGHT, warmupWeight);
-            providerInfo.setDynamicAttr(ProviderInfoAttrs.ATTR_WARM_UP_END_TIME, warmupEndTime);
-            providerInfo.setStatus(ProviderStatus.WARMING_UP);
+            providerInfo.startWarmUp(startTime, warmupTime, warmupWeight);
         }
 
         // remove from static
@@ -16,11 +16,19 @@
  */
 package com.alipay.sofa.rpc.server;
 
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.common.struct.NamedThreadFactory;
+import com.alipay.sofa.rpc.common.struct.VirtualThreadFactory;
 import com.alipay.sofa.rpc.config.ServerConfig;
+import com.alipay.sofa.rpc.log.Logger;
+import com.alipay.sofa.rpc.log.LoggerFactory;
 
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -31,7 +39,35 @@ import java.util.concurrent.TimeUnit;
  */
 public class BusinessPool {
 
+    /**
+     * slf4j Logger for this class
+     */
+    private final static Logger LOGGER = LoggerFactory.getLogger(BusinessPool.class);
+
+    /**
+     * 初始化业务线程池，并设置线程工厂
+     *
+     * @param serverConfig 服务端配置
+     * @param threadPrefix 线程名前缀
+     * @return 业务线程池
+     */
+    public static ThreadPoolExecutor initPool(ServerConfig serverConfig, String threadPrefix) {
+        ThreadPoolExecutor threadPool = initPool(serverConfig);
+        if (isVirtual(threadPool)) {
+            threadPool.setThreadFactory(new VirtualThreadFactory(threadPrefix));
+        } else {
+            threadPool.setThreadFactory(new NamedThreadFactory(threadPrefix, serverConfig.isDaemon()));
+        }
+        return threadPool;
+    }
+
     public static ThreadPoolExecutor initPool(ServerConfig serverConfig) {
+        if (useVirtualThread(serverConfig)) {
+            // 虚拟线程无需池化，每个请求由新的虚拟线程处理，最大并发数作为保护
+            int maxVirtualSize = RpcConfigs.getIntValue(RpcOptions.SERVER_POOL_VIRTUAL_MAX);
+            return new ThreadPoolExecutor(0, maxVirtualSize, 0, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<Runnable>(), new VirtualThreadFactory("SEV-BIZ"));
+        }
         int minPoolSize = serverConfig.getCoreThreads();
         int maxPoolSize = serverConfig.getMaxThreads();
         int queueSize = serverConfig.getQueues();
@@ -43,4 +79,28 @@ public class BusinessPool {
         return new ThreadPoolExecutor(minPoolSize, maxPoolSize, aliveTime, TimeUnit.MILLISECONDS, poolQueue);
     }
 
+    /**
+     * 是否使用虚拟线程作为业务线程，JDK不支持时降级为普通线程池
+     *
+     * @param serverConfig 服务端配置
+     * @return 是否使用虚拟线程
+     */
+    static boolean useVirtualThread(ServerConfig serverConfig) {
+        if (!RpcConstants.THREADPOOL_TYPE_VIRTUAL.equals(serverConfig.getThreadPoolType())) {
+            return false;
+        }
+        if (!VirtualThreadFactory.isSupported()) {
+            if (LOGGER.isWarnEnabled()) {
+                LOGGER.warn("Virtual thread is not supported by current JDK {}, "
+                    + "fall back to platform thread pool.", System.getProperty("java.version"));
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isVirtual(ThreadPoolExecutor threadPool) {
+        return threadPool.getThreadFactory() instanceof VirtualThreadFactory;
+    }
+
 }
@@ -98,6 +98,15 @@ public abstract class ClientTransport {
      */
     public abstract int currentRequests();
 
+    /**
+     * 衰减后的平均响应时间（毫秒），供负载均衡参考
+     *
+     * @return 平均响应时间，不支持统计时返回-1
+     */
+    public double decayedResponseTime() {
+        return -1;
+    }
+
     /**
      * 异步调用
      *
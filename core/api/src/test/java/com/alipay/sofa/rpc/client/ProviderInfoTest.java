@@ -74,6 +74,34 @@ public class ProviderInfoTest {
         Assert.assertTrue(provider.getDynamicAttr(ProviderInfoAttrs.ATTR_WARM_UP_END_TIME) == null);
     }
 
+    @Test
+    public void testWarmUpRamp() throws Exception {
+        Assert.assertEquals(100, ProviderInfo.calculateWarmUpWeight(100, 200, 0, 1000, 1d));
+        Assert.assertEquals(150, ProviderInfo.calculateWarmUpWeight(100, 200, 500, 1000, 1d));
+        Assert.assertEquals(125, ProviderInfo.calculateWarmUpWeight(100, 200, 500, 1000, 2d));
+        Assert.assertEquals(200, ProviderInfo.calculateWarmUpWeight(100, 200, 1000, 1000, 1d));
+        Assert.assertEquals(1, ProviderInfo.calculateWarmUpWeight(0, 200, 1, 1000, 1d));
+        Assert.assertEquals(200, ProviderInfo.calculateWarmUpWeight(0, 200, 0, 0, 1d));
+
+        long now = System.currentTimeMillis();
+        ProviderInfo provider = new ProviderInfo().setWeight(200);
+        provider.startWarmUp(now, 50, 10);
+        Assert.assertEquals(ProviderStatus.WARMING_UP, provider.getStatus());
+        Assert.assertEquals(10, provider.getWeight());
+        Assert.assertEquals(now + 50, provider.getDynamicAttr(ProviderInfoAttrs.ATTR_WARM_UP_END_TIME));
+
+        Thread.sleep(60);
+        Assert.assertEquals(200, provider.getWeight());
+        Assert.assertEquals(ProviderStatus.AVAILABLE, provider.getStatus());
+        Assert.assertNull(provider.getDynamicAttr(ProviderInfoAttrs.ATTR_WARM_UP_END_TIME));
+
+        // 预热开始时间较早时，按已预热的比例计算权重
+        provider = new ProviderInfo().setWeight(200);
+        provider.startWarmUp(System.currentTimeMillis() - 5000, 10000, 100);
+        int weight = provider.getWeight();
+        Assert.assertTrue(weight >= 150 && weight < 200);
+    }
+
     @Test
     public void testEquals() throws Exception {
 
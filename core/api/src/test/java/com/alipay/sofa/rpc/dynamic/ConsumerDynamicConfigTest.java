@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.dynamic;
+
+import com.alipay.sofa.rpc.auth.AuthRuleGroup;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ */
+public class ConsumerDynamicConfigTest {
+
+    private static final String INTERFACE = "com.alipay.test.HelloService";
+
+    private static final String SERVICE   = INTERFACE + ":uid";
+
+    @Test
+    public void testPushed() {
+        TestDynamicConfigManager manager = new TestDynamicConfigManager(true);
+        manager.put(DynamicConfigKeyHelper.buildConsumerMethodProKey(INTERFACE, "sayHello", "timeout"), "500");
+        manager.put(DynamicConfigKeyHelper.buildConsumerServiceProKey(SERVICE, "loadBalancer"), "roundRobin");
+
+        ConsumerDynamicConfig config = new ConsumerDynamicConfig(manager, INTERFACE, SERVICE);
+        Assert.assertEquals(Integer.valueOf(500), config.getMethodConfig("sayHello").getTimeout());
+        Assert.assertNull(config.getMethodConfig("sayHello").getRetries());
+        Assert.assertSame(DynamicMethodConfig.EMPTY, config.getMethodConfig("other"));
+        Assert.assertEquals("roundRobin", config.getLoadBalancer());
+
+        // 读取不再访问配置中心
+        int lookups = manager.lookups.get();
+        for (int i = 0; i < 100; i++) {
+            config.getMethodConfig("sayHello");
+            config.getLoadBalancer();
+        }
+        Assert.assertEquals(lookups, manager.lookups.get());
+
+        // 推送后整体替换
+        manager.put(DynamicConfigKeyHelper.buildConsumerMethodProKey(INTERFACE, "sayHello", "timeout"), "800");
+        manager.put(DynamicConfigKeyHelper.buildConsumerMethodProKey(INTERFACE, "sayHello", "retries"), "2");
+        manager.remove(DynamicConfigKeyHelper.buildConsumerServiceProKey(SERVICE, "loadBalancer"));
+        Assert.assertEquals(Integer.valueOf(500), config.getMethodConfig("sayHello").getTimeout());
+        manager.fire(INTERFACE);
+        Assert.assertEquals(Integer.valueOf(800), config.getMethodConfig("sayHello").getTimeout());
+        Assert.assertEquals(Integer.valueOf(2), config.getMethodConfig("sayHello").getRetries());
+        Assert.assertNull(config.getLoadBalancer());
+
+        config.destroy();
+        Assert.assertTrue(manager.listeners.isEmpty());
+    }
+
+    @Test
+    public void testNotPushed() throws Exception {
+        TestDynamicConfigManager manager = new TestDynamicConfigManager(false);
+        manager.put(DynamicConfigKeyHelper.buildConsumerMethodProKey(INTERFACE, "sayHello", "timeout"), "500");
+        ConsumerDynamicConfig config = new ConsumerDynamicConfig(manager, INTERFACE, INTERFACE);
+        Assert.assertEquals(Integer.valueOf(500), config.getMethodConfig("sayHello").getTimeout());
+
+        manager.put(DynamicConfigKeyHelper.buildConsumerMethodProKey(INTERFACE, "sayHello", "timeout"), "abc");
+        Thread.sleep(ConsumerDynamicConfig.REFRESH_INTERVAL + 100);
+        // 非法的值忽略
+        Assert.assertNull(config.getMethodConfig("sayHello").getTimeout());
+        config.destroy();
+    }
+
+    @Test
+    public void testRefreshNotOnInvokeThread() throws Exception {
+        TestDynamicConfigManager manager = new TestDynamicConfigManager(false);
+        manager.put(DynamicConfigKeyHelper.buildConsumerMethodProKey(INTERFACE, "sayHello", "timeout"), "500");
+        final ConsumerDynamicConfig config = new ConsumerDynamicConfig(manager, INTERFACE, INTERFACE);
+        config.getMethodConfig("sayHello");
+        Thread.sleep(ConsumerDynamicConfig.REFRESH_INTERVAL + 100);
+        config.destroy();
+
+        // 定时任务停止后，调用线程不读配置中心
+        int lookups = manager.lookups.get();
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < 100; j++) {
+                        config.getMethodConfig("sayHello");
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(3000);
+        }
+        Assert.assertEquals(lookups, manager.lookups.get());
+
+        // 销毁后不再刷新
+        manager.put(DynamicConfigKeyHelper.buildConsumerMethodProKey(INTERFACE, "sayHello", "timeout"), "800");
+        Thread.sleep(ConsumerDynamicConfig.REFRESH_INTERVAL + 100);
+        Assert.assertEquals(Integer.valueOf(500), config.getMethodConfig("sayHello").getTimeout());
+        Assert.assertEquals(lookups, manager.lookups.get());
+    }
+
+    private static class TestDynamicConfigManager extends DynamicConfigManager {
+
+        private final boolean                            push;
+
+        private final Map<String, String>                values    = new ConcurrentHashMap<String, String>();
+
+        private final Map<String, DynamicConfigListener> listeners = new ConcurrentHashMap<String, DynamicConfigListener>();
+
+        private final AtomicInteger                      lookups   = new AtomicInteger();
+
+        TestDynamicConfigManager(boolean push) {
+            super("test");
+            this.push = push;
+        }
+
+        void put(String key, String value) {
+            values.put(key, value);
+        }
+
+        void remove(String key) {
+            values.remove(key);
+        }
+
+        void fire(String service) {
+            listeners.get(service).configChanged(service);
+        }
+
+        private String get(String key) {
+            lookups.incrementAndGet();
+            String value = values.get(key);
+            return value == null ? DynamicHelper.DEFAULT_DYNAMIC_VALUE : value;
+        }
+
+        @Override
+        public void initServiceConfiguration(String service) {
+        }
+
+        @Override
+        public String getProviderServiceProperty(String service, String key) {
+            return get(DynamicConfigKeyHelper.buildProviderServiceProKey(service, key));
+        }
+
+        @Override
+        public String getConsumerServiceProperty(String service, String key) {
+            return get(DynamicConfigKeyHelper.buildConsumerServiceProKey(service, key));
+        }
+
+        @Override
+        public String getProviderMethodProperty(String service, String method, String key) {
+            return get(DynamicConfigKeyHelper.buildProviderMethodProKey(service, method, key));
+        }
+
+        @Override
+        public String getConsumerMethodProperty(String service, String method, String key) {
+            return get(DynamicConfigKeyHelper.buildConsumerMethodProKey(service, method, key));
+        }
+
+        @Override
+        public AuthRuleGroup getServiceAuthRule(String service) {
+            return null;
+        }
+
+        @Override
+        public boolean addListener(String service, DynamicConfigListener listener) {
+            if (push) {
+                listeners.put(service, listener);
+            }
+            return push;
+        }
+
+        @Override
+        public void removeListener(String service, DynamicConfigListener listener) {
+            listeners.remove(service);
+        }
+    }
+}
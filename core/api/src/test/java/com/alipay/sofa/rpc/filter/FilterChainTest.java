@@ -26,6 +26,9 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
 
 /**
  *
@@ -74,4 +77,58 @@ public class FilterChainTest {
         result = (String) response.getAppResponse();
         Assert.assertEquals("xxx_q0_q7_q2_q4_q0_q6_q7_a4_a2_a7_a0", result);
     }
+
+    @Test
+    public void invokeAsync() throws Exception {
+        ConsumerConfig consumerConfig = new ConsumerConfig();
+        ArrayList<Filter> list = new ArrayList<Filter>();
+        list.add(new TestChainFilter2());
+        list.add(new Filter() {
+            @Override
+            public SofaResponse invoke(FilterInvoker invoker, SofaRequest request) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletionStage<SofaResponse> invokeAsync(FilterInvoker invoker, SofaRequest request) {
+                return invoker.invokeAsync(request).thenApply(new Function<SofaResponse, SofaResponse>() {
+                    @Override
+                    public SofaResponse apply(SofaResponse response) {
+                        response.setAppResponse(response.getAppResponse() + "_async");
+                        return response;
+                    }
+                });
+            }
+        });
+        consumerConfig.setFilterRef(list);
+        consumerConfig.setFilter(Arrays.asList("-*"));
+        consumerConfig.setInterfaceId(Serializer.class.getName());
+
+        final CompletableFuture<SofaResponse> remote = new CompletableFuture<SofaResponse>();
+        FilterChain consumerChain = FilterChain.buildConsumerChain(consumerConfig,
+            new FilterInvoker(consumerConfig) {
+                @Override
+                public SofaResponse invoke(SofaRequest request) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public CompletionStage<SofaResponse> invokeAsync(SofaRequest request) {
+                    return remote;
+                }
+            });
+
+        SofaRequest request = new SofaRequest();
+        request.setMethodArgs(new String[] { "xxx" });
+        request.setInvokeType("callback");
+        CompletableFuture<SofaResponse> future = consumerChain.invokeAsync(request).toCompletableFuture();
+        Assert.assertEquals("xxx_q2", request.getMethodArgs()[0]);
+        Assert.assertFalse(future.isDone());
+
+        SofaResponse response = new SofaResponse();
+        response.setAppResponse("xxx");
+        remote.complete(response);
+        Assert.assertTrue(future.isDone());
+        Assert.assertEquals("xxx_async", future.get().getAppResponse());
+    }
 }
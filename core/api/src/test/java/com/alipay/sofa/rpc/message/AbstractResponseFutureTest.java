@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.message;
+
+import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ */
+public class AbstractResponseFutureTest {
+
+    @Test
+    public void testWaitersReleased() throws Exception {
+        final TestFuture future = new TestFuture(5000);
+        int threads = 20;
+        final CountDownLatch started = new CountDownLatch(threads);
+        final CountDownLatch finished = new CountDownLatch(threads);
+        final AtomicInteger success = new AtomicInteger();
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        if ("ok".equals(future.get())) {
+                            success.incrementAndGet();
+                        }
+                    } catch (Exception ignore) { // NOPMD
+                    } finally {
+                        finished.countDown();
+                    }
+                }
+            }).start();
+        }
+        started.await();
+        Thread.sleep(50);
+        future.setSuccess("ok");
+        Assert.assertTrue(finished.await(3000, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(threads, success.get());
+        Assert.assertEquals(1, future.notified.get());
+
+        try {
+            future.setSuccess("again");
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Assert.assertEquals("ok", future.get());
+    }
+
+    @Test
+    public void testTimeoutAndFailure() throws Exception {
+        TestFuture future = new TestFuture(100);
+        for (int i = 0; i < 3; i++) {
+            try {
+                future.get(20, TimeUnit.MILLISECONDS);
+                Assert.fail();
+            } catch (TimeoutException e) {
+                // expected
+            }
+        }
+        Assert.assertFalse(future.isDone());
+
+        future.setFailure(new RuntimeException("xx"));
+        Assert.assertTrue(future.isDone());
+        try {
+            future.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertEquals("xx", e.getCause().getMessage());
+        }
+        Assert.assertFalse(future.cancel(true));
+    }
+
+    @Test
+    public void testInterrupt() throws Exception {
+        TestFuture future = new TestFuture(3000);
+        Thread.currentThread().interrupt();
+        try {
+            future.get();
+            Assert.fail();
+        } catch (InterruptedException e) {
+            // expected
+        }
+
+        final Thread waiter = Thread.currentThread();
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ignore) { // NOPMD
+                }
+                waiter.interrupt();
+            }
+        }).start();
+        try {
+            future.get();
+            Assert.fail();
+        } catch (InterruptedException e) {
+            // expected
+        }
+        Assert.assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void testNullResult() throws Exception {
+        TestFuture future = new TestFuture(3000);
+        future.setSuccess(null);
+        // 空结果同样是终态，不会被再次完成
+        Assert.assertTrue(future.isDone());
+        Assert.assertNull(future.get(10, TimeUnit.MILLISECONDS));
+        try {
+            future.setSuccess("again");
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Assert.assertNull(future.get());
+        Assert.assertEquals(1, future.notified.get());
+        Assert.assertFalse(future.cancel(true));
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        TestFuture future = new TestFuture(3000);
+        Assert.assertTrue(future.cancel(true));
+        Assert.assertTrue(future.isCancelled());
+        Assert.assertTrue(future.isDone());
+        Assert.assertFalse(future.cancel(true));
+    }
+
+    private static class TestFuture extends AbstractResponseFuture<Object> {
+
+        private final AtomicInteger notified = new AtomicInteger();
+
+        TestFuture(int timeout) {
+            super(timeout);
+            setSentTime();
+        }
+
+        @Override
+        protected Object getNow() throws ExecutionException {
+            if (cause != null) {
+                throw new ExecutionException(cause);
+            }
+            return result;
+        }
+
+        @Override
+        protected void releaseIfNeed(Object result) {
+        }
+
+        @Override
+        public void notifyListeners() {
+            notified.incrementAndGet();
+        }
+
+        @Override
+        public ResponseFuture addListeners(List<SofaResponseCallback> sofaResponseCallbacks) {
+            return this;
+        }
+
+        @Override
+        public ResponseFuture addListener(SofaResponseCallback sofaResponseCallback) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.message;
+
+import com.alipay.sofa.rpc.core.exception.RpcErrorType;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ *
+ */
+public class CompletableResponseCallbackTest {
+
+    @Test
+    public void testIsCompletableMethod() throws Exception {
+        Assert.assertTrue(CompletableResponseCallback.isCompletableMethod(
+            AsyncService.class.getMethod("future")));
+        Assert.assertTrue(CompletableResponseCallback.isCompletableMethod(
+            AsyncService.class.getMethod("stage")));
+        Assert.assertFalse(CompletableResponseCallback.isCompletableMethod(
+            AsyncService.class.getMethod("sync")));
+        Assert.assertFalse(CompletableResponseCallback.isCompletableMethod(null));
+    }
+
+    @Test
+    public void testAppResponse() throws Exception {
+        CompletableResponseCallback callback = new CompletableResponseCallback();
+        CompletableFuture<Object> future = CompletableResponseCallback.toAppFuture(callback.getFuture());
+        Assert.assertFalse(future.isDone());
+        callback.onAppResponse("ok", "future", null);
+        Assert.assertEquals("ok", future.get());
+    }
+
+    @Test
+    public void testAppException() throws Exception {
+        CompletableResponseCallback callback = new CompletableResponseCallback();
+        CompletableFuture<Object> future = CompletableResponseCallback.toAppFuture(callback.getFuture());
+        callback.onAppException(new IllegalStateException("biz"), "future", null);
+        try {
+            future.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testSofaException() throws Exception {
+        CompletableResponseCallback callback = new CompletableResponseCallback();
+        CompletableFuture<Object> future = CompletableResponseCallback.toAppFuture(callback.getFuture()
+            .thenApply(new Function<SofaResponse, SofaResponse>() {
+                @Override
+                public SofaResponse apply(SofaResponse response) {
+                    return response;
+                }
+            }));
+        callback.onSofaException(new SofaRpcException(RpcErrorType.CLIENT_TIMEOUT, "timeout"), "future", null);
+        try {
+            future.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SofaRpcException);
+            Assert.assertEquals(RpcErrorType.CLIENT_TIMEOUT, ((SofaRpcException) e.getCause()).getErrorType());
+        }
+
+        SofaResponse error = new SofaResponse();
+        error.setErrorMsg("error");
+        future = CompletableResponseCallback.toAppFuture(CompletableFuture.completedFuture(error));
+        Assert.assertTrue(future.isCompletedExceptionally());
+    }
+
+    interface AsyncService {
+
+        CompletableFuture<String> future();
+
+        CompletionStage<String> stage();
+
+        String sync();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.proxy;
+
+import com.alipay.sofa.rpc.common.utils.CodecUtils;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.invoke.Invoker;
+import com.alipay.sofa.rpc.message.MessageBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+/**
+ *
+ */
+public class ProxyMethodTest {
+
+    @Test
+    public void testBuildRequest() throws Exception {
+        Method method = TestProxyInterface.class.getMethod("echo", String.class);
+        ProxyMethod[] methods = ProxyMethod.build(TestProxyInterface.class, new Method[] { method });
+        Assert.assertEquals(1, methods.length);
+        Assert.assertEquals(method, methods[0].getMethod());
+
+        SofaRequest request = methods[0].buildRequest(new Object[] { "xx" });
+        SofaRequest expect = MessageBuilder.buildSofaRequest(TestProxyInterface.class, method,
+            method.getParameterTypes(), new Object[] { "xx" });
+        Assert.assertEquals(expect.getInterfaceName(), request.getInterfaceName());
+        Assert.assertEquals(expect.getMethodName(), request.getMethodName());
+        Assert.assertEquals(expect.getMethod(), request.getMethod());
+        Assert.assertArrayEquals(expect.getMethodArgSigs(), request.getMethodArgSigs());
+        Assert.assertArrayEquals(expect.getMethodArgs(), request.getMethodArgs());
+
+        // 参数签名在请求间共用
+        Assert.assertSame(request.getMethodArgSigs(), methods[0].buildRequest(new Object[] { "yy" })
+            .getMethodArgSigs());
+
+        Method hashCode = Object.class.getMethod("hashCode");
+        SofaRequest empty = new ProxyMethod(Object.class, hashCode).buildRequest();
+        Assert.assertSame(CodecUtils.EMPTY_OBJECT_ARRAY, empty.getMethodArgs());
+        Assert.assertEquals(0, empty.getMethodArgSigs().length);
+    }
+
+    @Test
+    public void testInvoke() throws Throwable {
+        SofaRequest request = new SofaRequest();
+
+        final SofaResponse response = new SofaResponse();
+        Invoker invoker = new Invoker() {
+            @Override
+            public SofaResponse invoke(SofaRequest request) throws SofaRpcException {
+                return response;
+            }
+        };
+        response.setAppResponse("ok");
+        Assert.assertEquals("ok", ProxyMethod.invoke(invoker, request));
+
+        response.setAppResponse(new IllegalStateException("biz"));
+        try {
+            ProxyMethod.invoke(invoker, request);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("biz", e.getMessage());
+        }
+
+        response.setErrorMsg("error");
+        try {
+            ProxyMethod.invoke(invoker, request);
+            Assert.fail();
+        } catch (SofaRpcException e) {
+            Assert.assertEquals("error", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.server;
+
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.struct.NamedThreadFactory;
+import com.alipay.sofa.rpc.common.struct.VirtualThreadFactory;
+import com.alipay.sofa.rpc.config.ServerConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ *
+ */
+public class BusinessPoolTest {
+
+    @Test
+    public void testPlatformPool() {
+        ServerConfig serverConfig = new ServerConfig().setCoreThreads(5).setMaxThreads(10).setQueues(0);
+        ThreadPoolExecutor threadPool = BusinessPool.initPool(serverConfig, "SEV-TEST-BIZ");
+        try {
+            Assert.assertEquals(5, threadPool.getCorePoolSize());
+            Assert.assertEquals(10, threadPool.getMaximumPoolSize());
+            Assert.assertTrue(threadPool.getQueue() instanceof SynchronousQueue);
+            Assert.assertTrue(threadPool.getThreadFactory() instanceof NamedThreadFactory);
+        } finally {
+            threadPool.shutdown();
+        }
+    }
+
+    @Test
+    public void testVirtualPool() throws Exception {
+        ServerConfig serverConfig = new ServerConfig().setCoreThreads(5).setMaxThreads(10)
+            .setThreadPoolType(RpcConstants.THREADPOOL_TYPE_VIRTUAL);
+        ThreadPoolExecutor threadPool = BusinessPool.initPool(serverConfig, "SEV-TEST-BIZ");
+        try {
+            if (VirtualThreadFactory.isSupported()) {
+                Assert.assertEquals(0, threadPool.getCorePoolSize());
+                Assert.assertEquals(10000, threadPool.getMaximumPoolSize());
+                Assert.assertTrue(threadPool.getThreadFactory() instanceof VirtualThreadFactory);
+            } else {
+                // 不支持虚拟线程时降级为普通线程池
+                Assert.assertEquals(5, threadPool.getCorePoolSize());
+                Assert.assertTrue(threadPool.getThreadFactory() instanceof NamedThreadFactory);
+            }
+            final String[] name = new String[1];
+            threadPool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    name[0] = Thread.currentThread().getName();
+                }
+            }).get();
+            Assert.assertTrue(name[0].startsWith("SOFA-SEV-TEST-BIZ"));
+        } finally {
+            threadPool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.common.struct;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * 带峰值敏感的指数加权移动平均（Peak EWMA），用于统计衰减后的响应时间。<br>
+ * 采样值大于当前值时直接取采样值（对变慢立即敏感），否则按距离上次采样的时间做指数衰减平均；
+ * 长时间没有采样时，读到的值也会逐渐衰减到0，让空闲的节点有机会重新被探测。
+ */
+@ThreadSafe
+public class PeakEwma {
+
+    /**
+     * 衰减时间窗口（纳秒）
+     */
+    private final double    decayNanos;
+
+    /**
+     * 当前平均值和采样时间，整体替换，不加锁
+     */
+    private volatile Sample sample;
+
+    /**
+     * 构造函数
+     *
+     * @param decayMillis 衰减时间窗口（毫秒），越大越平滑
+     */
+    public PeakEwma(long decayMillis) {
+        if (decayMillis <= 0) {
+            throw new IllegalArgumentException("decayMillis must be positive: " + decayMillis);
+        }
+        this.decayNanos = decayMillis * 1000000d;
+        this.sample = new Sample(0, System.nanoTime());
+    }
+
+    /**
+     * 记录一次采样
+     *
+     * @param value 采样值（毫秒）
+     */
+    public void observe(double value) {
+        long now = System.nanoTime();
+        for (;;) {
+            Sample current = sample;
+            double cost;
+            if (value > current.cost) {
+                cost = value;
+            } else {
+                double weight = weight(now - current.stamp);
+                cost = current.cost * weight + value * (1 - weight);
+            }
+            if (SAMPLE_UPDATER.compareAndSet(this, current, new Sample(cost, now))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 读取衰减后的值，不加锁
+     *
+     * @return 衰减后的值（毫秒）
+     */
+    public double get() {
+        Sample current = sample;
+        if (current.cost == 0) {
+            return 0;
+        }
+        return current.cost * weight(System.nanoTime() - current.stamp);
+    }
+
+    private double weight(long elapsedNanos) {
+        return elapsedNanos <= 0 ? 1 : Math.exp(-elapsedNanos / decayNanos);
+    }
+
+    private static final AtomicReferenceFieldUpdater<PeakEwma, Sample> SAMPLE_UPDATER;
+
+    static {
+        SAMPLE_UPDATER = AtomicReferenceFieldUpdater.newUpdater(PeakEwma.class, Sample.class, "sample");
+    }
+
+    /**
+     * 一次采样后的状态
+     */
+    private static final class Sample {
+
+        /**
+         * 平均值（毫秒）
+         */
+        private final double cost;
+
+        /**
+         * 采样时间（纳秒）
+         */
+        private final long   stamp;
+
+        Sample(double cost, long stamp) {
+            this.cost = cost;
+            this.stamp = stamp;
+        }
+    }
+}
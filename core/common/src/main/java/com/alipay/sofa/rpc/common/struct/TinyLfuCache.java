@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.common.struct;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按访问频率准入的有界缓存（W-TinyLFU 的简化实现）。<br>
+ * 新数据先进入一个很小的 LRU 窗口，被挤出窗口时和主区的 LRU 淘汰者比较最近的访问频率，频率更高的留下。
+ * 访问频率用 Count-Min Sketch 统计，计数达到一定次数后整体减半，让旧的热点逐渐冷却。
+ * 这样偶发的一次性访问不会把真正的热点挤出缓存。
+ * <p>
+ * 读不加锁：值直接从 {@link ConcurrentHashMap} 读取，访问记录先写入一个有损的环形缓冲区，
+ * 由拿到锁的线程批量更新访问频率和 LRU 顺序；写入、删除时加锁并先处理缓冲区。
+ * 并发很高时部分访问记录会被覆盖丢弃，只影响淘汰的精度。键和值都不能为null。
+ *
+ * @param <K> 键
+ * @param <V> 值
+ */
+@ThreadSafe
+public class TinyLfuCache<K, V> {
+
+    /**
+     * 访问记录缓冲区的大小，2的幂
+     */
+    private static final int                   READ_BUFFER_SIZE = 128;
+
+    private static final int                   READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+
+    /**
+     * 每记录多少次访问尝试处理一次缓冲区，2的幂
+     */
+    private static final int                   DRAIN_THRESHOLD  = 32;
+
+    /**
+     * 最大数量
+     */
+    private final int                          maximumSize;
+
+    /**
+     * 窗口区最大数量
+     */
+    private final int                          windowSize;
+
+    /**
+     * 全部数据，读取时不加锁
+     */
+    private final ConcurrentHashMap<K, V>      data;
+
+    /**
+     * 窗口区，按访问顺序排列，加锁访问
+     */
+    private final LinkedHashMap<K, V>          window;
+
+    /**
+     * 主区，按访问顺序排列，加锁访问
+     */
+    private final LinkedHashMap<K, V>          main;
+
+    /**
+     * 访问频率，加锁访问
+     */
+    private final FrequencySketch              sketch;
+
+    /**
+     * 保护窗口区、主区和访问频率
+     */
+    private final ReentrantLock                lock             = new ReentrantLock();
+
+    /**
+     * 还没处理的访问记录
+     */
+    private final AtomicReferenceArray<Object> readBuffer;
+
+    /**
+     * 写入缓冲区的访问记录数
+     */
+    private final AtomicLong                   readCount        = new AtomicLong();
+
+    /**
+     * 已经处理到的访问记录数，加锁访问
+     */
+    private long                               drainedCount;
+
+    /**
+     * 构造函数
+     *
+     * @param maximumSize 最大数量
+     */
+    public TinyLfuCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        // 窗口区占 1%，至少 1 个
+        this.windowSize = Math.max(1, maximumSize / 100);
+        this.data = new ConcurrentHashMap<K, V>();
+        this.window = new LinkedHashMap<K, V>(16, 0.75f, true);
+        this.main = new LinkedHashMap<K, V>(16, 0.75f, true);
+        this.sketch = new FrequencySketch(maximumSize);
+        this.readBuffer = new AtomicReferenceArray<Object>(READ_BUFFER_SIZE);
+    }
+
+    /**
+     * 读取并记录一次访问
+     *
+     * @param key 键
+     * @return 值，不存在返回null
+     */
+    public V get(K key) {
+        V value = data.get(key);
+        long count = readCount.getAndIncrement();
+        readBuffer.lazySet((int) count & READ_BUFFER_MASK, key);
+        if ((count & (DRAIN_THRESHOLD - 1)) == DRAIN_THRESHOLD - 1 && lock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 放入缓存，容量不足时按访问频率决定是否准入
+     *
+     * @param key   键
+     * @param value 值
+     */
+    public void put(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException();
+        }
+        lock.lock();
+        try {
+            drainReadBuffer();
+            doPut(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void doPut(K key, V value) {
+        if (main.containsKey(key)) {
+            main.put(key, value);
+            data.put(key, value);
+            return;
+        }
+        window.put(key, value);
+        data.put(key, value);
+        if (window.size() <= windowSize) {
+            return;
+        }
+        // 窗口满了，最久未访问的作为候选者进入主区
+        Iterator<Map.Entry<K, V>> it = window.entrySet().iterator();
+        Map.Entry<K, V> candidate = it.next();
+        it.remove();
+        if (main.size() < maximumSize - windowSize) {
+            main.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+        if (maximumSize == windowSize) {
+            data.remove(candidate.getKey());
+            return;
+        }
+        Iterator<Map.Entry<K, V>> mainIt = main.entrySet().iterator();
+        Map.Entry<K, V> victim = mainIt.next();
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey())) {
+            K victimKey = victim.getKey();
+            mainIt.remove();
+            data.remove(victimKey);
+            main.put(candidate.getKey(), candidate.getValue());
+        } else {
+            data.remove(candidate.getKey());
+        }
+    }
+
+    /**
+     * 删除
+     *
+     * @param key 键
+     * @return 旧值
+     */
+    public V remove(K key) {
+        lock.lock();
+        try {
+            V value = main.remove(key);
+            if (value == null) {
+                value = window.remove(key);
+            }
+            data.remove(key);
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清空，访问频率保留
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            drainReadBuffer();
+            window.clear();
+            main.clear();
+            data.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前数量
+     *
+     * @return 数量
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * 最大数量
+     *
+     * @return 最大数量
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * 处理缓冲区中的访问记录：更新访问频率和 LRU 顺序，需要持有锁
+     */
+    private void drainReadBuffer() {
+        long end = readCount.get();
+        // 超过缓冲区大小的部分已经被覆盖了
+        long start = Math.max(drainedCount, end - READ_BUFFER_SIZE);
+        for (long i = start; i < end; i++) {
+            Object key = readBuffer.getAndSet((int) i & READ_BUFFER_MASK, null);
+            if (key != null) {
+                sketch.increment(key);
+                if (main.get(key) == null) {
+                    window.get(key);
+                }
+            }
+        }
+        drainedCount = end;
+    }
+
+    /**
+     * 4 行的 Count-Min Sketch，计数上限 15，总计数达到 10 倍容量后整体减半。<br>
+     * 计数器用 byte 存储，每行最多 {@link #MAX_WIDTH} 个，容量再大也最多占用 4MB，只是精度下降
+     */
+    static final class FrequencySketch {
+
+        private static final int[] SEEDS     = { 0x97cb3127, 0xb0b8d0a9, 0x85ebca6b, 0xc2b2ae35 };
+
+        private static final int   MAX       = 15;
+
+        private static final int   MAX_WIDTH = 1 << 20;
+
+        private final byte[][]     table;
+
+        private final int          mask;
+
+        private final int          sampleSize;
+
+        private int                additions;
+
+        FrequencySketch(int maximumSize) {
+            int width = 16;
+            while (width < maximumSize && width < MAX_WIDTH) {
+                width <<= 1;
+            }
+            this.table = new byte[SEEDS.length][width];
+            this.mask = width - 1;
+            // 宽度封顶后按宽度计算，避免计数器还没减半就都到了上限
+            this.sampleSize = Math.min(maximumSize, width) * 10;
+        }
+
+        void increment(Object key) {
+            int hash = spread(key);
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int index = indexOf(hash, i);
+                if (table[i][index] < MAX) {
+                    table[i][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key);
+            int frequency = MAX;
+            for (int i = 0; i < SEEDS.length; i++) {
+                frequency = Math.min(frequency, table[i][indexOf(hash, i)]);
+            }
+            return frequency;
+        }
+
+        private void reset() {
+            for (byte[] row : table) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = (byte) (row[i] >>> 1);
+                }
+            }
+            additions >>>= 1;
+        }
+
+        private int indexOf(int hash, int i) {
+            int h = (hash + SEEDS[i]) * SEEDS[i];
+            h ^= h >>> 16;
+            return h & mask;
+        }
+
+        private static int spread(Object key) {
+            int h = key == null ? 0 : key.hashCode();
+            h ^= h >>> 16;
+            h *= 0x45d9f3b;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.common.struct;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程工厂，仅在JDK21+上可用。
+ * <p>
+ * 工程以Java 8为编译目标，这里通过反射调用 {@code Thread.ofVirtual()}，
+ * 低版本JDK上 {@link #isSupported()} 返回false。
+ */
+public class VirtualThreadFactory implements ThreadFactory {
+
+    /**
+     * Thread#ofVirtual()，不支持虚拟线程时为null
+     */
+    private static final Method OF_VIRTUAL_METHOD;
+    /**
+     * Thread.Builder#name(String, long)
+     */
+    private static final Method NAME_METHOD;
+    /**
+     * Thread.Builder#factory()
+     */
+    private static final Method FACTORY_METHOD;
+
+    static {
+        Method ofVirtualMethod = null;
+        Method nameMethod = null;
+        Method factoryMethod = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            nameMethod = builderClass.getMethod("name", String.class, long.class);
+            factoryMethod = builderClass.getMethod("factory");
+            ofVirtualMethod = Thread.class.getMethod("ofVirtual");
+            // 预览特性未开启时这里会抛出异常
+            ofVirtualMethod.invoke(null);
+        } catch (Throwable e) { // NOPMD
+            ofVirtualMethod = null;
+        }
+        OF_VIRTUAL_METHOD = ofVirtualMethod;
+        NAME_METHOD = nameMethod;
+        FACTORY_METHOD = factoryMethod;
+    }
+
+    /**
+     * 当前JDK是否支持虚拟线程
+     *
+     * @return 是否支持
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL_METHOD != null;
+    }
+
+    /**
+     * 实际的虚拟线程工厂
+     */
+    private final ThreadFactory delegate;
+
+    /**
+     * 构造函数
+     *
+     * @param secondPrefix 第二前缀，前面会自动加上SOFA-，后面会自动加上-V-
+     */
+    public VirtualThreadFactory(String secondPrefix) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual thread is not supported by current JDK: "
+                + System.getProperty("java.version"));
+        }
+        try {
+            Object builder = NAME_METHOD.invoke(OF_VIRTUAL_METHOD.invoke(null),
+                "SOFA-" + secondPrefix + "-V", 1L);
+            this.delegate = (ThreadFactory) FACTORY_METHOD.invoke(builder);
+        } catch (Exception e) {
+            throw new UnsupportedOperationException("Failed to create virtual thread factory", e);
+        }
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        return delegate.newThread(r);
+    }
+}
@@ -19,6 +19,7 @@ package com.alipay.sofa.rpc.common.utils;
 import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -62,4 +63,65 @@ public class HashUtils {
         return f & 0xFFFFFFFFL;
     }
 
+    /**
+     * MurmurHash3 (x86_32)，非加密哈希，比MD5快很多，适合一致性hash等场景
+     *
+     * @param value the value
+     * @return the hash
+     */
+    public static int murmurHash3(String value) {
+        byte[] data = value.getBytes(StandardCharsets.UTF_8);
+        return murmurHash3(data, 0, data.length, 0);
+    }
+
+    /**
+     * MurmurHash3 (x86_32)
+     *
+     * @param data   the data
+     * @param offset the offset
+     * @param length the length
+     * @param seed   the seed
+     * @return the hash
+     */
+    public static int murmurHash3(byte[] data, int offset, int length, int seed) {
+        final int c1 = 0xcc9e2d51;
+        final int c2 = 0x1b873593;
+        int h1 = seed;
+        int roundedEnd = offset + (length & 0xfffffffc);
+        for (int i = offset; i < roundedEnd; i += 4) {
+            int k1 = (data[i] & 0xff) | ((data[i + 1] & 0xff) << 8) | ((data[i + 2] & 0xff) << 16)
+                | (data[i + 3] << 24);
+            k1 *= c1;
+            k1 = Integer.rotateLeft(k1, 15);
+            k1 *= c2;
+            h1 ^= k1;
+            h1 = Integer.rotateLeft(h1, 13);
+            h1 = h1 * 5 + 0xe6546b64;
+        }
+        int k1 = 0;
+        switch (length & 0x03) {
+            case 3:
+                k1 = (data[roundedEnd + 2] & 0xff) << 16;
+                // fall through
+            case 2:
+                k1 |= (data[roundedEnd + 1] & 0xff) << 8;
+                // fall through
+            case 1:
+                k1 |= data[roundedEnd] & 0xff;
+                k1 *= c1;
+                k1 = Integer.rotateLeft(k1, 15);
+                k1 *= c2;
+                h1 ^= k1;
+                break;
+            default:
+                break;
+        }
+        h1 ^= length;
+        h1 ^= h1 >>> 16;
+        h1 *= 0x85ebca6b;
+        h1 ^= h1 >>> 13;
+        h1 *= 0xc2b2ae35;
+        h1 ^= h1 >>> 16;
+        return h1;
+    }
 }
\ No newline at end of file
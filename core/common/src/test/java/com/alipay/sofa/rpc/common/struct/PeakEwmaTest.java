@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.common.struct;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class PeakEwmaTest {
+
+    @Test
+    public void testPeakAndDecay() throws InterruptedException {
+        PeakEwma ewma = new PeakEwma(100);
+        Assert.assertEquals(0, ewma.get(), 0);
+
+        // 峰值直接生效
+        ewma.observe(50);
+        Assert.assertTrue(ewma.get() > 40);
+        ewma.observe(200);
+        Assert.assertTrue(ewma.get() > 150);
+
+        // 较小的值逐步平滑
+        Thread.sleep(50);
+        ewma.observe(10);
+        double value = ewma.get();
+        Assert.assertTrue(value > 10 && value < 200);
+
+        // 长时间没有采样衰减到接近0
+        Thread.sleep(1000);
+        Assert.assertTrue(ewma.get() < 1);
+    }
+
+    @Test
+    public void testConcurrentObserve() throws InterruptedException {
+        final PeakEwma ewma = new PeakEwma(10000);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        ewma.observe(100);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double value = ewma.get();
+        Assert.assertTrue(value > 90 && value <= 100);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalDecay() {
+        new PeakEwma(0);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.common.struct;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ *
+ */
+public class TinyLfuCacheTest {
+
+    @Test
+    public void testGetPut() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<String, String>(10);
+        Assert.assertEquals(10, cache.getMaximumSize());
+        Assert.assertNull(cache.get("a"));
+        cache.put("a", "1");
+        Assert.assertEquals("1", cache.get("a"));
+        cache.put("a", "2");
+        Assert.assertEquals("2", cache.get("a"));
+        Assert.assertEquals(1, cache.size());
+
+        Assert.assertEquals("2", cache.remove("a"));
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(0, cache.size());
+
+        cache.put("b", "1");
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+
+        boolean error = false;
+        try {
+            new TinyLfuCache<String, String>(0);
+        } catch (IllegalArgumentException e) {
+            error = true;
+        }
+        Assert.assertTrue(error);
+    }
+
+    @Test
+    public void testBounded() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<Integer, Integer>(100);
+        for (int i = 0; i < 10000; i++) {
+            cache.put(i, i);
+            Assert.assertTrue(cache.size() <= 100);
+        }
+        TinyLfuCache<Integer, Integer> one = new TinyLfuCache<Integer, Integer>(1);
+        one.put(1, 1);
+        one.put(2, 2);
+        Assert.assertEquals(1, one.size());
+    }
+
+    @Test
+    public void testFrequencyAdmission() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<Integer, Integer>(100);
+        // 热点数据
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, i);
+        }
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 50; i++) {
+                Assert.assertEquals(Integer.valueOf(i), cache.get(i));
+            }
+        }
+        // 大量一次性访问的数据不会把热点挤出去
+        for (int i = 1000; i < 1500; i++) {
+            cache.get(i);
+            cache.put(i, i);
+        }
+        int hits = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get(i) != null) {
+                hits++;
+            }
+        }
+        Assert.assertTrue("hits: " + hits, hits >= 45);
+    }
+
+    @Test
+    public void testSketch() {
+        TinyLfuCache.FrequencySketch sketch = new TinyLfuCache.FrequencySketch(16);
+        Assert.assertEquals(0, sketch.frequency("a"));
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("a");
+        }
+        Assert.assertTrue(sketch.frequency("a") >= 5);
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("a");
+        }
+        Assert.assertTrue(sketch.frequency("a") <= 15);
+        // 计数达到上限后整体减半
+        for (int i = 0; i < 200; i++) {
+            sketch.increment("k" + i);
+        }
+        Assert.assertTrue(sketch.frequency("a") < 15);
+    }
+
+    @Test
+    public void testSketchCapped() {
+        // 容量很大时计数器数量封顶，不会按容量分配
+        TinyLfuCache.FrequencySketch sketch = new TinyLfuCache.FrequencySketch(Integer.MAX_VALUE);
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("a");
+        }
+        Assert.assertTrue(sketch.frequency("a") >= 5);
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<Integer, Integer>(100);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int seed = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 20000; i++) {
+                            int key = (i * 31 + seed) % 300;
+                            Integer value = cache.get(key);
+                            if (value == null) {
+                                cache.put(key, key);
+                            } else if (value != key) {
+                                throw new IllegalStateException(key + " != " + value);
+                            }
+                            if (i % 1000 == 0) {
+                                cache.remove(key);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        error.set(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+        Assert.assertNull(error.get());
+        Assert.assertTrue(cache.size() <= 100);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.common.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class HashUtilsTest {
+
+    @Test
+    public void testMurmurHash3() {
+        Assert.assertEquals(0, HashUtils.murmurHash3(""));
+        Assert.assertEquals(0x248bfa47, HashUtils.murmurHash3("hello"));
+        Assert.assertEquals(0x2e4ff723, HashUtils.murmurHash3("The quick brown fox jumps over the lazy dog"));
+
+        byte[] data = "xxhelloxx".getBytes();
+        Assert.assertEquals(HashUtils.murmurHash3("hello"), HashUtils.murmurHash3(data, 2, 5, 0));
+        Assert.assertTrue(HashUtils.murmurHash3(data, 2, 5, 0) != HashUtils.murmurHash3(data, 2, 5, 1));
+    }
+
+    @Test
+    public void testMessageDigest() {
+        byte[] digest = HashUtils.messageDigest("hello");
+        Assert.assertEquals(16, digest.length);
+        Assert.assertEquals(HashUtils.hash(digest, 0), HashUtils.hash(HashUtils.messageDigest("hello"), 0));
+    }
+}
@@ -21,7 +21,7 @@ import com.alipay.sofa.rpc.client.aft.InvocationStatDimension;
 import com.alipay.sofa.rpc.common.utils.CalculateUtils;
 
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * The type Abstract dimension stat.
@@ -34,13 +34,13 @@ public abstract class AbstractInvocationStat implements InvocationStat {
      */
     protected final InvocationStatDimension dimension;
     /**
-     * 调用次数
+     * 调用次数，使用分段计数避免热点节点上的 CAS 竞争
      */
-    protected final AtomicLong              invokeCount    = new AtomicLong(0L);
+    protected final LongAdder               invokeCount    = new LongAdder();
     /**
-     * 异常次数
+     * 异常次数，使用分段计数避免热点节点上的 CAS 竞争
      */
-    protected final AtomicLong              exceptionCount = new AtomicLong(0L);
+    protected final LongAdder               exceptionCount = new LongAdder();
 
     /**
      * when useless in one window, this value increment 1. <br />
@@ -74,12 +74,13 @@ public abstract class AbstractInvocationStat implements InvocationStat {
 
     @Override
     public long invoke() {
-        return invokeCount.incrementAndGet();
+        invokeCount.increment();
+        return invokeCount.sum();
     }
 
     @Override
     public long getInvokeCount() {
-        return invokeCount.get();
+        return invokeCount.sum();
     }
 
     @Override
@@ -90,25 +91,28 @@ public abstract class AbstractInvocationStat implements InvocationStat {
 
     @Override
     public long getExceptionCount() {
-        return exceptionCount.get();
+        return exceptionCount.sum();
     }
 
     /**
-     * Sets invoke count.
+     * Sets invoke count. Reset and add are not atomic as a whole, so it is only used on a new snapshot
+     * which is not visible to other threads yet, see {@link #snapshot()}.
      *
      * @param count the count
      */
     protected void setInvokeCount(long count) {
-        invokeCount.set(count);
+        invokeCount.reset();
+        invokeCount.add(count);
     }
 
     /**
-     * Sets server exception.
+     * Sets server exception. Same as {@link #setInvokeCount(long)}, only for a snapshot not shared yet.
      *
      * @param count the count
      */
     public void setExceptionCount(long count) {
-        exceptionCount.set(count);
+        exceptionCount.reset();
+        exceptionCount.add(count);
     }
 
     @Override
@@ -121,7 +125,7 @@ public abstract class AbstractInvocationStat implements InvocationStat {
 
     @Override
     public void update(InvocationStat snapshot) {
-        invokeCount.addAndGet(-snapshot.getInvokeCount());
-        exceptionCount.addAndGet(-snapshot.getExceptionCount());
+        invokeCount.add(-snapshot.getInvokeCount());
+        exceptionCount.add(-snapshot.getExceptionCount());
     }
 }
\ No newline at end of file
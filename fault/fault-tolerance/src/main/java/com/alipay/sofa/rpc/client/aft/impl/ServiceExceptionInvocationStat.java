@@ -42,9 +42,9 @@ public class ServiceExceptionInvocationStat extends AbstractInvocationStat {
             SofaRpcException exception = (SofaRpcException) t;
             if (exception.getErrorType() == RpcErrorType.CLIENT_TIMEOUT
                 || exception.getErrorType() == RpcErrorType.SERVER_BUSY) {
-                return exceptionCount.incrementAndGet();
+                exceptionCount.increment();
             }
         }
-        return exceptionCount.get();
+        return exceptionCount.sum();
     }
 }
\ No newline at end of file
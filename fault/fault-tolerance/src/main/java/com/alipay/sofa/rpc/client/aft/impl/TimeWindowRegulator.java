@@ -42,9 +42,12 @@ import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
 
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -78,12 +81,15 @@ public class TimeWindowRegulator implements Regulator {
     private final AtomicBoolean                      measureStarted     = new AtomicBoolean();
 
     /**
-     * 计算线程池
+     * 计算线程池，度量和调控都在这里按度量模型分片执行。
+     * 每个度量模型最多排队一个任务，队列满时本次跳过，调用数据累计到下一个时间窗口
      */
-    private final ExecutorService                    regulationExecutor = ThreadPoolUtils.newFixedThreadPool(2,
-                                                                            new LinkedBlockingQueue<Runnable>(16),
-                                                                            new NamedThreadFactory(
-                                                                                "AFT-REGULATION"));
+    private final ExecutorService                    regulationExecutor = newRegulationExecutor();
+
+    /**
+     * 正在度量或调控中的度量模型，同一个模型不会被并发处理
+     */
+    private final Set<MeasureModel>                  runningModels      = ConcurrentHashMap.newKeySet();
 
     /**
      * 度量模型
@@ -115,6 +121,16 @@ public class TimeWindowRegulator implements Regulator {
      */
     private final InvocationStatListener             listener           = new TimeWindowRegulatorListener();
 
+    private static ExecutorService newRegulationExecutor() {
+        int threads = RpcConfigs.getOrDefaultValue(RpcOptions.AFT_REGULATION_THREADS, 0);
+        if (threads <= 0) {
+            threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        }
+        int queueSize = RpcConfigs.getOrDefaultValue(RpcOptions.AFT_REGULATION_QUEUE_SIZE, 1024);
+        return ThreadPoolUtils.newFixedThreadPool(threads, new LinkedBlockingQueue<Runnable>(queueSize),
+            new NamedThreadFactory("AFT-REGULATION"));
+    }
+
     @Override
     public void init() {
         String measureStrategyAlias = RpcConfigs
@@ -158,6 +174,7 @@ public class TimeWindowRegulator implements Regulator {
         // remove cache resource
         InvocationStatFactory.removeListener(listener);
         measureModels.clear();
+        runningModels.clear();
         measureCounter.set(0);
 
         // release strategy
@@ -168,18 +185,31 @@ public class TimeWindowRegulator implements Regulator {
     }
 
     /**
-     * The thread which do measure
+     * The thread which dispatch measure tasks
      */
     private class MeasureRunnable implements Runnable {
 
         @Override
         public void run() {
-            measureCounter.incrementAndGet();
+            long count = measureCounter.incrementAndGet();
             for (MeasureModel measureModel : measureModels) {
                 try {
-                    if (isArriveTimeWindow(measureModel)) {
-                        MeasureResult measureResult = measureStrategy.measure(measureModel);
-                        regulationExecutor.submit(new RegulationRunnable(measureResult));
+                    // 上一个窗口还未处理完的模型本次跳过，其调用数据会累计到下一个窗口，不会丢失
+                    if (isArriveTimeWindow(measureModel, count)
+                        && runningModels.add(measureModel)) {
+                        try {
+                            regulationExecutor.execute(new MeasureTask(measureModel));
+                        } catch (RejectedExecutionException e) {
+                            // 调控跟不上，本次跳过，调用数据累计到下一个时间窗口
+                            runningModels.remove(measureModel);
+                            if (LOGGER.isDebugEnabled(measureModel.getAppName())) {
+                                LOGGER.debugWithApp(measureModel.getAppName(),
+                                    "Regulation queue is full, skip measure of " + measureModel);
+                            }
+                        } catch (RuntimeException e) {
+                            runningModels.remove(measureModel);
+                            throw e;
+                        }
                     }
                 } catch (Exception e) {
                     LOGGER.errorWithApp(measureModel.getAppName(),
@@ -188,9 +218,43 @@ public class TimeWindowRegulator implements Regulator {
             }
         }
 
-        private boolean isArriveTimeWindow(MeasureModel measureModel) {
+        private boolean isArriveTimeWindow(MeasureModel measureModel, long count) {
             long timeWindow = FaultToleranceConfigManager.getTimeWindow(measureModel.getAppName());
-            return measureCounter.get() % timeWindow == 0;
+            return count % timeWindow == 0;
+        }
+    }
+
+    /**
+     * The task which do measure and regulation of one measure model
+     */
+    private class MeasureTask implements Runnable {
+
+        private final MeasureModel measureModel;
+
+        /**
+         * Instantiates a new Measure task.
+         *
+         * @param measureModel the measure model
+         */
+        MeasureTask(MeasureModel measureModel) {
+            this.measureModel = measureModel;
+        }
+
+        @Override
+        public void run() {
+            try {
+                MeasureStrategy strategy = measureStrategy;
+                if (strategy == null) {
+                    return;
+                }
+                MeasureResult measureResult = strategy.measure(measureModel);
+                new RegulationRunnable(measureResult).run();
+            } catch (Exception e) {
+                LOGGER.errorWithApp(measureModel.getAppName(),
+                    LogCodes.getLog(LogCodes.ERROR_WHEN_DO_MEASURE, e.getMessage()), e);
+            } finally {
+                runningModels.remove(measureModel);
+            }
         }
     }
 
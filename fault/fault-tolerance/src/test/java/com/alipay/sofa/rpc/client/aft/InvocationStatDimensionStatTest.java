@@ -32,6 +32,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -111,6 +112,39 @@ public class InvocationStatDimensionStatTest extends FaultBaseServiceTest {
 
     }
 
+    @Test
+    public void testInvocationStatConcurrent() throws InterruptedException {
+        InvocationStatDimension invocation = new InvocationStatDimension(ProviderHelper.toProviderInfo("ip"),
+            consumerConfig);
+        final InvocationStat invocationStat = new ServiceExceptionInvocationStat(invocation);
+        final int threads = 8;
+        final int times = 10000;
+        final CountDownLatch latch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < times; j++) {
+                        invocationStat.invoke();
+                        if (j % 2 == 0) {
+                            invocationStat.catchException(new SofaTimeOutException(""));
+                        }
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(threads * times, invocationStat.getInvokeCount());
+        Assert.assertEquals(threads * times / 2, invocationStat.getExceptionCount());
+
+        InvocationStat snapshot = invocationStat.snapshot();
+        invocationStat.invoke();
+        invocationStat.update(snapshot);
+        Assert.assertEquals(1, invocationStat.getInvokeCount());
+        Assert.assertEquals(0, invocationStat.getExceptionCount());
+    }
+
     @Test
     public void testSync() {
 
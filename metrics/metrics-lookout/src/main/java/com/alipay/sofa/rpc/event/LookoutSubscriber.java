@@ -92,6 +92,10 @@ public class LookoutSubscriber extends Subscriber {
         else if (eventClass == ConsumerSubEvent.class) {
             ConsumerSubEvent consumerSubEvent = (ConsumerSubEvent) event;
             rpcMetrics.collectConsumerSubInfo(consumerSubEvent.getConsumerConfig());
+        } else if (eventClass == ServerAdmissionEvent.class) {
+            rpcMetrics.collectAdmission((ServerAdmissionEvent) event);
+        } else if (eventClass == ClientZoneRouteEvent.class) {
+            rpcMetrics.collectZoneRoute((ClientZoneRouteEvent) event);
         }
     }
 
@@ -21,21 +21,29 @@ import com.alipay.lookout.api.DistributionSummary;
 import com.alipay.lookout.api.Gauge;
 import com.alipay.lookout.api.Id;
 import com.alipay.lookout.api.Lookout;
+import com.alipay.lookout.api.Registry;
 import com.alipay.lookout.api.Timer;
 import com.alipay.lookout.api.composite.MixinMetric;
 import com.alipay.lookout.api.info.Info;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
+import com.alipay.sofa.rpc.config.ConfigUniqueNameGenerator;
 import com.alipay.sofa.rpc.config.ConsumerConfig;
 import com.alipay.sofa.rpc.config.ProviderConfig;
 import com.alipay.sofa.rpc.config.ServerConfig;
+import com.alipay.sofa.rpc.event.ClientZoneRouteEvent;
+import com.alipay.sofa.rpc.event.ServerAdmissionEvent;
 import com.alipay.sofa.rpc.log.LogCodes;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Rpc reports the information to lookout.
@@ -47,9 +55,39 @@ public class RpcLookout {
     /**
      * slf4j Logger for this class
      */
-    private final static Logger LOGGER       = LoggerFactory.getLogger(RpcLookout.class);
+    private final static Logger                          LOGGER             = LoggerFactory.getLogger(RpcLookout.class);
 
-    private final RpcLookoutId  rpcLookoutId = new RpcLookoutId();
+    /**
+     * Max cached method metrics, metrics beyond it are resolved from the registry every time
+     */
+    private final static int                             MAX_CACHED_METRICS = 4096;
+
+    private final RpcLookoutId                           rpcLookoutId       = new RpcLookoutId();
+
+    /**
+     * Cached consumer metric handles, keyed by method tags
+     */
+    private final ConcurrentMap<MethodKey, MethodMetric> consumerMetrics    = new ConcurrentHashMap<MethodKey, MethodMetric>();
+
+    /**
+     * Cached provider metric handles, keyed by method tags
+     */
+    private final ConcurrentMap<MethodKey, MethodMetric> providerMetrics    = new ConcurrentHashMap<MethodKey, MethodMetric>();
+
+    /**
+     * Admission control metrics of services, keyed by protocol and service
+     */
+    private final ConcurrentMap<String, AdmissionMetric> admissionMetrics   = new ConcurrentHashMap<String, AdmissionMetric>();
+
+    /**
+     * Cached zone route counters, keyed by service and routed zone
+     */
+    private final ConcurrentMap<String, Counter>         zoneCounters       = new ConcurrentHashMap<String, Counter>();
+
+    /**
+     * The registry which the cached handles belong to
+     */
+    private volatile Registry                            metricRegistry;
 
     /**
      * Collect the RPC client information.
@@ -59,8 +97,7 @@ public class RpcLookout {
     public void collectClient(RpcClientLookoutModel rpcClientMetricsModel) {
 
         try {
-            Id methodConsumerId = createMethodConsumerId(rpcClientMetricsModel);
-            MixinMetric methodConsumerMetric = Lookout.registry().mixinMetric(methodConsumerId);
+            MethodMetric methodConsumerMetric = fetchConsumerMetric(rpcClientMetricsModel);
 
             recordCounterAndTimer(methodConsumerMetric, rpcClientMetricsModel);
 
@@ -79,8 +116,7 @@ public class RpcLookout {
     public void collectServer(RpcServerLookoutModel rpcServerMetricsModel) {
 
         try {
-            Id methodProviderId = createMethodProviderId(rpcServerMetricsModel);
-            MixinMetric methodProviderMetric = Lookout.registry().mixinMetric(methodProviderId);
+            MethodMetric methodProviderMetric = fetchProviderMetric(rpcServerMetricsModel);
 
             recordCounterAndTimer(methodProviderMetric, rpcServerMetricsModel);
 
@@ -151,6 +187,96 @@ public class RpcLookout {
         Lookout.registry().removeMetric(rpcLookoutId.removeServerThreadPoolActiveCountId(serverConfig));
         Lookout.registry().removeMetric(rpcLookoutId.removeServerThreadPoolIdleCountId(serverConfig));
         Lookout.registry().removeMetric(rpcLookoutId.removeServerThreadPoolQueueSizeId(serverConfig));
+        removeAdmission(serverConfig);
+    }
+
+    /**
+     * Collect the admission control information of a service, reported once per adjusting interval
+     *
+     * @param event ServerAdmissionEvent
+     */
+    public void collectAdmission(ServerAdmissionEvent event) {
+        ServerConfig serverConfig = event.getServerConfig();
+        if (serverConfig == null) {
+            return;
+        }
+        try {
+            String key = serverConfig.getProtocol() + ":" + event.getService();
+            AdmissionMetric metric = admissionMetrics.get(key);
+            if (metric == null) {
+                AdmissionMetric newMetric = new AdmissionMetric(
+                    rpcLookoutId.fetchServerAdmissionLimitId(serverConfig).withTag("service", event.getService()),
+                    rpcLookoutId.fetchServerAdmissionShedCountId(serverConfig).withTag("service", event.getService()));
+                metric = admissionMetrics.putIfAbsent(key, newMetric);
+                if (metric == null) {
+                    metric = newMetric;
+                    final AtomicInteger limit = metric.limit;
+                    Lookout.registry().gauge(metric.limitId, new Gauge<Integer>() {
+
+                        @Override
+                        public Integer value() {
+                            return limit.get();
+                        }
+                    });
+                }
+            }
+            metric.limit.set(event.getLimit());
+            if (event.getShedCount() > 0) {
+                Lookout.registry().counter(metric.shedCountId).inc(event.getShedCount());
+            }
+        } catch (Throwable t) {
+            LOGGER.error(LogCodes.getLog(LogCodes.ERROR_METRIC_REPORT_ERROR), t);
+        }
+    }
+
+    /**
+     * Collect the zone which a consumer switched to, the zone is * when spilling over to all zones
+     *
+     * @param event ClientZoneRouteEvent
+     */
+    public void collectZoneRoute(ClientZoneRouteEvent event) {
+        ConsumerConfig consumerConfig = event.getConsumerConfig();
+        if (consumerConfig == null) {
+            return;
+        }
+        try {
+            Registry registry = checkRegistry();
+            String service = ConfigUniqueNameGenerator.getServiceName(consumerConfig);
+            String key = service + ":" + event.getZone();
+            Counter counter = zoneCounters.get(key);
+            if (counter == null) {
+                counter = registry.counter(rpcLookoutId.fetchConsumerZoneRouteId()
+                    .withTag("app", StringUtils.defaultString(consumerConfig.getAppName()))
+                    .withTag("service", service)
+                    .withTag("local_zone", StringUtils.defaultString(event.getLocalZone()))
+                    .withTag("zone", StringUtils.defaultString(event.getZone())));
+                if (zoneCounters.size() < MAX_CACHED_METRICS) {
+                    Counter old = zoneCounters.putIfAbsent(key, counter);
+                    counter = old == null ? counter : old;
+                }
+            }
+            counter.inc();
+        } catch (Throwable t) {
+            LOGGER.error(LogCodes.getLog(LogCodes.ERROR_METRIC_REPORT_ERROR), t);
+        }
+    }
+
+    /**
+     * remove the admission control information of services on the server
+     *
+     * @param serverConfig server config
+     */
+    private void removeAdmission(ServerConfig serverConfig) {
+        String prefix = serverConfig.getProtocol() + ":";
+        Iterator<Map.Entry<String, AdmissionMetric>> iterator = admissionMetrics.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, AdmissionMetric> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                iterator.remove();
+                Lookout.registry().removeMetric(entry.getValue().limitId);
+                Lookout.registry().removeMetric(entry.getValue().shedCountId);
+            }
+        }
     }
 
     /**
@@ -159,24 +285,18 @@ public class RpcLookout {
      * @param mixinMetric MixinMetric
      * @param model       information model
      */
-    private void recordCounterAndTimer(MixinMetric mixinMetric, RpcAbstractLookoutModel model) {
-        Counter totalCounter = mixinMetric.counter("total_count");
-        Timer totalTimer = mixinMetric.timer("total_time");
-
+    private void recordCounterAndTimer(MethodMetric methodMetric, RpcAbstractLookoutModel model) {
         Long elapsedTime = model.getElapsedTime();
 
-        totalCounter.inc();
+        methodMetric.totalCounter.inc();
         if (elapsedTime != null) {
-            totalTimer.record(elapsedTime, TimeUnit.MILLISECONDS);
+            methodMetric.totalTimer.record(elapsedTime, TimeUnit.MILLISECONDS);
         }
 
         if (!model.getSuccess()) {
-            Counter failCounter = mixinMetric.counter("fail_count");
-            Timer failTimer = mixinMetric.timer("fail_time");
-
-            failCounter.inc();
+            methodMetric.failCounter().inc();
             if (elapsedTime != null) {
-                failTimer.record(elapsedTime, TimeUnit.MILLISECONDS);
+                methodMetric.failTimer().record(elapsedTime, TimeUnit.MILLISECONDS);
             }
         }
     }
@@ -184,25 +304,88 @@ public class RpcLookout {
     /**
      * Record request size and response size
      *
-     * @param mixinMetric MixinMetric
-     * @param model       information model
+     * @param methodMetric MethodMetric
+     * @param model        information model
      */
-    private void recordSize(MixinMetric mixinMetric, RpcClientLookoutModel model) {
+    private void recordSize(MethodMetric methodMetric, RpcClientLookoutModel model) {
 
         Long requestSize = model.getRequestSize();
         Long responseSize = model.getResponseSize();
 
         if (requestSize != null) {
-            DistributionSummary requestSizeDS = mixinMetric.distributionSummary("request_size");
-            requestSizeDS.record(model.getRequestSize());
+            methodMetric.requestSize().record(requestSize);
         }
 
         if (responseSize != null) {
-            DistributionSummary responseSizeDS = mixinMetric.distributionSummary("response_size");
-            responseSizeDS.record(model.getResponseSize());
+            methodMetric.responseSize().record(responseSize);
         }
     }
 
+    /**
+     * Fetch the cached consumer metric, create it on first use
+     *
+     * @param model RpcClientLookoutModel
+     * @return MethodMetric
+     */
+    private MethodMetric fetchConsumerMetric(RpcClientLookoutModel model) {
+        Registry registry = checkRegistry();
+        MethodKey key = new MethodKey(model.getApp(), model.getService(), model.getMethod(), model.getProtocol(),
+            model.getInvokeType(), model.getTargetApp());
+        MethodMetric methodMetric = consumerMetrics.get(key);
+        if (methodMetric == null) {
+            methodMetric = new MethodMetric(registry.mixinMetric(createMethodConsumerId(model)));
+            methodMetric = cacheMetric(consumerMetrics, key, methodMetric);
+        }
+        return methodMetric;
+    }
+
+    /**
+     * Fetch the cached provider metric, create it on first use
+     *
+     * @param model RpcServerLookoutModel
+     * @return MethodMetric
+     */
+    private MethodMetric fetchProviderMetric(RpcServerLookoutModel model) {
+        Registry registry = checkRegistry();
+        MethodKey key = new MethodKey(model.getApp(), model.getService(), model.getMethod(), model.getProtocol(),
+            null, model.getCallerApp());
+        MethodMetric methodMetric = providerMetrics.get(key);
+        if (methodMetric == null) {
+            methodMetric = new MethodMetric(registry.mixinMetric(createMethodProviderId(model)));
+            methodMetric = cacheMetric(providerMetrics, key, methodMetric);
+        }
+        return methodMetric;
+    }
+
+    private MethodMetric cacheMetric(ConcurrentMap<MethodKey, MethodMetric> metrics, MethodKey key,
+                                     MethodMetric methodMetric) {
+        if (metrics.size() >= MAX_CACHED_METRICS) {
+            return methodMetric;
+        }
+        MethodMetric old = metrics.putIfAbsent(key, methodMetric);
+        return old == null ? methodMetric : old;
+    }
+
+    /**
+     * The cached handles belong to one registry, drop them when the registry is replaced
+     *
+     * @return current registry
+     */
+    private Registry checkRegistry() {
+        Registry registry = Lookout.registry();
+        if (registry != metricRegistry) {
+            synchronized (this) {
+                if (registry != metricRegistry) {
+                    consumerMetrics.clear();
+                    providerMetrics.clear();
+                    zoneCounters.clear();
+                    metricRegistry = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
     /**
      * Create consumer id
      *
@@ -281,6 +464,116 @@ public class RpcLookout {
         }
     }
 
+    /**
+     * The tags of one method metric.
+     */
+    private static final class MethodKey {
+
+        private final String app;
+        private final String service;
+        private final String method;
+        private final String protocol;
+        private final String invokeType;
+        private final String peerApp;
+        private final int    hash;
+
+        MethodKey(String app, String service, String method, String protocol, String invokeType, String peerApp) {
+            this.app = StringUtils.defaultString(app);
+            this.service = StringUtils.defaultString(service);
+            this.method = StringUtils.defaultString(method);
+            this.protocol = StringUtils.defaultString(protocol);
+            this.invokeType = StringUtils.defaultString(invokeType);
+            this.peerApp = StringUtils.defaultString(peerApp);
+            int h = this.app.hashCode();
+            h = 31 * h + this.service.hashCode();
+            h = 31 * h + this.method.hashCode();
+            h = 31 * h + this.protocol.hashCode();
+            h = 31 * h + this.invokeType.hashCode();
+            h = 31 * h + this.peerApp.hashCode();
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MethodKey)) {
+                return false;
+            }
+            MethodKey that = (MethodKey) o;
+            return hash == that.hash
+                && method.equals(that.method)
+                && service.equals(that.service)
+                && app.equals(that.app)
+                && protocol.equals(that.protocol)
+                && invokeType.equals(that.invokeType)
+                && peerApp.equals(that.peerApp);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The resolved metric handles of one method. The fail and size metrics are created on first record,
+     * so they still only show up after the first failure or sized call.
+     */
+    private static final class MethodMetric {
+
+        private final MixinMetric            mixinMetric;
+        private final Counter                totalCounter;
+        private final Timer                  totalTimer;
+        private volatile Counter             failCounter;
+        private volatile Timer               failTimer;
+        private volatile DistributionSummary requestSize;
+        private volatile DistributionSummary responseSize;
+
+        MethodMetric(MixinMetric mixinMetric) {
+            this.mixinMetric = mixinMetric;
+            this.totalCounter = mixinMetric.counter("total_count");
+            this.totalTimer = mixinMetric.timer("total_time");
+        }
+
+        Counter failCounter() {
+            Counter counter = failCounter;
+            if (counter == null) {
+                counter = mixinMetric.counter("fail_count");
+                failCounter = counter;
+            }
+            return counter;
+        }
+
+        Timer failTimer() {
+            Timer timer = failTimer;
+            if (timer == null) {
+                timer = mixinMetric.timer("fail_time");
+                failTimer = timer;
+            }
+            return timer;
+        }
+
+        DistributionSummary requestSize() {
+            DistributionSummary summary = requestSize;
+            if (summary == null) {
+                summary = mixinMetric.distributionSummary("request_size");
+                requestSize = summary;
+            }
+            return summary;
+        }
+
+        DistributionSummary responseSize() {
+            DistributionSummary summary = responseSize;
+            if (summary == null) {
+                summary = mixinMetric.distributionSummary("response_size");
+                responseSize = summary;
+            }
+            return summary;
+        }
+    }
+
     /**
      * Thread pool static configuration information.
      */
@@ -352,4 +645,21 @@ public class RpcLookout {
             this.queueSize = queueSize;
         }
     }
+
+    /**
+     * Admission control metric handles of a service
+     */
+    private static class AdmissionMetric {
+
+        private final Id            limitId;
+
+        private final Id            shedCountId;
+
+        private final AtomicInteger limit = new AtomicInteger();
+
+        AdmissionMetric(Id limitId, Id shedCountId) {
+            this.limitId = limitId;
+            this.shedCountId = shedCountId;
+        }
+    }
 }
\ No newline at end of file
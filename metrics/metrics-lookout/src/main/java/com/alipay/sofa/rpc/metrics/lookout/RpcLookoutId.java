@@ -42,6 +42,9 @@ public class RpcLookoutId {
     private volatile Id                     providerConfigId;
     private final Object                    providerConfigIdLock = new Object();
 
+    private volatile Id                     consumerZoneRouteId;
+    private final Object                    zoneRouteIdLock      = new Object();
+
     /**
      * create consumerId
      *
@@ -100,6 +103,17 @@ public class RpcLookoutId {
         return providerConfigId;
     }
 
+    public Id fetchConsumerZoneRouteId() {
+        if (consumerZoneRouteId == null) {
+            synchronized (zoneRouteIdLock) {
+                if (consumerZoneRouteId == null) {
+                    consumerZoneRouteId = Lookout.registry().createId("rpc.consumer.zone.route.count");
+                }
+            }
+        }
+        return consumerZoneRouteId;
+    }
+
     public synchronized Id fetchServerThreadConfigId(ServerConfig serverConfig) {
         String key = "rpc." + serverConfig.getProtocol() + ".threadpool.config";
         return fetchServerConfigId(key);
@@ -134,6 +148,16 @@ public class RpcLookoutId {
         return lookoutId;
     }
 
+    public Id fetchServerAdmissionLimitId(ServerConfig serverConfig) {
+        String key = "rpc." + serverConfig.getProtocol() + ".admission.limit";
+        return fetchServerConfigId(key);
+    }
+
+    public Id fetchServerAdmissionShedCountId(ServerConfig serverConfig) {
+        String key = "rpc." + serverConfig.getProtocol() + ".admission.shed.count";
+        return fetchServerConfigId(key);
+    }
+
     public Id removeServerThreadConfigId(ServerConfig serverConfig) {
         String key = "rpc." + serverConfig.getProtocol() + ".threadpool.config";
         return serverConfigIds.remove(key);
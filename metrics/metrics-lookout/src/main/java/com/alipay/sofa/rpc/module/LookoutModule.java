@@ -17,10 +17,12 @@
 package com.alipay.sofa.rpc.module;
 
 import com.alipay.sofa.rpc.event.ClientEndInvokeEvent;
+import com.alipay.sofa.rpc.event.ClientZoneRouteEvent;
 import com.alipay.sofa.rpc.event.ConsumerSubEvent;
 import com.alipay.sofa.rpc.event.EventBus;
 import com.alipay.sofa.rpc.event.LookoutSubscriber;
 import com.alipay.sofa.rpc.event.ProviderPubEvent;
+import com.alipay.sofa.rpc.event.ServerAdmissionEvent;
 import com.alipay.sofa.rpc.event.ServerSendEvent;
 import com.alipay.sofa.rpc.event.ServerStartedEvent;
 import com.alipay.sofa.rpc.event.ServerStoppedEvent;
@@ -54,6 +56,8 @@ public class LookoutModule implements Module {
         EventBus.register(ServerStoppedEvent.class, subscriber);
         EventBus.register(ProviderPubEvent.class, subscriber);
         EventBus.register(ConsumerSubEvent.class, subscriber);
+        EventBus.register(ServerAdmissionEvent.class, subscriber);
+        EventBus.register(ClientZoneRouteEvent.class, subscriber);
 
     }
 
@@ -66,6 +70,8 @@ public class LookoutModule implements Module {
             EventBus.unRegister(ServerStoppedEvent.class, subscriber);
             EventBus.unRegister(ProviderPubEvent.class, subscriber);
             EventBus.unRegister(ConsumerSubEvent.class, subscriber);
+            EventBus.unRegister(ServerAdmissionEvent.class, subscriber);
+            EventBus.unRegister(ClientZoneRouteEvent.class, subscriber);
         }
     }
 }
\ No newline at end of file
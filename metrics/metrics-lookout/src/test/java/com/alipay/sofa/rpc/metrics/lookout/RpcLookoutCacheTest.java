@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.metrics.lookout;
+
+import com.alipay.lookout.api.Id;
+import com.alipay.lookout.api.Lookout;
+import com.alipay.lookout.api.NoopRegistry;
+import com.alipay.lookout.api.Registry;
+import com.alipay.lookout.api.composite.MixinMetric;
+import com.alipay.lookout.core.DefaultRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RpcLookoutCacheTest {
+
+    @Test
+    public void testCachedMetric() {
+        if (Lookout.registry() == NoopRegistry.INSTANCE) {
+            Lookout.setRegistry(new DefaultRegistry());
+        }
+        Registry registry = Lookout.registry();
+
+        RpcLookout rpcLookout = new RpcLookout();
+        RpcServerLookoutModel model = buildModel(true);
+        Id id = rpcLookout.createMethodProviderId(model);
+
+        rpcLookout.collectServer(model);
+        rpcLookout.collectServer(model);
+        MixinMetric metric = registry.get(id);
+        Assert.assertEquals(2, metric.counter("total_count").count());
+
+        rpcLookout.collectServer(buildModel(false));
+        Assert.assertEquals(3, metric.counter("total_count").count());
+        Assert.assertEquals(1, metric.counter("fail_count").count());
+    }
+
+    private RpcServerLookoutModel buildModel(boolean success) {
+        RpcServerLookoutModel model = new RpcServerLookoutModel();
+        model.setApp("app");
+        model.setService("com.alipay.sofa.rpc.test.CacheService:1.0");
+        model.setMethod("sayHello");
+        model.setProtocol("bolt");
+        model.setInvokeType("sync");
+        model.setCallerApp("callerApp");
+        model.setElapsedTime(10L);
+        model.setSuccess(success);
+        return model;
+    }
+}
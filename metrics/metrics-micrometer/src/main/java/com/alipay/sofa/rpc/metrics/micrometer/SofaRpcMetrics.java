@@ -44,9 +44,10 @@ import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Function;
 
 /**
  * @author hujia
@@ -54,30 +55,15 @@ import java.util.function.Function;
  */
 public class SofaRpcMetrics extends Subscriber implements MeterBinder, AutoCloseable {
 
-    private final AtomicReference<MeterRegistry> initialed = new AtomicReference<>();
-
-    private final Function<Tags, Timer> clientTotal = tags -> Timer.builder("sofa.client.total")
-        .tags(tags)
-        .register(initialed.get());
-    private final Function<Tags, Timer> clientFail = tags -> Timer.builder("sofa.client.fail")
-        .tags(tags)
-        .register(initialed.get());
-    private final Function<Tags, Timer> serverTotal = tags -> Timer.builder("sofa.server.total")
-        .tags(tags)
-        .register(initialed.get());
-    private final Function<Tags, Timer> serverFail = tags -> Timer.builder("sofa.server.fail")
-        .tags(tags)
-        .register(initialed.get());
-    private final Function<Tags, DistributionSummary> requestSize = tags -> DistributionSummary.builder("sofa.request.size")
-        .tags(tags)
-        .baseUnit(BaseUnits.BYTES)
-        .register(initialed.get());
-    private final Function<Tags, DistributionSummary> responseSize = tags -> DistributionSummary.builder("sofa.response.size")
-        .tags(tags)
-        .baseUnit(BaseUnits.BYTES)
-        .register(initialed.get());
-    private Counter provider;
-    private Counter consumer;
+    /**
+     * 缓存的调用维度上限，超过后不再缓存，退化为每次向 registry 查找
+     */
+    private static final int MAX_CACHED_METERS = 4096;
+
+    /**
+     * 当前绑定的 registry 及其 Meter 缓存，重新绑定时整体替换，事件处理线程不会看到清空了一半的缓存
+     */
+    private final AtomicReference<BoundMeters> initialed = new AtomicReference<>();
 
     private final Tags common;
 
@@ -138,14 +124,14 @@ public class SofaRpcMetrics extends Subscriber implements MeterBinder, AutoClose
             .tags(common)
             .baseUnit(BaseUnits.TASKS)
             .register(registry);
-        provider = Counter.builder("sofa.provider")
+        Counter provider = Counter.builder("sofa.provider")
             .tags(common)
             .register(registry);
-        consumer = Counter.builder("sofa.consumer")
+        Counter consumer = Counter.builder("sofa.consumer")
             .tags(common)
             .register(registry);
 
-        initialed.set(registry);
+        initialed.set(new BoundMeters(registry, provider, consumer));
     }
 
     private void register() {
@@ -159,26 +145,27 @@ public class SofaRpcMetrics extends Subscriber implements MeterBinder, AutoClose
 
     @Override
     public void onEvent(Event event) {
-        if (initialed.get() != null) {
+        BoundMeters bound = initialed.get();
+        if (bound != null) {
             if (event instanceof ClientEndInvokeEvent) {
-                onEvent((ClientEndInvokeEvent) event);
+                onEvent(bound, (ClientEndInvokeEvent) event);
             } else if (event instanceof ServerSendEvent) {
-                onEvent((ServerSendEvent) event);
+                onEvent(bound, (ServerSendEvent) event);
             } else if (event instanceof ServerStartedEvent) {
                 onEvent((ServerStartedEvent) event);
             } else if (event instanceof ServerStoppedEvent) {
                 onEvent((ServerStoppedEvent) event);
             } else if (event instanceof ProviderPubEvent) {
-                onEvent((ProviderPubEvent) event);
+                bound.provider.increment();
             } else if (event instanceof ConsumerSubEvent) {
-                onEvent((ConsumerSubEvent) event);
+                bound.consumer.increment();
             } else {
                 throw new IllegalArgumentException("unexpected event: " + event);
             }
         }
     }
 
-    private void onEvent(ClientEndInvokeEvent event) {
+    private void onEvent(BoundMeters bound, ClientEndInvokeEvent event) {
         InvokeMeta meta = new InvokeMeta(
             event.getRequest(),
             event.getResponse(),
@@ -186,30 +173,48 @@ public class SofaRpcMetrics extends Subscriber implements MeterBinder, AutoClose
         );
         RpcInternalContext context = RpcInternalContext.getContext();
         Duration elapsed = meta.elapsed();
-        Tags tags = meta.tags(this.common);
+        InvokeMeters meters = fetchMeters(bound.registry, bound.clientMeters, meta, "sofa.client.total",
+            "sofa.client.fail");
 
-        clientTotal.apply(tags).record(elapsed);
+        meters.total.record(elapsed);
         if (!meta.success()) {
-            clientFail.apply(tags).record(elapsed);
+            meters.fail().record(elapsed);
         }
-        requestSize.apply(tags).record(getLongAvoidNull(
+        meters.requestSize().record(getLongAvoidNull(
             context.getAttachment(RpcConstants.INTERNAL_KEY_REQ_SIZE)));
-        responseSize.apply(tags).record(getLongAvoidNull(
+        meters.responseSize().record(getLongAvoidNull(
             context.getAttachment(RpcConstants.INTERNAL_KEY_RESP_SIZE)));
     }
 
-    private void onEvent(ServerSendEvent event) {
+    private void onEvent(BoundMeters bound, ServerSendEvent event) {
         InvokeMeta meta = new InvokeMeta(
             event.getRequest(),
             event.getResponse(),
             getLongAvoidNull(RpcInternalContext.getContext().getAttachment(RpcConstants.INTERNAL_KEY_IMPL_ELAPSE))
         );
         Duration elapsed = meta.elapsed();
-        Tags tags = meta.tags(this.common);
-        serverTotal.apply(tags).record(elapsed);
+        InvokeMeters meters = fetchMeters(bound.registry, bound.serverMeters, meta, "sofa.server.total",
+            "sofa.server.fail");
+        meters.total.record(elapsed);
         if (!meta.success()) {
-            serverFail.apply(tags).record(elapsed);
+            meters.fail().record(elapsed);
+        }
+    }
+
+    private InvokeMeters fetchMeters(MeterRegistry registry, ConcurrentMap<InvokeKey, InvokeMeters> cache,
+                                     InvokeMeta meta, String totalName, String failName) {
+        InvokeKey key = meta.key();
+        InvokeMeters meters = cache.get(key);
+        if (meters == null) {
+            meters = new InvokeMeters(registry, meta.tags(this.common), totalName, failName);
+            if (cache.size() < MAX_CACHED_METERS) {
+                InvokeMeters old = cache.putIfAbsent(key, meters);
+                if (old != null) {
+                    meters = old;
+                }
+            }
         }
+        return meters;
     }
 
     private void onEvent(ServerStartedEvent event) {
@@ -222,14 +227,6 @@ public class SofaRpcMetrics extends Subscriber implements MeterBinder, AutoClose
         executor.set(null);
     }
 
-    private void onEvent(ProviderPubEvent event) {
-        provider.increment();
-    }
-
-    private void onEvent(ConsumerSubEvent event) {
-        consumer.increment();
-    }
-
     private static Long getLongAvoidNull(Object object) {
         if (object == null) {
             return null;
@@ -261,6 +258,28 @@ public class SofaRpcMetrics extends Subscriber implements MeterBinder, AutoClose
         EventBus.unRegister(ConsumerSubEvent.class, this);
     }
 
+    /**
+     * 绑定的 registry 和在其中注册的 Meter
+     */
+    private static final class BoundMeters {
+
+        private final MeterRegistry registry;
+        private final Counter provider;
+        private final Counter consumer;
+
+        /**
+         * 按调用维度缓存已注册的 Meter，避免每次事件都构建 Tags 并到 registry 中查找
+         */
+        private final ConcurrentMap<InvokeKey, InvokeMeters> clientMeters = new ConcurrentHashMap<>();
+        private final ConcurrentMap<InvokeKey, InvokeMeters> serverMeters = new ConcurrentHashMap<>();
+
+        private BoundMeters(MeterRegistry registry, Counter provider, Counter consumer) {
+            this.registry = registry;
+            this.provider = provider;
+            this.consumer = consumer;
+        }
+    }
+
     private static class InvokeMeta {
 
         private final SofaRequest request;
@@ -310,6 +329,10 @@ public class SofaRpcMetrics extends Subscriber implements MeterBinder, AutoClose
                 && (!(response.getAppResponse() instanceof Throwable));
         }
 
+        public InvokeKey key() {
+            return new InvokeKey(app(), service(), method(), protocol(), invokeType(), callerApp());
+        }
+
         public Tags tags(Iterable<Tag> common) {
             return Tags.of(common).and(
                 Tag.of("app", app()),
@@ -321,4 +344,112 @@ public class SofaRpcMetrics extends Subscriber implements MeterBinder, AutoClose
             );
         }
     }
+
+    /**
+     * 调用维度，对应 Meter 上除公共 Tag 外的全部 Tag
+     */
+    private static final class InvokeKey {
+
+        private final String app;
+        private final String service;
+        private final String method;
+        private final String protocol;
+        private final String invokeType;
+        private final String callerApp;
+        private final int hash;
+
+        private InvokeKey(String app, String service, String method, String protocol, String invokeType,
+                          String callerApp) {
+            this.app = app;
+            this.service = service;
+            this.method = method;
+            this.protocol = protocol;
+            this.invokeType = invokeType;
+            this.callerApp = callerApp;
+            int h = app.hashCode();
+            h = 31 * h + service.hashCode();
+            h = 31 * h + method.hashCode();
+            h = 31 * h + protocol.hashCode();
+            h = 31 * h + invokeType.hashCode();
+            h = 31 * h + callerApp.hashCode();
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof InvokeKey)) {
+                return false;
+            }
+            InvokeKey that = (InvokeKey) o;
+            return hash == that.hash
+                && method.equals(that.method)
+                && service.equals(that.service)
+                && app.equals(that.app)
+                && protocol.equals(that.protocol)
+                && invokeType.equals(that.invokeType)
+                && callerApp.equals(that.callerApp);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * 某个调用维度下已注册的 Meter。失败计时和大小统计按需注册，保持与原来只在产生数据时才出现的行为一致
+     */
+    private static final class InvokeMeters {
+
+        private final MeterRegistry registry;
+        private final Tags tags;
+        private final String failName;
+        private final Timer total;
+        private volatile Timer fail;
+        private volatile DistributionSummary requestSize;
+        private volatile DistributionSummary responseSize;
+
+        private InvokeMeters(MeterRegistry registry, Tags tags, String totalName, String failName) {
+            this.registry = registry;
+            this.tags = tags;
+            this.failName = failName;
+            this.total = Timer.builder(totalName).tags(tags).register(registry);
+        }
+
+        private Timer fail() {
+            Timer timer = fail;
+            if (timer == null) {
+                timer = Timer.builder(failName).tags(tags).register(registry);
+                fail = timer;
+            }
+            return timer;
+        }
+
+        private DistributionSummary requestSize() {
+            DistributionSummary summary = requestSize;
+            if (summary == null) {
+                summary = DistributionSummary.builder("sofa.request.size")
+                    .tags(tags)
+                    .baseUnit(BaseUnits.BYTES)
+                    .register(registry);
+                requestSize = summary;
+            }
+            return summary;
+        }
+
+        private DistributionSummary responseSize() {
+            DistributionSummary summary = responseSize;
+            if (summary == null) {
+                summary = DistributionSummary.builder("sofa.response.size")
+                    .tags(tags)
+                    .baseUnit(BaseUnits.BYTES)
+                    .register(registry);
+                responseSize = summary;
+            }
+            return summary;
+        }
+    }
 }
@@ -79,6 +79,47 @@ public class SofaRpcMetricsTest {
         }
     }
 
+    @Test
+    public void testCachedMeters() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (SofaRpcMetrics metrics = new SofaRpcMetrics()) {
+            metrics.bindTo(registry);
+
+            Method handleEvent = EventBus.class.getDeclaredMethod(
+                "handleEvent", Subscriber.class, Event.class);
+            handleEvent.setAccessible(true);
+            SofaRequest request = buildRequest();
+            SofaResponse response = buildResponse();
+            RpcInternalContext.getContext()
+                .setAttachment(RpcConstants.INTERNAL_KEY_CLIENT_ELAPSE, 100)
+                .setAttachment(RpcConstants.INTERNAL_KEY_REQ_SIZE, 3)
+                .setAttachment(RpcConstants.INTERNAL_KEY_RESP_SIZE, 4);
+
+            for (int i = 0; i < 3; i++) {
+                handleEvent.invoke(EventBus.class, metrics, new ClientEndInvokeEvent(request, response, null));
+            }
+            Assert.assertEquals(3, registry.get("sofa.client.total").timer().count());
+            Assert.assertNull(registry.find("sofa.client.fail").timer());
+
+            SofaResponse error = new SofaResponse();
+            error.setErrorMsg("error");
+            handleEvent.invoke(EventBus.class, metrics, new ClientEndInvokeEvent(request, error, null));
+            Assert.assertEquals(4, registry.get("sofa.client.total").timer().count());
+            Assert.assertEquals(1, registry.get("sofa.client.fail").timer().count());
+            Assert.assertEquals(4, registry.get("sofa.request.size").summary().count());
+
+            // 绑定新的 registry 后，缓存的 Meter 不再写入旧的 registry
+            SimpleMeterRegistry newRegistry = new SimpleMeterRegistry();
+            metrics.bindTo(newRegistry);
+            handleEvent.invoke(EventBus.class, metrics, new ClientEndInvokeEvent(request, response, null));
+            Assert.assertEquals(4, registry.get("sofa.client.total").timer().count());
+            Assert.assertEquals(1, newRegistry.get("sofa.client.total").timer().count());
+        } finally {
+            RpcInternalContext.removeAllContext();
+        }
+    }
+
     private SofaRequest buildRequest() throws NoSuchMethodException {
         SofaRequest request = new SofaRequest();
         request.setInterfaceName(TestService.class.getName());
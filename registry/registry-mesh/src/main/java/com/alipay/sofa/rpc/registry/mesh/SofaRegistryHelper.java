@@ -18,7 +18,6 @@ package com.alipay.sofa.rpc.registry.mesh;
 
 import com.alipay.sofa.rpc.client.ProviderInfo;
 import com.alipay.sofa.rpc.client.ProviderInfoAttrs;
-import com.alipay.sofa.rpc.client.ProviderStatus;
 import com.alipay.sofa.rpc.common.RemotingConstants;
 import com.alipay.sofa.rpc.common.SystemInfo;
 import com.alipay.sofa.rpc.common.Version;
@@ -431,9 +430,7 @@ public class SofaRegistryHelper {
         // 设置预热状态
         if (StringUtils.isNotBlank(warmupTimeStr) && StringUtils.isNotBlank(warmupWeightStr)) {
             if (warmupTime > 0) {
-                providerInfo.setStatus(ProviderStatus.WARMING_UP);
-                providerInfo.setDynamicAttr(ATTR_WARMUP_WEIGHT, warmupWeight);
-                providerInfo.setDynamicAttr(ATTR_WARM_UP_END_TIME, startTime + warmupTime);
+                providerInfo.startWarmUp(startTime, warmupTime, warmupWeight);
             }
         }
         // 解析hostMachineName
@@ -18,7 +18,6 @@ package com.alipay.sofa.rpc.registry.sofa;
 
 import com.alipay.sofa.rpc.client.ProviderInfo;
 import com.alipay.sofa.rpc.client.ProviderInfoAttrs;
-import com.alipay.sofa.rpc.client.ProviderStatus;
 import com.alipay.sofa.rpc.common.RemotingConstants;
 import com.alipay.sofa.rpc.common.RpcConstants;
 import com.alipay.sofa.rpc.common.SystemInfo;
@@ -50,7 +49,6 @@ import static com.alipay.sofa.rpc.client.ProviderInfoAttrs.ATTR_START_TIME;
 import static com.alipay.sofa.rpc.client.ProviderInfoAttrs.ATTR_TIMEOUT;
 import static com.alipay.sofa.rpc.client.ProviderInfoAttrs.ATTR_WARMUP_TIME;
 import static com.alipay.sofa.rpc.client.ProviderInfoAttrs.ATTR_WARMUP_WEIGHT;
-import static com.alipay.sofa.rpc.client.ProviderInfoAttrs.ATTR_WARM_UP_END_TIME;
 import static com.alipay.sofa.rpc.client.ProviderInfoAttrs.ATTR_WEIGHT;
 import static com.alipay.sofa.rpc.common.RpcConstants.PROTOCOL_TYPE_BOLT;
 import static com.alipay.sofa.rpc.common.RpcConstants.PROTOCOL_TYPE_TR;
@@ -449,9 +447,7 @@ public class SofaRegistryHelper {
         // 设置预热状态
         if (StringUtils.isNotBlank(warmupTimeStr) && StringUtils.isNotBlank(warmupWeightStr)) {
             if (warmupTime > 0) {
-                providerInfo.setStatus(ProviderStatus.WARMING_UP);
-                providerInfo.setDynamicAttr(ATTR_WARMUP_WEIGHT, warmupWeight);
-                providerInfo.setDynamicAttr(ATTR_WARM_UP_END_TIME, startTime + warmupTime);
+                providerInfo.startWarmUp(startTime, warmupTime, warmupWeight);
             }
         }
         // 解析hostMachineName
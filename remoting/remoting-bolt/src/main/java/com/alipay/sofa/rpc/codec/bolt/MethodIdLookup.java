@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec.bolt;
+
+/**
+ * 服务端按请求头中的方法编号查找服务名和方法名。
+ * 编解码层只依赖这个接口，由服务端通过 {@link SofaRpcSerializationRegister#setMethodIdLookup} 设置
+ */
+public interface MethodIdLookup {
+
+    /**
+     * 按方法编号查找服务名
+     *
+     * @param methodId 方法编号
+     * @return 服务名，编号不是本进程分配的返回null
+     */
+    String getServiceName(int methodId);
+
+    /**
+     * 按方法编号查找方法名
+     *
+     * @param methodId 方法编号
+     * @return 方法名，编号不是本进程分配的返回null
+     */
+    String getMethodName(int methodId);
+}
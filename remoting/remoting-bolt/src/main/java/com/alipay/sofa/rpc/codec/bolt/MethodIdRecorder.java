@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec.bolt;
+
+/**
+ * 客户端记录服务端返回的方法编号。
+ * 编解码层只依赖这个接口，由客户端传输层放到调用上下文中，
+ * key为 {@link com.alipay.sofa.rpc.common.RemotingConstants#INVOKE_CTX_METHOD_ID_CACHE}
+ */
+public interface MethodIdRecorder {
+
+    /**
+     * 记录服务端返回的方法编号
+     *
+     * @param serviceName 服务名
+     * @param methodName  方法名
+     * @param argSigs     参数签名
+     * @param id          方法编号
+     */
+    void put(String serviceName, String methodName, String[] argSigs, int id);
+
+    /**
+     * 清空记录的方法编号，服务端不认识编号时调用
+     */
+    void clear();
+}
@@ -52,12 +52,26 @@ import com.alipay.sofa.rpc.transport.ByteArrayWrapperByteBuf;
  */
 public class SofaRpcSerialization extends DefaultCustomSerializer {
 
-    protected SimpleMapSerializer mapSerializer;
+    protected SimpleMapSerializer      mapSerializer;
+
+    /**
+     * 服务端按方法编号查找方法，为空时请求头中的方法编号都当作不认识
+     */
+    protected volatile MethodIdLookup methodIdLookup;
 
     public SofaRpcSerialization() {
         init();
     }
 
+    /**
+     * 设置服务端按方法编号查找方法的表
+     *
+     * @param methodIdLookup 方法编号查找表
+     */
+    public void setMethodIdLookup(MethodIdLookup methodIdLookup) {
+        this.methodIdLookup = methodIdLookup;
+    }
+
     /**
      * Init this custom serializer
      */
@@ -97,6 +111,9 @@ public class SofaRpcSerialization extends DefaultCustomSerializer {
                 Map<String, String> header = new HashMap<String, String>(16);
                 header.put(RemotingConstants.HEAD_SERVICE, service);
                 putRequestMetadataToHeader(requestObject, header);
+                if (invokeContext != null) {
+                    putMethodIdToHeader((Integer) invokeContext.get(RemotingConstants.HEAD_METHOD_ID), header);
+                }
                 requestCommand.setHeader(mapSerializer.encode(header));
             }
             return true;
@@ -122,6 +139,101 @@ public class SofaRpcSerialization extends DefaultCustomSerializer {
         }
     }
 
+    /**
+     * 已经协商过方法编号时，请求头里只放方法编号，不再放服务名和方法名。
+     * 请求体不变：Hessian序列化的请求体里仍然有服务名、方法名和参数签名，反序列化参数时需要用到，
+     * 所以只有请求头变小，例如服务名长40个字符时每个请求少130字节左右
+     *
+     * @param methodId 方法编号，0表示需要协商
+     * @param header   请求头
+     */
+    protected void putMethodIdToHeader(Integer methodId, Map<String, String> header) {
+        if (methodId == null) {
+            return;
+        }
+        if (methodId == 0) {
+            header.put(RemotingConstants.HEAD_METHOD_ID, RemotingConstants.METHOD_ID_NEGOTIATE);
+        } else {
+            header.remove(RemotingConstants.HEAD_SERVICE);
+            header.remove(RemotingConstants.HEAD_TARGET_SERVICE);
+            header.remove(RemotingConstants.HEAD_METHOD_NAME);
+            header.put(RemotingConstants.HEAD_METHOD_ID, String.valueOf(methodId));
+        }
+    }
+
+    /**
+     * 请求头里只有方法编号时，还原服务名和方法名。
+     * 不认识这个编号时把编号改为 {@link RemotingConstants#METHOD_ID_UNKNOWN}，不再解析请求体，
+     * 由服务端处理器通知客户端带上完整的服务名和方法名重新发送
+     *
+     * @param headerMap 请求头
+     */
+    protected void restoreMethodFromHeader(Map<String, String> headerMap) {
+        String methodId = headerMap.get(RemotingConstants.HEAD_METHOD_ID);
+        if (methodId == null || headerMap.containsKey(RemotingConstants.HEAD_SERVICE)) {
+            return;
+        }
+        MethodIdLookup lookup = methodIdLookup;
+        String serviceName = null;
+        String methodName = null;
+        if (lookup != null) {
+            try {
+                int id = Integer.parseInt(methodId);
+                serviceName = lookup.getServiceName(id);
+                methodName = lookup.getMethodName(id);
+            } catch (NumberFormatException e) {
+                // 当作不认识的编号
+            }
+        }
+        if (serviceName != null && methodName != null) {
+            headerMap.put(RemotingConstants.HEAD_SERVICE, serviceName);
+            headerMap.put(RemotingConstants.HEAD_TARGET_SERVICE, serviceName);
+            headerMap.put(RemotingConstants.HEAD_METHOD_NAME, methodName);
+        } else {
+            headerMap.put(RemotingConstants.HEAD_METHOD_ID, RemotingConstants.METHOD_ID_UNKNOWN);
+        }
+    }
+
+    /**
+     * 请求头中的方法编号服务端不认识
+     *
+     * @param headerMap 请求头
+     * @return 是否不认识
+     */
+    protected boolean isUnknownMethodId(Map<String, String> headerMap) {
+        return RemotingConstants.METHOD_ID_UNKNOWN.equals(headerMap.get(RemotingConstants.HEAD_METHOD_ID));
+    }
+
+    /**
+     * 协商方法编号时，记录服务端返回的方法编号；服务端不认识编号时清空当前连接的编号，
+     * 并在调用上下文中标记，由调用方带上完整的服务名和方法名重新发送
+     *
+     * @param header        响应头
+     * @param invokeContext 调用上下文
+     */
+    protected void recordMethodIdFromHeader(Map<String, String> header, InvokeContext invokeContext) {
+        String methodId = header.get(RemotingConstants.HEAD_METHOD_ID);
+        if (methodId == null) {
+            return;
+        }
+        MethodIdRecorder cache = invokeContext.get(RemotingConstants.INVOKE_CTX_METHOD_ID_CACHE);
+        if (RemotingConstants.METHOD_ID_UNKNOWN.equals(methodId)) {
+            if (cache != null) {
+                cache.clear();
+            }
+            invokeContext.put(RemotingConstants.INVOKE_CTX_METHOD_UNKNOWN, Boolean.TRUE);
+        } else if (cache != null) {
+            try {
+                cache.put((String) invokeContext.get(RemotingConstants.HEAD_TARGET_SERVICE),
+                    (String) invokeContext.get(RemotingConstants.HEAD_METHOD_NAME),
+                    (String[]) invokeContext.get(RemotingConstants.INVOKE_CTX_METHOD_ARGSIGS),
+                    Integer.parseInt(methodId));
+            } catch (NumberFormatException e) {
+                // 忽略，下次继续协商
+            }
+        }
+    }
+
     /**
      * Get target service name from request
      *
@@ -151,6 +263,7 @@ public class SofaRpcSerialization extends DefaultCustomSerializer {
             byte[] header = requestCommand.getHeader();
             // 解析头部
             Map<String, String> headerMap = mapSerializer.decode(header);
+            restoreMethodFromHeader(headerMap);
             requestCommand.setRequestHeader(headerMap);
             RpcInvokeContext.getContext().put(RpcConstants.SOFA_REQUEST_HEADER_KEY,
                 Collections.unmodifiableMap(headerMap));
@@ -244,6 +357,15 @@ public class SofaRpcSerialization extends DefaultCustomSerializer {
             if (content == null || content.length == 0) {
                 throw new DeserializationException("Content of request is null");
             }
+            if (isUnknownMethodId(headerMap)) {
+                // 不知道是哪个服务，无法解析请求体，只带上请求头交给服务端处理器返回
+                SofaRequest sofaRequest = new SofaRequest();
+                for (Map.Entry<String, String> entry : headerMap.entrySet()) {
+                    sofaRequest.addRequestProp(entry.getKey(), entry.getValue());
+                }
+                requestCommand.setRequestObject(sofaRequest);
+                return true;
+            }
             try {
                 String service = headerMap.get(RemotingConstants.HEAD_SERVICE);
                 ClassLoader oldClassLoader = Thread.currentThread().getContextClassLoader();
@@ -363,6 +485,7 @@ public class SofaRpcSerialization extends DefaultCustomSerializer {
                     (String) invokeContext.get(RemotingConstants.HEAD_METHOD_NAME));
                 putKV(header, RemotingConstants.HEAD_GENERIC_TYPE,
                     (String) invokeContext.get(RemotingConstants.HEAD_GENERIC_TYPE));
+                recordMethodIdFromHeader(header, invokeContext);
 
                 Serializer rpcSerializer = com.alipay.sofa.rpc.codec.SerializerFactory.getSerializer(serializer);
                 rpcSerializer.decode(new ByteArrayWrapperByteBuf(responseCommand.getContent()), sofaResponse, header);
@@ -33,6 +33,15 @@ public class SofaRpcSerializationRegister {
 
     private static volatile AtomicBoolean     registered        = new AtomicBoolean(false);
 
+    /**
+     * 设置服务端按方法编号查找方法的表，没有设置时请求头中的方法编号都当作不认识
+     *
+     * @param methodIdLookup 方法编号查找表
+     */
+    public static void setMethodIdLookup(MethodIdLookup methodIdLookup) {
+        RPC_SERIALIZATION.setMethodIdLookup(methodIdLookup);
+    }
+
     public static void registerCustomSerializer() {
         if (registered.compareAndSet(false, true)) {
             innerRegisterCustomSerializer();
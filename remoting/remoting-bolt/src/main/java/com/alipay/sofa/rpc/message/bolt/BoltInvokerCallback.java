@@ -83,14 +83,15 @@ public class BoltInvokerCallback extends AbstractInvokeCallback {
 
             pickupBaggage(response);
 
+            boolean async = FilterChain.isAsyncCompletion(request);
             // do async filter after respond server
             FilterChain chain = consumerConfig.getConsumerBootstrap().getCluster().getFilterChain();
-            if (chain != null) {
+            if (async && chain != null) {
                 chain.onAsyncResponse(consumerConfig, request, response, null);
             }
 
             recordClientElapseTime();
-            if (EventBus.isEnable(ClientEndInvokeEvent.class)) {
+            if (async && EventBus.isEnable(ClientEndInvokeEvent.class)) {
                 EventBus.post(new ClientEndInvokeEvent(request, response, null));
             }
 
@@ -127,14 +128,15 @@ public class BoltInvokerCallback extends AbstractInvokeCallback {
                     request, null, e));
             }
 
+            boolean async = FilterChain.isAsyncCompletion(request);
             // do async filter after respond server
             FilterChain chain = consumerConfig.getConsumerBootstrap().getCluster().getFilterChain();
-            if (chain != null) {
+            if (async && chain != null) {
                 chain.onAsyncResponse(consumerConfig, request, null, e);
             }
 
             recordClientElapseTime();
-            if (EventBus.isEnable(ClientEndInvokeEvent.class)) {
+            if (async && EventBus.isEnable(ClientEndInvokeEvent.class)) {
                 EventBus.post(new ClientEndInvokeEvent(request, null, e));
             }
 
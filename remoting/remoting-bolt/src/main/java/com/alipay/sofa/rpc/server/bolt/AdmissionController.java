@@ -0,0 +1,330 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.server.bolt;
+
+import com.alipay.sofa.rpc.common.RemotingConstants;
+import com.alipay.sofa.rpc.config.ServerConfig;
+import com.alipay.sofa.rpc.event.EventBus;
+import com.alipay.sofa.rpc.event.ServerAdmissionEvent;
+import com.alipay.sofa.rpc.log.Logger;
+import com.alipay.sofa.rpc.log.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于排队延迟的自适应准入控制。<br>
+ * 每个服务统计请求在业务线程池中的排队时间，一个周期内的最小排队时间超过目标值时认为出现了持续排队，
+ * 按比例收缩该服务允许排队的请求数，否则逐步放大。超过限制的请求在提交到线程池时直接拒绝，
+ * 此时请求体还未反序列化，客户端会收到服务端繁忙的响应。<br>
+ * 高优先级的请求不受限制，低优先级的请求只能使用一半的排队额度，客户端通过
+ * {@link com.alipay.sofa.rpc.context.RpcInvokeContext#setPriority(String)} 指定。<br>
+ * 每个调整周期结束时发送 {@link ServerAdmissionEvent}，由监控模块上报排队额度和拒绝数。
+ */
+public class AdmissionController {
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger                           LOGGER    = LoggerFactory
+                                                                        .getLogger(AdmissionController.class);
+
+    /**
+     * 高优先级
+     */
+    public static final String                            HIGH      = RemotingConstants.PRIORITY_HIGH;
+
+    /**
+     * 低优先级
+     */
+    public static final String                            LOW       = RemotingConstants.PRIORITY_LOW;
+
+    /**
+     * 最小排队额度
+     */
+    private static final int                              MIN_LIMIT = 1;
+
+    /**
+     * 服务端配置，用于上报监控，可以为空
+     */
+    private final ServerConfig                            serverConfig;
+
+    /**
+     * 目标排队延迟（纳秒）
+     */
+    private final long                                    target;
+
+    /**
+     * 调整周期（纳秒）
+     */
+    private final long                                    interval;
+
+    /**
+     * 最大排队额度
+     */
+    private final int                                     maxLimit;
+
+    /**
+     * 每个服务的准入状态
+     */
+    private final ConcurrentMap<String, ServiceAdmission> services  = new ConcurrentHashMap<String, ServiceAdmission>();
+
+    /**
+     * 构造函数
+     *
+     * @param target   目标排队延迟（毫秒）
+     * @param interval 调整周期（毫秒）
+     * @param maxLimit 每个服务最多排队的请求数
+     */
+    public AdmissionController(long target, long interval, int maxLimit) {
+        this(null, target, interval, maxLimit);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param serverConfig 服务端配置
+     * @param target       目标排队延迟（毫秒）
+     * @param interval     调整周期（毫秒）
+     * @param maxLimit     每个服务最多排队的请求数
+     */
+    public AdmissionController(ServerConfig serverConfig, long target, long interval, int maxLimit) {
+        this.serverConfig = serverConfig;
+        this.target = TimeUnit.MILLISECONDS.toNanos(target);
+        this.interval = TimeUnit.MILLISECONDS.toNanos(interval);
+        this.maxLimit = Math.max(MIN_LIMIT, maxLimit);
+    }
+
+    /**
+     * 包装业务线程池，提交任务时进行准入判断
+     *
+     * @param service  服务名
+     * @param priority 请求优先级
+     * @param executor 业务线程池
+     * @return 带准入控制的线程池
+     */
+    public Executor wrap(String service, String priority, Executor executor) {
+        return new AdmissionExecutor(getAdmission(service), priority, executor);
+    }
+
+    /**
+     * 得到服务被拒绝的请求数
+     *
+     * @param service 服务名
+     * @return 被拒绝的请求数
+     */
+    public long getShedCount(String service) {
+        ServiceAdmission admission = services.get(service);
+        return admission == null ? 0 : admission.shed.sum();
+    }
+
+    /**
+     * 得到服务当前的排队额度
+     *
+     * @param service 服务名
+     * @return 排队额度
+     */
+    public int getLimit(String service) {
+        ServiceAdmission admission = services.get(service);
+        return admission == null ? maxLimit : admission.limit;
+    }
+
+    /**
+     * 服务下线后清理它的准入状态
+     *
+     * @param service 服务名
+     */
+    public void remove(String service) {
+        services.remove(service);
+    }
+
+    private ServiceAdmission getAdmission(String service) {
+        ServiceAdmission admission = services.get(service);
+        if (admission == null) {
+            ServiceAdmission old = services.putIfAbsent(service, admission = new ServiceAdmission(service));
+            if (old != null) {
+                admission = old;
+            }
+        }
+        return admission;
+    }
+
+    /**
+     * 单个服务的准入状态
+     */
+    private class ServiceAdmission {
+
+        private final String        service;
+
+        /**
+         * 已提交还未开始执行的请求数
+         */
+        private final AtomicInteger queued        = new AtomicInteger();
+
+        /**
+         * 被拒绝的请求数
+         */
+        private final LongAdder     shed          = new LongAdder();
+
+        /**
+         * 上一个周期结束时的拒绝数
+         */
+        private long                reportedShed;
+
+        /**
+         * 当前周期内的最小排队时间
+         */
+        private final AtomicLong    minDelay      = new AtomicLong(Long.MAX_VALUE);
+
+        /**
+         * 当前周期的开始时间
+         */
+        private volatile long       intervalStart;
+
+        /**
+         * 当前的排队额度
+         */
+        private volatile int        limit;
+
+        /**
+         * 是否处于过载状态
+         */
+        private volatile boolean    overloaded;
+
+        ServiceAdmission(String service) {
+            this.service = service;
+            this.limit = maxLimit;
+            this.intervalStart = System.nanoTime();
+        }
+
+        boolean tryAcquire(String priority) {
+            if (HIGH.equals(priority)) {
+                queued.incrementAndGet();
+                return true;
+            }
+            int max = LOW.equals(priority) ? limit / 2 : limit;
+            for (;;) {
+                int current = queued.get();
+                if (current >= max) {
+                    shed.increment();
+                    return false;
+                }
+                if (queued.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            queued.decrementAndGet();
+        }
+
+        void onStart(long delay, long now) {
+            queued.decrementAndGet();
+            for (;;) {
+                long current = minDelay.get();
+                if (delay >= current || minDelay.compareAndSet(current, delay)) {
+                    break;
+                }
+            }
+            if (now - intervalStart >= interval) {
+                adjust(now);
+            }
+        }
+
+        private synchronized void adjust(long now) {
+            if (now - intervalStart < interval) {
+                return;
+            }
+            intervalStart = now;
+            long min = minDelay.getAndSet(Long.MAX_VALUE);
+            if (min != Long.MAX_VALUE) {
+                adjustLimit(min);
+            }
+            long shedCount = shed.sum();
+            if (EventBus.isEnable(ServerAdmissionEvent.class)) {
+                EventBus.post(new ServerAdmissionEvent(serverConfig, service, limit, shedCount - reportedShed,
+                    overloaded));
+            }
+            reportedShed = shedCount;
+        }
+
+        private void adjustLimit(long min) {
+            boolean wasOverloaded = overloaded;
+            if (min > target) {
+                // 出现持续排队，按排队延迟与目标的比例收缩，每次最多收缩一半
+                double ratio = Math.max(0.5d, (double) target / min);
+                limit = Math.max(MIN_LIMIT, (int) (limit * ratio));
+                overloaded = true;
+            } else {
+                limit = Math.min(maxLimit, limit + Math.max(1, limit / 10));
+                overloaded = false;
+            }
+            if (wasOverloaded != overloaded && LOGGER.isWarnEnabled()) {
+                LOGGER.warn("Admission of service " + service + " is " + (overloaded ? "overloaded" : "recovered")
+                    + ", min queueing delay: " + TimeUnit.NANOSECONDS.toMillis(min) + "ms, limit: " + limit
+                    + ", shed: " + shed.sum());
+            }
+        }
+    }
+
+    /**
+     * 带准入控制的线程池
+     */
+    private static class AdmissionExecutor implements Executor {
+
+        private final ServiceAdmission admission;
+
+        private final String           priority;
+
+        private final Executor         executor;
+
+        AdmissionExecutor(ServiceAdmission admission, String priority, Executor executor) {
+            this.admission = admission;
+            this.priority = priority;
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute(final Runnable command) {
+            if (!admission.tryAcquire(priority)) {
+                throw new RejectedExecutionException("Request of " + admission.service
+                    + " is shed by admission control");
+            }
+            final long enqueueTime = System.nanoTime();
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        long now = System.nanoTime();
+                        admission.onStart(now - enqueueTime, now);
+                        command.run();
+                    }
+                });
+            } catch (RuntimeException e) {
+                admission.release();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.server.bolt;
+
+import com.alipay.sofa.rpc.config.ProviderConfig;
+import com.alipay.sofa.rpc.invoke.Invoker;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 服务端分发表：服务注册时预先编译好 服务+方法+参数签名 到调用入口的映射，
+ * 请求处理时不再拼接字符串key查找方法和服务的ClassLoader。
+ * <p>
+ * 每个 服务+方法+参数签名 在本进程内分配一个固定的数字编号，服务重新注册后编号不变，
+ * 请求头中带了编号时可以直接按编号查找。编号从进程随机的起始值开始分配，
+ * 服务端重启后旧的编号基本不会和新的编号冲突。
+ */
+public class BoltDispatchTable {
+
+    /**
+     * 本进程方法编号的起始值
+     */
+    private static final int                            ID_BASE    = new Random().nextInt(1 << 30) + 1;
+
+    /**
+     * 服务+方法+参数签名 --> 方法编号
+     */
+    private static final ConcurrentMap<String, Integer> METHOD_IDS = new ConcurrentHashMap<String, Integer>();
+
+    /**
+     * 方法编号 --> 方法名，下标为 编号-起始值，只增不减
+     */
+    private static volatile MethodKey[]                 methodKeys = new MethodKey[16];
+
+    /**
+     * 服务名 --> 服务入口
+     */
+    private final ConcurrentMap<String, ServiceEntry>   services   = new ConcurrentHashMap<String, ServiceEntry>();
+
+    /**
+     * 方法编号 --> 本Server的方法入口，下标为 编号-起始值
+     */
+    private volatile MethodEntry[]                      methods    = new MethodEntry[16];
+
+    /**
+     * 注册服务，编译它的所有方法
+     *
+     * @param serviceName    服务名（非接口名）
+     * @param providerConfig 服务提供者配置
+     * @param invoker        服务端调用入口
+     * @return 服务入口
+     */
+    public synchronized ServiceEntry register(String serviceName, ProviderConfig providerConfig, Invoker invoker) {
+        unRegister(serviceName);
+        Class<?> proxyClass = providerConfig.getProxyClass();
+        ServiceEntry service = new ServiceEntry(serviceName, providerConfig, invoker, proxyClass.getClassLoader());
+        MethodEntry[] table = methods.clone();
+        for (Method method : proxyClass.getMethods()) {
+            String[] argSigs = getArgSigs(method);
+            if (service.getMethod(method.getName(), argSigs) != null) {
+                continue; // 父接口里的同签名方法
+            }
+            int id = assignId(serviceName, method.getName(), argSigs);
+            int index = id - ID_BASE;
+            if (index >= table.length) {
+                table = Arrays.copyOf(table, Math.max(table.length * 2, index + 1));
+            }
+            MethodEntry entry = new MethodEntry(id, service, method, argSigs);
+            table[index] = entry;
+            service.addMethod(entry);
+        }
+        methods = table;
+        services.put(serviceName, service);
+        return service;
+    }
+
+    /**
+     * 取消注册服务
+     *
+     * @param serviceName 服务名（非接口名）
+     */
+    public synchronized void unRegister(String serviceName) {
+        ServiceEntry service = services.remove(serviceName);
+        if (service == null) {
+            return;
+        }
+        MethodEntry[] table = methods.clone();
+        for (MethodEntry[] overloads : service.methods.values()) {
+            for (MethodEntry entry : overloads) {
+                table[entry.getId() - ID_BASE] = null;
+            }
+        }
+        methods = table;
+    }
+
+    /**
+     * 按服务名查找服务
+     *
+     * @param serviceName 服务名（非接口名）
+     * @return 服务入口，找不到返回null
+     */
+    public ServiceEntry getService(String serviceName) {
+        return serviceName == null ? null : services.get(serviceName);
+    }
+
+    /**
+     * 按方法编号查找方法
+     *
+     * @param methodId 方法编号
+     * @return 方法入口，找不到返回null
+     */
+    public MethodEntry getMethod(int methodId) {
+        MethodEntry[] table = methods;
+        int index = methodId - ID_BASE;
+        return index >= 0 && index < table.length ? table[index] : null;
+    }
+
+    /**
+     * 按方法编号查找方法名，服务取消注册后也能找到，用于还原请求头中省略的服务名和方法名
+     *
+     * @param methodId 方法编号
+     * @return 方法名，编号不是本进程分配的返回null
+     */
+    public static MethodKey getMethodKey(int methodId) {
+        MethodKey[] keys = methodKeys;
+        int index = methodId - ID_BASE;
+        return index >= 0 && index < keys.length ? keys[index] : null;
+    }
+
+    private static int assignId(String serviceName, String methodName, String[] argSigs) {
+        StringBuilder key = new StringBuilder(128).append(serviceName).append('#').append(methodName);
+        for (String argSig : argSigs) {
+            key.append(',').append(argSig);
+        }
+        Integer id = METHOD_IDS.get(key.toString());
+        if (id != null) {
+            return id;
+        }
+        synchronized (BoltDispatchTable.class) {
+            id = METHOD_IDS.get(key.toString());
+            if (id == null) {
+                MethodKey[] keys = methodKeys;
+                int index = METHOD_IDS.size();
+                if (index >= keys.length) {
+                    keys = Arrays.copyOf(keys, keys.length * 2);
+                }
+                id = ID_BASE + index;
+                keys[index] = new MethodKey(id, serviceName, methodName, argSigs);
+                methodKeys = keys;
+                METHOD_IDS.put(key.toString(), id);
+            }
+            return id;
+        }
+    }
+
+    private static String[] getArgSigs(Method method) {
+        Class<?>[] paramTypes = method.getParameterTypes();
+        String[] argSigs = new String[paramTypes.length];
+        for (int i = 0; i < paramTypes.length; i++) {
+            argSigs[i] = paramTypes[i].getName();
+        }
+        return argSigs;
+    }
+
+    /**
+     * 方法编号对应的服务名、方法名和参数签名
+     */
+    public static class MethodKey {
+
+        private final int      id;
+
+        private final String   serviceName;
+
+        private final String   methodName;
+
+        private final String[] argSigs;
+
+        MethodKey(int id, String serviceName, String methodName, String[] argSigs) {
+            this.id = id;
+            this.serviceName = serviceName;
+            this.methodName = methodName;
+            this.argSigs = argSigs;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getServiceName() {
+            return serviceName;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+
+        public String[] getArgSigs() {
+            return argSigs.clone();
+        }
+    }
+
+    /**
+     * 服务入口，持有服务的调用入口、配置和ClassLoader
+     */
+    public static class ServiceEntry {
+
+        private final String                     serviceName;
+
+        private final ProviderConfig             providerConfig;
+
+        private final Invoker                    invoker;
+
+        private final ClassLoader                classLoader;
+
+        /**
+         * 方法名 --> 重载方法，注册完成后只读
+         */
+        private final Map<String, MethodEntry[]> methods = new HashMap<String, MethodEntry[]>();
+
+        ServiceEntry(String serviceName, ProviderConfig providerConfig, Invoker invoker, ClassLoader classLoader) {
+            this.serviceName = serviceName;
+            this.providerConfig = providerConfig;
+            this.invoker = invoker;
+            this.classLoader = classLoader;
+        }
+
+        private void addMethod(MethodEntry entry) {
+            String methodName = entry.getMethod().getName();
+            MethodEntry[] overloads = methods.get(methodName);
+            if (overloads == null) {
+                overloads = new MethodEntry[] { entry };
+            } else {
+                overloads = Arrays.copyOf(overloads, overloads.length + 1);
+                overloads[overloads.length - 1] = entry;
+            }
+            methods.put(methodName, overloads);
+        }
+
+        /**
+         * 按方法名和参数签名查找方法
+         *
+         * @param methodName 方法名
+         * @param argSigs    参数签名
+         * @return 方法入口，找不到返回null
+         */
+        public MethodEntry getMethod(String methodName, String[] argSigs) {
+            MethodEntry[] overloads = methodName == null ? null : methods.get(methodName);
+            if (overloads == null) {
+                return null;
+            }
+            for (MethodEntry entry : overloads) {
+                if (Arrays.equals(entry.argSigs, argSigs)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 得到服务的所有方法
+         *
+         * @return 方法入口列表
+         */
+        public List<MethodEntry> getMethods() {
+            List<MethodEntry> result = new ArrayList<MethodEntry>();
+            for (MethodEntry[] overloads : methods.values()) {
+                result.addAll(Arrays.asList(overloads));
+            }
+            return result;
+        }
+
+        public String getServiceName() {
+            return serviceName;
+        }
+
+        public ProviderConfig getProviderConfig() {
+            return providerConfig;
+        }
+
+        public Invoker getInvoker() {
+            return invoker;
+        }
+
+        public ClassLoader getClassLoader() {
+            return classLoader;
+        }
+    }
+
+    /**
+     * 方法入口，持有方法编号、方法对象和所属服务
+     */
+    public static class MethodEntry {
+
+        private final int          id;
+
+        private final ServiceEntry service;
+
+        private final Method       method;
+
+        private final String[]     argSigs;
+
+        MethodEntry(int id, ServiceEntry service, Method method, String[] argSigs) {
+            this.id = id;
+            this.service = service;
+            this.method = method;
+            this.argSigs = argSigs;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public ServiceEntry getService() {
+            return service;
+        }
+
+        public Method getMethod() {
+            return method;
+        }
+
+        public String[] getArgSigs() {
+            return argSigs.clone();
+        }
+    }
+}
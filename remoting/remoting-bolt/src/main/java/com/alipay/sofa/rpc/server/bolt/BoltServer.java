@@ -19,7 +19,6 @@ package com.alipay.sofa.rpc.server.bolt;
 import com.alipay.remoting.RemotingServer;
 import com.alipay.remoting.rpc.RpcServer;
 import com.alipay.sofa.rpc.common.cache.ReflectCache;
-import com.alipay.sofa.rpc.common.struct.NamedThreadFactory;
 import com.alipay.sofa.rpc.config.ConfigUniqueNameGenerator;
 import com.alipay.sofa.rpc.config.ProviderConfig;
 import com.alipay.sofa.rpc.config.ServerConfig;
@@ -51,7 +50,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Extension("bolt")
 public class BoltServer implements Server {
 
-    private static final Logger    LOGGER     = LoggerFactory.getLogger(BoltServer.class);
+    private static final Logger    LOGGER        = LoggerFactory.getLogger(BoltServer.class);
 
     /**
      * 是否已经启动
@@ -80,7 +79,12 @@ public class BoltServer implements Server {
     /**
      * Invoker列表，接口--> Invoker
      */
-    protected Map<String, Invoker> invokerMap = new ConcurrentHashMap<String, Invoker>();
+    protected Map<String, Invoker> invokerMap    = new ConcurrentHashMap<String, Invoker>();
+
+    /**
+     * 服务端分发表
+     */
+    protected BoltDispatchTable    dispatchTable = new BoltDispatchTable();
 
     @Override
     public void init(ServerConfig serverConfig) {
@@ -91,9 +95,8 @@ public class BoltServer implements Server {
     }
 
     protected ThreadPoolExecutor initThreadPool(ServerConfig serverConfig) {
-        ThreadPoolExecutor threadPool = BusinessPool.initPool(serverConfig);
-        threadPool.setThreadFactory(new NamedThreadFactory(
-            "SEV-BOLT-BIZ-" + serverConfig.getPort(), serverConfig.isDaemon()));
+        ThreadPoolExecutor threadPool = BusinessPool.initPool(serverConfig,
+            "SEV-BOLT-BIZ-" + serverConfig.getPort());
         threadPool.setRejectedExecutionHandler(new SofaRejectedExecutionHandler());
         if (serverConfig.isPreStartCore()) { // 初始化核心线程池
             threadPool.prestartAllCoreThreads();
@@ -179,6 +182,7 @@ public class BoltServer implements Server {
         // 缓存Invoker对象
         String key = ConfigUniqueNameGenerator.getUniqueName(providerConfig);
         invokerMap.put(key, instance);
+        dispatchTable.register(key, providerConfig, instance);
         ReflectCache.registerServiceClassLoader(key, providerConfig.getProxyClass().getClassLoader());
         // 缓存接口的方法
         for (Method m : providerConfig.getProxyClass().getMethods()) {
@@ -191,6 +195,11 @@ public class BoltServer implements Server {
         // 取消缓存Invoker对象
         String key = ConfigUniqueNameGenerator.getUniqueName(providerConfig);
         invokerMap.remove(key);
+        dispatchTable.unRegister(key);
+        AdmissionController admissionController = boltServerProcessor.getAdmissionController();
+        if (admissionController != null) {
+            admissionController.remove(key);
+        }
         cleanReflectCache(providerConfig);
         // 如果最后一个需要关闭，则关闭
         if (closeIfNoEntry && invokerMap.isEmpty()) {
@@ -258,6 +267,15 @@ public class BoltServer implements Server {
         return invokerMap.get(serviceName);
     }
 
+    /**
+     * 得到服务端分发表
+     *
+     * @return 服务端分发表
+     */
+    public BoltDispatchTable getDispatchTable() {
+        return dispatchTable;
+    }
+
     /**
      * Clean Reflect Cache
      * @param providerConfig
@@ -21,11 +21,13 @@ import com.alipay.remoting.BizContext;
 import com.alipay.remoting.InvokeContext;
 import com.alipay.remoting.rpc.protocol.AsyncUserProcessor;
 import com.alipay.remoting.rpc.protocol.UserProcessor;
+import com.alipay.sofa.rpc.codec.bolt.MethodIdLookup;
 import com.alipay.sofa.rpc.codec.bolt.SofaRpcSerializationRegister;
 import com.alipay.sofa.rpc.common.RemotingConstants;
+import com.alipay.sofa.rpc.common.RpcConfigs;
 import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.RpcOptions;
 import com.alipay.sofa.rpc.common.SystemInfo;
-import com.alipay.sofa.rpc.common.cache.ReflectCache;
 import com.alipay.sofa.rpc.common.utils.CommonUtils;
 import com.alipay.sofa.rpc.config.ProviderConfig;
 import com.alipay.sofa.rpc.config.UserThreadPoolManager;
@@ -40,15 +42,12 @@ import com.alipay.sofa.rpc.event.EventBus;
 import com.alipay.sofa.rpc.event.ServerEndHandleEvent;
 import com.alipay.sofa.rpc.event.ServerReceiveEvent;
 import com.alipay.sofa.rpc.event.ServerSendEvent;
-import com.alipay.sofa.rpc.invoke.Invoker;
 import com.alipay.sofa.rpc.log.LogCodes;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
 import com.alipay.sofa.rpc.message.MessageBuilder;
-import com.alipay.sofa.rpc.server.ProviderProxyInvoker;
 import com.alipay.sofa.rpc.server.UserThreadPool;
 
-import java.lang.reflect.Method;
 import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -63,19 +62,37 @@ public class BoltServerProcessor extends AsyncUserProcessor<SofaRequest> {
     /**
      * Logger for this class
      */
-    private static final Logger LOGGER = LoggerFactory.getLogger(BoltServerProcessor.class);
+    private static final Logger       LOGGER = LoggerFactory.getLogger(BoltServerProcessor.class);
 
     /**
      * 提前注册序列化器
      */
     static {
         SofaRpcSerializationRegister.registerCustomSerializer();
+        SofaRpcSerializationRegister.setMethodIdLookup(new MethodIdLookup() {
+            @Override
+            public String getServiceName(int methodId) {
+                BoltDispatchTable.MethodKey key = BoltDispatchTable.getMethodKey(methodId);
+                return key == null ? null : key.getServiceName();
+            }
+
+            @Override
+            public String getMethodName(int methodId) {
+                BoltDispatchTable.MethodKey key = BoltDispatchTable.getMethodKey(methodId);
+                return key == null ? null : key.getMethodName();
+            }
+        });
     }
 
     /**
      * bolt server, which saved invoker map
      */
-    private final BoltServer    boltServer;
+    private final BoltServer          boltServer;
+
+    /**
+     * 自适应准入控制，为空表示不开启
+     */
+    private final AdmissionController admissionController;
 
     /**
      * Construct
@@ -85,6 +102,11 @@ public class BoltServerProcessor extends AsyncUserProcessor<SofaRequest> {
     public BoltServerProcessor(BoltServer boltServer) {
         this.boltServer = boltServer;
         this.executorSelector = new UserThreadPoolSelector(); // 支持自定义业务线程池
+        this.admissionController = RpcConfigs.getBooleanValue(RpcOptions.SERVER_ADMISSION_ENABLE) ?
+            new AdmissionController(boltServer.serverConfig,
+                RpcConfigs.getIntValue(RpcOptions.SERVER_ADMISSION_TARGET),
+                RpcConfigs.getIntValue(RpcOptions.SERVER_ADMISSION_INTERVAL),
+                RpcConfigs.getIntValue(RpcOptions.SERVER_ADMISSION_LIMIT)) : null;
     }
 
     /**
@@ -94,6 +116,10 @@ public class BoltServerProcessor extends AsyncUserProcessor<SofaRequest> {
 
     @Override
     public void handleRequest(BizContext bizCtx, AsyncContext asyncCtx, SofaRequest request) {
+        if (RemotingConstants.METHOD_ID_UNKNOWN.equals(request.getRequestProp(RemotingConstants.HEAD_METHOD_ID))) {
+            replyUnknownMethodId(asyncCtx);
+            return;
+        }
         // RPC内置上下文
         RpcInternalContext context = RpcInternalContext.getContext();
         context.setProviderSide(true);
@@ -143,32 +169,38 @@ public class BoltServerProcessor extends AsyncUserProcessor<SofaRequest> {
                         throwable = clientTimeoutWhenReceiveRequest(appName, serviceName, bizCtx.getRemoteAddress());
                         break invoke;
                     }
-                    // 查找服务
-                    Invoker invoker = boltServer.findInvoker(serviceName);
-                    if (invoker == null) {
+                    // 查找方法，请求头带了方法编号时直接按编号查找
+                    BoltDispatchTable.MethodEntry methodEntry = findMethodById(serviceName, request);
+                    BoltDispatchTable.ServiceEntry service = methodEntry != null ? methodEntry.getService()
+                        : boltServer.getDispatchTable().getService(serviceName);
+                    if (service == null) {
                         throwable = cannotFoundService(appName, serviceName);
                         response = MessageBuilder.buildSofaErrorResponse(throwable.getMessage());
                         break invoke;
                     }
-                    if (invoker instanceof ProviderProxyInvoker) {
-                        providerConfig = ((ProviderProxyInvoker) invoker).getProviderConfig();
-                        // 找到服务后，打印服务的appName
-                        appName = providerConfig != null ? providerConfig.getAppName() : null;
-                    }
-                    // 查找方法
+                    providerConfig = service.getProviderConfig();
+                    // 找到服务后，打印服务的appName
+                    appName = providerConfig != null ? providerConfig.getAppName() : null;
                     String methodName = request.getMethodName();
-                    Method serviceMethod = ReflectCache.getOverloadMethodCache(serviceName, methodName,
-                        request.getMethodArgSigs());
-                    if (serviceMethod == null) {
+                    if (methodEntry == null) {
+                        methodEntry = service.getMethod(methodName, request.getMethodArgSigs());
+                    }
+                    if (methodEntry == null) {
                         throwable = cannotFoundServiceMethod(appName, methodName, serviceName);
                         response = MessageBuilder.buildSofaErrorResponse(throwable.getMessage());
                         break invoke;
                     } else {
-                        request.setMethod(serviceMethod);
+                        request.setMethod(methodEntry.getMethod());
                     }
 
                     // 真正调用
-                    response = doInvoke(serviceName, invoker, request);
+                    response = doInvoke(service, request);
+                    if (response != null && RemotingConstants.METHOD_ID_NEGOTIATE.equals(
+                        request.getRequestProp(RemotingConstants.HEAD_METHOD_ID))) {
+                        // 客户端在协商方法编号，告诉它这个方法的编号
+                        response.addResponseProp(RemotingConstants.HEAD_METHOD_ID,
+                            String.valueOf(methodEntry.getId()));
+                    }
 
                     if (bizCtx.isRequestTimeout()) { // 加上丢弃超时的响应的逻辑
                         throwable = clientTimeoutWhenSendResponse(appName, serviceName, bizCtx.getRemoteAddress());
@@ -216,16 +248,63 @@ public class BoltServerProcessor extends AsyncUserProcessor<SofaRequest> {
         }
     }
 
-    private SofaResponse doInvoke(String serviceName, Invoker invoker, SofaRequest request) throws SofaRpcException {
+    private SofaResponse doInvoke(BoltDispatchTable.ServiceEntry service, SofaRequest request)
+        throws SofaRpcException {
         // 开始调用，先记下当前的ClassLoader
-        ClassLoader rpcCl = Thread.currentThread().getContextClassLoader();
+        Thread thread = Thread.currentThread();
+        ClassLoader rpcCl = thread.getContextClassLoader();
         try {
             // 切换线程的ClassLoader到 服务 自己的ClassLoader
-            ClassLoader serviceCl = ReflectCache.getServiceClassLoader(serviceName);
-            Thread.currentThread().setContextClassLoader(serviceCl);
-            return invoker.invoke(request);
+            thread.setContextClassLoader(service.getClassLoader());
+            return service.getInvoker().invoke(request);
+        } finally {
+            thread.setContextClassLoader(rpcCl);
+        }
+    }
+
+    /**
+     * 按请求头中的方法编号查找方法
+     *
+     * @param serviceName 服务名
+     * @param request     请求
+     * @return 方法入口，没有编号或者编号和服务不匹配时返回null
+     */
+    private BoltDispatchTable.MethodEntry findMethodById(String serviceName, SofaRequest request) {
+        Object methodId = request.getRequestProp(RemotingConstants.HEAD_METHOD_ID);
+        if (!(methodId instanceof String)) {
+            return null;
+        }
+        BoltDispatchTable.MethodEntry methodEntry;
+        try {
+            methodEntry = boltServer.getDispatchTable().getMethod(Integer.parseInt((String) methodId));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (methodEntry == null || !methodEntry.getService().getServiceName().equals(serviceName)
+            || !methodEntry.getMethod().getName().equals(request.getMethodName())) {
+            // 编号已失效，按名字查找
+            return null;
+        }
+        return methodEntry;
+    }
+
+    /**
+     * 请求头中的方法编号不是本进程分配的（例如经过代理发到了别的服务端），请求体也没有解析，
+     * 通知客户端带上完整的服务名和方法名重新发送
+     *
+     * @param asyncCtx 远程返回的通道
+     */
+    private void replyUnknownMethodId(AsyncContext asyncCtx) {
+        try {
+            SofaResponse response = MessageBuilder.buildSofaErrorResponse(
+                "Unknown method id, resend the request with service and method name");
+            response.addResponseProp(RemotingConstants.HEAD_METHOD_ID, RemotingConstants.METHOD_ID_UNKNOWN);
+            asyncCtx.sendResponse(response);
+        } catch (Throwable e) {
+            LOGGER.error(e.getMessage(), e);
         } finally {
-            Thread.currentThread().setContextClassLoader(rpcCl);
+            RpcInvokeContext.removeContext();
+            RpcInternalContext.removeAllContext();
         }
     }
 
@@ -312,7 +391,16 @@ public class BoltServerProcessor extends AsyncUserProcessor<SofaRequest> {
 
     @Override
     public ExecutorSelector getExecutorSelector() {
-        return UserThreadPoolManager.hasUserThread() ? executorSelector : null;
+        return UserThreadPoolManager.hasUserThread() || admissionController != null ? executorSelector : null;
+    }
+
+    /**
+     * 得到自适应准入控制
+     *
+     * @return 自适应准入控制，未开启时为空
+     */
+    public AdmissionController getAdmissionController() {
+        return admissionController;
     }
 
     /**
@@ -334,14 +422,21 @@ public class BoltServerProcessor extends AsyncUserProcessor<SofaRequest> {
                         service = headerMap.get(RemotingConstants.HEAD_TARGET_SERVICE);
                     }
                     if (service != null) {
+                        Executor executor = null;
                         UserThreadPool threadPool = UserThreadPoolManager.getUserThread(service);
                         if (threadPool != null) {
-                            Executor executor = threadPool.getExecutor();
-                            if (executor != null) {
-                                // 存在自定义线程池，且不为空
-                                return executor;
-                            }
+                            // 存在自定义线程池
+                            executor = threadPool.getExecutor();
+                        }
+                        if (executor == null) {
+                            executor = getExecutor();
+                        }
+                        if (admissionController != null) {
+                            // 在反序列化请求体之前进行准入判断，被拒绝时客户端收到服务端繁忙
+                            String priority = headerMap.get(RemotingConstants.HEAD_PRIORITY);
+                            executor = admissionController.wrap(service, priority, executor);
                         }
+                        return executor;
                     }
                 } catch (Exception e) {
                     if (LOGGER.isWarnEnabled()) {
@@ -360,7 +455,7 @@ public class BoltServerProcessor extends AsyncUserProcessor<SofaRequest> {
             return false;
         }
         String timeoutDiscard = parameters.get(RpcConstants.TIMEOUT_DISCARD_IN_SERVER);
-        return Boolean.parseBoolean(parameters.get(timeoutDiscard));
+        return Boolean.parseBoolean(timeoutDiscard);
     }
 
     @Override
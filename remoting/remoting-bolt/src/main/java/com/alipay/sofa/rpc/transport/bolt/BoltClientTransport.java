@@ -35,7 +35,10 @@ import com.alipay.sofa.rpc.common.RemotingConstants;
 import com.alipay.sofa.rpc.common.RpcConfigs;
 import com.alipay.sofa.rpc.common.RpcConstants;
 import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.common.struct.PeakEwma;
 import com.alipay.sofa.rpc.common.utils.ClassLoaderUtils;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.config.RegistryConfig;
 import com.alipay.sofa.rpc.context.RpcInternalContext;
 import com.alipay.sofa.rpc.core.exception.RpcErrorType;
 import com.alipay.sofa.rpc.core.exception.SofaRpcException;
@@ -62,6 +65,8 @@ import com.alipay.sofa.rpc.transport.ClientTransportConfig;
 
 import java.net.InetSocketAddress;
 import java.security.AlgorithmConstraints;
+import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -84,6 +89,19 @@ public class BoltClientTransport extends ClientTransport {
     protected static final boolean               REUSE_CONNECTION  = RpcConfigs.getOrDefaultValue(
                                                                        RpcOptions.TRANSPORT_CONNECTION_REUSE, true);
 
+    /**
+     * 响应时间衰减窗口（毫秒）
+     */
+    protected static final int                   EWMA_DECAY        = RpcConfigs.getOrDefaultValue(
+                                                                       RpcOptions.CONSUMER_LOAD_BALANCER_EWMA_DECAY,
+                                                                       10000);
+
+    /**
+     * 是否协商方法编号
+     */
+    protected static final boolean               METHOD_ID_ENABLE  = RpcConfigs.getOrDefaultValue(
+                                                                       RpcOptions.TRANSPORT_METHOD_ID_ENABLE, false);
+
     /**
      * Connection manager for reuse connection
      *
@@ -109,6 +127,16 @@ public class BoltClientTransport extends ClientTransport {
      */
     protected volatile AtomicInteger             currentRequests   = new AtomicInteger(0);
 
+    /**
+     * 衰减后的响应时间统计
+     */
+    protected final PeakEwma                     responseTime      = new PeakEwma(EWMA_DECAY);
+
+    /**
+     * 是否在同步调用时使用方法编号
+     */
+    protected final boolean                      methodIdEnable;
+
     /**
      * Instant BoltClientTransport
      *
@@ -117,6 +145,28 @@ public class BoltClientTransport extends ClientTransport {
     protected BoltClientTransport(ClientTransportConfig transportConfig) {
         super(transportConfig);
         url = convertProviderToUrl(transportConfig, transportConfig.getProviderInfo());
+        // 多个连接时请求可能发到没有协商过的连接上，只在单连接时使用方法编号
+        methodIdEnable = METHOD_ID_ENABLE && url.getConnNum() == 1 && isDirectConnection(transportConfig);
+    }
+
+    /**
+     * 是否直接连到服务端。经过mesh等代理时，同一个连接上的请求会被转发到不同的服务端，
+     * 而且代理需要按请求头中的服务名转发，不能使用方法编号
+     *
+     * @param transportConfig 客户端配置
+     * @return 是否直连服务端
+     */
+    protected boolean isDirectConnection(ClientTransportConfig transportConfig) {
+        ConsumerConfig consumerConfig = transportConfig.getConsumerConfig();
+        List<RegistryConfig> registryConfigs = consumerConfig == null ? null : consumerConfig.getRegistry();
+        if (registryConfigs != null) {
+            for (RegistryConfig registryConfig : registryConfigs) {
+                if (RpcConstants.REGISTRY_PROTOCOL_MESH.equalsIgnoreCase(registryConfig.getProtocol())) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     /**
@@ -188,6 +238,11 @@ public class BoltClientTransport extends ClientTransport {
         return currentRequests.get();
     }
 
+    @Override
+    public double decayedResponseTime() {
+        return responseTime.get();
+    }
+
     @Override
     public ResponseFuture asyncSend(SofaRequest request, int timeout) throws SofaRpcException {
         checkConnection();
@@ -221,18 +276,18 @@ public class BoltClientTransport extends ClientTransport {
         SofaResponseCallback listener = request.getSofaResponseCallback();
         if (listener != null) {
             // callback调用
-            InvokeCallback callback = new BoltInvokerCallback(transportConfig.getConsumerConfig(),
-                transportConfig.getProviderInfo(), listener, request, rpcContext,
-                ClassLoaderUtils.getCurrentClassLoader());
+            InvokeCallback callback = new ResponseTimeRecordCallback(new BoltInvokerCallback(
+                transportConfig.getConsumerConfig(), transportConfig.getProviderInfo(), listener, request, rpcContext,
+                ClassLoaderUtils.getCurrentClassLoader()));
             // 发起调用
             RPC_CLIENT.invokeWithCallback(url, request, invokeContext, callback, timeoutMillis);
             return null;
         } else {
             // future 转为 callback
             BoltResponseFuture future = new BoltResponseFuture(request, timeoutMillis);
-            InvokeCallback callback = new BoltFutureInvokeCallback(transportConfig.getConsumerConfig(),
-                transportConfig.getProviderInfo(), future, request, rpcContext,
-                ClassLoaderUtils.getCurrentClassLoader());
+            InvokeCallback callback = new ResponseTimeRecordCallback(new BoltFutureInvokeCallback(
+                transportConfig.getConsumerConfig(), transportConfig.getProviderInfo(), future, request, rpcContext,
+                ClassLoaderUtils.getCurrentClassLoader()));
             // 发起调用
             RPC_CLIENT.invokeWithCallback(url, request, invokeContext, callback, timeoutMillis);
             future.setSentTime();
@@ -244,18 +299,27 @@ public class BoltClientTransport extends ClientTransport {
     public SofaResponse syncSend(SofaRequest request, int timeout) throws SofaRpcException {
         checkConnection();
         RpcInternalContext context = RpcInternalContext.getContext();
-        InvokeContext boltInvokeContext = createInvokeContext(request);
+        InvokeContext boltInvokeContext = createSyncInvokeContext(request);
         SofaResponse response = null;
         SofaRpcException throwable = null;
+        long start = System.nanoTime();
         try {
             beforeSend(context, request);
             response = doInvokeSync(request, boltInvokeContext, timeout);
+            if (Boolean.TRUE.equals(boltInvokeContext.get(RemotingConstants.INVOKE_CTX_METHOD_UNKNOWN))) {
+                // 服务端不认识方法编号，此时编号已清空，带上完整的服务名和方法名重新发送一次
+                boltInvokeContext = createSyncInvokeContext(request);
+                response = doInvokeSync(request, boltInvokeContext, timeout);
+            }
             return response;
         } catch (Exception e) { // 其它异常
             throwable = convertToRpcException(e);
             throw throwable;
         } finally {
             afterSend(context, boltInvokeContext, request);
+            if (response != null || throwable instanceof SofaTimeOutException) {
+                recordResponseTime(start);
+            }
             if (EventBus.isEnable(ClientSyncReceiveEvent.class)) {
                 EventBus.post(new ClientSyncReceiveEvent(transportConfig.getConsumerConfig(),
                     transportConfig.getProviderInfo(), request, response, throwable));
@@ -377,6 +441,48 @@ public class BoltClientTransport extends ClientTransport {
         return invokeContext;
     }
 
+    /**
+     * 同步调用的上下文。只有同步调用在服务端不认识方法编号时可以重新发送，所以只在同步调用时使用方法编号
+     *
+     * @param request 请求对象
+     * @return 调用上下文
+     */
+    protected InvokeContext createSyncInvokeContext(SofaRequest request) {
+        InvokeContext invokeContext = createInvokeContext(request);
+        if (methodIdEnable) {
+            putMethodId(request, invokeContext);
+        }
+        return invokeContext;
+    }
+
+    /**
+     * 放入当前连接上协商好的方法编号，还没有协商过的放入0，由服务端在响应中返回编号
+     *
+     * @param request       请求对象
+     * @param invokeContext 调用上下文
+     */
+    protected void putMethodId(SofaRequest request, InvokeContext invokeContext) {
+        Connection connection = fetchConnection();
+        if (connection == null || request.getMethodArgSigs() == null) {
+            return;
+        }
+        MethodIdCache cache = (MethodIdCache) connection.getAttribute(MethodIdCache.CONNECTION_ATTR);
+        if (cache == null) {
+            MethodIdCache newCache = new MethodIdCache();
+            cache = (MethodIdCache) connection.setAttributeIfAbsent(MethodIdCache.CONNECTION_ATTR, newCache);
+            if (cache == null) {
+                cache = newCache;
+            }
+        }
+        int methodId = cache.get(request.getTargetServiceUniqueName(), request.getMethodName(),
+            request.getMethodArgSigs());
+        invokeContext.put(RemotingConstants.HEAD_METHOD_ID, methodId);
+        invokeContext.put(RemotingConstants.INVOKE_CTX_METHOD_ID_CACHE, cache);
+        if (methodId == 0) {
+            invokeContext.put(RemotingConstants.INVOKE_CTX_METHOD_ARGSIGS, request.getMethodArgSigs());
+        }
+    }
+
     /**
      * 调用前设置一些属性
      *
@@ -409,6 +515,48 @@ public class BoltClientTransport extends ClientTransport {
         }
     }
 
+    /**
+     * 记录一次响应时间，只统计收到响应或者超时的调用，连接失败等快速失败不计入
+     *
+     * @param startNanos 发送时间（纳秒）
+     */
+    protected void recordResponseTime(long startNanos) {
+        responseTime.observe((System.nanoTime() - startNanos) / 1000000d);
+    }
+
+    /**
+     * 异步调用时在回调前记录响应时间
+     */
+    protected class ResponseTimeRecordCallback implements InvokeCallback {
+
+        private final InvokeCallback delegate;
+
+        private final long           startNanos = System.nanoTime();
+
+        protected ResponseTimeRecordCallback(InvokeCallback delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onResponse(Object result) {
+            recordResponseTime(startNanos);
+            delegate.onResponse(result);
+        }
+
+        @Override
+        public void onException(Throwable e) {
+            if (e instanceof InvokeTimeoutException) {
+                recordResponseTime(startNanos);
+            }
+            delegate.onException(e);
+        }
+
+        @Override
+        public Executor getExecutor() {
+            return delegate.getExecutor();
+        }
+    }
+
     @Override
     public void receiveRpcResponse(SofaResponse response) {
         throw new UnsupportedOperationException("Not supported");
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.bolt;
+
+import com.alipay.sofa.rpc.codec.bolt.MethodIdRecorder;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 客户端一个连接上协商好的方法编号，挂在bolt连接的属性上，连接重建后重新协商。
+ * <p>
+ * 没有编号的方法请求时带上完整的服务名和方法名并请求服务端返回编号，
+ * 拿到编号后请求头里只放编号。服务端不认识编号时清空缓存，之后重新协商。
+ */
+public class MethodIdCache implements MethodIdRecorder {
+
+    /**
+     * 在bolt连接属性中的key
+     */
+    public static final String                                   CONNECTION_ATTR = "sofaMethodIdCache";
+
+    /**
+     * 服务名 --> 方法名 --> 重载方法的编号
+     */
+    private final ConcurrentMap<String, Map<String, MethodId[]>> ids;
+
+    public MethodIdCache() {
+        this.ids = new ConcurrentHashMap<String, Map<String, MethodId[]>>();
+    }
+
+    /**
+     * 查找方法编号
+     *
+     * @param serviceName 服务名
+     * @param methodName  方法名
+     * @param argSigs     参数签名
+     * @return 方法编号，还没有协商过返回0
+     */
+    public int get(String serviceName, String methodName, String[] argSigs) {
+        Map<String, MethodId[]> methods = serviceName == null ? null : ids.get(serviceName);
+        MethodId[] overloads = methods == null || methodName == null ? null : methods.get(methodName);
+        if (overloads != null) {
+            for (MethodId methodId : overloads) {
+                if (Arrays.equals(methodId.argSigs, argSigs)) {
+                    return methodId.id;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 记录服务端返回的方法编号
+     *
+     * @param serviceName 服务名
+     * @param methodName  方法名
+     * @param argSigs     参数签名
+     * @param id          方法编号
+     */
+    @Override
+    public void put(String serviceName, String methodName, String[] argSigs, int id) {
+        if (serviceName == null || methodName == null || argSigs == null || id <= 0) {
+            return;
+        }
+        Map<String, MethodId[]> methods = ids.get(serviceName);
+        if (methods == null) {
+            methods = new ConcurrentHashMap<String, MethodId[]>();
+            Map<String, MethodId[]> old = ids.putIfAbsent(serviceName, methods);
+            if (old != null) {
+                methods = old;
+            }
+        }
+        synchronized (methods) {
+            MethodId[] overloads = methods.get(methodName);
+            if (overloads == null) {
+                overloads = new MethodId[0];
+            }
+            for (MethodId methodId : overloads) {
+                if (Arrays.equals(methodId.argSigs, argSigs)) {
+                    return;
+                }
+            }
+            overloads = Arrays.copyOf(overloads, overloads.length + 1);
+            overloads[overloads.length - 1] = new MethodId(argSigs.clone(), id);
+            methods.put(methodName, overloads);
+        }
+    }
+
+    /**
+     * 清空协商好的方法编号，服务端不认识编号时调用
+     */
+    @Override
+    public void clear() {
+        ids.clear();
+    }
+
+    private static class MethodId {
+
+        private final String[] argSigs;
+
+        private final int      id;
+
+        MethodId(String[] argSigs, int id) {
+            this.argSigs = argSigs;
+            this.id = id;
+        }
+    }
+}
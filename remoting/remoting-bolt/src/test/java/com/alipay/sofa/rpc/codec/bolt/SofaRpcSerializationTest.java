@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec.bolt;
+
+import com.alipay.remoting.InvokeContext;
+import com.alipay.remoting.rpc.protocol.RpcRequestCommand;
+import com.alipay.sofa.rpc.common.RemotingConstants;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.transport.bolt.MethodIdCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *
+ */
+public class SofaRpcSerializationTest {
+
+    @Test
+    public void testMethodIdHeader() {
+        SofaRpcSerialization serialization = new SofaRpcSerialization();
+        Map<String, String> header = newHeader();
+        serialization.putMethodIdToHeader(null, header);
+        Assert.assertEquals(newHeader(), header);
+
+        // 协商中，带上完整的服务名和方法名
+        serialization.putMethodIdToHeader(0, header);
+        Assert.assertEquals("echo:1.0", header.get(RemotingConstants.HEAD_SERVICE));
+        Assert.assertEquals(RemotingConstants.METHOD_ID_NEGOTIATE, header.get(RemotingConstants.HEAD_METHOD_ID));
+
+        // 协商后，只带方法编号
+        final int methodId = 100;
+        header = newHeader();
+        serialization.putMethodIdToHeader(methodId, header);
+        Assert.assertNull(header.get(RemotingConstants.HEAD_SERVICE));
+        Assert.assertNull(header.get(RemotingConstants.HEAD_TARGET_SERVICE));
+        Assert.assertNull(header.get(RemotingConstants.HEAD_METHOD_NAME));
+        Assert.assertEquals("app", header.get(RemotingConstants.HEAD_TARGET_APP));
+
+        // 没有设置查找表时当作不认识
+        Map<String, String> slim = new HashMap<String, String>(header);
+        serialization.restoreMethodFromHeader(slim);
+        Assert.assertTrue(serialization.isUnknownMethodId(slim));
+
+        // 服务端还原
+        serialization.setMethodIdLookup(new MethodIdLookup() {
+            @Override
+            public String getServiceName(int id) {
+                return id == methodId ? "echo:1.0" : null;
+            }
+
+            @Override
+            public String getMethodName(int id) {
+                return id == methodId ? "echo" : null;
+            }
+        });
+        serialization.restoreMethodFromHeader(header);
+        Assert.assertEquals("echo:1.0", header.get(RemotingConstants.HEAD_SERVICE));
+        Assert.assertEquals("echo:1.0", header.get(RemotingConstants.HEAD_TARGET_SERVICE));
+        Assert.assertEquals("echo", header.get(RemotingConstants.HEAD_METHOD_NAME));
+
+        // 无法识别的编号标记为不认识
+        header = new HashMap<String, String>();
+        header.put(RemotingConstants.HEAD_METHOD_ID, "abc");
+        serialization.restoreMethodFromHeader(header);
+        Assert.assertEquals(1, header.size());
+        Assert.assertTrue(serialization.isUnknownMethodId(header));
+        header.put(RemotingConstants.HEAD_METHOD_ID, String.valueOf(Integer.MAX_VALUE));
+        serialization.restoreMethodFromHeader(header);
+        Assert.assertEquals(1, header.size());
+        Assert.assertTrue(serialization.isUnknownMethodId(header));
+
+        // 带了服务名的不处理
+        header = newHeader();
+        header.put(RemotingConstants.HEAD_METHOD_ID, String.valueOf(Integer.MAX_VALUE));
+        serialization.restoreMethodFromHeader(header);
+        Assert.assertFalse(serialization.isUnknownMethodId(header));
+    }
+
+    @Test
+    public void testUnknownMethodIdContent() throws Exception {
+        SofaRpcSerialization serialization = new SofaRpcSerialization();
+        Map<String, String> header = new HashMap<String, String>();
+        header.put(RemotingConstants.HEAD_METHOD_ID, RemotingConstants.METHOD_ID_UNKNOWN);
+        header.put(RemotingConstants.HEAD_TARGET_APP, "app");
+        RpcRequestCommand requestCommand = new RpcRequestCommand();
+        requestCommand.setRequestHeader(header);
+        requestCommand.setContent(new byte[] { 1, 2, 3 });
+
+        // 不解析请求体，只带上请求头
+        Assert.assertTrue(serialization.deserializeContent(requestCommand));
+        SofaRequest request = (SofaRequest) requestCommand.getRequestObject();
+        Assert.assertNull(request.getTargetServiceUniqueName());
+        Assert.assertEquals(RemotingConstants.METHOD_ID_UNKNOWN,
+            request.getRequestProp(RemotingConstants.HEAD_METHOD_ID));
+        Assert.assertEquals("app", request.getRequestProp(RemotingConstants.HEAD_TARGET_APP));
+    }
+
+    @Test
+    public void testMethodIdHeaderSize() throws Exception {
+        String service = "com.alipay.sofa.rpc.test.HelloService:1.0";
+        Map<String, String> header = new HashMap<String, String>();
+        header.put(RemotingConstants.HEAD_SERVICE, service);
+        header.put(RemotingConstants.HEAD_TARGET_SERVICE, service);
+        header.put(RemotingConstants.HEAD_METHOD_NAME, "sayHello");
+        header.put(RemotingConstants.HEAD_TARGET_APP, "app");
+        SimpleMapSerializer mapSerializer = new SimpleMapSerializer();
+        int fullSize = mapSerializer.encode(header).length;
+
+        int methodId = 123456789;
+        new SofaRpcSerialization().putMethodIdToHeader(methodId, header);
+        int slimSize = mapSerializer.encode(header).length;
+
+        // 每个键值对是 4字节长度+键 4字节长度+值，去掉三个名字，加上一个编号
+        int removed = (8 + RemotingConstants.HEAD_SERVICE.length() + service.length())
+            + (8 + RemotingConstants.HEAD_TARGET_SERVICE.length() + service.length())
+            + (8 + RemotingConstants.HEAD_METHOD_NAME.length() + "sayHello".length());
+        int added = 8 + RemotingConstants.HEAD_METHOD_ID.length() + String.valueOf(methodId).length();
+        Assert.assertEquals(removed - added, fullSize - slimSize);
+        Assert.assertEquals(130, fullSize - slimSize);
+    }
+
+    @Test
+    public void testRecordMethodId() {
+        SofaRpcSerialization serialization = new SofaRpcSerialization();
+        MethodIdCache cache = new MethodIdCache();
+        InvokeContext invokeContext = new InvokeContext();
+        invokeContext.put(RemotingConstants.HEAD_TARGET_SERVICE, "echo:1.0");
+        invokeContext.put(RemotingConstants.HEAD_METHOD_NAME, "echo");
+        invokeContext.put(RemotingConstants.INVOKE_CTX_METHOD_ARGSIGS, new String[] { "int" });
+
+        Map<String, String> header = new HashMap<String, String>();
+        header.put(RemotingConstants.HEAD_METHOD_ID, "100");
+        serialization.recordMethodIdFromHeader(header, invokeContext);
+        Assert.assertEquals(0, cache.get("echo:1.0", "echo", new String[] { "int" }));
+
+        invokeContext.put(RemotingConstants.INVOKE_CTX_METHOD_ID_CACHE, cache);
+        serialization.recordMethodIdFromHeader(header, invokeContext);
+        Assert.assertEquals(100, cache.get("echo:1.0", "echo", new String[] { "int" }));
+        Assert.assertNull(invokeContext.get(RemotingConstants.INVOKE_CTX_METHOD_UNKNOWN));
+
+        // 服务端不认识编号，清空编号并标记需要重发
+        header.put(RemotingConstants.HEAD_METHOD_ID, RemotingConstants.METHOD_ID_UNKNOWN);
+        serialization.recordMethodIdFromHeader(header, invokeContext);
+        Assert.assertEquals(0, cache.get("echo:1.0", "echo", new String[] { "int" }));
+        Assert.assertEquals(Boolean.TRUE, invokeContext.get(RemotingConstants.INVOKE_CTX_METHOD_UNKNOWN));
+    }
+
+    private Map<String, String> newHeader() {
+        Map<String, String> header = new HashMap<String, String>();
+        header.put(RemotingConstants.HEAD_SERVICE, "echo:1.0");
+        header.put(RemotingConstants.HEAD_TARGET_SERVICE, "echo:1.0");
+        header.put(RemotingConstants.HEAD_METHOD_NAME, "echo");
+        header.put(RemotingConstants.HEAD_TARGET_APP, "app");
+        return header;
+    }
+}
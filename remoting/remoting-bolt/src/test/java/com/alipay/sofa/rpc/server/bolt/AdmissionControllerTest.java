@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.server.bolt;
+
+import com.alipay.sofa.rpc.config.ServerConfig;
+import com.alipay.sofa.rpc.event.Event;
+import com.alipay.sofa.rpc.event.EventBus;
+import com.alipay.sofa.rpc.event.ServerAdmissionEvent;
+import com.alipay.sofa.rpc.event.Subscriber;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 测试排队额度的限制和调整、优先级以及调整周期结束时上报的事件
+ */
+public class AdmissionControllerTest {
+
+    private static final Runnable NOOP = new Runnable() {
+                                           @Override
+                                           public void run() {
+                                           }
+                                       };
+
+    @Test
+    public void testLimit() {
+        AdmissionController controller = new AdmissionController(5, 100, 2);
+        QueueExecutor queue = new QueueExecutor();
+        Executor executor = controller.wrap("service", null, queue);
+        executor.execute(NOOP);
+        executor.execute(NOOP);
+        Assert.assertFalse(submit(executor));
+        // 低优先级只能使用一半的额度
+        Assert.assertFalse(submit(controller.wrap("service", AdmissionController.LOW, queue)));
+        // 高优先级不受限制
+        Assert.assertTrue(submit(controller.wrap("service", AdmissionController.HIGH, queue)));
+        Assert.assertEquals(2, controller.getShedCount("service"));
+        Assert.assertEquals(0, controller.getShedCount("other"));
+
+        queue.runAll();
+        Assert.assertTrue(submit(executor));
+    }
+
+    @Test
+    public void testAdjust() throws InterruptedException {
+        AdmissionController controller = new AdmissionController(1, 10, 100);
+        QueueExecutor queue = new QueueExecutor();
+        Executor executor = controller.wrap("service", null, queue);
+        // 持续排队，额度收缩
+        for (int i = 0; i < 3; i++) {
+            executor.execute(NOOP);
+            Thread.sleep(15);
+            queue.runAll();
+        }
+        int limit = controller.getLimit("service");
+        Assert.assertTrue(limit < 100);
+
+        // 不再排队，额度恢复
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(15);
+            executor.execute(NOOP);
+            queue.runAll();
+        }
+        Assert.assertTrue(controller.getLimit("service") > limit);
+    }
+
+    @Test
+    public void testRejectedByDelegate() {
+        AdmissionController controller = new AdmissionController(5, 100, 1);
+        Executor executor = controller.wrap("service", null, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+        Assert.assertFalse(submit(executor));
+        Assert.assertFalse(submit(executor));
+        // 线程池拒绝时释放额度，不计入准入拒绝
+        Assert.assertEquals(0, controller.getShedCount("service"));
+    }
+
+    @Test
+    public void testAdmissionEvent() throws InterruptedException {
+        final List<ServerAdmissionEvent> events = new ArrayList<ServerAdmissionEvent>();
+        Subscriber subscriber = new Subscriber() {
+            @Override
+            public void onEvent(Event event) {
+                events.add((ServerAdmissionEvent) event);
+            }
+        };
+        EventBus.register(ServerAdmissionEvent.class, subscriber);
+        try {
+            ServerConfig serverConfig = new ServerConfig();
+            AdmissionController controller = new AdmissionController(serverConfig, 1, 10, 1);
+            QueueExecutor queue = new QueueExecutor();
+            Executor executor = controller.wrap("service", null, queue);
+            executor.execute(NOOP);
+            Assert.assertFalse(submit(executor));
+            Assert.assertFalse(submit(executor));
+            Thread.sleep(15);
+            queue.runAll();
+
+            Assert.assertEquals(1, events.size());
+            ServerAdmissionEvent event = events.get(0);
+            Assert.assertSame(serverConfig, event.getServerConfig());
+            Assert.assertEquals("service", event.getService());
+            Assert.assertEquals(1, event.getLimit());
+            Assert.assertEquals(2, event.getShedCount());
+            Assert.assertTrue(event.isOverloaded());
+
+            // 只上报本周期内的拒绝数
+            executor.execute(NOOP);
+            Thread.sleep(15);
+            queue.runAll();
+            Assert.assertEquals(2, events.size());
+            Assert.assertEquals(0, events.get(1).getShedCount());
+        } finally {
+            EventBus.unRegister(ServerAdmissionEvent.class, subscriber);
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        AdmissionController controller = new AdmissionController(5, 100, 1);
+        QueueExecutor queue = new QueueExecutor();
+        controller.wrap("service", null, queue).execute(NOOP);
+        Assert.assertFalse(submit(controller.wrap("service", null, queue)));
+        Assert.assertEquals(1, controller.getShedCount("service"));
+
+        controller.remove("service");
+        Assert.assertEquals(0, controller.getShedCount("service"));
+        Assert.assertTrue(submit(controller.wrap("service", null, queue)));
+    }
+
+    private boolean submit(Executor executor) {
+        try {
+            executor.execute(NOOP);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private static class QueueExecutor implements Executor {
+
+        private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            tasks.clear();
+        }
+    }
+}
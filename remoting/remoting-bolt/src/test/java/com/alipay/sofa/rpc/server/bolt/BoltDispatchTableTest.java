@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.server.bolt;
+
+import com.alipay.sofa.rpc.config.ProviderConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class BoltDispatchTableTest {
+
+    @Test
+    public void testRegister() {
+        BoltDispatchTable table = new BoltDispatchTable();
+        ProviderConfig<EchoService> providerConfig = new ProviderConfig<EchoService>()
+            .setInterfaceId(EchoService.class.getName());
+        BoltDispatchTable.ServiceEntry service = table.register("echo:1.0", providerConfig, null);
+
+        Assert.assertSame(service, table.getService("echo:1.0"));
+        Assert.assertNull(table.getService("other:1.0"));
+        Assert.assertNull(table.getService(null));
+        Assert.assertSame(EchoService.class.getClassLoader(), service.getClassLoader());
+        Assert.assertEquals(3, service.getMethods().size());
+
+        BoltDispatchTable.MethodEntry echo = service.getMethod("echo", new String[] { "java.lang.String" });
+        BoltDispatchTable.MethodEntry echoInt = service.getMethod("echo", new String[] { "int" });
+        BoltDispatchTable.MethodEntry echoArray = service.getMethod("echoArray",
+            new String[] { "[Ljava.lang.String;" });
+        Assert.assertNotNull(echo);
+        Assert.assertNotNull(echoInt);
+        Assert.assertNotNull(echoArray);
+        Assert.assertEquals(int.class, echoInt.getMethod().getParameterTypes()[0]);
+        Assert.assertNull(service.getMethod("echo", new String[] { "long" }));
+        Assert.assertNull(service.getMethod("echo", new String[0]));
+        Assert.assertNull(service.getMethod("none", new String[0]));
+
+        Assert.assertSame(echo, table.getMethod(echo.getId()));
+        Assert.assertSame(echoArray, table.getMethod(echoArray.getId()));
+        Assert.assertNull(table.getMethod(0));
+        Assert.assertNull(table.getMethod(-1));
+        Assert.assertNull(table.getMethod(echo.getId() + 100000));
+        Assert.assertNull(BoltDispatchTable.getMethodKey(0));
+    }
+
+    @Test
+    public void testUnRegister() {
+        BoltDispatchTable table = new BoltDispatchTable();
+        ProviderConfig<EchoService> providerConfig = new ProviderConfig<EchoService>()
+            .setInterfaceId(EchoService.class.getName());
+        BoltDispatchTable.ServiceEntry service = table.register("echo:1.0", providerConfig, null);
+        int oldId = service.getMethod("echo", new String[] { "int" }).getId();
+
+        table.unRegister("echo:1.0");
+        Assert.assertNull(table.getService("echo:1.0"));
+        Assert.assertNull(table.getMethod(oldId));
+
+        // 取消注册后方法名仍然可以按编号找到
+        BoltDispatchTable.MethodKey key = BoltDispatchTable.getMethodKey(oldId);
+        Assert.assertEquals("echo:1.0", key.getServiceName());
+        Assert.assertEquals("echo", key.getMethodName());
+        Assert.assertArrayEquals(new String[] { "int" }, key.getArgSigs());
+
+        // 重新注册后编号不变
+        service = table.register("echo:1.0", providerConfig, null);
+        Assert.assertEquals(oldId, service.getMethod("echo", new String[] { "int" }).getId());
+        Assert.assertSame(service, table.getMethod(oldId).getService());
+
+        // 其它Server注册同一个服务，编号相同
+        BoltDispatchTable other = new BoltDispatchTable();
+        other.register("echo:1.0", providerConfig, null);
+        Assert.assertEquals(oldId, other.getMethod(oldId).getId());
+        Assert.assertNotSame(table.getMethod(oldId), other.getMethod(oldId));
+
+        for (int i = 0; i < 10; i++) {
+            table.register("echo:" + i, providerConfig, null);
+        }
+        BoltDispatchTable.MethodEntry last = table.getService("echo:9").getMethod("echoArray",
+            new String[] { "[Ljava.lang.String;" });
+        Assert.assertSame(last, table.getMethod(last.getId()));
+    }
+
+    public interface EchoService {
+
+        String echo(String s);
+
+        int echo(int i);
+
+        String[] echoArray(String[] s);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.bolt;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class MethodIdCacheTest {
+
+    @Test
+    public void testGetAndPut() {
+        MethodIdCache cache = new MethodIdCache();
+        String[] intSigs = new String[] { "int" };
+        String[] stringSigs = new String[] { "java.lang.String" };
+        Assert.assertEquals(0, cache.get("echo:1.0", "echo", intSigs));
+
+        cache.put("echo:1.0", "echo", intSigs, 11);
+        cache.put("echo:1.0", "echo", stringSigs, 12);
+        cache.put("echo:1.0", "echo", stringSigs, 13);
+        Assert.assertEquals(11, cache.get("echo:1.0", "echo", new String[] { "int" }));
+        Assert.assertEquals(12, cache.get("echo:1.0", "echo", stringSigs));
+        Assert.assertEquals(0, cache.get("echo:1.0", "echo", new String[0]));
+        Assert.assertEquals(0, cache.get("echo:1.0", "other", intSigs));
+        Assert.assertEquals(0, cache.get("other:1.0", "echo", intSigs));
+        Assert.assertEquals(0, cache.get(null, null, null));
+
+        // 修改传入的参数签名不影响缓存
+        intSigs[0] = "long";
+        Assert.assertEquals(11, cache.get("echo:1.0", "echo", new String[] { "int" }));
+
+        cache.put("echo:1.0", "echo", new String[] { "long" }, 0);
+        cache.put(null, "echo", new String[] { "long" }, 14);
+        Assert.assertEquals(0, cache.get("echo:1.0", "echo", new String[] { "long" }));
+
+        cache.clear();
+        Assert.assertEquals(0, cache.get("echo:1.0", "echo", new String[] { "int" }));
+        cache.put("echo:1.0", "echo", new String[] { "int" }, 15);
+        Assert.assertEquals(15, cache.get("echo:1.0", "echo", new String[] { "int" }));
+    }
+}
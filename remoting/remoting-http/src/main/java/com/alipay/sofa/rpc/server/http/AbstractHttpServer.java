@@ -17,7 +17,6 @@
 package com.alipay.sofa.rpc.server.http;
 
 import com.alipay.sofa.rpc.common.cache.ReflectCache;
-import com.alipay.sofa.rpc.common.struct.NamedThreadFactory;
 import com.alipay.sofa.rpc.common.utils.ClassTypeUtils;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.config.ProviderConfig;
@@ -97,9 +96,8 @@ public abstract class AbstractHttpServer implements Server {
     }
 
     protected ThreadPoolExecutor initThreadPool(ServerConfig serverConfig) {
-        ThreadPoolExecutor threadPool = BusinessPool.initPool(serverConfig);
-        threadPool.setThreadFactory(new NamedThreadFactory("SEV-" + serverConfig.getProtocol().toUpperCase()
-            + "-BIZ-" + serverConfig.getPort(), serverConfig.isDaemon()));
+        ThreadPoolExecutor threadPool = BusinessPool.initPool(serverConfig, "SEV-"
+            + serverConfig.getProtocol().toUpperCase() + "-BIZ-" + serverConfig.getPort());
         threadPool.setRejectedExecutionHandler(new SofaRejectedExecutionHandler());
         if (serverConfig.isPreStartCore()) { // 初始化核心线程池
             threadPool.prestartAllCoreThreads();
@@ -16,20 +16,27 @@
  */
 package com.alipay.sofa.rpc.server.rest;
 
+import com.alipay.sofa.rpc.common.RpcConfigs;
 import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.RpcOptions;
 import com.alipay.sofa.rpc.common.utils.CommonUtils;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.config.JAXRSProviderManager;
 import com.alipay.sofa.rpc.config.ProviderConfig;
 import com.alipay.sofa.rpc.config.ServerConfig;
 import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
+import com.alipay.sofa.rpc.event.EventBus;
+import com.alipay.sofa.rpc.event.ServerStartedEvent;
+import com.alipay.sofa.rpc.event.ServerStoppedEvent;
 import com.alipay.sofa.rpc.ext.Extension;
 import com.alipay.sofa.rpc.invoke.Invoker;
 import com.alipay.sofa.rpc.log.LogCodes;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
 import com.alipay.sofa.rpc.proxy.ProxyFactory;
+import com.alipay.sofa.rpc.server.BusinessPool;
 import com.alipay.sofa.rpc.server.Server;
+import com.alipay.sofa.rpc.server.SofaRejectedExecutionHandler;
 import org.jboss.resteasy.plugins.interceptors.CorsFilter;
 import org.jboss.resteasy.spi.PropertyInjector;
 import org.jboss.resteasy.spi.ResteasyDeployment;
@@ -37,6 +44,7 @@ import org.jboss.resteasy.spi.ResteasyProviderFactory;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -72,6 +80,11 @@ public class RestServer implements Server {
      */
     protected AtomicInteger        invokerCnt = new AtomicInteger();
 
+    /**
+     * 业务线程池，开启 server.rest.bizPool 时使用
+     */
+    protected ThreadPoolExecutor   bizThreadPool;
+
     @Override
     public void init(ServerConfig serverConfig) {
         this.serverConfig = serverConfig;
@@ -158,6 +171,10 @@ public class RestServer implements Server {
             }
             // 绑定到端口
             try {
+                if (RpcConfigs.getBooleanValue(RpcOptions.SERVER_REST_BIZ_POOL)) {
+                    bizThreadPool = initThreadPool(serverConfig);
+                    httpServer.setBizThreadPool(bizThreadPool);
+                }
                 httpServer.start();
                 if (LOGGER.isInfoEnabled()) {
                     LOGGER.info("Start the http rest server at port {}", serverConfig.getPort());
@@ -169,9 +186,22 @@ public class RestServer implements Server {
                     serverConfig.getPort()), e);
             }
             started = true;
+            if (bizThreadPool != null && EventBus.isEnable(ServerStartedEvent.class)) {
+                EventBus.post(new ServerStartedEvent(serverConfig, bizThreadPool));
+            }
         }
     }
 
+    protected ThreadPoolExecutor initThreadPool(ServerConfig serverConfig) {
+        ThreadPoolExecutor threadPool = BusinessPool.initPool(serverConfig,
+            "SEV-REST-BIZ-" + serverConfig.getPort());
+        threadPool.setRejectedExecutionHandler(new SofaRejectedExecutionHandler());
+        if (serverConfig.isPreStartCore()) { // 初始化核心线程池
+            threadPool.prestartAllCoreThreads();
+        }
+        return threadPool;
+    }
+
     @Override
     public boolean isStarted() {
         return started;
@@ -196,6 +226,15 @@ public class RestServer implements Server {
         } catch (Exception e) {
             LOGGER.error(LogCodes.getLog(LogCodes.ERROR_STOP_SERVER_WITH_PORT, serverConfig.getPort()), e);
         }
+        // 业务线程池随端口一起创建，这里一起关闭
+        if (bizThreadPool != null) {
+            bizThreadPool.shutdown();
+            bizThreadPool = null;
+            httpServer.setBizThreadPool(null);
+            if (EventBus.isEnable(ServerStoppedEvent.class)) {
+                EventBus.post(new ServerStoppedEvent(serverConfig));
+            }
+        }
         started = false;
     }
 
@@ -50,6 +50,7 @@ import java.net.InetSocketAddress;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import static org.jboss.resteasy.plugins.server.netty.RestEasyHttpRequestDecoder.Protocol.HTTP;
 import static org.jboss.resteasy.plugins.server.netty.RestEasyHttpRequestDecoder.Protocol.HTTPS;
@@ -80,6 +81,7 @@ public class SofaNettyJaxrsServer implements EmbeddedJaxrsServer {
     private Map<ChannelOption, Object> channelOptions      = Collections.emptyMap();
     private Map<ChannelOption, Object> childChannelOptions = Collections.emptyMap();
     private List<ChannelHandler>       httpChannelHandlers = Collections.emptyList();
+    private ThreadPoolExecutor         bizThreadPool;                                     // CHANGE: 可选使用业务线程池
 
     /**
      * Build SofaNettyJaxrsServer
@@ -126,6 +128,18 @@ public class SofaNettyJaxrsServer implements EmbeddedJaxrsServer {
         this.maxRequestSize = maxRequestSize;
     }
 
+    /**
+     * Set the business thread pool. Requests are handed from the io thread to this pool instead of a separate
+     * event loop group, so a keep-alive connection is not bound to one fixed executor thread. Requests of one
+     * connection are still handled one by one in arrival order; requests decoded together are handled by one
+     * pool task, so a burst of pipelined requests costs one thread hop. Must be set before {@link #start()}.
+     *
+     * @param bizThreadPool business thread pool, null to use the event executor
+     */
+    public void setBizThreadPool(ThreadPoolExecutor bizThreadPool) {
+        this.bizThreadPool = bizThreadPool;
+    }
+
     public String getHostname() {
         return hostname;
     }
@@ -225,8 +239,10 @@ public class SofaNettyJaxrsServer implements EmbeddedJaxrsServer {
         NamedThreadFactory bizFactory = new NamedThreadFactory("SEV-REST-BIZ-" + port, daemon);
         eventLoopGroup = isEpoll ? new EpollEventLoopGroup(ioWorkerCount, ioFactory)
             : new NioEventLoopGroup(ioWorkerCount, ioFactory);
-        eventExecutor = isEpoll ? new EpollEventLoopGroup(executorThreadCount, bizFactory)
-            : new NioEventLoopGroup(executorThreadCount, bizFactory);
+        if (bizThreadPool == null) {
+            eventExecutor = isEpoll ? new EpollEventLoopGroup(executorThreadCount, bizFactory)
+                : new NioEventLoopGroup(executorThreadCount, bizFactory);
+        }
         // Configure the server.
         bootstrap = new ServerBootstrap()
             .group(eventLoopGroup)
@@ -285,14 +301,22 @@ public class SofaNettyJaxrsServer implements EmbeddedJaxrsServer {
         channelPipeline.addLast(httpChannelHandlers.toArray(new ChannelHandler[httpChannelHandlers.size()]));
         channelPipeline.addLast(new RestEasyHttpRequestDecoder(dispatcher.getDispatcher(), root, protocol));
         channelPipeline.addLast(new RestEasyHttpResponseEncoder());
-        channelPipeline.addLast(eventExecutor, new SofaRestRequestHandler(dispatcher)); // CHANGE: 用sofa的处理类
+        if (bizThreadPool != null) {
+            // CHANGE: 在io线程上直接转交业务线程池
+            channelPipeline.addLast(new SofaRestRequestHandler(dispatcher, bizThreadPool));
+        } else {
+            channelPipeline.addLast(eventExecutor, new SofaRestRequestHandler(dispatcher)); // CHANGE: 用sofa的处理类
+        }
     }
 
     @Override
     public void stop() {
         try {
             eventLoopGroup.shutdownGracefully().sync();
-            eventExecutor.shutdownGracefully().sync();
+            if (eventExecutor != null) {
+                eventExecutor.shutdownGracefully().sync();
+                eventExecutor = null;
+            }
         } catch (Exception ignore) { // NOPMD
         }
         bootstrap = null;
@@ -31,7 +31,9 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpResponse;
 import org.jboss.resteasy.plugins.server.netty.NettyHttpRequest;
 import org.jboss.resteasy.plugins.server.netty.NettyHttpResponse;
@@ -41,10 +43,18 @@ import sun.rmi.runtime.Log;
 
 import javax.ws.rs.core.HttpHeaders;
 import java.net.InetSocketAddress;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
 import static io.netty.handler.codec.http.HttpResponseStatus.CONTINUE;
 import static io.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
 import static io.netty.handler.codec.http.HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE;
+import static io.netty.handler.codec.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
 /**
@@ -54,85 +64,188 @@ import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
  * @see org.jboss.resteasy.plugins.server.netty.RequestHandler
  */
 public class SofaRestRequestHandler extends SimpleChannelInboundHandler {
-    protected final RequestDispatcher dispatcher;
-    private final static Logger       logger = LoggerFactory.getLogger(SofaRestRequestHandler.class);
+    /**
+     * 每个连接最多积压的请求数，达到后暂停读取，低于后立即恢复
+     */
+    private static final int              MAX_PENDING  = 16;
+    protected final RequestDispatcher     dispatcher;
+    /**
+     * 业务线程池，为空时在当前线程处理
+     */
+    protected final ThreadPoolExecutor    bizThreadPool;
+    /**
+     * 本连接等待业务线程处理的请求，每个连接一个处理器
+     */
+    private final Queue<NettyHttpRequest> pending      = new ConcurrentLinkedQueue<NettyHttpRequest>();
+    /**
+     * 队列中的请求数，ConcurrentLinkedQueue.size() 需要遍历
+     */
+    private final AtomicInteger           pendingCount = new AtomicInteger();
+    /**
+     * 是否有业务线程正在处理本连接的请求
+     */
+    private final AtomicBoolean           draining     = new AtomicBoolean();
+    private final static Logger           logger       = LoggerFactory.getLogger(SofaRestRequestHandler.class);
 
     public SofaRestRequestHandler(RequestDispatcher dispatcher) {
+        this(dispatcher, null);
+    }
+
+    public SofaRestRequestHandler(RequestDispatcher dispatcher, ThreadPoolExecutor bizThreadPool) {
         this.dispatcher = dispatcher;
+        this.bizThreadPool = bizThreadPool;
     }
 
     @Override
-    protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
+    protected void channelRead0(final ChannelHandlerContext ctx, Object msg) throws Exception {
         if (msg instanceof NettyHttpRequest) {
-
-            NettyHttpRequest request = (NettyHttpRequest) msg;
-
-            try {
-                if (EventBus.isEnable(RestServerReceiveEvent.class)) {
-                    EventBus.post(new RestServerReceiveEvent(request));
-                }
-
-                if (request.getUri().getPath().endsWith(RemotingConstants.IGNORE_WEB_BROWSER)) {
-                    HttpResponse response = new DefaultHttpResponse(HTTP_1_1, NOT_FOUND);
-                    ctx.writeAndFlush(response);
-                    return;
+            final NettyHttpRequest request = (NettyHttpRequest) msg;
+            if (bizThreadPool == null) {
+                handleRequest(ctx, request);
+                return;
+            }
+            // 已经解码的请求（例如pipelining一次读到的多个请求）都会走到这里，暂停读取只能限制后续的读，
+            // 所以先按到达顺序入队，同一连接同时只有一个业务线程在处理，保证按顺序响应
+            pending.offer(request);
+            if (pendingCount.incrementAndGet() >= MAX_PENDING) {
+                ctx.channel().config().setAutoRead(false);
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    // 一次提交处理完队列中的所有请求，连续到达的请求只切换一次线程
+                    bizThreadPool.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            drain(ctx);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                    rejectPending(ctx);
                 }
+            }
+        }
+    }
 
-                if (request.is100ContinueExpected()) {
-                    send100Continue(ctx);
+    /**
+     * 在业务线程中依次处理本连接的请求。取出请求后积压低于上限就恢复读取，不等整个队列处理完，
+     * 慢请求只会让同一连接上排在它后面的请求等待它的响应，连接本身可以继续读取
+     *
+     * @param ctx ChannelHandlerContext
+     */
+    private void drain(ChannelHandlerContext ctx) {
+        while (true) {
+            NettyHttpRequest request;
+            while ((request = pending.poll()) != null) {
+                if (pendingCount.decrementAndGet() < MAX_PENDING) {
+                    ctx.channel().config().setAutoRead(true);
                 }
-
-                NettyHttpResponse response = request.getResponse();
-                Exception exception = null;
                 try {
-                    RpcInternalContext context = RpcInternalContext.getContext();
-                    context.setProviderSide(true);
-                    // 获取远程ip 兼容 nignx 转发和 vip 等
-                    HttpHeaders httpHeaders = request.getHttpHeaders();
-                    String remoteIP = httpHeaders.getHeaderString("X-Forwarded-For");
-                    if (remoteIP == null) {
-                        remoteIP = httpHeaders.getHeaderString("X-Real-IP");
-                    }
-                    if (remoteIP != null) {
-                        context.setRemoteAddress(remoteIP, 0);
-                    } else { // request取不到就从channel里取
-                        context.setRemoteAddress((InetSocketAddress) ctx.channel().remoteAddress());
+                    handleRequest(ctx, request);
+                } catch (Throwable e) {
+                    if (ctx.channel().isActive()) { // 连接已断开就不打印了
+                        logger.warn("Exception caught by request handler", e);
                     }
-                    // 设置本地地址
-                    context.setLocalAddress((InetSocketAddress) ctx.channel().localAddress());
-
-                    dispatcher.service(ctx, request, response, true);
-                } catch (Failure e1) {
-                    response.reset();
-                    response.setStatus(e1.getErrorCode());
-                    exception = e1;
-                } catch (Exception ex) {
-                    response.reset();
-                    response.setStatus(500);
-                    logger.error(LogCodes.getLog(LogCodes.ERROR_PROCESS_UNKNOWN), ex); // todo 异常带给用户?
-                    exception = ex;
-                } finally {
-                    if (EventBus.isEnable(RestServerSendEvent.class)) {
-                        EventBus.post(new RestServerSendEvent(request, response, exception));
-                    }
-
-                    RestLookoutAdapter.sendRestServerSendEvent(new RestServerSendEvent(request, response, exception));
+                    ctx.close();
                 }
+            }
+            draining.set(false);
+            // 释放标记后又有请求入队，并且没有被其它线程接手
+            if (pending.isEmpty() || !draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 业务线程池满了，队列中的请求都返回503，连接已断开时只释放请求
+     *
+     * @param ctx ChannelHandlerContext
+     */
+    private void rejectPending(ChannelHandlerContext ctx) {
+        boolean active = ctx.channel().isActive();
+        NettyHttpRequest request;
+        while ((request = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            request.releaseContentBuffer();
+            if (active) {
+                FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, SERVICE_UNAVAILABLE);
+                response.headers().set(CONTENT_LENGTH, 0);
+                ctx.write(response);
+            }
+        }
+        if (active) {
+            ctx.flush();
+            ctx.channel().config().setAutoRead(true);
+        }
+    }
+
+    protected void handleRequest(ChannelHandlerContext ctx, NettyHttpRequest request) throws Exception {
+        try {
+            if (EventBus.isEnable(RestServerReceiveEvent.class)) {
+                EventBus.post(new RestServerReceiveEvent(request));
+            }
+
+            if (request.getUri().getPath().endsWith(RemotingConstants.IGNORE_WEB_BROWSER)) {
+                HttpResponse response = new DefaultHttpResponse(HTTP_1_1, NOT_FOUND);
+                ctx.writeAndFlush(response);
+                return;
+            }
 
-                if (!request.getAsyncContext().isSuspended()) {
-                    response.finish();
+            if (request.is100ContinueExpected()) {
+                send100Continue(ctx);
+            }
+
+            NettyHttpResponse response = request.getResponse();
+            Exception exception = null;
+            try {
+                RpcInternalContext context = RpcInternalContext.getContext();
+                context.setProviderSide(true);
+                // 获取远程ip 兼容 nignx 转发和 vip 等
+                HttpHeaders httpHeaders = request.getHttpHeaders();
+                String remoteIP = httpHeaders.getHeaderString("X-Forwarded-For");
+                if (remoteIP == null) {
+                    remoteIP = httpHeaders.getHeaderString("X-Real-IP");
                 }
+                if (remoteIP != null) {
+                    context.setRemoteAddress(remoteIP, 0);
+                } else { // request取不到就从channel里取
+                    context.setRemoteAddress((InetSocketAddress) ctx.channel().remoteAddress());
+                }
+                // 设置本地地址
+                context.setLocalAddress((InetSocketAddress) ctx.channel().localAddress());
+
+                dispatcher.service(ctx, request, response, true);
+            } catch (Failure e1) {
+                response.reset();
+                response.setStatus(e1.getErrorCode());
+                exception = e1;
+            } catch (Exception ex) {
+                response.reset();
+                response.setStatus(500);
+                logger.error(LogCodes.getLog(LogCodes.ERROR_PROCESS_UNKNOWN), ex); // todo 异常带给用户?
+                exception = ex;
             } finally {
-                /**
-                 * issue: https://github.com/sofastack/sofa-rpc/issues/592
-                 */
-                request.releaseContentBuffer();
-                if (EventBus.isEnable(ServerEndHandleEvent.class)) {
-                    EventBus.post(new ServerEndHandleEvent());
+                if (EventBus.isEnable(RestServerSendEvent.class)) {
+                    EventBus.post(new RestServerSendEvent(request, response, exception));
                 }
-                RpcInvokeContext.removeContext();
-                RpcInternalContext.removeAllContext();
+
+                RestLookoutAdapter.sendRestServerSendEvent(new RestServerSendEvent(request, response, exception));
+            }
+
+            if (!request.getAsyncContext().isSuspended()) {
+                response.finish();
+            }
+        } finally {
+            /**
+             * issue: https://github.com/sofastack/sofa-rpc/issues/592
+             */
+            request.releaseContentBuffer();
+            if (EventBus.isEnable(ServerEndHandleEvent.class)) {
+                EventBus.post(new ServerEndHandleEvent());
             }
+            RpcInvokeContext.removeContext();
+            RpcInternalContext.removeAllContext();
         }
     }
 
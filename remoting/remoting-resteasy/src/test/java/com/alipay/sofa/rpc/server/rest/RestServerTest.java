@@ -17,7 +17,9 @@
 package com.alipay.sofa.rpc.server.rest;
 
 import com.alipay.sofa.rpc.base.Destroyable;
+import com.alipay.sofa.rpc.common.RpcConfigs;
 import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.RpcOptions;
 import com.alipay.sofa.rpc.common.utils.NetUtils;
 import com.alipay.sofa.rpc.config.JAXRSProviderManager;
 import com.alipay.sofa.rpc.config.ServerConfig;
@@ -28,6 +30,7 @@ import org.junit.Test;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * @author <a href="mailto:zhanggeng.zg@antfin.com">GengZhang</a>
@@ -82,6 +85,36 @@ public class RestServerTest {
         });
     }
 
+    @Test
+    public void startWithBizPool() {
+        String host = "127.0.0.1";
+        int port = 18802;
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setBoundHost(host);
+        serverConfig.setPort(port);
+        serverConfig.setProtocol(RpcConstants.PROTOCOL_TYPE_REST);
+
+        RpcConfigs.putValue(RpcOptions.SERVER_REST_BIZ_POOL, true);
+        RestServer server = new RestServer();
+        try {
+            server.init(serverConfig);
+            server.start();
+            Assert.assertTrue(server.started);
+            Assert.assertNotNull(server.bizThreadPool);
+            Assert.assertTrue(NetUtils.canTelnet(host, port, 1000));
+
+            ThreadPoolExecutor bizThreadPool = server.bizThreadPool;
+            server.stop();
+            Assert.assertFalse(server.started);
+            Assert.assertNull(server.bizThreadPool);
+            Assert.assertTrue(bizThreadPool.isShutdown());
+            Assert.assertFalse(NetUtils.canTelnet(host, port, 1000));
+        } finally {
+            RpcConfigs.putValue(RpcOptions.SERVER_REST_BIZ_POOL, false);
+            server.destroy();
+        }
+    }
+
     @Test
     public void startAllowedOrigins() {
         String host = "127.0.0.1";
@@ -49,7 +49,7 @@ public class ClientHeaderClientInterceptor implements ClientInterceptor {
 
     @Override
     public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
-                                                               CallOptions callOptions, Channel next) {
+                                                               final CallOptions callOptions, Channel next) {
         //这里和下面不在一个线程
         if (RpcRunningState.isDebugMode()) {
             LOGGER.info("[1]header send from client:");
@@ -60,10 +60,14 @@ public class ClientHeaderClientInterceptor implements ClientInterceptor {
             @Override
             public void start(Listener<RespT> responseListener, Metadata requestHeader) {
 
-                RpcInvokeContext context = RpcInvokeContext.getContext();
-                SofaRequest sofaRequest = (SofaRequest) context.get(TripleContants.SOFA_REQUEST_KEY);
-
-                ConsumerConfig consumerConfig = (ConsumerConfig) context.get(TripleContants.SOFA_CONSUMER_CONFIG_KEY);
+                // 流式调用可能在订阅时才在其它线程发起，优先从 CallOptions 中获取
+                SofaRequest sofaRequest = callOptions.getOption(TripleContants.SOFA_REQUEST_OPTION);
+                ConsumerConfig consumerConfig = callOptions.getOption(TripleContants.SOFA_CONSUMER_CONFIG_OPTION);
+                if (sofaRequest == null) {
+                    RpcInvokeContext context = RpcInvokeContext.getContext();
+                    sofaRequest = (SofaRequest) context.get(TripleContants.SOFA_REQUEST_KEY);
+                    consumerConfig = (ConsumerConfig) context.get(TripleContants.SOFA_CONSUMER_CONFIG_KEY);
+                }
                 TripleTracerAdapter.beforeSend(sofaRequest, consumerConfig, requestHeader);
                 if (RpcRunningState.isDebugMode()) {
                     LOGGER.info("[2]prepare to send from client:{}", requestHeader);
@@ -28,6 +28,7 @@ import com.alipay.sofa.rpc.tracer.sofatracer.TracingContextKey;
 import com.alipay.sofa.rpc.transport.ByteArrayWrapperByteBuf;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.ProtocolStringList;
+import com.google.protobuf.UnsafeByteOperations;
 import io.grpc.Context;
 import io.grpc.stub.StreamObserver;
 import triple.Request;
@@ -76,7 +77,7 @@ public class GenericServiceImpl extends SofaGenericServiceTriple.GenericServiceI
             Response.Builder builder = Response.newBuilder();
             builder.setSerializeType(request.getSerializeType());
             builder.setType(declaredMethod.getReturnType().getName());
-            builder.setData(ByteString.copyFrom(serializer.encode(result, null).array()));
+            builder.setData(UnsafeByteOperations.unsafeWrap(serializer.encode(result, null).array()));
             Response build = builder.build();
             responseObserver.onNext(build);
             responseObserver.onCompleted();
@@ -16,13 +16,29 @@
  */
 package com.alipay.sofa.rpc.server.triple;
 
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import io.grpc.CallOptions;
+
 /**
  * Created by zhanggeng on 2017/2/13.
  */
 public class TripleContants {
 
-    public static final String SOFA_REQUEST_KEY         = "_SOFA_REQUEST";
+    public static final String                          SOFA_REQUEST_KEY            = "_SOFA_REQUEST";
+
+    public static final String                          SOFA_CONSUMER_CONFIG_KEY    = "_SOFA_CONSUMER_CONFIG";
+
+    /**
+     * 随 CallOptions 传递请求，流式调用可能在其它线程才真正发起，不能依赖线程上下文
+     */
+    public static final CallOptions.Key<SofaRequest>    SOFA_REQUEST_OPTION         = CallOptions.Key.createWithDefault(
+                                                                                      "_SOFA_REQUEST", null);
 
-    public static final String SOFA_CONSUMER_CONFIG_KEY = "_SOFA_CONSUMER_CONFIG";
+    /**
+     * 随 CallOptions 传递服务消费者配置
+     */
+    public static final CallOptions.Key<ConsumerConfig> SOFA_CONSUMER_CONFIG_OPTION = CallOptions.Key.createWithDefault(
+                                                                                      "_SOFA_CONSUMER_CONFIG", null);
 
 }
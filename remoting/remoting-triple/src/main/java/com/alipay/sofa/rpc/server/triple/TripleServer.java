@@ -16,6 +16,8 @@
  */
 package com.alipay.sofa.rpc.server.triple;
 
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
 import com.alipay.sofa.rpc.common.struct.NamedThreadFactory;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.config.ProviderConfig;
@@ -129,13 +131,18 @@ public class TripleServer implements Server {
     public void init(ServerConfig serverConfig) {
         this.serverConfig = serverConfig;
         bizThreadPool = initThreadPool(serverConfig);
-        server = NettyServerBuilder.forPort(serverConfig.getPort()).
+        NettyServerBuilder builder = NettyServerBuilder.forPort(serverConfig.getPort()).
             fallbackHandlerRegistry(handlerRegistry)
             .bossEventLoopGroup(constructBossEventLoopGroup())
             .workerEventLoopGroup(constructWorkerEventLoopGroup())
             .executor(bizThreadPool)
             .channelType(constructChannel())
-            .build();
+            .flowControlWindow(RpcConfigs.getIntValue(RpcOptions.TRIPLE_SERVER_FLOW_CONTROL_WINDOW));
+        int maxConcurrentStreams = RpcConfigs.getIntValue(RpcOptions.TRIPLE_SERVER_MAX_CONCURRENT_STREAMS);
+        if (maxConcurrentStreams > 0) {
+            builder.maxConcurrentCallsPerConnection(maxConcurrentStreams);
+        }
+        server = builder.build();
     }
 
     private Class<? extends ServerChannel> constructChannel() {
@@ -172,9 +179,8 @@ public class TripleServer implements Server {
     }
 
     protected ThreadPoolExecutor initThreadPool(ServerConfig serverConfig) {
-        ThreadPoolExecutor threadPool = BusinessPool.initPool(serverConfig);
-        threadPool.setThreadFactory(new NamedThreadFactory(
-            "SEV-TRIPLE-BIZ-" + serverConfig.getPort(), serverConfig.isDaemon()));
+        ThreadPoolExecutor threadPool = BusinessPool.initPool(serverConfig,
+            "SEV-TRIPLE-BIZ-" + serverConfig.getPort());
         threadPool.setRejectedExecutionHandler(new SofaRejectedExecutionHandler());
         if (serverConfig.isPreStartCore()) { // 初始化核心线程池
             threadPool.prestartAllCoreThreads();
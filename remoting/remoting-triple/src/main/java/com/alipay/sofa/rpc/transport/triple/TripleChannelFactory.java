@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.triple;
+
+import com.alipay.sofa.rpc.base.Destroyable;
+import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.common.struct.NamedThreadFactory;
+import com.alipay.sofa.rpc.context.RpcRuntimeContext;
+import com.alipay.sofa.rpc.log.Logger;
+import com.alipay.sofa.rpc.log.LoggerFactory;
+import com.alipay.sofa.rpc.transport.ClientTransportConfig;
+import io.grpc.ClientInterceptor;
+import io.grpc.ManagedChannel;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.channel.Channel;
+import io.grpc.netty.shaded.io.netty.channel.ChannelOption;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 创建 triple 客户端连接。所有连接共享同一组 IO 线程（linux 下可使用 epoll），
+ * 流控窗口、keepalive 等参数通过 {@link RpcConfigs} 配置，
+ * 每个服务端地址可建立多个 HTTP/2 连接，见 {@link TriplePooledChannel}。
+ */
+public class TripleChannelFactory {
+
+    private final static Logger             LOGGER = LoggerFactory.getLogger(TripleChannelFactory.class);
+
+    /**
+     * 所有 triple 客户端连接共享的 IO 线程
+     */
+    private static volatile EventLoopGroup  eventLoopGroup;
+
+    /**
+     * 与 IO 线程对应的 channel 类型
+     */
+    private static Class<? extends Channel> channelType;
+
+    /**
+     * 创建到服务端的连接，connectionNum 大于 1 时返回连接池
+     *
+     * @param transportConfig 客户端配置
+     * @param providerInfo    服务端
+     * @param interceptors    拦截器
+     * @return ManagedChannel
+     */
+    public static ManagedChannel newChannel(ClientTransportConfig transportConfig, ProviderInfo providerInfo,
+                                            ClientInterceptor... interceptors) {
+        int connectionNum = Math.max(1, transportConfig.getConnectionNum());
+        if (connectionNum == 1) {
+            return newNettyChannel(transportConfig, providerInfo, interceptors);
+        }
+        ManagedChannel[] channels = new ManagedChannel[connectionNum];
+        for (int i = 0; i < connectionNum; i++) {
+            channels[i] = newNettyChannel(transportConfig, providerInfo, interceptors);
+        }
+        return new TriplePooledChannel(channels);
+    }
+
+    private static ManagedChannel newNettyChannel(ClientTransportConfig transportConfig, ProviderInfo providerInfo,
+                                                  ClientInterceptor... interceptors) {
+        EventLoopGroup group = getEventLoopGroup();
+        NettyChannelBuilder builder = NettyChannelBuilder.forAddress(providerInfo.getHost(), providerInfo.getPort());
+        builder.usePlaintext();
+        builder.disableRetry();
+        builder.intercept(interceptors);
+        builder.eventLoopGroup(group);
+        builder.channelType(channelType);
+        builder.withOption(ChannelOption.CONNECT_TIMEOUT_MILLIS, transportConfig.getConnectTimeout());
+        builder.flowControlWindow(RpcConfigs.getIntValue(RpcOptions.TRIPLE_CLIENT_FLOW_CONTROL_WINDOW));
+        builder.maxInboundMessageSize(transportConfig.getPayload());
+        int keepAliveTime = RpcConfigs.getIntValue(RpcOptions.TRIPLE_CLIENT_KEEPALIVE_TIME);
+        if (keepAliveTime > 0) {
+            builder.keepAliveTime(keepAliveTime, TimeUnit.MILLISECONDS);
+            builder.keepAliveTimeout(RpcConfigs.getIntValue(RpcOptions.TRIPLE_CLIENT_KEEPALIVE_TIMEOUT),
+                TimeUnit.MILLISECONDS);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 获取共享的 IO 线程，第一次使用时创建，在 RPC 框架销毁时关闭
+     *
+     * @return EventLoopGroup
+     */
+    static EventLoopGroup getEventLoopGroup() {
+        if (eventLoopGroup == null) {
+            synchronized (TripleChannelFactory.class) {
+                if (eventLoopGroup == null) {
+                    int threads = RpcConfigs.getIntValue(RpcOptions.TRIPLE_CLIENT_IO_THREADS);
+                    threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors() * 2;
+                    NamedThreadFactory threadFactory = new NamedThreadFactory("TRIPLE-CLIENT-WORKER", true);
+                    boolean useEpoll = RpcConfigs.getBooleanValue(RpcOptions.TRANSPORT_USE_EPOLL)
+                        && Epoll.isAvailable();
+                    EventLoopGroup group;
+                    if (useEpoll) {
+                        group = new EpollEventLoopGroup(threads, threadFactory);
+                        channelType = EpollSocketChannel.class;
+                    } else {
+                        group = new NioEventLoopGroup(threads, threadFactory);
+                        channelType = NioSocketChannel.class;
+                    }
+                    RpcRuntimeContext.registryDestroyHook(new Destroyable.DestroyHook() {
+                        @Override
+                        public void preDestroy() {
+                        }
+
+                        @Override
+                        public void postDestroy() {
+                            closeEventLoopGroup();
+                        }
+                    });
+                    eventLoopGroup = group;
+                    if (LOGGER.isInfoEnabled()) {
+                        LOGGER.info("Triple client event loop group created, threads: {}, epoll: {}", threads,
+                            useEpoll);
+                    }
+                }
+            }
+        }
+        return eventLoopGroup;
+    }
+
+    private static void closeEventLoopGroup() {
+        synchronized (TripleChannelFactory.class) {
+            if (eventLoopGroup != null) {
+                eventLoopGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+                eventLoopGroup = null;
+            }
+        }
+    }
+}
@@ -26,19 +26,34 @@ import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
 import com.alipay.sofa.rpc.transport.ByteArrayWrapperByteBuf;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import com.google.protobuf.UnsafeByteOperations;
 import io.grpc.CallOptions;
 import io.grpc.Channel;
 import io.grpc.MethodDescriptor;
+import io.grpc.ServiceDescriptor;
 import io.grpc.stub.ClientCalls;
+import io.grpc.stub.StreamObserver;
 import triple.Request;
 import triple.Response;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import static com.alipay.sofa.rpc.common.RpcConstants.SERIALIZE_HESSIAN2;
 import static com.alipay.sofa.rpc.constant.TripleConstant.TRIPLE_EXPOSE_OLD;
 import static com.alipay.sofa.rpc.constant.TripleConstant.UNIQUE_ID;
+import static com.alipay.sofa.rpc.server.triple.TripleContants.SOFA_CONSUMER_CONFIG_OPTION;
+import static com.alipay.sofa.rpc.server.triple.TripleContants.SOFA_REQUEST_OPTION;
 import static com.alipay.sofa.rpc.utils.SofaProtoUtils.checkIfUseGeneric;
 import static com.alipay.sofa.rpc.utils.SofaProtoUtils.getFullNameWithUniqueId;
 import static io.grpc.MethodDescriptor.generateFullMethodName;
@@ -50,21 +65,53 @@ import static io.grpc.MethodDescriptor.generateFullMethodName;
  * @date 2018.12.15 7:06 PM
  */
 public class TripleClientInvoker implements TripleInvoker {
-    private final static Logger LOGGER                = LoggerFactory.getLogger(TripleClientInvoker.class);
+    private final static Logger                           LOGGER                   = LoggerFactory
+                                                                    .getLogger(TripleClientInvoker.class);
 
-    private final static String DEFAULT_SERIALIZATION = SERIALIZE_HESSIAN2;
+    private final static String                           DEFAULT_SERIALIZATION    = SERIALIZE_HESSIAN2;
 
-    protected Channel           channel;
+    /**
+     * 传给生成的 stub 的流式调用超时时间，相当于不超时
+     */
+    private final static int                              STREAM_TIMEOUT           = Integer.MAX_VALUE;
+
+    protected Channel                                     channel;
+
+    protected ConsumerConfig                              consumerConfig;
+
+    protected Method                                      sofaStub;
+
+    protected boolean                                     useGeneric;
 
-    protected ConsumerConfig    consumerConfig;
+    private Serializer                                    serializer;
+    private String                                        serialization;
+    private boolean                                       useOldPath;
 
-    protected Method            sofaStub;
+    /**
+     * 不含超时时间的调用参数，构造时计算一次
+     */
+    private final CallOptions                             defaultCallOptions;
 
-    protected boolean           useGeneric;
+    /**
+     * 接口方法 -> gRPC 方法描述，stub 方式在构造时解析
+     */
+    private final Map<Method, MethodDescriptor>           methodDescriptors        = new HashMap<>();
 
-    private Serializer          serializer;
-    private String              serialization;
-    private boolean             useOldPath;
+    /**
+     * 接口名#方法名 -> gRPC 方法描述，泛化方式在首次调用时创建。
+     * 泛化调用（例如 $invoke）的 Method 可能对应多个方法名，不能以 Method 为 key
+     */
+    private final ConcurrentMap<String, MethodDescriptor> genericMethodDescriptors = new ConcurrentHashMap<>();
+
+    /**
+     * 流式方法（server/client/bidi streaming），调用时不设置超时时间
+     */
+    private final Set<Method>                             streamMethods            = new HashSet<>();
+
+    /**
+     * 同步方法 -> stub 上对应的异步方法
+     */
+    private final ConcurrentMap<Method, Method>           asyncMethodCache         = new ConcurrentHashMap<>();
 
     public TripleClientInvoker(ConsumerConfig consumerConfig, Channel channel) {
         this.channel = channel;
@@ -73,17 +120,101 @@ public class TripleClientInvoker implements TripleInvoker {
         //default false
         useOldPath = Boolean.parseBoolean(consumerConfig.getParameter(TRIPLE_EXPOSE_OLD));
         cacheCommonData(consumerConfig);
+        defaultCallOptions = buildDefaultCallOptions();
 
         if (!useGeneric) {
             Class enclosingClass = consumerConfig.getProxyClass().getEnclosingClass();
             try {
                 sofaStub = enclosingClass.getDeclaredMethod("getSofaStub", Channel.class, CallOptions.class, int.class);
+                cacheStubMethodDescriptors(consumerConfig.getProxyClass(), sofaStub.getReturnType());
             } catch (NoSuchMethodException e) {
                 LOGGER.error("getSofaStub not found in enclosingClass" + enclosingClass.getName());
             }
         }
     }
 
+    /**
+     * 解析 stub 对应的 gRPC 服务描述，缓存每个 unary 同步方法的 MethodDescriptor，
+     * 调用时直接通过 ClientCalls 发起请求，无需每次反射创建 stub。
+     * 解析失败时退回到 stub 调用。同时记录哪些方法是流式方法。
+     *
+     * @param proxyClass 接口类
+     * @param stubClass  SofaXxxStub、ReactorSofaXxxStub 或 RxSofaXxxStub 类
+     */
+    private void cacheStubMethodDescriptors(Class<?> proxyClass, Class<?> stubClass) {
+        ServiceDescriptor serviceDescriptor = getServiceDescriptor(stubClass);
+        if (serviceDescriptor == null) {
+            LOGGER.warn("Failed to resolve service descriptor of " + stubClass.getName() + ", fallback to stub");
+            return;
+        }
+        Map<String, MethodDescriptor> unaryMethods = new HashMap<String, MethodDescriptor>();
+        Set<String> streamMethodNames = new HashSet<String>();
+        for (MethodDescriptor<?, ?> descriptor : serviceDescriptor.getMethods()) {
+            String fullMethodName = descriptor.getFullMethodName();
+            String bareMethodName = normalizeMethodName(fullMethodName.substring(fullMethodName.lastIndexOf('/') + 1));
+            if (descriptor.getType() == MethodDescriptor.MethodType.UNARY) {
+                unaryMethods.put(bareMethodName, descriptor);
+            } else {
+                streamMethodNames.add(bareMethodName);
+            }
+        }
+        String uniqueId = consumerConfig.getUniqueId();
+        for (Method method : proxyClass.getMethods()) {
+            if (streamMethodNames.contains(normalizeMethodName(method.getName()))) {
+                streamMethods.add(method);
+                continue;
+            }
+            // 只处理同步方法：XxxResponse method(XxxRequest)
+            if (method.getParameterTypes().length != 1 || !Message.class.isAssignableFrom(method.getReturnType())) {
+                continue;
+            }
+            MethodDescriptor descriptor = unaryMethods.get(normalizeMethodName(method.getName()));
+            if (descriptor == null) {
+                continue;
+            }
+            if (StringUtils.isNotBlank(uniqueId)) {
+                descriptor = descriptor.toBuilder()
+                    .setFullMethodName(getFullNameWithUniqueId(descriptor.getFullMethodName(), uniqueId))
+                    .build();
+            }
+            methodDescriptors.put(method, descriptor);
+        }
+    }
+
+    /**
+     * stub 中持有 XxxGrpc 生成的 gRPC stub，从其外部类获取服务描述
+     *
+     * @param stubClass stub 类
+     * @return 服务描述，获取失败返回 null
+     */
+    private ServiceDescriptor getServiceDescriptor(Class<?> stubClass) {
+        for (Field field : stubClass.getDeclaredFields()) {
+            Class<?> grpcClass = field.getType().getEnclosingClass();
+            if (grpcClass == null) {
+                continue;
+            }
+            try {
+                Method method = grpcClass.getMethod("getServiceDescriptor");
+                if (Modifier.isStatic(method.getModifiers()) && method.getReturnType() == ServiceDescriptor.class) {
+                    return (ServiceDescriptor) method.invoke(null);
+                }
+            } catch (Exception e) {
+                // ignore, try next field
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 统一方法名的格式，proto 中的 say_hello 和接口上的 sayHello 视为同一个方法
+     *
+     * @param methodName 方法名
+     * @return 去掉下划线并转成小写的方法名
+     */
+    static String normalizeMethodName(String methodName) {
+        return methodName.replace("_", "").toLowerCase(Locale.ENGLISH);
+    }
+
     private void cacheCommonData(ConsumerConfig consumerConfig) {
         String serialization = consumerConfig.getSerialization();
         if (StringUtils.isBlank(serialization)) {
@@ -102,52 +233,169 @@ public class TripleClientInvoker implements TripleInvoker {
         throws Exception {
         if (!useGeneric) {
             SofaResponse sofaResponse = new SofaResponse();
-            Object stub = sofaStub.invoke(null, channel, buildCustomCallOptions(sofaRequest, timeout),
-                timeout);
             final Method method = sofaRequest.getMethod();
-            Object appResponse = method.invoke(stub, sofaRequest.getMethodArgs()[0]);
+            MethodDescriptor methodDescriptor = methodDescriptors.get(method);
+            Object appResponse;
+            if (methodDescriptor != null) {
+                appResponse = ClientCalls.blockingUnaryCall(channel, methodDescriptor,
+                    buildCustomCallOptions(sofaRequest, timeout), sofaRequest.getMethodArgs()[0]);
+            } else if (streamMethods.contains(method)) {
+                // 流式调用的生命周期由业务控制，不设置超时时间，
+                // 返回的 Iterator/StreamObserver/Flux 等由业务继续使用
+                Object stub = sofaStub.invoke(null, channel, buildStreamCallOptions(sofaRequest), STREAM_TIMEOUT);
+                appResponse = method.invoke(stub, sofaRequest.getMethodArgs());
+            } else {
+                Object stub = sofaStub.invoke(null, channel, buildCustomCallOptions(sofaRequest, timeout),
+                    timeout);
+                appResponse = method.invoke(stub, sofaRequest.getMethodArgs());
+            }
             sofaResponse.setAppResponse(appResponse);
             return sofaResponse;
         } else {
-            String serviceName = sofaRequest.getInterfaceName();
-            String methodName = sofaRequest.getMethodName();
-            MethodDescriptor.Marshaller<?> requestMarshaller = null;
-            MethodDescriptor.Marshaller<?> responseMarshaller = null;
-            requestMarshaller = io.grpc.protobuf.ProtoUtils.marshaller(Request.getDefaultInstance());
-            responseMarshaller = io.grpc.protobuf.ProtoUtils.marshaller(Response.getDefaultInstance());
-            String fullMethodName = generateFullMethodName(serviceName, methodName);
-            MethodDescriptor methodDescriptor = io.grpc.MethodDescriptor
-                .newBuilder()
-                .setType(io.grpc.MethodDescriptor.MethodType.UNARY)
-                .setFullMethodName(useOldPath ? fullMethodName :
-                    getFullNameWithUniqueId(fullMethodName,
-                        consumerConfig.getUniqueId()))
-                .setSampledToLocalTracing(true)
-                .setRequestMarshaller((MethodDescriptor.Marshaller<Object>) requestMarshaller)
-                .setResponseMarshaller((MethodDescriptor.Marshaller<Object>) responseMarshaller)
-                .build();
+            MethodDescriptor methodDescriptor = getMethodDescriptor(sofaRequest);
 
             Request request = getRequest(sofaRequest, serialization, serializer);
 
             Response response = (Response) ClientCalls.blockingUnaryCall(channel, methodDescriptor,
                 buildCustomCallOptions(sofaRequest, timeout), request);
 
-            SofaResponse sofaResponse = new SofaResponse();
-            byte[] responseDate = response.getData().toByteArray();
-            Class returnType = sofaRequest.getMethod().getReturnType();
-            if (returnType != void.class) {
-                if (responseDate != null && responseDate.length > 0) {
-                    Serializer responseSerializer = SerializerFactory.getSerializer(response.getSerializeType());
-                    Object appResponse = responseSerializer.decode(new ByteArrayWrapperByteBuf(responseDate),
-                        returnType,
-                        null);
-                    sofaResponse.setAppResponse(appResponse);
+            return buildSofaResponse(sofaRequest, response);
+        }
+
+    }
+
+    @Override
+    public void asyncInvoke(final SofaRequest sofaRequest, int timeout,
+                            final StreamObserver<SofaResponse> responseObserver) throws Exception {
+        if (!useGeneric) {
+            StreamObserver<Object> observer = new StreamObserver<Object>() {
+                @Override
+                public void onNext(Object value) {
+                    SofaResponse sofaResponse = new SofaResponse();
+                    sofaResponse.setAppResponse(value);
+                    responseObserver.onNext(sofaResponse);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    responseObserver.onError(t);
+                }
+
+                @Override
+                public void onCompleted() {
+                    responseObserver.onCompleted();
                 }
+            };
+            MethodDescriptor methodDescriptor = methodDescriptors.get(sofaRequest.getMethod());
+            if (methodDescriptor != null) {
+                ClientCalls.asyncUnaryCall(channel.newCall(methodDescriptor,
+                    buildCustomCallOptions(sofaRequest, timeout)), sofaRequest.getMethodArgs()[0], observer);
+            } else {
+                Object stub = sofaStub.invoke(null, channel, buildCustomCallOptions(sofaRequest, timeout),
+                    timeout);
+                Method asyncMethod = getAsyncMethod(stub.getClass(), sofaRequest.getMethod());
+                asyncMethod.invoke(stub, sofaRequest.getMethodArgs()[0], observer);
             }
+        } else {
+            MethodDescriptor methodDescriptor = getMethodDescriptor(sofaRequest);
 
-            return sofaResponse;
+            Request request = getRequest(sofaRequest, serialization, serializer);
+
+            ClientCalls.asyncUnaryCall(channel.newCall(methodDescriptor, buildCustomCallOptions(sofaRequest, timeout)),
+                request, new StreamObserver<Object>() {
+                    @Override
+                    public void onNext(Object value) {
+                        SofaResponse sofaResponse;
+                        try {
+                            sofaResponse = buildSofaResponse(sofaRequest, (Response) value);
+                        } catch (RuntimeException e) {
+                            responseObserver.onError(e);
+                            return;
+                        }
+                        responseObserver.onNext(sofaResponse);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        responseObserver.onError(t);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        responseObserver.onCompleted();
+                    }
+                });
         }
+    }
 
+    /**
+     * 获取 stub 上与同步方法对应的异步方法，即 method(request, StreamObserver)
+     *
+     * @param stubClass  stub 类型
+     * @param syncMethod 同步方法
+     * @return 异步方法
+     * @throws NoSuchMethodException 找不到异步方法
+     */
+    private Method getAsyncMethod(Class<?> stubClass, Method syncMethod) throws NoSuchMethodException {
+        Method asyncMethod = asyncMethodCache.get(syncMethod);
+        if (asyncMethod == null) {
+            asyncMethod = stubClass.getMethod(syncMethod.getName(), syncMethod.getParameterTypes()[0],
+                StreamObserver.class);
+            Method old = asyncMethodCache.putIfAbsent(syncMethod, asyncMethod);
+            if (old != null) {
+                asyncMethod = old;
+            }
+        }
+        return asyncMethod;
+    }
+
+    private MethodDescriptor getMethodDescriptor(SofaRequest sofaRequest) {
+        String key = sofaRequest.getInterfaceName() + "#" + sofaRequest.getMethodName();
+        MethodDescriptor methodDescriptor = genericMethodDescriptors.get(key);
+        if (methodDescriptor == null) {
+            methodDescriptor = buildGenericMethodDescriptor(sofaRequest);
+            MethodDescriptor old = genericMethodDescriptors.putIfAbsent(key, methodDescriptor);
+            if (old != null) {
+                methodDescriptor = old;
+            }
+        }
+        return methodDescriptor;
+    }
+
+    private MethodDescriptor buildGenericMethodDescriptor(SofaRequest sofaRequest) {
+        String serviceName = sofaRequest.getInterfaceName();
+        String methodName = sofaRequest.getMethodName();
+        MethodDescriptor.Marshaller<?> requestMarshaller = null;
+        MethodDescriptor.Marshaller<?> responseMarshaller = null;
+        requestMarshaller = io.grpc.protobuf.ProtoUtils.marshaller(Request.getDefaultInstance());
+        responseMarshaller = io.grpc.protobuf.ProtoUtils.marshaller(Response.getDefaultInstance());
+        String fullMethodName = generateFullMethodName(serviceName, methodName);
+        return io.grpc.MethodDescriptor
+            .newBuilder()
+            .setType(io.grpc.MethodDescriptor.MethodType.UNARY)
+            .setFullMethodName(useOldPath ? fullMethodName :
+                getFullNameWithUniqueId(fullMethodName,
+                    consumerConfig.getUniqueId()))
+            .setSampledToLocalTracing(true)
+            .setRequestMarshaller((MethodDescriptor.Marshaller<Object>) requestMarshaller)
+            .setResponseMarshaller((MethodDescriptor.Marshaller<Object>) responseMarshaller)
+            .build();
+    }
+
+    private SofaResponse buildSofaResponse(SofaRequest sofaRequest, Response response) {
+        SofaResponse sofaResponse = new SofaResponse();
+        byte[] responseDate = response.getData().toByteArray();
+        Class returnType = sofaRequest.getMethod().getReturnType();
+        if (returnType != void.class) {
+            if (responseDate != null && responseDate.length > 0) {
+                Serializer responseSerializer = SerializerFactory.getSerializer(response.getSerializeType());
+                Object appResponse = responseSerializer.decode(new ByteArrayWrapperByteBuf(responseDate),
+                    returnType,
+                    null);
+                sofaResponse.setAppResponse(appResponse);
+            }
+        }
+        return sofaResponse;
     }
 
     public static Request getRequest(SofaRequest sofaRequest, String serialization, Serializer serializer) {
@@ -159,7 +407,8 @@ public class TripleClientInvoker implements TripleInvoker {
 
         for (int i = 0; i < methodArgSigs.length; i++) {
             Object arg = methodArgs[i];
-            ByteString argByteString = ByteString.copyFrom(serializer.encode(arg, null).array());
+            // 序列化结果是新分配的数组，直接包装，避免再拷贝一次
+            ByteString argByteString = UnsafeByteOperations.unsafeWrap(serializer.encode(arg, null).array());
             builder.addArgs(argByteString);
             builder.addArgTypes(methodArgSigs[i]);
         }
@@ -173,17 +422,39 @@ public class TripleClientInvoker implements TripleInvoker {
      * @return
      */
     protected CallOptions buildCustomCallOptions(SofaRequest sofaRequest, int timeout) {
+        // 非流式调用在调用线程发起，请求从 RpcInvokeContext 中获取，无需放入 CallOptions
+        CallOptions tripleCallOptions = defaultCallOptions;
+        if (timeout >= 0) {
+            tripleCallOptions = tripleCallOptions.withDeadlineAfter(timeout, TimeUnit.MILLISECONDS);
+        }
+        return tripleCallOptions;
+    }
+
+    /**
+     * 流式调用的参数，不设置超时时间。流式调用可能在订阅时才在其它线程发起，请求随 CallOptions 传递
+     *
+     * @param sofaRequest 请求
+     * @return CallOptions
+     */
+    protected CallOptions buildStreamCallOptions(SofaRequest sofaRequest) {
+        return defaultCallOptions.withOption(SOFA_REQUEST_OPTION, sofaRequest);
+    }
+
+    /**
+     * 与单次调用无关的调用参数
+     *
+     * @return CallOptions
+     */
+    private CallOptions buildDefaultCallOptions() {
         CallOptions tripleCallOptions = CallOptions.DEFAULT;
         final String target = consumerConfig.getParameter("interworking.target");
         if (StringUtils.isNotBlank(target)) {
             tripleCallOptions = tripleCallOptions.withAuthority(target);
         }
-        if (timeout >= 0) {
-            tripleCallOptions = tripleCallOptions.withDeadlineAfter(timeout, TimeUnit.MILLISECONDS);
-        }
         if (StringUtils.isNotBlank(consumerConfig.getUniqueId())) {
             tripleCallOptions = tripleCallOptions.withOption(UNIQUE_ID, consumerConfig.getUniqueId());
         }
+        tripleCallOptions = tripleCallOptions.withOption(SOFA_CONSUMER_CONFIG_OPTION, consumerConfig);
         return tripleCallOptions;
     }
-}
\ No newline at end of file
+}
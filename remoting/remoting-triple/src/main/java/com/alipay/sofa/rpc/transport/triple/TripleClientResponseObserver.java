@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.triple;
+
+import com.alipay.sofa.rpc.bootstrap.ConsumerBootstrap;
+import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.context.RpcInternalContext;
+import com.alipay.sofa.rpc.context.RpcInvokeContext;
+import com.alipay.sofa.rpc.context.RpcRuntimeContext;
+import com.alipay.sofa.rpc.core.exception.RpcErrorType;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.event.ClientAsyncReceiveEvent;
+import com.alipay.sofa.rpc.event.ClientEndInvokeEvent;
+import com.alipay.sofa.rpc.event.EventBus;
+import com.alipay.sofa.rpc.filter.FilterChain;
+import com.alipay.sofa.rpc.message.triple.TripleResponseFuture;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Triple 异步调用（future 和 callback）的响应处理器，
+ * 在 gRPC 的回调线程中直接完成 Future 或通知 Callback，不阻塞任何线程
+ */
+public class TripleClientResponseObserver implements StreamObserver<SofaResponse> {
+
+    /**
+     * 所属的客户端连接，用于转换异常
+     */
+    private final TripleClientTransport        transport;
+
+    /**
+     * 服务消费者配置
+     */
+    private final ConsumerConfig               consumerConfig;
+
+    /**
+     * 服务提供者信息
+     */
+    private final ProviderInfo                 providerInfo;
+
+    /**
+     * 请求
+     */
+    private final SofaRequest                  request;
+
+    /**
+     * 线程上下文
+     */
+    private final RpcInternalContext           context;
+
+    /**
+     * 请求运行时的ClassLoader
+     */
+    private final ClassLoader                  classLoader;
+
+    /**
+     * future 调用的结果，callback 调用时为空
+     */
+    private final TripleResponseFuture<Object> future;
+
+    /**
+     * callback 调用的回调，future 调用时为空
+     */
+    private final SofaResponseCallback         callback;
+
+    /**
+     * 收到的响应
+     */
+    private SofaResponse                       response;
+
+    public TripleClientResponseObserver(TripleClientTransport transport, SofaRequest request,
+                                        RpcInternalContext context, ClassLoader classLoader,
+                                        TripleResponseFuture<Object> future, SofaResponseCallback callback) {
+        this.transport = transport;
+        this.consumerConfig = transport.getConfig().getConsumerConfig();
+        this.providerInfo = transport.getConfig().getProviderInfo();
+        this.request = request;
+        this.context = context;
+        this.classLoader = classLoader;
+        this.future = future;
+        this.callback = callback;
+    }
+
+    @Override
+    public void onNext(SofaResponse value) {
+        this.response = value;
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        SofaRpcException exception = transport.convertToRpcException(t instanceof Exception ? (Exception) t :
+            new SofaRpcException(RpcErrorType.CLIENT_UNDECLARED_ERROR, t.getMessage(), t));
+        ClassLoader oldCl = Thread.currentThread().getContextClassLoader();
+        try {
+            Thread.currentThread().setContextClassLoader(classLoader);
+            RpcInternalContext.setContext(context);
+
+            if (EventBus.isEnable(ClientAsyncReceiveEvent.class)) {
+                EventBus.post(new ClientAsyncReceiveEvent(consumerConfig, providerInfo, request, null, exception));
+            }
+
+            boolean async = FilterChain.isAsyncCompletion(request);
+            // do async filter after respond server
+            FilterChain chain = async ? getFilterChain() : null;
+            if (chain != null) {
+                chain.onAsyncResponse(consumerConfig, request, null, exception);
+            }
+
+            recordClientElapseTime();
+            if (async && EventBus.isEnable(ClientEndInvokeEvent.class)) {
+                EventBus.post(new ClientEndInvokeEvent(request, null, exception));
+            }
+
+            if (callback != null) {
+                callback.onSofaException(exception, request.getMethodName(), request);
+            } else if (!future.isCancelled()) {
+                future.setFailure(exception);
+            }
+        } finally {
+            Thread.currentThread().setContextClassLoader(oldCl);
+            RpcInvokeContext.removeContext();
+            RpcInternalContext.removeAllContext();
+        }
+    }
+
+    @Override
+    public void onCompleted() {
+        SofaResponse response = this.response != null ? this.response : new SofaResponse();
+        ClassLoader oldCl = Thread.currentThread().getContextClassLoader();
+        try {
+            Thread.currentThread().setContextClassLoader(classLoader);
+            RpcInternalContext.setContext(context);
+
+            if (EventBus.isEnable(ClientAsyncReceiveEvent.class)) {
+                EventBus.post(new ClientAsyncReceiveEvent(consumerConfig, providerInfo, request, response, null));
+            }
+
+            boolean async = FilterChain.isAsyncCompletion(request);
+            // do async filter after respond server
+            FilterChain chain = async ? getFilterChain() : null;
+            if (chain != null) {
+                chain.onAsyncResponse(consumerConfig, request, response, null);
+            }
+
+            recordClientElapseTime();
+            if (async && EventBus.isEnable(ClientEndInvokeEvent.class)) {
+                EventBus.post(new ClientEndInvokeEvent(request, response, null));
+            }
+
+            Object appResp = response.getAppResponse();
+            if (response.isError()) { // rpc层异常
+                SofaRpcException sofaRpcException = new SofaRpcException(
+                    RpcErrorType.SERVER_UNDECLARED_ERROR, response.getErrorMsg());
+                if (callback != null) {
+                    callback.onSofaException(sofaRpcException, request.getMethodName(), request);
+                } else if (!future.isCancelled()) {
+                    future.setFailure(sofaRpcException);
+                }
+            } else if (appResp instanceof Throwable) { // 业务层异常
+                if (callback != null) {
+                    callback.onAppException((Throwable) appResp, request.getMethodName(), request);
+                } else if (!future.isCancelled()) {
+                    future.setFailure((Throwable) appResp);
+                }
+            } else {
+                if (callback != null) {
+                    callback.onAppResponse(appResp, request.getMethodName(), request);
+                } else if (!future.isCancelled()) {
+                    future.setSuccess(appResp);
+                }
+            }
+        } finally {
+            Thread.currentThread().setContextClassLoader(oldCl);
+            RpcInvokeContext.removeContext();
+            RpcInternalContext.removeAllContext();
+        }
+    }
+
+    private FilterChain getFilterChain() {
+        ConsumerBootstrap bootstrap = consumerConfig.getConsumerBootstrap();
+        return bootstrap == null ? null : bootstrap.getCluster().getFilterChain();
+    }
+
+    private void recordClientElapseTime() {
+        if (context != null) {
+            Long startTime = (Long) context.removeAttachment(RpcConstants.INTERNAL_KEY_CLIENT_SEND_TIME);
+            if (startTime != null) {
+                context.setAttachment(RpcConstants.INTERNAL_KEY_CLIENT_ELAPSE, RpcRuntimeContext.now() - startTime);
+            }
+        }
+    }
+}
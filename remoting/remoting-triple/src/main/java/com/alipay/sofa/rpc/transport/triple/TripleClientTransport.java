@@ -23,8 +23,10 @@ import com.alipay.sofa.rpc.context.RpcInvokeContext;
 import com.alipay.sofa.rpc.core.exception.RpcErrorType;
 import com.alipay.sofa.rpc.core.exception.SofaRpcException;
 import com.alipay.sofa.rpc.core.exception.SofaTimeOutException;
+import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
 import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.event.ClientAfterSendEvent;
 import com.alipay.sofa.rpc.event.ClientBeforeSendEvent;
 import com.alipay.sofa.rpc.event.ClientSyncReceiveEvent;
 import com.alipay.sofa.rpc.event.EventBus;
@@ -33,6 +35,7 @@ import com.alipay.sofa.rpc.interceptor.ClientHeaderClientInterceptor;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
 import com.alipay.sofa.rpc.message.ResponseFuture;
+import com.alipay.sofa.rpc.message.triple.TripleResponseFuture;
 import com.alipay.sofa.rpc.server.triple.TripleContants;
 import com.alipay.sofa.rpc.transport.AbstractChannel;
 import com.alipay.sofa.rpc.transport.ClientTransport;
@@ -42,7 +45,6 @@ import io.grpc.ConnectivityState;
 import io.grpc.ManagedChannel;
 import io.grpc.Status;
 import io.grpc.StatusException;
-import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
 
 import java.net.InetSocketAddress;
 import java.util.concurrent.ConcurrentHashMap;
@@ -158,18 +160,42 @@ public class TripleClientTransport extends ClientTransport {
     }
 
     @Override
-    public ResponseFuture asyncSend(SofaRequest message, int timeout) throws SofaRpcException {
-        throw new UnsupportedOperationException("Not supported");
+    public ResponseFuture asyncSend(SofaRequest request, int timeout) throws SofaRpcException {
+        RpcInternalContext context = RpcInternalContext.getContext();
+        try {
+            beforeSend(context, request);
+
+            RpcInvokeContext invokeContext = RpcInvokeContext.getContext();
+            invokeContext.put(TripleContants.SOFA_REQUEST_KEY, request);
+            invokeContext.put(TripleContants.SOFA_CONSUMER_CONFIG_KEY, transportConfig.getConsumerConfig());
+
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            SofaResponseCallback callback = request.getSofaResponseCallback();
+            if (callback != null) {
+                // callback 调用，结果在 gRPC 的回调线程中直接通知
+                tripleClientInvoker.asyncInvoke(request, timeout, new TripleClientResponseObserver(this, request,
+                    context, classLoader, null, callback));
+                return null;
+            }
+            // future 调用，结果在 gRPC 的回调线程中直接写入 Future
+            TripleResponseFuture<Object> future = new TripleResponseFuture<Object>(request, timeout);
+            tripleClientInvoker.asyncInvoke(request, timeout, new TripleClientResponseObserver(this, request,
+                context, classLoader, future, null));
+            future.setSentTime();
+            return future;
+        } catch (Exception e) {
+            throw convertToRpcException(e);
+        } finally {
+            afterSend(context, request);
+        }
     }
 
     @Override
     public SofaResponse syncSend(SofaRequest request, int timeout) throws SofaRpcException {
         SofaResponse sofaResponse = null;
         SofaRpcException throwable = null;
-
+        RpcInternalContext context = RpcInternalContext.getContext();
         try {
-            RpcInternalContext context = RpcInternalContext.getContext();
-
             beforeSend(context, request);
 
             RpcInvokeContext invokeContext = RpcInvokeContext.getContext();
@@ -181,6 +207,7 @@ public class TripleClientTransport extends ClientTransport {
             throwable = convertToRpcException(e);
             throw throwable;
         } finally {
+            afterSend(context, request);
             if (EventBus.isEnable(ClientSyncReceiveEvent.class)) {
                 EventBus.post(new ClientSyncReceiveEvent(transportConfig.getConsumerConfig(),
                         transportConfig.getProviderInfo(), request, sofaResponse, throwable));
@@ -248,11 +275,7 @@ public class TripleClientTransport extends ClientTransport {
      */
     private ManagedChannel initChannel(ProviderInfo url) {
         ClientInterceptor clientHeaderClientInterceptor = buildClientHeaderClientInterceptor();
-        NettyChannelBuilder builder = NettyChannelBuilder.forAddress(url.getHost(), url.getPort());
-        builder.usePlaintext();
-        builder.disableRetry();
-        builder.intercept(clientHeaderClientInterceptor);
-        return builder.build();
+        return TripleChannelFactory.newChannel(transportConfig, url, clientHeaderClientInterceptor);
     }
 
     protected ClientInterceptor buildClientHeaderClientInterceptor() {
@@ -272,6 +295,18 @@ public class TripleClientTransport extends ClientTransport {
         }
     }
 
+    /**
+     * 调用后设置一些属性
+     *
+     * @param context RPC上下文
+     * @param request 请求对象
+     */
+    protected void afterSend(RpcInternalContext context, SofaRequest request) {
+        if (EventBus.isEnable(ClientAfterSendEvent.class)) {
+            EventBus.post(new ClientAfterSendEvent(request));
+        }
+    }
+
     /**
      * 转换调用出现的异常为RPC异常
      *
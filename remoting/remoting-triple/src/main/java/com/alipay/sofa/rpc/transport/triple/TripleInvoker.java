@@ -18,8 +18,20 @@ package com.alipay.sofa.rpc.transport.triple;
 
 import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
+import io.grpc.stub.StreamObserver;
 
 public interface TripleInvoker {
 
     public SofaResponse invoke(SofaRequest sofaRequest, int timeout) throws Exception;
+
+    /**
+     * 异步调用，不阻塞调用线程，结果通过 responseObserver 在 gRPC 的回调线程中返回
+     *
+     * @param sofaRequest      请求
+     * @param timeout          超时时间
+     * @param responseObserver 响应处理器
+     * @throws Exception 发送请求失败
+     */
+    public void asyncInvoke(SofaRequest sofaRequest, int timeout, StreamObserver<SofaResponse> responseObserver)
+        throws Exception;
 }
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.triple;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 到同一个服务端的多个 HTTP/2 连接，每次调用选择当前活跃 stream 最少的连接，
+ * 避免单个连接的流控窗口和 IO 线程成为大报文场景的瓶颈。
+ */
+public class TriplePooledChannel extends ManagedChannel {
+
+    /**
+     * 连接
+     */
+    private final ManagedChannel[]   channels;
+
+    /**
+     * 每个连接上正在进行的调用数
+     */
+    private final AtomicIntegerArray activeStreams;
+
+    /**
+     * 活跃数相同时轮询的起点
+     */
+    private final AtomicInteger      index = new AtomicInteger();
+
+    public TriplePooledChannel(ManagedChannel[] channels) {
+        this.channels = channels;
+        this.activeStreams = new AtomicIntegerArray(channels.length);
+    }
+
+    /**
+     * 选择活跃 stream 最少的连接，跳过已断开的连接；全部断开时按轮询返回
+     *
+     * @return 连接下标
+     */
+    int select() {
+        int length = channels.length;
+        int start = (index.getAndIncrement() & Integer.MAX_VALUE) % length;
+        int selected = -1;
+        int least = Integer.MAX_VALUE;
+        for (int i = 0; i < length; i++) {
+            int idx = (start + i) % length;
+            int active = activeStreams.get(idx);
+            if (active < least && isAvailable(channels[idx])) {
+                least = active;
+                selected = idx;
+                if (least == 0) {
+                    break;
+                }
+            }
+        }
+        return selected >= 0 ? selected : start;
+    }
+
+    private boolean isAvailable(ManagedChannel channel) {
+        ConnectivityState state = channel.getState(false);
+        return state != ConnectivityState.TRANSIENT_FAILURE && state != ConnectivityState.SHUTDOWN;
+    }
+
+    int getActiveStreams(int idx) {
+        return activeStreams.get(idx);
+    }
+
+    @Override
+    public <RequestT, ResponseT> ClientCall<RequestT, ResponseT> newCall(MethodDescriptor<RequestT, ResponseT> methodDescriptor,
+                                                                         CallOptions callOptions) {
+        final int idx = select();
+        return new ForwardingClientCall.SimpleForwardingClientCall<RequestT, ResponseT>(
+            channels[idx].newCall(methodDescriptor, callOptions)) {
+            @Override
+            public void start(Listener<ResponseT> responseListener, Metadata headers) {
+                activeStreams.incrementAndGet(idx);
+                try {
+                    super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<ResponseT>(
+                        responseListener) {
+                        @Override
+                        public void onClose(Status status, Metadata trailers) {
+                            activeStreams.decrementAndGet(idx);
+                            super.onClose(status, trailers);
+                        }
+                    }, headers);
+                } catch (RuntimeException e) {
+                    activeStreams.decrementAndGet(idx);
+                    throw e;
+                }
+            }
+        };
+    }
+
+    @Override
+    public ManagedChannel shutdown() {
+        for (ManagedChannel channel : channels) {
+            channel.shutdown();
+        }
+        return this;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        for (ManagedChannel channel : channels) {
+            if (!channel.isShutdown()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        for (ManagedChannel channel : channels) {
+            if (!channel.isTerminated()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public ManagedChannel shutdownNow() {
+        for (ManagedChannel channel : channels) {
+            channel.shutdownNow();
+        }
+        return this;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ManagedChannel channel : channels) {
+            long remain = deadline - System.nanoTime();
+            if (!channel.awaitTermination(Math.max(0, remain), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String authority() {
+        return channels[0].authority();
+    }
+
+    /**
+     * 只要有一个连接可用，整体即可用
+     */
+    @Override
+    public ConnectivityState getState(boolean requestConnection) {
+        boolean connecting = false;
+        boolean idle = false;
+        boolean failure = false;
+        for (ManagedChannel channel : channels) {
+            ConnectivityState state = channel.getState(requestConnection);
+            if (state == ConnectivityState.READY) {
+                return ConnectivityState.READY;
+            } else if (state == ConnectivityState.CONNECTING) {
+                connecting = true;
+            } else if (state == ConnectivityState.IDLE) {
+                idle = true;
+            } else if (state == ConnectivityState.TRANSIENT_FAILURE) {
+                failure = true;
+            }
+        }
+        if (connecting) {
+            return ConnectivityState.CONNECTING;
+        } else if (idle) {
+            return ConnectivityState.IDLE;
+        } else if (failure) {
+            return ConnectivityState.TRANSIENT_FAILURE;
+        }
+        return ConnectivityState.SHUTDOWN;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.message.triple;
+
+import com.alipay.sofa.rpc.core.exception.SofaTimeOutException;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ */
+public class TripleResponseFutureTest {
+
+    private SofaRequest buildRequest() {
+        SofaRequest request = new SofaRequest();
+        request.setInterfaceName("com.alipay.sofa.rpc.test.HelloService");
+        request.setMethodName("sayHello");
+        request.setMethodArgs(new Object[] { "xxx" });
+        return request;
+    }
+
+    @Test
+    public void testSuccess() throws Exception {
+        final TripleResponseFuture<Object> future = new TripleResponseFuture<Object>(buildRequest(), 3000);
+        final CountDownLatch latch = new CountDownLatch(1);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                future.setSuccess("hello");
+                latch.countDown();
+            }
+        }).start();
+        Assert.assertEquals("hello", future.get());
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue(future.isDone());
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        TripleResponseFuture<Object> future = new TripleResponseFuture<Object>(buildRequest(), 3000);
+        RuntimeException cause = new RuntimeException("biz error");
+        future.setFailure(cause);
+        try {
+            future.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertSame(cause, e.getCause());
+        }
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        TripleResponseFuture<Object> future = new TripleResponseFuture<Object>(buildRequest(), 50);
+        future.setSentTime();
+        try {
+            future.get();
+            Assert.fail();
+        } catch (SofaTimeOutException e) {
+            Assert.assertTrue(e.getMessage().contains("sayHello"));
+        }
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        TripleResponseFuture<Object> future = new TripleResponseFuture<Object>(buildRequest(), 3000);
+        Assert.assertTrue(future.cancel(true));
+        Assert.assertTrue(future.isCancelled());
+        Assert.assertTrue(future.isDone());
+    }
+}
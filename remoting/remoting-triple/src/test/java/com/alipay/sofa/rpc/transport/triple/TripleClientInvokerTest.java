@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.triple;
+
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.server.triple.HelloService;
+import com.alipay.sofa.rpc.server.triple.TripleContants;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServiceDescriptor;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.StreamObserver;
+import org.junit.Assert;
+import org.junit.Test;
+import triple.Request;
+import triple.Response;
+import triple.SofaGenericServiceTriple;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 测试 TripleClientInvoker 的方法描述解析和缓存
+ */
+public class TripleClientInvokerTest {
+
+    @Test
+    public void testNormalizeMethodName() {
+        Assert.assertEquals("sayhello", TripleClientInvoker.normalizeMethodName("sayHello"));
+        Assert.assertEquals("sayhello", TripleClientInvoker.normalizeMethodName("say_hello"));
+        Assert.assertEquals("sayhello", TripleClientInvoker.normalizeMethodName("SayHello"));
+        Assert.assertFalse(TripleClientInvoker.normalizeMethodName("sayHello").equals(
+            TripleClientInvoker.normalizeMethodName("sayHi")));
+    }
+
+    @Test
+    public void testStubMethodDescriptor() throws Exception {
+        ConsumerConfig consumerConfig = new ConsumerConfig();
+        consumerConfig.setInterfaceId(SofaGenericServiceTriple.IGenericService.class.getName());
+        MockChannel channel = new MockChannel();
+        TripleClientInvoker invoker = new TripleClientInvoker(consumerConfig, channel);
+        invoker.asyncInvoke(buildStubRequest(), 3000, new NoopObserver());
+
+        // 从 stub 反射解析出 gRPC 服务描述，直接使用 unary 方法描述发起调用
+        Assert.assertEquals(1, channel.methodDescriptors.size());
+        MethodDescriptor<?, ?> descriptor = channel.methodDescriptors.get(0);
+        Assert.assertEquals("GenericService/generic", descriptor.getFullMethodName());
+        Assert.assertEquals(MethodDescriptor.MethodType.UNARY, descriptor.getType());
+
+        consumerConfig = new ConsumerConfig();
+        consumerConfig.setInterfaceId(SofaGenericServiceTriple.IGenericService.class.getName());
+        consumerConfig.setUniqueId("unique");
+        channel = new MockChannel();
+        invoker = new TripleClientInvoker(consumerConfig, channel);
+        invoker.asyncInvoke(buildStubRequest(), 3000, new NoopObserver());
+        Assert.assertEquals("GenericService.unique/generic", channel.methodDescriptors.get(0).getFullMethodName());
+    }
+
+    @Test
+    public void testGenericMethodDescriptor() throws Exception {
+        ConsumerConfig consumerConfig = new ConsumerConfig();
+        consumerConfig.setInterfaceId(HelloService.class.getName());
+        MockChannel channel = new MockChannel();
+        TripleClientInvoker invoker = new TripleClientInvoker(consumerConfig, channel);
+
+        // 泛化调用时同一个 Method 会对应不同的方法名，方法描述不能串用
+        invoker.asyncInvoke(buildGenericRequest("hello"), 3000, new NoopObserver());
+        invoker.asyncInvoke(buildGenericRequest("testArray"), 3000, new NoopObserver());
+        invoker.asyncInvoke(buildGenericRequest("hello"), 3000, new NoopObserver());
+
+        Assert.assertEquals(3, channel.methodDescriptors.size());
+        String serviceName = HelloService.class.getName();
+        Assert.assertEquals(serviceName + "/hello", channel.methodDescriptors.get(0).getFullMethodName());
+        Assert.assertEquals(serviceName + "/testArray", channel.methodDescriptors.get(1).getFullMethodName());
+        Assert.assertSame(channel.methodDescriptors.get(0), channel.methodDescriptors.get(2));
+    }
+
+    @Test
+    public void testStreamMethod() throws Exception {
+        ConsumerConfig consumerConfig = new ConsumerConfig();
+        consumerConfig.setInterfaceId(StreamTriple.IStreamService.class.getName());
+        MockChannel channel = new MockChannel();
+        TripleClientInvoker invoker = new TripleClientInvoker(consumerConfig, channel);
+
+        // say_hello_stream 是流式方法，通过 stub 调用，不设置超时时间，请求随 CallOptions 传递
+        SofaRequest request = new SofaRequest();
+        request.setInterfaceName(StreamTriple.IStreamService.class.getName());
+        request.setMethodName("sayHelloStream");
+        request.setMethod(StreamTriple.IStreamService.class.getMethod("sayHelloStream", Request.class,
+            StreamObserver.class));
+        request.setMethodArgs(new Object[] { Request.getDefaultInstance(), new NoopObserver() });
+        invoker.invoke(request, 3000);
+        Assert.assertEquals(0, channel.methodDescriptors.size());
+        Assert.assertEquals(Integer.MAX_VALUE, StreamTriple.timeout);
+        Assert.assertNull(StreamTriple.callOptions.getDeadline());
+        Assert.assertSame(request, StreamTriple.callOptions.getOption(TripleContants.SOFA_REQUEST_OPTION));
+        Assert.assertSame(consumerConfig,
+            StreamTriple.callOptions.getOption(TripleContants.SOFA_CONSUMER_CONFIG_OPTION));
+        Assert.assertSame(request.getMethodArgs()[1], StreamTriple.streamObserver);
+
+        // sayHello 是 unary 方法，直接使用方法描述调用，设置超时时间，请求从线程上下文获取
+        request = new SofaRequest();
+        request.setInterfaceName(StreamTriple.IStreamService.class.getName());
+        request.setMethodName("sayHello");
+        request.setMethod(StreamTriple.IStreamService.class.getMethod("sayHello", Request.class));
+        request.setMethodArgs(new Object[] { Request.getDefaultInstance() });
+        invoker.asyncInvoke(request, 3000, new NoopObserver());
+        Assert.assertEquals(1, channel.methodDescriptors.size());
+        Assert.assertEquals("StreamService/SayHello", channel.methodDescriptors.get(0).getFullMethodName());
+        CallOptions callOptions = channel.callOptions.get(0);
+        Assert.assertNotNull(callOptions.getDeadline());
+        Assert.assertNull(callOptions.getOption(TripleContants.SOFA_REQUEST_OPTION));
+        Assert.assertSame(consumerConfig, callOptions.getOption(TripleContants.SOFA_CONSUMER_CONFIG_OPTION));
+    }
+
+    private SofaRequest buildStubRequest() throws NoSuchMethodException {
+        SofaRequest request = new SofaRequest();
+        request.setInterfaceName(SofaGenericServiceTriple.IGenericService.class.getName());
+        request.setMethodName("generic");
+        request.setMethod(SofaGenericServiceTriple.IGenericService.class.getMethod("generic", Request.class));
+        request.setMethodArgs(new Object[] { Request.getDefaultInstance() });
+        return request;
+    }
+
+    private SofaRequest buildGenericRequest(String methodName) throws NoSuchMethodException {
+        SofaRequest request = new SofaRequest();
+        request.setInterfaceName(HelloService.class.getName());
+        request.setMethodName(methodName);
+        request.setMethod(HelloService.class.getMethod("hello", String.class));
+        request.setMethodArgSigs(new String[] { String.class.getName() });
+        request.setMethodArgs(new Object[] { "xxx" });
+        return request;
+    }
+
+    private static class NoopObserver implements StreamObserver<SofaResponse> {
+
+        @Override
+        public void onNext(SofaResponse value) {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+
+    private static class MockChannel extends Channel {
+
+        private final List<MethodDescriptor<?, ?>> methodDescriptors = new ArrayList<MethodDescriptor<?, ?>>();
+
+        private final List<CallOptions>            callOptions       = new ArrayList<CallOptions>();
+
+        @Override
+        public <RequestT, ResponseT> ClientCall<RequestT, ResponseT> newCall(MethodDescriptor<RequestT, ResponseT> methodDescriptor,
+                                                                             CallOptions callOptions) {
+            methodDescriptors.add(methodDescriptor);
+            this.callOptions.add(callOptions);
+            return (ClientCall<RequestT, ResponseT>) new MockCall();
+        }
+
+        @Override
+        public String authority() {
+            return "127.0.0.1:50051";
+        }
+    }
+
+    private static class MockCall extends ClientCall<Object, Object> {
+
+        @Override
+        public void start(Listener<Object> responseListener, Metadata headers) {
+        }
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void cancel(String message, Throwable cause) {
+        }
+
+        @Override
+        public void halfClose() {
+        }
+
+        @Override
+        public void sendMessage(Object message) {
+        }
+    }
+
+    /**
+     * 模拟生成的 SofaXxxTriple 类，包含一个 unary 方法和一个 server streaming 方法
+     */
+    public static class StreamTriple {
+
+        private static CallOptions              callOptions;
+
+        private static int                      timeout;
+
+        private static StreamObserver<Response> streamObserver;
+
+        public static SofaStreamStub getSofaStub(Channel channel, CallOptions callOptions, int timeout) {
+            StreamTriple.callOptions = callOptions;
+            StreamTriple.timeout = timeout;
+            return new SofaStreamStub();
+        }
+
+        public interface IStreamService {
+
+            Response sayHello(Request request);
+
+            void sayHelloStream(Request request, StreamObserver<Response> responseObserver);
+        }
+
+        public static class SofaStreamStub implements IStreamService {
+
+            protected StreamGrpc.StreamStub stub;
+
+            @Override
+            public Response sayHello(Request request) {
+                return Response.getDefaultInstance();
+            }
+
+            @Override
+            public void sayHelloStream(Request request, StreamObserver<Response> responseObserver) {
+                streamObserver = responseObserver;
+            }
+        }
+    }
+
+    /**
+     * 模拟生成的 XxxGrpc 类，提供服务描述
+     */
+    public static class StreamGrpc {
+
+        public static ServiceDescriptor getServiceDescriptor() {
+            return ServiceDescriptor.newBuilder("StreamService")
+                .addMethod(buildMethodDescriptor("StreamService/SayHello", MethodDescriptor.MethodType.UNARY))
+                .addMethod(buildMethodDescriptor("StreamService/say_hello_stream",
+                    MethodDescriptor.MethodType.SERVER_STREAMING))
+                .build();
+        }
+
+        private static MethodDescriptor<Request, Response> buildMethodDescriptor(String fullMethodName,
+                                                                                 MethodDescriptor.MethodType type) {
+            return MethodDescriptor.<Request, Response> newBuilder()
+                .setType(type)
+                .setFullMethodName(fullMethodName)
+                .setRequestMarshaller(ProtoUtils.marshaller(Request.getDefaultInstance()))
+                .setResponseMarshaller(ProtoUtils.marshaller(Response.getDefaultInstance()))
+                .build();
+        }
+
+        public static class StreamStub {
+        }
+    }
+}
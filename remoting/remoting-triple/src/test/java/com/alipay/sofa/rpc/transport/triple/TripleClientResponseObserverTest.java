@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.triple;
+
+import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.context.RpcInternalContext;
+import com.alipay.sofa.rpc.core.exception.RpcErrorType;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.exception.SofaTimeOutException;
+import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
+import com.alipay.sofa.rpc.core.request.RequestBase;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.event.ClientAfterSendEvent;
+import com.alipay.sofa.rpc.event.Event;
+import com.alipay.sofa.rpc.event.EventBus;
+import com.alipay.sofa.rpc.event.Subscriber;
+import com.alipay.sofa.rpc.message.ResponseFuture;
+import com.alipay.sofa.rpc.message.triple.TripleResponseFuture;
+import com.alipay.sofa.rpc.transport.ClientTransportConfig;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 测试 Triple 异步调用的发送和响应处理
+ */
+public class TripleClientResponseObserverTest {
+
+    private SofaRequest buildRequest(String invokeType) {
+        SofaRequest request = new SofaRequest();
+        request.setInterfaceName("com.alipay.sofa.rpc.test.HelloService");
+        request.setMethodName("sayHello");
+        request.setMethodArgs(new Object[] { "xxx" });
+        request.setInvokeType(invokeType);
+        return request;
+    }
+
+    private TestTransport buildTransport() {
+        ClientTransportConfig config = new ClientTransportConfig()
+            .setConsumerConfig(new ConsumerConfig<Object>())
+            .setProviderInfo(new ProviderInfo().setHost("127.0.0.1").setPort(50051));
+        return new TestTransport(config);
+    }
+
+    private TripleClientResponseObserver buildObserver(SofaRequest request, TripleResponseFuture<Object> future,
+                                                       SofaResponseCallback callback) {
+        return new TripleClientResponseObserver(buildTransport(), request, RpcInternalContext.getContext(),
+            Thread.currentThread().getContextClassLoader(), future, callback);
+    }
+
+    @Test
+    public void testOnCompleted() throws Exception {
+        SofaRequest request = buildRequest(RpcConstants.INVOKER_TYPE_FUTURE);
+        TripleResponseFuture<Object> future = new TripleResponseFuture<Object>(request, 3000);
+        TripleClientResponseObserver observer = buildObserver(request, future, null);
+        SofaResponse response = new SofaResponse();
+        response.setAppResponse("hello");
+        observer.onNext(response);
+        Assert.assertFalse(future.isDone());
+        observer.onCompleted();
+        Assert.assertTrue(future.isDone());
+        Assert.assertEquals("hello", future.get());
+
+        // 没有收到响应体时按空结果返回
+        future = new TripleResponseFuture<Object>(request, 3000);
+        buildObserver(request, future, null).onCompleted();
+        Assert.assertNull(future.get());
+    }
+
+    @Test
+    public void testOnCompletedWithException() throws Exception {
+        SofaRequest request = buildRequest(RpcConstants.INVOKER_TYPE_FUTURE);
+        TripleResponseFuture<Object> future = new TripleResponseFuture<Object>(request, 3000);
+        TripleClientResponseObserver observer = buildObserver(request, future, null);
+        RuntimeException cause = new RuntimeException("biz error");
+        SofaResponse response = new SofaResponse();
+        response.setAppResponse(cause);
+        observer.onNext(response);
+        observer.onCompleted();
+        try {
+            future.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertSame(cause, e.getCause());
+        }
+
+        future = new TripleResponseFuture<Object>(request, 3000);
+        observer = buildObserver(request, future, null);
+        response = new SofaResponse();
+        response.setErrorMsg("rpc error");
+        observer.onNext(response);
+        observer.onCompleted();
+        try {
+            future.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SofaRpcException);
+            Assert.assertEquals(RpcErrorType.SERVER_UNDECLARED_ERROR,
+                ((SofaRpcException) e.getCause()).getErrorType());
+        }
+    }
+
+    @Test
+    public void testOnError() throws Exception {
+        SofaRequest request = buildRequest(RpcConstants.INVOKER_TYPE_FUTURE);
+        TripleResponseFuture<Object> future = new TripleResponseFuture<Object>(request, 3000);
+        buildObserver(request, future, null).onError(Status.UNAVAILABLE.asRuntimeException());
+        try {
+            future.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SofaRpcException);
+            Assert.assertEquals(RpcErrorType.CLIENT_NETWORK, ((SofaRpcException) e.getCause()).getErrorType());
+        }
+    }
+
+    @Test
+    public void testCallback() {
+        SofaRequest request = buildRequest(RpcConstants.INVOKER_TYPE_CALLBACK);
+        TestCallback callback = new TestCallback();
+        TripleClientResponseObserver observer = buildObserver(request, null, callback);
+        SofaResponse response = new SofaResponse();
+        response.setAppResponse("hello");
+        observer.onNext(response);
+        observer.onCompleted();
+        Assert.assertEquals("hello", callback.appResponse);
+
+        callback = new TestCallback();
+        buildObserver(request, null, callback).onError(Status.DEADLINE_EXCEEDED.asRuntimeException());
+        Assert.assertTrue(callback.sofaException instanceof SofaTimeOutException);
+
+        callback = new TestCallback();
+        observer = buildObserver(request, null, callback);
+        RuntimeException cause = new RuntimeException("biz error");
+        response = new SofaResponse();
+        response.setAppResponse(cause);
+        observer.onNext(response);
+        observer.onCompleted();
+        Assert.assertSame(cause, callback.appException);
+    }
+
+    @Test
+    public void testAsyncSend() throws Exception {
+        final List<Event> events = new ArrayList<Event>();
+        Subscriber subscriber = new Subscriber() {
+            @Override
+            public void onEvent(Event event) {
+                events.add(event);
+            }
+        };
+        EventBus.register(ClientAfterSendEvent.class, subscriber);
+        try {
+            TestTransport transport = buildTransport();
+            SofaRequest request = buildRequest(RpcConstants.INVOKER_TYPE_FUTURE);
+            ResponseFuture future = transport.asyncSend(request, 3000);
+            Assert.assertTrue(future instanceof TripleResponseFuture);
+            Assert.assertSame(request, transport.invoker.request);
+            Assert.assertEquals(1, events.size());
+            Assert.assertSame(request, ((ClientAfterSendEvent) events.get(0)).getRequest());
+
+            SofaResponse response = new SofaResponse();
+            response.setAppResponse("hello");
+            transport.invoker.responseObserver.onNext(response);
+            transport.invoker.responseObserver.onCompleted();
+            Assert.assertEquals("hello", future.get());
+
+            // callback 调用不返回 Future
+            request = buildRequest(RpcConstants.INVOKER_TYPE_CALLBACK);
+            TestCallback callback = new TestCallback();
+            request.setSofaResponseCallback(callback);
+            Assert.assertNull(transport.asyncSend(request, 3000));
+            transport.invoker.responseObserver.onNext(response);
+            transport.invoker.responseObserver.onCompleted();
+            Assert.assertEquals("hello", callback.appResponse);
+            Assert.assertEquals(2, events.size());
+
+            // 发送失败时同样结束发送
+            transport.invoker.exception = new SofaRpcException(RpcErrorType.CLIENT_NETWORK, "send error");
+            try {
+                transport.asyncSend(buildRequest(RpcConstants.INVOKER_TYPE_FUTURE), 3000);
+                Assert.fail();
+            } catch (SofaRpcException e) {
+                Assert.assertSame(transport.invoker.exception, e);
+            }
+            Assert.assertEquals(3, events.size());
+        } finally {
+            EventBus.unRegister(ClientAfterSendEvent.class, subscriber);
+            RpcInternalContext.removeAllContext();
+        }
+    }
+
+    private static class TestTransport extends TripleClientTransport {
+
+        private final TestInvoker invoker = new TestInvoker();
+
+        public TestTransport(ClientTransportConfig transportConfig) {
+            super(transportConfig);
+            tripleClientInvoker = invoker;
+        }
+
+        @Override
+        public void connect() {
+        }
+    }
+
+    private static class TestInvoker implements TripleInvoker {
+
+        private SofaRequest                  request;
+
+        private StreamObserver<SofaResponse> responseObserver;
+
+        private SofaRpcException             exception;
+
+        @Override
+        public SofaResponse invoke(SofaRequest sofaRequest, int timeout) throws Exception {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void asyncInvoke(SofaRequest sofaRequest, int timeout, StreamObserver<SofaResponse> responseObserver)
+            throws Exception {
+            if (exception != null) {
+                throw exception;
+            }
+            this.request = sofaRequest;
+            this.responseObserver = responseObserver;
+        }
+    }
+
+    private static class TestCallback implements SofaResponseCallback {
+
+        private Object           appResponse;
+
+        private Throwable        appException;
+
+        private SofaRpcException sofaException;
+
+        @Override
+        public void onAppResponse(Object appResponse, String methodName, RequestBase request) {
+            this.appResponse = appResponse;
+        }
+
+        @Override
+        public void onAppException(Throwable throwable, String methodName, RequestBase request) {
+            this.appException = throwable;
+        }
+
+        @Override
+        public void onSofaException(SofaRpcException sofaException, String methodName, RequestBase request) {
+            this.sofaException = sofaException;
+        }
+    }
+}
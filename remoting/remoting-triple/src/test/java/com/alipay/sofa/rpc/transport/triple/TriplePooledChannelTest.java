@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.triple;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ */
+public class TriplePooledChannelTest {
+
+    @Test
+    public void testLeastActiveStreams() {
+        MockChannel first = new MockChannel();
+        MockChannel second = new MockChannel();
+        TriplePooledChannel pooled = new TriplePooledChannel(new ManagedChannel[] { first, second });
+
+        ClientCall<Object, Object> call1 = pooled.newCall(null, CallOptions.DEFAULT);
+        call1.start(new ClientCall.Listener<Object>() {
+        }, new Metadata());
+        ClientCall<Object, Object> call2 = pooled.newCall(null, CallOptions.DEFAULT);
+        call2.start(new ClientCall.Listener<Object>() {
+        }, new Metadata());
+
+        Assert.assertEquals(1, first.calls.size());
+        Assert.assertEquals(1, second.calls.size());
+        Assert.assertEquals(1, pooled.getActiveStreams(0));
+        Assert.assertEquals(1, pooled.getActiveStreams(1));
+
+        first.calls.get(0).listener.onClose(Status.OK, new Metadata());
+        Assert.assertEquals(0, pooled.getActiveStreams(0));
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(0, pooled.select());
+        }
+    }
+
+    @Test
+    public void testSkipUnavailable() {
+        MockChannel first = new MockChannel();
+        MockChannel second = new MockChannel();
+        first.state = ConnectivityState.TRANSIENT_FAILURE;
+        TriplePooledChannel pooled = new TriplePooledChannel(new ManagedChannel[] { first, second });
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(1, pooled.select());
+        }
+        Assert.assertEquals(ConnectivityState.READY, pooled.getState(false));
+
+        second.state = ConnectivityState.TRANSIENT_FAILURE;
+        Assert.assertEquals(ConnectivityState.TRANSIENT_FAILURE, pooled.getState(false));
+        second.state = ConnectivityState.CONNECTING;
+        Assert.assertEquals(ConnectivityState.CONNECTING, pooled.getState(false));
+    }
+
+    @Test
+    public void testShutdown() throws InterruptedException {
+        MockChannel first = new MockChannel();
+        MockChannel second = new MockChannel();
+        TriplePooledChannel pooled = new TriplePooledChannel(new ManagedChannel[] { first, second });
+        Assert.assertFalse(pooled.isShutdown());
+        pooled.shutdown();
+        Assert.assertTrue(first.isShutdown());
+        Assert.assertTrue(second.isShutdown());
+        Assert.assertTrue(pooled.isShutdown());
+        Assert.assertTrue(pooled.awaitTermination(1, TimeUnit.SECONDS));
+        Assert.assertEquals(ConnectivityState.SHUTDOWN, pooled.getState(false));
+    }
+
+    private static class MockChannel extends ManagedChannel {
+
+        private volatile ConnectivityState state    = ConnectivityState.READY;
+
+        private final List<MockCall>       calls    = new ArrayList<MockCall>();
+
+        private volatile boolean           shutdown = false;
+
+        @Override
+        public ManagedChannel shutdown() {
+            shutdown = true;
+            state = ConnectivityState.SHUTDOWN;
+            return this;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public ManagedChannel shutdownNow() {
+            return shutdown();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return shutdown;
+        }
+
+        @Override
+        public ConnectivityState getState(boolean requestConnection) {
+            return state;
+        }
+
+        @Override
+        public <RequestT, ResponseT> ClientCall<RequestT, ResponseT> newCall(MethodDescriptor<RequestT, ResponseT> methodDescriptor,
+                                                                             CallOptions callOptions) {
+            MockCall call = new MockCall();
+            calls.add(call);
+            return (ClientCall<RequestT, ResponseT>) call;
+        }
+
+        @Override
+        public String authority() {
+            return "127.0.0.1:50051";
+        }
+    }
+
+    private static class MockCall extends ClientCall<Object, Object> {
+
+        private Listener<Object> listener;
+
+        @Override
+        public void start(Listener<Object> responseListener, Metadata headers) {
+            this.listener = responseListener;
+        }
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void cancel(String message, Throwable cause) {
+        }
+
+        @Override
+        public void halfClose() {
+        }
+
+        @Override
+        public void sendMessage(Object message) {
+        }
+    }
+}
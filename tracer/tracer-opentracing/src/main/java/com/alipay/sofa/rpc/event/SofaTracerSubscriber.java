@@ -48,10 +48,13 @@ public class SofaTracerSubscriber extends Subscriber {
 
         else if (eventClass == ClientAsyncReceiveEvent.class) {
             ClientAsyncReceiveEvent event = (ClientAsyncReceiveEvent) originEvent;
-            // 拿出tracer信息 让入Tracer自己的上下文
-            Tracers.clientAsyncReceivedPrepare();
-            // 记录收到返回
-            Tracers.clientReceived(event.getRequest(), event.getResponse(), event.getThrowable());
+            // 同步请求异步发送时（例如对冲调用），span 仍由调用线程在调用结束时记录
+            if (event.getRequest().isAsync()) {
+                // 拿出tracer信息 让入Tracer自己的上下文
+                Tracers.clientAsyncReceivedPrepare();
+                // 记录收到返回
+                Tracers.clientReceived(event.getRequest(), event.getResponse(), event.getThrowable());
+            }
         } else if (eventClass == ClientEndInvokeEvent.class) {
             ClientEndInvokeEvent event = (ClientEndInvokeEvent) originEvent;
             if (!event.getRequest().isAsync()) {